@@ -4,17 +4,12 @@
 package kn.uni.hamborg.adv;
 
 import java.util.logging.Logger;
-import kn.uni.hamborg.data.light.LightDoc;
 
 /**
- * This class represents a configuration for the analysis process. It is
- * actually a quick hack to allow any component, currently only Web-controllers,
- * to change/set these parameters, and any other component, e.g., the
- * Summarizer, to access such values this way.
- *
- * Actually some of these parameters are not changed by the users at all, but
- * only set in here (set by the developer). Convention: All of them are
- * {@code final}.
+ * This class represents a configuration for the analysis process. These
+ * parameters are not changed by the users at all, but only set in here (set by
+ * the developer). Convention: All of them are {@code final}. Parameters set by
+ * the user are held by the {@link AnalysisSession} of each analysis.
  *
  * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
  */
@@ -27,19 +22,41 @@ public class AnalysisConfiguration {
     public static final boolean topicQueryHasTopTermsSuperBoosted = true;
     public static final boolean topicQueryForceAllTopTermsIncluded = false;
     public static final boolean enabledCellNgramScorer = false;
-
-    // user set variables
-    public static boolean summarization_OrderSentencesByFirstOccurenceInDoc = true;
-
-    // from lin2002single
-    public static boolean summarization_Lin2002Single_FirstSentencesOnly = false;
-    public static boolean summarization_Lin2002Single_StartingWithStigmaWords_ReducedScore = false;
-    // not implemented yet
-    public static boolean summarization_Lin2002Single_Overlap = false;
-
-    public static final String topicMergingSummarizationField = LightDoc.TITLE_STEMMED;
-
-    // which field should be used to compute topics (before summarization scoring)
-    public static String topicField;
+    // the topic model of an analysis is estimated until its log-likelihood per token improves by less than the threshold
+    // (relative) for patience consecutive checks, but at least for min and at most for max iterations, or until the time budget is used
+    public static final int topicMaxIterations = 1500;
+    public static final int topicMinIterations = 200;
+    public static final int topicConvergenceCheckIterations = 50;
+    public static final double topicConvergenceThreshold = 0.001;
+    public static final int topicConvergencePatience = 2;
+    public static final int topicEstimationTimeBudgetSeconds = 60;
+    // whether topic model instances are built from the stored term vectors (stemmed terms) of the topic field instead of re-tokenizing its text
+    public static final boolean topicInstancesFromTermVectors = true;
+    // whether topics are inferred with the pre-trained topic model (if it exists) instead of training a model for each analysis
+    public static final boolean useGlobalTopicModel = true;
+    // sampling iterations to infer the topics of a cell document with the pre-trained topic model
+    public static final int topicInferenceIterations = 100;
+    public static final int topicInferenceThinning = 10;
+    public static final int topicInferenceBurnIn = 10;
+    // whether topics whose term probabilities have a cosine similarity of at least the threshold are merged after their computation, off by default as merging was disabled before
+    public static final boolean mergeTopics = false;
+    public static final double topicMergeSimilarityThreshold = 0.7;
+    // the time occurrence likeliness of a topic compares the matrix dates with the same dates this many weeks before
+    public static final int topicLikelinessWeeksBefore = 8;
+    // number of days before the matrix start date covered by the daily occurrence series of each topic
+    public static final int topicTimeSeriesHistoryDays = 90;
+    // whether near-duplicate documents (same MinHash cluster) are collapsed in cells and summaries if the query does not say, clients opt in with collapseDuplicates
+    public static final boolean collapseDuplicatesByDefault = false;
+    // when collapsing, this many times more documents are retrieved for summaries, so that enough distinct ones remain
+    public static final int duplicateCollapseOversampling = 3;
+    // number of worker threads used to build, summarize cells and topics in parallel (1 means sequential)
+    public static final int numberOfAnalysisThreads = Runtime.getRuntime().availableProcessors();
+    // number of finished analyses (matrices) the server keeps for cell information requests and repeated queries
+    public static final int numberOfRetainedAnalyses = 10;
+    // number of analyses (queries) the server runs at the same time, and that may wait for execution
+    public static final int maxConcurrentAnalyses = 2;
+    public static final int maxQueuedAnalyses = 20;
+    // whether the matrix information of finished analyses is also stored on disk, so that it survives restarts
+    public static final boolean persistAnalysisResults = false;
 
 }
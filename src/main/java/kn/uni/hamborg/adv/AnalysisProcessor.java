@@ -3,15 +3,23 @@
  */
 package kn.uni.hamborg.adv;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import kn.uni.hamborg.adv.scorer.CellNgramScorer;
 import kn.uni.hamborg.adv.summary.AdvSummarizer;
 import kn.uni.hamborg.adv.table.TableManager;
+import kn.uni.hamborg.adv.topic.GlobalTopicModel;
+import kn.uni.hamborg.adv.topic.MalletInferencingTopicExtractor;
 import kn.uni.hamborg.adv.topic.MalletParallelTopicExtractor;
 import kn.uni.hamborg.adv.topic.TopicSummarizer;
 import kn.uni.hamborg.adv.topic.TopicTimeOccurrenceLikeliness;
+import kn.uni.hamborg.config.StatConfig;
 import kn.uni.hamborg.data.light.LightDoc;
+import kn.uni.hamborg.utils.ThreadUtils;
 import kn.uni.hamborg.web.cell.SummaryField;
 import kn.uni.hamborg.web.query.QueryCommand;
 
@@ -24,28 +32,169 @@ public class AnalysisProcessor {
     private static final Logger LOG = Logger.getLogger(AnalysisProcessor.class.getSimpleName());
 
     private final AnalysisWorkflow analysisWorkflow;
-    private QueryCommand queryCommand;
+    /**
+     * Executes the independent per-cell and per-topic work. Is {@code null} if
+     * this runs sequentially. Shared by all analyses.
+     */
+    private final ExecutorService executorService;
+    private final QueryCommand queryCommand;
+    private final AnalysisSession session;
+    private final String analysisId;
+    private final AnalysisProgress progress;
+    /**
+     * The finished analyses created by {@link #withQuery(QueryCommand)},
+     * accessible by their ID. Least recently accessed analyses are removed
+     * and released if more than
+     * {@link AnalysisConfiguration#numberOfRetainedAnalyses} are held.
+     */
+    private final Map<String, AnalysisProcessor> analyses;
+    private volatile AnalysisProcessor latestAnalysis;
 
     public AnalysisProcessor() {
         this(AnalysisWorkflow.createDefaultWorkflow());
     }
 
     public AnalysisProcessor(AnalysisWorkflow analysisWorkflow) {
+        this(analysisWorkflow, AnalysisConfiguration.numberOfAnalysisThreads);
+    }
+
+    /**
+     * Constructs an {@code AnalysisProcessor} that builds and summarizes cells
+     * and summarizes topics in parallel, using at most
+     * {@code numberOfThreads} worker threads.
+     *
+     * @param analysisWorkflow
+     * @param numberOfThreads if {@code <= 1} everything is run sequentially in
+     * the calling thread.
+     */
+    public AnalysisProcessor(AnalysisWorkflow analysisWorkflow, int numberOfThreads) {
+        this(analysisWorkflow,
+                numberOfThreads > 1 ? ThreadUtils.createFixedThreadPool("analysis", numberOfThreads) : null,
+                null, AnalysisSession.DEFAULT, null);
+        LOG.log(Level.INFO, "using {0} analysis threads", Math.max(1, numberOfThreads));
+    }
+
+    private AnalysisProcessor(AnalysisWorkflow analysisWorkflow, ExecutorService executorService,
+            QueryCommand queryCommand, AnalysisSession session, String analysisId) {
         this.analysisWorkflow = analysisWorkflow;
+        this.executorService = executorService;
+        this.queryCommand = queryCommand;
+        this.session = session;
+        this.analysisId = analysisId;
+        this.progress = new AnalysisProgress();
+        this.analyses = new LinkedHashMap<String, AnalysisProcessor>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, AnalysisProcessor> eldest) {
+                if (size() <= AnalysisConfiguration.numberOfRetainedAnalyses) {
+                    return false;
+                }
+                final AnalysisProcessor analysis = eldest.getValue();
+                if (latestAnalysis == analysis) {
+                    latestAnalysis = null;
+                }
+                analysis.getAnalysisWorkflow().release();
+                LOG.log(Level.INFO, "evicted analysis {0}", analysis.getAnalysisId());
+                return true;
+            }
+        };
     }
 
+    /**
+     * Creates a new analysis for {@code queryCommand}. The returned
+     * {@code AnalysisProcessor} has its own {@link AnalysisWorkflow} and
+     * {@link AnalysisSession}, thus it does not change this
+     * {@code AnalysisProcessor} and can run concurrently to other analyses.
+     *
+     * @param queryCommand
+     * @return
+     */
     public AnalysisProcessor withQuery(QueryCommand queryCommand) {
-        this.queryCommand = queryCommand;
-        AnalysisConfiguration.summarization_OrderSentencesByFirstOccurenceInDoc = queryCommand.isSummarization_OrderSentencesByFirstOccurenceInDoc();
-        AnalysisConfiguration.summarization_Lin2002Single_FirstSentencesOnly = queryCommand.isSummarization_Lin2002Single_FirstSentencesOnly();
-        AnalysisConfiguration.topicField = queryCommand.getTopicField();
+        final AnalysisProcessor analysis = new AnalysisProcessor(
+                analysisWorkflow.createAnalysisWorkflow(),
+                executorService,
+                queryCommand,
+                AnalysisSession.fromQueryCommand(queryCommand),
+                UUID.randomUUID().toString());
 
-        LOG.log(Level.INFO, "updated {0}", new Object[]{AnalysisConfiguration.class.getSimpleName()});
+        LOG.log(Level.INFO, "created analysis {0} with {1}", new Object[]{analysis.getAnalysisId(), analysis.getSession()});
 
-        return this;
+        return analysis;
+    }
+
+    /**
+     * Makes a finished analysis created by {@link #withQuery(QueryCommand)}
+     * accessible by its ID and as the latest analysis. Does nothing if the
+     * analysis has been released already, e.g., because it has been evicted
+     * before.
+     *
+     * @param analysis
+     */
+    public void addAnalysis(AnalysisProcessor analysis) {
+        synchronized (analyses) {
+            if (analysis.getAnalysisWorkflow().isReleased()) {
+                return;
+            }
+            analyses.put(analysis.getAnalysisId(), analysis);
+            latestAnalysis = analysis;
+        }
+    }
+
+    /**
+     * Makes an analysis inaccessible and releases its index, see
+     * {@link AnalysisWorkflow#release()}.
+     *
+     * @param analysis
+     */
+    public void removeAnalysis(AnalysisProcessor analysis) {
+        synchronized (analyses) {
+            analyses.remove(analysis.getAnalysisId());
+            if (latestAnalysis == analysis) {
+                latestAnalysis = null;
+            }
+        }
+        analysis.getAnalysisWorkflow().release();
+    }
+
+    /**
+     * Returns the finished analysis with the given ID.
+     *
+     * @param analysisId if {@code null}, the latest finished analysis is
+     * returned.
+     * @return {@code null} if there is no such analysis (anymore).
+     */
+    public AnalysisProcessor getAnalysis(String analysisId) {
+        if (analysisId == null) {
+            return latestAnalysis;
+        }
+        synchronized (analyses) {
+            return analyses.get(analysisId);
+        }
+    }
+
+    /**
+     * Same as {@link #getAnalysis(String)}, but the index of the returned
+     * analysis stays open until it is given back by
+     * {@link #releaseAnalysis(AnalysisProcessor)}, even if the analysis is
+     * removed or evicted in the meantime.
+     *
+     * @param analysisId if {@code null}, the latest finished analysis is
+     * returned.
+     * @return {@code null} if there is no such analysis (anymore).
+     */
+    public AnalysisProcessor acquireAnalysis(String analysisId) {
+        final AnalysisProcessor analysis = getAnalysis(analysisId);
+        return analysis != null && analysis.getAnalysisWorkflow().tryIncRef() ? analysis : null;
+    }
+
+    /**
+     * @param analysis an analysis returned by {@link #acquireAnalysis(String)}.
+     */
+    public void releaseAnalysis(AnalysisProcessor analysis) {
+        analysis.getAnalysisWorkflow().decRef();
     }
 
     public AnalysisProcessor buildTable() {
+        progress.startStage(AnalysisProgress.Stage.BUILDING_TABLE);
         analysisWorkflow.setTableManager(
                 new TableManager(
                         analysisWorkflow.getIndexReader(),
@@ -53,7 +202,10 @@ public class AnalysisProcessor {
                         analysisWorkflow.getQueryParser(),
                         queryCommand.getRows(),
                         queryCommand.getColumns(),
-                        queryCommand.getFilterQuery()));
+                        queryCommand.getFilterQuery(),
+                        executorService,
+                        progress,
+                        session.isCollapseDuplicates()));
 
         return this;
     }
@@ -65,19 +217,41 @@ public class AnalysisProcessor {
      * @return
      */
     public AnalysisProcessor computeTopics() {
-        analysisWorkflow.setTopicExtractor(new MalletParallelTopicExtractor(
-                analysisWorkflow.getTableManager(),
-                AnalysisConfiguration.topicField,
-                analysisWorkflow.getQueryParser(),
-                queryCommand.getNumberOfTopicsPerCell(),
-                queryCommand.getTopicCellDocumentMergeType(),
-                analysisWorkflow.getIndexReader(),
-                analysisWorkflow.getIndexSearcher(),
-                analysisWorkflow.getAnalyzer()
-        ));
+        progress.startStage(AnalysisProgress.Stage.COMPUTING_TOPICS);
+        final GlobalTopicModel globalTopicModel = AnalysisConfiguration.useGlobalTopicModel
+                ? GlobalTopicModel.getModel(StatConfig.pathGlobalTopicModel) : null;
+        if (globalTopicModel != null && globalTopicModel.getFieldname().equals(session.getTopicField())) {
+            if (!globalTopicModel.covers(queryCommand.getFromTo())) {
+                LOG.log(Level.WARNING, "{0} has not been trained with all dates of the analysis", globalTopicModel);
+            }
+            analysisWorkflow.setTopicExtractor(new MalletInferencingTopicExtractor(
+                    analysisWorkflow.getTableManager(),
+                    globalTopicModel,
+                    analysisWorkflow.getQueryParser(),
+                    queryCommand.getNumberOfTopicsPerCell(),
+                    queryCommand.getTopicCellDocumentMergeType(),
+                    analysisWorkflow.getIndexReader(),
+                    analysisWorkflow.getIndexSearcher(),
+                    analysisWorkflow.getAnalyzer(),
+                    progress
+            ));
+        } else {
+            // no suitable pre-trained model, train one for this analysis
+            analysisWorkflow.setTopicExtractor(new MalletParallelTopicExtractor(
+                    analysisWorkflow.getTableManager(),
+                    session.getTopicField(),
+                    analysisWorkflow.getQueryParser(),
+                    queryCommand.getNumberOfTopicsPerCell(),
+                    queryCommand.getTopicCellDocumentMergeType(),
+                    analysisWorkflow.getIndexReader(),
+                    analysisWorkflow.getIndexSearcher(),
+                    analysisWorkflow.getAnalyzer(),
+                    progress
+            ));
+        }
         /*analysisWorkflow.setTopicExtractor(new IHTMTopicExtractor(
          analysisWorkflow.getTableManager(),
-         AnalysisConfiguration.topicField,
+         session.getTopicField(),
          analysisWorkflow.getQueryParser(),
          analysisWorkflow.getIndexReader(),
          analysisWorkflow.getIndexSearcher(),
@@ -86,19 +260,26 @@ public class AnalysisProcessor {
         analysisWorkflow.getTopicExtractor().computeTopics();
         LOG.info("finished computation of topics");
 
-        //analysisWorkflow.getTopicExtractor().mergeTopics();
-        //LOG.info("finished merging of topics");
+        if (AnalysisConfiguration.mergeTopics) {
+            analysisWorkflow.getTopicExtractor().mergeTopics(executorService);
+            LOG.info("finished merging of topics");
+        }
+        progress.startStage(AnalysisProgress.Stage.SUMMARIZING_TOPICS);
         analysisWorkflow.setTopicSummarizer(new TopicSummarizer(
                 analysisWorkflow.getTableManager(),
                 SummaryField.values(),
                 analysisWorkflow.getIndexReader(),
                 analysisWorkflow.getIndexSearcher(),
                 analysisWorkflow.getAnalyzer(),
-                analysisWorkflow.getTopicExtractor()
+                analysisWorkflow.getTopicExtractor(),
+                session,
+                executorService,
+                progress
         ));
         analysisWorkflow.getTopicSummarizer().computeSummaries();
         LOG.info("finished computation of topic summaries");
 
+        progress.startStage(AnalysisProgress.Stage.COMPUTING_TOPIC_LIKELINESS);
         TopicTimeOccurrenceLikeliness topicTimeLikeliness = new TopicTimeOccurrenceLikeliness(
                 analysisWorkflow.getTopicExtractor(),
                 queryCommand,
@@ -117,9 +298,10 @@ public class AnalysisProcessor {
      * @return
      */
     public AnalysisProcessor computeSummaries() {
+        progress.startStage(AnalysisProgress.Stage.SUMMARIZING_CELLS);
         analysisWorkflow.setSummarizer(new AdvSummarizer(analysisWorkflow.getTableManager(), SummaryField.values(),
                 analysisWorkflow.getIndexReader(), analysisWorkflow.getIndexSearcher(),
-                analysisWorkflow.getAnalyzer(), analysisWorkflow.getTopicExtractor()));
+                analysisWorkflow.getAnalyzer(), analysisWorkflow.getTopicExtractor(), session, executorService, progress));
         analysisWorkflow.getSummarizer().computeSummaries();
 
         if (AnalysisConfiguration.enabledCellNgramScorer) {
@@ -137,4 +319,31 @@ public class AnalysisProcessor {
         return analysisWorkflow;
     }
 
+    public QueryCommand getQueryCommand() {
+        return queryCommand;
+    }
+
+    /**
+     * Returns the progress of this analysis, which also allows to cancel it.
+     *
+     * @return
+     */
+    public AnalysisProgress getProgress() {
+        return progress;
+    }
+
+    public AnalysisSession getSession() {
+        return session;
+    }
+
+    /**
+     * Returns the ID of this analysis, or {@code null} if this
+     * {@code AnalysisProcessor} is not bound to a query.
+     *
+     * @return
+     */
+    public String getAnalysisId() {
+        return analysisId;
+    }
+
 }
@@ -0,0 +1,137 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.adv;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tracks the progress of a single analysis and allows to cancel it. The
+ * components of the analysis report the stage they are in and the number of
+ * finished work units, e.g., cells or topics, and check regularly whether the
+ * analysis has been cancelled. All methods are thread-safe.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class AnalysisProgress {
+
+    private static final Logger LOG = Logger.getLogger(AnalysisProgress.class.getSimpleName());
+
+    public enum Stage {
+
+        QUEUED, BUILDING_TABLE, COMPUTING_TOPICS, SUMMARIZING_TOPICS,
+        COMPUTING_TOPIC_LIKELINESS, SUMMARIZING_CELLS, FINISHED, FAILED, CANCELLED
+    };
+
+    private volatile Stage stage = Stage.QUEUED;
+    /**
+     * Number of finished and total work units of the current stage.
+     */
+    private final AtomicInteger stepsDone = new AtomicInteger();
+    private volatile int stepsTotal;
+    /**
+     * Number of finished and total iterations of the topic model.
+     */
+    private volatile int topicIterationsDone;
+    private volatile int topicIterationsTotal;
+    private volatile boolean cancelled;
+
+    /**
+     * Sets the current stage and resets its work units.
+     *
+     * @param stage
+     * @throws CancellationException if the analysis has been cancelled.
+     */
+    public void startStage(Stage stage) {
+        checkCancelled();
+        stepsDone.set(0);
+        stepsTotal = 0;
+        this.stage = stage;
+        LOG.log(Level.INFO, "starting stage {0}", stage);
+    }
+
+    /**
+     * Sets the final stage, i.e., {@link Stage#FINISHED},
+     * {@link Stage#FAILED} or {@link Stage#CANCELLED}.
+     *
+     * @param stage
+     */
+    public void finish(Stage stage) {
+        this.stage = stage;
+    }
+
+    /**
+     * Wraps {@code tasks} so that each of them first checks whether the
+     * analysis has been cancelled and counts as a finished work unit of the
+     * current stage when done.
+     *
+     * @param <T>
+     * @param tasks
+     * @return
+     */
+    public <T> List<Callable<T>> track(List<Callable<T>> tasks) {
+        stepsTotal += tasks.size();
+        final List<Callable<T>> trackedTasks = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            trackedTasks.add(() -> {
+                checkCancelled();
+                final T result = task.call();
+                stepsDone.incrementAndGet();
+                return result;
+            });
+        }
+        return trackedTasks;
+    }
+
+    public void setTopicIterations(int done, int total) {
+        this.topicIterationsDone = done;
+        this.topicIterationsTotal = total;
+    }
+
+    /**
+     * Requests the cancellation of the analysis. The analysis stops at the
+     * next check, see {@link #checkCancelled()}.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws CancellationException if the analysis has been cancelled.
+     */
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("analysis has been cancelled");
+        }
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    public int getStepsDone() {
+        return stepsDone.get();
+    }
+
+    public int getStepsTotal() {
+        return stepsTotal;
+    }
+
+    public int getTopicIterationsDone() {
+        return topicIterationsDone;
+    }
+
+    public int getTopicIterationsTotal() {
+        return topicIterationsTotal;
+    }
+}
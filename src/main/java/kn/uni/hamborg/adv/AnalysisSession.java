@@ -0,0 +1,85 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.adv;
+
+import java.util.logging.Logger;
+import kn.uni.hamborg.data.light.LightDoc;
+import kn.uni.hamborg.web.query.QueryCommand;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * Holds the user set parameters of a single analysis, i.e., of one matrix
+ * computation. In contrast to {@link AnalysisConfiguration} an
+ * {@code AnalysisSession} is immutable and passed to the components that need
+ * it, so that multiple analyses can run concurrently without interfering with
+ * each other.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class AnalysisSession {
+
+    private static final Logger LOG = Logger.getLogger(AnalysisSession.class.getSimpleName());
+
+    /**
+     * The session used if no user set parameters are available, e.g., when
+     * summarizing outside of the web interface.
+     */
+    public static final AnalysisSession DEFAULT = new AnalysisSession(true, false, LightDoc.CONTENT_STEMMED,
+            AnalysisConfiguration.collapseDuplicatesByDefault);
+
+    private final boolean summarization_OrderSentencesByFirstOccurenceInDoc;
+
+    // from lin2002single
+    private final boolean summarization_Lin2002Single_FirstSentencesOnly;
+
+    // which field should be used to compute topics (before summarization scoring)
+    private final String topicField;
+
+    // whether near-duplicate documents are collapsed to one document in cells and summaries
+    private final boolean collapseDuplicates;
+
+    public AnalysisSession(boolean summarization_OrderSentencesByFirstOccurenceInDoc,
+            boolean summarization_Lin2002Single_FirstSentencesOnly, String topicField, boolean collapseDuplicates) {
+        this.summarization_OrderSentencesByFirstOccurenceInDoc = summarization_OrderSentencesByFirstOccurenceInDoc;
+        this.summarization_Lin2002Single_FirstSentencesOnly = summarization_Lin2002Single_FirstSentencesOnly;
+        this.topicField = topicField;
+        this.collapseDuplicates = collapseDuplicates;
+    }
+
+    /**
+     * Creates the {@code AnalysisSession} described by the user's
+     * {@link QueryCommand}.
+     *
+     * @param queryCommand
+     * @return
+     */
+    public static AnalysisSession fromQueryCommand(QueryCommand queryCommand) {
+        return new AnalysisSession(
+                queryCommand.isSummarization_OrderSentencesByFirstOccurenceInDoc(),
+                queryCommand.isSummarization_Lin2002Single_FirstSentencesOnly(),
+                queryCommand.getTopicField(),
+                queryCommand.isCollapseDuplicates());
+    }
+
+    public boolean isSummarization_OrderSentencesByFirstOccurenceInDoc() {
+        return summarization_OrderSentencesByFirstOccurenceInDoc;
+    }
+
+    public boolean isSummarization_Lin2002Single_FirstSentencesOnly() {
+        return summarization_Lin2002Single_FirstSentencesOnly;
+    }
+
+    public String getTopicField() {
+        return topicField;
+    }
+
+    public boolean isCollapseDuplicates() {
+        return collapseDuplicates;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+}
@@ -4,6 +4,9 @@
 package kn.uni.hamborg.adv;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import kn.uni.hamborg.adv.scorer.CellNgramScorer;
 import kn.uni.hamborg.adv.scorer.POSScorer;
@@ -16,14 +19,23 @@ import kn.uni.hamborg.lucene.analyzer.AnalyzerFactory;
 import kn.uni.hamborg.lucene.analyzer.QueryParserFactory;
 import kn.uni.hamborg.utils.IndexUtils;
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.store.Directory;
 
 /**
  * This represents an analysis workflow.
  *
+ * The default workflow of the server does not hold a fixed index, but a
+ * {@link SearcherManager} that is refreshed regularly, so that new documents
+ * become visible without restarting. Each analysis (see
+ * {@link #createAnalysisWorkflow()}) acquires the then current searcher and
+ * uses it until it is released, so that the document IDs of the analysis stay
+ * valid.
+ *
  * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
  */
 public class AnalysisWorkflow {
@@ -40,27 +52,171 @@ public class AnalysisWorkflow {
     private AdvSummarizer summarizer;
     private POSScorer parserScorer;
     private CellNgramScorer cellNgramScorer;
+    /**
+     * The manager the searcher is acquired from (if {@code indexSearcher} is
+     * null) or released to, null if the index is not refreshed.
+     */
+    private final SearcherManager searcherManager;
+    private final AtomicBoolean released = new AtomicBoolean();
+    /**
+     * The references to the searcher: one of the analysis until
+     * {@link #release()}, plus one per reader between {@link #tryIncRef()}
+     * and {@link #decRef()}. The searcher is given back once none is left.
+     */
+    private final AtomicInteger refCount = new AtomicInteger(1);
 
     public AnalysisWorkflow(IndexReader indexReader, IndexSearcher indexSearcher, QueryParser queryParser, Analyzer analyzer) {
+        this(indexReader, indexSearcher, queryParser, analyzer, null);
+    }
+
+    private AnalysisWorkflow(IndexReader indexReader, IndexSearcher indexSearcher, QueryParser queryParser,
+            Analyzer analyzer, SearcherManager searcherManager) {
         this.indexReader = indexReader;
         this.indexSearcher = indexSearcher;
         this.queryParser = queryParser;
         this.analyzer = analyzer;
+        this.searcherManager = searcherManager;
     }
 
+    /**
+     * Creates the workflow of the server, whose index is refreshed every
+     * {@link LuceneConfig#INDEX_REFRESH_INTERVAL_SECONDS}.
+     *
+     * @return
+     */
     public static AnalysisWorkflow createDefaultWorkflow() {
         try {
             Directory dir = IndexUtils.openDirectory(LuceneConfig.INDEX_DIR_DEFAULT);
-            IndexReader indexReader = IndexUtils.createIndexReader(dir);
-            IndexSearcher indexSearcher = IndexUtils.createIndexSearcher(indexReader);
+            SearcherManager searcherManager = IndexUtils.createRefreshingSearcherManager(dir,
+                    LuceneConfig.INDEX_REFRESH_INTERVAL_SECONDS);
             Analyzer analyzer = AnalyzerFactory.createCustomAnalyzer();
             QueryParser queryParser = QueryParserFactory.createQueryParser(analyzer);
-            return new AnalysisWorkflow(indexReader, indexSearcher, queryParser, analyzer);
+            return new AnalysisWorkflow(null, null, queryParser, analyzer, searcherManager);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Creates a new {@code AnalysisWorkflow} for a single analysis. It shares
+     * the index and analyzer of this {@code AnalysisWorkflow}, but has its own
+     * {@link QueryParser} (which is not thread-safe) and its own results, so
+     * that multiple analyses can run concurrently.
+     *
+     * @return
+     */
+    public AnalysisWorkflow createAnalysisWorkflow() {
+        if (indexSearcher != null) {
+            return new AnalysisWorkflow(indexReader, indexSearcher,
+                    QueryParserFactory.createQueryParser(analyzer), analyzer);
+        }
+        final IndexSearcher searcher = acquireSearcher();
+        return new AnalysisWorkflow(searcher.getIndexReader(), searcher,
+                QueryParserFactory.createQueryParser(analyzer), analyzer, searcherManager);
+    }
+
+    /**
+     * Returns the current searcher, which must be given back by
+     * {@link #releaseSearcher(IndexSearcher)} after use.
+     *
+     * @return
+     */
+    public IndexSearcher acquireSearcher() {
+        if (indexSearcher != null) {
+            return indexSearcher;
+        }
+        try {
+            return searcherManager.acquire();
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * @param searcher a searcher returned by {@link #acquireSearcher()}.
+     */
+    public void releaseSearcher(IndexSearcher searcher) {
+        if (indexSearcher != null) {
+            return;
+        }
+        try {
+            searcherManager.release(searcher);
         } catch (IOException ex) {
             throw new RuntimeException(ex);
         }
     }
 
+    /**
+     * Returns the version of the current index, which changes whenever
+     * documents are added to it.
+     *
+     * @return
+     */
+    public long getIndexVersion() {
+        final IndexSearcher searcher = acquireSearcher();
+        try {
+            final IndexReader reader = searcher.getIndexReader();
+            return reader instanceof DirectoryReader ? ((DirectoryReader) reader).getVersion() : 0;
+        } finally {
+            releaseSearcher(searcher);
+        }
+    }
+
+    /**
+     * Releases the searcher of an analysis workflow created by
+     * {@link #createAnalysisWorkflow()}, after which its results must not be
+     * used anymore. Readers that hold a reference (see {@link #tryIncRef()})
+     * may still use the searcher, it is given back once the last of them
+     * calls {@link #decRef()}. Does nothing if called again.
+     */
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            decRef();
+        }
+    }
+
+    /**
+     * Returns whether {@link #release()} has been called.
+     *
+     * @return
+     */
+    public boolean isReleased() {
+        return released.get();
+    }
+
+    /**
+     * Makes sure the searcher stays open until {@link #decRef()} is called,
+     * even if the workflow is released in the meantime.
+     *
+     * @return {@code false} if the searcher has been given back already, then
+     * the results of this workflow must not be used.
+     */
+    public boolean tryIncRef() {
+        while (true) {
+            final int count = refCount.get();
+            if (count <= 0) {
+                return false;
+            }
+            if (refCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back a reference taken by {@link #tryIncRef()}.
+     */
+    public void decRef() {
+        if (refCount.decrementAndGet() > 0 || searcherManager == null || indexSearcher == null) {
+            return;
+        }
+        try {
+            searcherManager.release(indexSearcher);
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "could not release searcher", ex);
+        }
+    }
+
     /**
      * Gets the {@link TableManager} instance bound to this
      * {@code AnalysisWorkflow}.
@@ -75,6 +231,12 @@ public class AnalysisWorkflow {
         this.tableManager = tableManager;
     }
 
+    /**
+     * Returns the index of this analysis, or {@code null} for the workflow of
+     * the server, see {@link #acquireSearcher()}.
+     *
+     * @return
+     */
     public IndexReader getIndexReader() {
         return indexReader;
     }
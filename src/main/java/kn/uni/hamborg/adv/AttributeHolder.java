@@ -3,6 +3,7 @@
  */
 package kn.uni.hamborg.adv;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Logger;
@@ -19,7 +20,8 @@ public class AttributeHolder {
     private final Map<String, Object> attributes;
 
     public AttributeHolder() {
-        this.attributes = new HashMap<>();
+        // attributes can be added by concurrent requests, e.g., cell information
+        this.attributes = Collections.synchronizedMap(new HashMap<>());
     }
 
     /**
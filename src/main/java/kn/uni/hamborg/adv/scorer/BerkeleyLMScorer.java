@@ -35,6 +35,10 @@ public class BerkeleyLMScorer {
         ngramModel.indexText(text);
     }
 
+    public void indexSentences(String[] sentences) {
+        ngramModel.indexSentences(sentences);
+    }
+
     public float getTextScore(String text) {
         return ngramModel.getTextScore(text);
     }
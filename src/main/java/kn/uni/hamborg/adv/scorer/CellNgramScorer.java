@@ -3,9 +3,13 @@
  */
 package kn.uni.hamborg.adv.scorer;
 
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import kn.uni.hamborg.adv.table.TableManager;
+import kn.uni.hamborg.data.light.LightDoc;
+import kn.uni.hamborg.language.analyzers.SentenceBoundaries;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
@@ -41,9 +45,10 @@ public class CellNgramScorer {
             final ScoreDoc[] groundDocs = indexSearcher.search(groundQuery, Integer.MAX_VALUE).scoreDocs;
             LOG.log(Level.INFO, "found {0} docs with query {1}", new Object[]{groundDocs.length, groundQuery.toString()});
 
+            final Set<String> storedFields = ImmutableSet.of(LightDoc.getStoredField(fieldname), LightDoc.getSentencesField(fieldname));
             for (ScoreDoc scoreDoc : groundDocs) {
-                Document doc = indexSearcher.doc(scoreDoc.doc);
-                lmScorer.indexText(doc.get(fieldname));
+                Document doc = indexSearcher.doc(scoreDoc.doc, storedFields);
+                lmScorer.indexSentences(SentenceBoundaries.getSentences(doc, fieldname));
             }
             LOG.log(Level.INFO, "created LM on {0} documents [{1}]", new Object[]{groundDocs.length, fieldname});
         } catch (Exception e) {
@@ -52,13 +57,14 @@ public class CellNgramScorer {
     }
 
     /**
-     * Calculates the score of a given text. In order to get comparable scores,
-     * the input should be of the same unit, e.g., always 1 sentence.
+     * Calculates the score of a single sentence, e.g., a summary sentence
+     * that has already been split from its text, thus it is only tokenized as
+     * the sentences of the model are and not split again.
      *
      * @param sentence
      * @return
      */
-    public float calcTextScore(String sentence) {
-        return lmScorer.getTextScore(sentence);
+    public float calcSentenceScore(String sentence) {
+        return lmScorer.getSentenceProb(sentence);
     }
 }
@@ -23,7 +23,11 @@ public class POSScorer {
     private final OpenNLPPosAnalyzer posAnalyzer;
 
     public POSScorer() {
-        this.posAnalyzer = new OpenNLPPosAnalyzer();
+        this(new OpenNLPPosAnalyzer());
+    }
+
+    public POSScorer(OpenNLPPosAnalyzer posAnalyzer) {
+        this.posAnalyzer = posAnalyzer;
     }
 
     /**
@@ -5,22 +5,32 @@ package kn.uni.hamborg.adv.summary;
 
 import com.google.common.collect.ImmutableList;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import kn.uni.hamborg.adv.AnalysisConfiguration;
+import kn.uni.hamborg.adv.AnalysisProgress;
+import kn.uni.hamborg.adv.AnalysisSession;
 import kn.uni.hamborg.adv.table.FilterCell;
 import kn.uni.hamborg.adv.table.FilterValue;
 import kn.uni.hamborg.adv.table.TableManager;
+import kn.uni.hamborg.adv.topic.Topic;
 import kn.uni.hamborg.adv.topic.TopicExtractor;
 import kn.uni.hamborg.adv.topic.TopicScore;
+import kn.uni.hamborg.lucene.search.DuplicateClusters;
 import kn.uni.hamborg.lucene.summarizer.StringScore;
 import kn.uni.hamborg.lucene.summarizer.Summarizer;
 import kn.uni.hamborg.lucene.summarizer.TopicTtfIdfSummarizer;
 import kn.uni.hamborg.utils.LightDocUtils;
 import kn.uni.hamborg.utils.MapUtils;
 import kn.uni.hamborg.utils.QueryUtils;
+import kn.uni.hamborg.utils.ThreadUtils;
 import kn.uni.hamborg.web.cell.SummaryField;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Document;
@@ -48,35 +58,69 @@ public class AdvSummarizer {
     private final IndexSearcher indexSearcher;
     private final Analyzer analyzer;
     private final TopicExtractor topicExtractor;
+    private final AnalysisSession session;
+    private final ExecutorService executorService;
+    private final AnalysisProgress progress;
 
     public AdvSummarizer(TableManager tableManager, SummaryField[] fieldnames, IndexReader indexReader,
             IndexSearcher indexSearcher, Analyzer analyzer, TopicExtractor topicExtractor) {
+        this(tableManager, fieldnames, indexReader, indexSearcher, analyzer, topicExtractor, AnalysisSession.DEFAULT, null, new AnalysisProgress());
+    }
+
+    /**
+     * Constructs an {@code AdvSummarizer} which summarizes the cells using the
+     * workers of {@code executorService}.
+     *
+     * @param tableManager
+     * @param fieldnames
+     * @param indexReader
+     * @param indexSearcher
+     * @param analyzer
+     * @param topicExtractor
+     * @param session the user set parameters of the analysis.
+     * @param executorService can be null. If null, the cells are summarized
+     * sequentially.
+     * @param progress receives the number of summarized cells.
+     */
+    public AdvSummarizer(TableManager tableManager, SummaryField[] fieldnames, IndexReader indexReader,
+            IndexSearcher indexSearcher, Analyzer analyzer, TopicExtractor topicExtractor,
+            AnalysisSession session, ExecutorService executorService, AnalysisProgress progress) {
         this.tableManager = tableManager;
         this.fieldnames = fieldnames;
         this.indexReader = indexReader;
         this.indexSearcher = indexSearcher;
         this.analyzer = analyzer;
         this.topicExtractor = topicExtractor;
+        this.session = session;
+        this.executorService = executorService;
+        this.progress = progress;
     }
 
     /**
      * Computes summaries for each {@link FilterCell} in the table hold in the
-     * {@link TableManager} instance.
+     * {@link TableManager} instance. Each cell is summarized independently of
+     * the other cells.
      */
     public void computeSummaries() {
+        final List<Callable<Void>> tasks = new ArrayList<>();
         for (FilterValue rowDimension : tableManager.getRowDimension()) {
             for (FilterValue colDimension : tableManager.getColDimension()) {
                 final FilterCell cell = tableManager.getCell(rowDimension, colDimension);
 
-                if (cell.getDocuments().size() == 0) {
-                    cell.addAttribute(Summaries.createEmptySummaries());
-                    continue;
-                }
+                tasks.add(() -> {
+                    if (cell.getDocuments().size() == 0) {
+                        cell.addAttribute(Summaries.createEmptySummaries());
+                        return null;
+                    }
 
-                final Summaries summaries = computeSummary(cell);
-                cell.addAttribute(summaries);
+                    final Summaries summaries = computeSummary(cell);
+                    cell.addAttribute(summaries);
+                    return null;
+                });
             }
         }
+
+        ThreadUtils.invokeAll(executorService, progress.track(tasks));
     }
 
     /**
@@ -109,8 +153,15 @@ public class AdvSummarizer {
         try {
             final Summaries summaries = new Summaries();
 
-            // query the index
-            final ScoreDoc[] scoreDocs = indexSearcher.search(query, NUMBER_OF_SUMMARIZATION_DOCS).scoreDocs;
+            // query the index, retrieve more docs if near duplicates are collapsed afterwards
+            ScoreDoc[] scoreDocs;
+            if (session.isCollapseDuplicates()) {
+                scoreDocs = indexSearcher.search(query,
+                        NUMBER_OF_SUMMARIZATION_DOCS * AnalysisConfiguration.duplicateCollapseOversampling).scoreDocs;
+                scoreDocs = DuplicateClusters.collapse(indexReader, scoreDocs, NUMBER_OF_SUMMARIZATION_DOCS);
+            } else {
+                scoreDocs = indexSearcher.search(query, NUMBER_OF_SUMMARIZATION_DOCS).scoreDocs;
+            }
             final Document[] docs = QueryUtils.scoreDocsToDocuments(scoreDocs, indexReader);
             LOG.log(Level.INFO, "query returned {0} docs for cell {1}", new Object[]{docs.length, cell.getHumanReadableId()});
 
@@ -120,12 +171,14 @@ public class AdvSummarizer {
             }
 
             // compute the summarization
-            final Summarizer cellSummarizer = new TopicTtfIdfSummarizer(docs, analyzer, cell.getTopicProbabilities());//new TtfidfSummarizer(docs, analyzer);
+            final Summarizer cellSummarizer = new TopicTtfIdfSummarizer(indexReader, indexSearcher,
+                    QueryUtils.scoreDocsToDocIds(scoreDocs), docs, analyzer, session, cell.getTopicProbabilities());//new TtfidfSummarizer(docs, analyzer);
 
+            // the same for all fields
+            final StringScore[] topTermsOfTopics = calcTopTermsOfTopics(cell.getTopicProbabilities());
             for (SummaryField fieldname : fieldnames) {
                 final StringScore[] topSentences = cellSummarizer.getTopKSentences(fieldname.getFieldname(), NUMBER_OF_SUMMARIZATION_SENTENCES);
                 final StringScore[] topTerms = cellSummarizer.getTopKTokens(fieldname.getFieldname(), NUMBER_OF_SUMMARIZATION_TERMS);
-                final StringScore[] topTermsOfTopics = calcTopTermsOfTopics(cell.getTopicProbabilities());
                 final Summary summary = new Summary(topSentences, topTerms, topTermsOfTopics, cellSummarizer.getSentenceLightDocIds());
                 summaries.addSummary(fieldname, summary);
 
@@ -146,22 +199,39 @@ public class AdvSummarizer {
         }
     }
 
+    /**
+     * Returns the top terms of the topics of a cell, each weighted by the
+     * probabilities of the term in the topic and of the topic in the cell.
+     *
+     * @param topicProbabilities
+     * @return
+     */
     protected static StringScore[] calcTopTermsOfTopics(ImmutableList<TopicScore> topicProbabilities) {
-        Map<String, Double> termScores = new HashMap<>();
+        // the scores are summed up in an array, each term has an index in it
+        final Map<String, Integer> termIndexes = new HashMap<>();
+        final List<String> terms = new ArrayList<>();
+        double[] termScores = new double[topicProbabilities.size() * Topic.numberTopTerms];
 
         for (TopicScore topicProbability : topicProbabilities) {
             final double topicWeight = topicProbability.getScore();
             for (StringScore stringScore : topicProbability.getTopic().getTopTermProbabilities()) {
-                Double score = termScores.get(stringScore.getValue());
-                if (score == null) {
-                    score = 0.0;
+                Integer index = termIndexes.get(stringScore.getValue());
+                if (index == null) {
+                    index = terms.size();
+                    termIndexes.put(stringScore.getValue(), index);
+                    terms.add(stringScore.getValue());
+                    if (index == termScores.length) {
+                        termScores = Arrays.copyOf(termScores, termScores.length * 2 + 1);
+                    }
                 }
-                score += (stringScore.getScore() * topicWeight);
-                termScores.put(stringScore.getValue(), score);
+                termScores[index] += stringScore.getScore() * topicWeight;
             }
         }
 
-        List<StringScore> topTermsTmp = MapUtils.mapToStringScoreList(termScores);
+        List<StringScore> topTermsTmp = new ArrayList<>(terms.size());
+        for (int i = 0; i < terms.size(); i++) {
+            topTermsTmp.add(new StringScore(terms.get(i), termScores[i]));
+        }
         MapUtils.sortByObjectScores(topTermsTmp, true);
 
         int min = Math.min(NUMBER_OF_SUMMARIZATION_TERMS, topTermsTmp.size());
@@ -27,8 +27,19 @@ public class CellStopWordRemover {
     private final CountryStopWords countryStopWords;
 
     public CellStopWordRemover(TableManager tableManager) {
+        this(tableManager, new CountryStopWords());
+    }
+
+    /**
+     * Constructs a {@code CellStopWordRemover} that uses the already loaded
+     * {@code countryStopWords}.
+     *
+     * @param tableManager
+     * @param countryStopWords
+     */
+    public CellStopWordRemover(TableManager tableManager, CountryStopWords countryStopWords) {
         this.tableManager = tableManager;
-        this.countryStopWords = new CountryStopWords();
+        this.countryStopWords = countryStopWords;
     }
 
     public List<StringScore> removeStopwords(FilterCell cell, List<StringScore> words) {
@@ -5,6 +5,7 @@ package kn.uni.hamborg.adv.table;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Logger;
 import kn.uni.hamborg.adv.AttributeHolder;
@@ -33,6 +34,10 @@ public class FilterCell extends AttributeHolder {
     public static final int MAX_NUMBER_OF_CELL_DOCS = 100;
 
     private final transient ImmutableList<Document> documents;
+    /**
+     * The Lucene document ids of {@code documents}, in the same order.
+     */
+    private final transient int[] docIds;
     /**
      * row
      */
@@ -58,13 +63,18 @@ public class FilterCell extends AttributeHolder {
      * immutable list of its elements.
      *
      * @param documents
+     * @param docIds the document ids of {@code documents}, in the same order
      * @param query The query that lead to the base documents.
      * @param valueA
      * @param valueB
      * @param countTotalDocsMatchingCellQuery
      */
-    public FilterCell(List<Document> documents, Query query, FilterValue valueA, FilterValue valueB, int countTotalDocsMatchingCellQuery) {
+    public FilterCell(List<Document> documents, int[] docIds, Query query, FilterValue valueA, FilterValue valueB, int countTotalDocsMatchingCellQuery) {
+        if (documents.size() != docIds.length) {
+            throw new IllegalArgumentException(documents.size() + " documents but " + docIds.length + " document ids");
+        }
         this.documents = ImmutableList.copyOf(documents);
+        this.docIds = Arrays.copyOf(docIds, docIds.length);
         this.valueA = valueA;
         this.valueB = valueB;
         this.query = query;
@@ -107,6 +117,24 @@ public class FilterCell extends AttributeHolder {
         return valueB.getDescriptor();
     }
 
+    /**
+     * The {@link FilterValue} of the row of this cell.
+     *
+     * @return
+     */
+    public FilterValue getRowFilterValue() {
+        return valueA;
+    }
+
+    /**
+     * The {@link FilterValue} of the column of this cell.
+     *
+     * @return
+     */
+    public FilterValue getColumnFilterValue() {
+        return valueB;
+    }
+
     /**
      * The query that built the documents of this cells.
      *
@@ -125,6 +153,15 @@ public class FilterCell extends AttributeHolder {
         return documents;
     }
 
+    /**
+     * The Lucene document ids of {@link #getDocuments()}, in the same order.
+     *
+     * @return
+     */
+    public int[] getDocIds() {
+        return Arrays.copyOf(docIds, docIds.length);
+    }
+
     /**
      * Returns the id which is in following form:<br>
      * {@code [row position]-[column position]}
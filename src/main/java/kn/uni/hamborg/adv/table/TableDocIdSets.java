@@ -0,0 +1,195 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.adv.table;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import kn.uni.hamborg.lucene.search.DuplicateClusters;
+import kn.uni.hamborg.utils.QueryUtils;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.FixedBitSet;
+
+/**
+ * Holds the document ID sets of a table spanned by two
+ * {@link FilterDimension}s. The filter query and each {@link FilterValue}'s
+ * query are evaluated only once; the documents of a {@link FilterCell} are
+ * then derived by intersecting these sets. Hence, building a table with R rows
+ * and C columns needs R+C+1 query evaluations instead of R*C.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class TableDocIdSets {
+
+    private static final Logger LOG = Logger.getLogger(TableDocIdSets.class.getSimpleName());
+
+    /**
+     * Orders by ascending score, and for equal scores by descending doc ID, so
+     * that the head of a queue is the worst document (same order as Lucene's
+     * hit queue).
+     */
+    private static final Comparator<ScoreDoc> WORST_FIRST = new Comparator<ScoreDoc>() {
+        @Override
+        public int compare(ScoreDoc o1, ScoreDoc o2) {
+            int c = Float.compare(o1.score, o2.score);
+            return c != 0 ? c : Integer.compare(o2.doc, o1.doc);
+        }
+    };
+
+    /**
+     * Scores of the filter query for each document ID.
+     */
+    private final float[] filterScores;
+    /**
+     * Documents matching the filter query.
+     */
+    private final FixedBitSet filterDocs;
+    /**
+     * Documents matching each {@link FilterValue}'s query (not restricted to
+     * the filter query).
+     */
+    private final Map<FilterValue, FixedBitSet> valueDocs;
+    /**
+     * Documents matching the filter query and each row {@link FilterValue}.
+     */
+    private final Map<FilterValue, FixedBitSet> filteredRowDocs;
+    /**
+     * The index the near-duplicate clusters of the documents are read from,
+     * {@code null} if duplicates are not collapsed. As
+     * {@link DuplicateClusters} is not thread-safe, each call of
+     * {@link #getTopCellDocs(FilterValue, FilterValue, int)} reads them anew.
+     */
+    private final IndexReader clusterReader;
+
+    public TableDocIdSets(IndexSearcher indexSearcher, Query filterQuery,
+            FilterDimension rows, FilterDimension columns) {
+        this(indexSearcher, filterQuery, rows, columns, false);
+    }
+
+    /**
+     *
+     * @param indexSearcher
+     * @param filterQuery
+     * @param rows
+     * @param columns
+     * @param collapseDuplicates if {@code true}, the top documents of a cell
+     * contain at most one document of each near-duplicate cluster
+     */
+    public TableDocIdSets(IndexSearcher indexSearcher, Query filterQuery,
+            FilterDimension rows, FilterDimension columns, boolean collapseDuplicates) {
+        this.filterScores = new float[indexSearcher.getIndexReader().maxDoc()];
+        this.filterDocs = QueryUtils.getDocIdSetMatchingQuery(filterQuery, indexSearcher, filterScores);
+        this.valueDocs = new IdentityHashMap<>();
+        this.filteredRowDocs = new IdentityHashMap<>();
+
+        for (FilterValue row : rows) {
+            final FixedBitSet docs = QueryUtils.getDocIdSetMatchingQuery(row.getFilterQuery(), indexSearcher);
+            valueDocs.put(row, docs);
+
+            final FixedBitSet filtered = docs.clone();
+            filtered.and(filterDocs);
+            filteredRowDocs.put(row, filtered);
+        }
+        for (FilterValue col : columns) {
+            valueDocs.put(col, QueryUtils.getDocIdSetMatchingQuery(col.getFilterQuery(), indexSearcher));
+        }
+
+        this.clusterReader = collapseDuplicates ? indexSearcher.getIndexReader() : null;
+
+        LOG.log(Level.INFO, "computed doc id sets of {0} filter values, {1} docs match filter query",
+                new Object[]{valueDocs.size(), filterDocs.cardinality()});
+    }
+
+    /**
+     * Returns the number of documents in the whole index matching the query of
+     * {@code value}.
+     *
+     * @param value
+     * @return
+     */
+    public int getCountDocs(FilterValue value) {
+        return valueDocs.get(value).cardinality();
+    }
+
+    /**
+     * Returns the number of documents matching the filter query and both
+     * {@link FilterValue}s.
+     *
+     * @param row
+     * @param col
+     * @return
+     */
+    public int getCountCellDocs(FilterValue row, FilterValue col) {
+        return (int) FixedBitSet.intersectionCount(filteredRowDocs.get(row), valueDocs.get(col));
+    }
+
+    /**
+     * Returns the top {@code n} documents matching the filter query and both
+     * {@link FilterValue}s. Documents are ranked by their score for the filter
+     * query, ties are broken by ascending doc ID. If duplicates are collapsed,
+     * only the best document of each near-duplicate cluster is considered.
+     *
+     * @param row
+     * @param col
+     * @param n
+     * @return
+     */
+    public ScoreDoc[] getTopCellDocs(FilterValue row, FilterValue col, int n) {
+        final FixedBitSet cellDocs = filteredRowDocs.get(row).clone();
+        cellDocs.and(valueDocs.get(col));
+
+        final PriorityQueue<ScoreDoc> queue = new PriorityQueue<>(n + 1, WORST_FIRST);
+        final DuplicateClusters duplicateClusters = clusterReader == null ? null : new DuplicateClusters(clusterReader);
+        // the best document of each near-duplicate cluster, if collapsing
+        final Map<Long, ScoreDoc> bestOfCluster = duplicateClusters == null || !duplicateClusters.isAvailable()
+                ? null : new HashMap<>();
+        final DocIdSetIterator it = new BitSetIterator(cellDocs, 0);
+        try {
+            for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+                final float score = filterScores[doc];
+                if (bestOfCluster != null && duplicateClusters.hasCluster(doc)) {
+                    final long cluster = duplicateClusters.getCluster(doc);
+                    final ScoreDoc best = bestOfCluster.get(cluster);
+                    // docs are iterated in ascending order, so an equally scored doc never wins
+                    if (best == null || score > best.score) {
+                        bestOfCluster.put(cluster, new ScoreDoc(doc, score));
+                    }
+                } else if (queue.size() < n) {
+                    queue.add(new ScoreDoc(doc, score));
+                } else if (n > 0 && score > queue.peek().score) {
+                    // docs are iterated in ascending order, so an equally scored doc never wins
+                    queue.poll();
+                    queue.add(new ScoreDoc(doc, score));
+                }
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        if (bestOfCluster != null) {
+            for (ScoreDoc scoreDoc : bestOfCluster.values()) {
+                if (queue.size() < n) {
+                    queue.add(scoreDoc);
+                } else if (n > 0 && WORST_FIRST.compare(scoreDoc, queue.peek()) > 0) {
+                    queue.poll();
+                    queue.add(scoreDoc);
+                }
+            }
+        }
+
+        final ScoreDoc[] topDocs = queue.toArray(new ScoreDoc[queue.size()]);
+        Arrays.sort(topDocs, WORST_FIRST.reversed());
+        return topDocs;
+    }
+}
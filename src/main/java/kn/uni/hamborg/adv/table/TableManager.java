@@ -11,9 +11,14 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import kn.uni.hamborg.adv.AnalysisConfiguration;
+import kn.uni.hamborg.adv.AnalysisProgress;
 import kn.uni.hamborg.utils.QueryUtils;
+import kn.uni.hamborg.utils.ThreadUtils;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.queryparser.classic.QueryParser;
@@ -58,6 +63,32 @@ public class TableManager {
     public TableManager(IndexReader indexReader, IndexSearcher indexSearcher,
             QueryParser queryParser, FilterDimension dimensionA, FilterDimension dimensionB,
             Query filterQuery) {
+        this(indexReader, indexSearcher, queryParser, dimensionA, dimensionB, filterQuery, null, new AnalysisProgress(),
+                AnalysisConfiguration.collapseDuplicatesByDefault);
+    }
+
+    /**
+     * Constructs a {@code TableManager} instance. Thereby a table is created,
+     * which has {@code dimensionA} as rows and {@code dimensionB} as columns.
+     * The cells are created by the workers of {@code executorService}.
+     *
+     * @param indexReader
+     * @param indexSearcher
+     * @param queryParser
+     * @param dimensionA
+     * @param dimensionB
+     * @param filterQuery, can be null. If null, then a MatchAllDocsQuery is
+     * used instead.
+     * @param executorService, can be null. If null, the cells are created
+     * sequentially.
+     * @param progress receives the number of created cells.
+     * @param collapseDuplicates if {@code true}, the documents of a cell
+     * contain at most one document of each near-duplicate cluster.
+     */
+    public TableManager(IndexReader indexReader, IndexSearcher indexSearcher,
+            QueryParser queryParser, FilterDimension dimensionA, FilterDimension dimensionB,
+            Query filterQuery, ExecutorService executorService, AnalysisProgress progress,
+            boolean collapseDuplicates) {
         this.indexReader = indexReader;
         this.indexSearcher = indexSearcher;
         this.dimensionA = dimensionA;
@@ -76,44 +107,45 @@ public class TableManager {
         this.table = TreeBasedTable.create();
         this.cells = new HashSet<>();
 
-        buildTable();
+        buildTable(executorService, progress, collapseDuplicates);
     }
 
     /**
      * Computes table related information.
+     *
+     * @param docIdSets
      */
-    private void computeTableInfo() {
-        try {
-            for (FilterValue val : dimensionA) {
-                val.setNumberOfDocs(indexSearcher.search(val.getFilterQuery(), Integer.MAX_VALUE).totalHits);
-            }
-            for (FilterValue val : dimensionB) {
-                val.setNumberOfDocs(indexSearcher.search(val.getFilterQuery(), Integer.MAX_VALUE).totalHits);
-            }
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
+    private void computeTableInfo(TableDocIdSets docIdSets) {
+        for (FilterValue val : dimensionA) {
+            val.setNumberOfDocs(docIdSets.getCountDocs(val));
+        }
+        for (FilterValue val : dimensionB) {
+            val.setNumberOfDocs(docIdSets.getCountDocs(val));
         }
     }
 
-    private void buildTable() {
-        try {
-            for (FilterValue valueA : dimensionA) {
-                for (FilterValue valueB : dimensionB) {
-                    final FilterCell cell = createCell(valueA, valueB);
-                    LOG.log(Level.INFO, "cell created: {0}", cell.toString());
-                    table.put(valueA, valueB, cell);
-                    reverseCellsById.put(cell.getId(), cell);
-                    reverseCellsByHumanReadableId.put(cell.getHumanReadableId(), cell);
-                    cells.add(cell);
-                }
-            }
+    private void buildTable(ExecutorService executorService, AnalysisProgress progress, boolean collapseDuplicates) {
+        // evaluate the filter query and each filter value's query once, cells are intersections of these
+        final TableDocIdSets docIdSets = new TableDocIdSets(indexSearcher, filterQuery, dimensionA, dimensionB, collapseDuplicates);
 
-            computeTableInfo();
+        final List<Callable<FilterCell>> tasks = new ArrayList<>();
+        for (FilterValue valueA : dimensionA) {
+            for (FilterValue valueB : dimensionB) {
+                tasks.add(() -> createCell(docIdSets, valueA, valueB));
+            }
+        }
 
-            LOG.log(Level.INFO, "built table with rows x cols: {0} x {1}", new Object[]{table.rowKeySet().size(), table.columnKeySet().size()});
-        } catch (IOException ioe) {
-            throw new RuntimeException(ioe);
+        for (FilterCell cell : ThreadUtils.invokeAll(executorService, progress.track(tasks))) {
+            LOG.log(Level.INFO, "cell created: {0}", cell.toString());
+            table.put(cell.getRowFilterValue(), cell.getColumnFilterValue(), cell);
+            reverseCellsById.put(cell.getId(), cell);
+            reverseCellsByHumanReadableId.put(cell.getHumanReadableId(), cell);
+            cells.add(cell);
         }
+
+        computeTableInfo(docIdSets);
+
+        LOG.log(Level.INFO, "built table with rows x cols: {0} x {1}", new Object[]{table.rowKeySet().size(), table.columnKeySet().size()});
     }
 
     /**
@@ -131,37 +163,41 @@ public class TableManager {
     /**
      * Creates a {@link FilterCell} for the given parameters. Also computes the
      * total number of documents belonging to that cell (and stores it as an
-     * attribute within the cell).
+     * attribute within the cell). The cell's documents are taken from the
+     * intersection of the precomputed document sets in {@code docIdSets}, the
+     * cell query is not evaluated.
      *
+     * @param docIdSets
      * @param valueA
      * @param valueB
      * @return
      * @throws IOException
      */
-    private FilterCell createCell(FilterValue valueA, FilterValue valueB) throws IOException {
+    private FilterCell createCell(TableDocIdSets docIdSets, FilterValue valueA, FilterValue valueB) throws IOException {
         final Query query = QueryUtils.addQueryToQuery(filterQuery,
                 getFilterQueryOfCell(valueA, valueB));
         LOG.info(query.toString());
 
-        //final int countDocsMatchingQuery = QueryUtils.getCountDocsMatchingQuery(query, indexSearcher);
-        final int countDocsMatchingQuery = indexSearcher.search(query, Integer.MAX_VALUE).scoreDocs.length;
+        final int countDocsMatchingQuery = docIdSets.getCountCellDocs(valueA, valueB);
 
-        final ScoreDoc[] scoreDocs = indexSearcher.search(query, FilterCell.MAX_NUMBER_OF_CELL_DOCS).scoreDocs;
+        final ScoreDoc[] scoreDocs = docIdSets.getTopCellDocs(valueA, valueB, FilterCell.MAX_NUMBER_OF_CELL_DOCS);
         Document[] docs = QueryUtils.scoreDocsToDocuments(scoreDocs, indexReader);
 
         /* clone documents. if there are less cell documents than specified by FilterCell.MAX_NUMBER_OF_CELL_DOCS, 
          we clone documents so that each cell has the same amount of documents contributing equally to topic modelling.        
          */
         List<Document> tmpDocs = new ArrayList<>();
+        final int[] tmpDocIds = new int[docs.length];
         if (docs.length > 0) {
             int i = 0;
             while (tmpDocs.size() < docs.length) {//FilterCell.MAX_NUMBER_OF_CELL_DOCS) {
+                tmpDocIds[tmpDocs.size()] = scoreDocs[i % docs.length].doc;
                 tmpDocs.add(docs[i % docs.length]);
                 i++;
             }
         }
 
-        return new FilterCell(tmpDocs, query, valueA, valueB, countDocsMatchingQuery);
+        return new FilterCell(tmpDocs, tmpDocIds, query, valueA, valueB, countDocsMatchingQuery);
     }
 
     /**
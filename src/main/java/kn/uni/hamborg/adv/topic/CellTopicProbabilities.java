@@ -0,0 +1,132 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.adv.topic;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import kn.uni.hamborg.adv.table.FilterCell;
+
+/**
+ * The topic probabilities of each cell as a dense matrix
+ * ({@code cells x topics}). The topic probabilities of a cell are the average
+ * of the topic probabilities of its instances (e.g., cell documents), which
+ * are summed up with {@link #add(int, double[])}. The column of a topic is its
+ * position in the list of topics, which is mapped from the topic id by
+ * {@link #getTopicColumn(int)}, thus topic ids can be arbitrary.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class CellTopicProbabilities {
+
+    private final List<FilterCell> cells;
+    private final Map<FilterCell, Integer> cellIndexes;
+    /**
+     * The topic of each column.
+     */
+    private final Topic[] topics;
+    /**
+     * The column of each topic id.
+     */
+    private final Map<Integer, Integer> topicColumns;
+    /**
+     * Sum of the topic probabilities of the instances of each cell.
+     */
+    private final double[][] probabilities;
+    private final int[] instanceCounts;
+
+    /**
+     *
+     * @param cells the rows
+     * @param topics the columns, with distinct ids
+     */
+    public CellTopicProbabilities(List<FilterCell> cells, List<Topic> topics) {
+        this.cells = cells;
+        this.cellIndexes = new HashMap<>();
+        for (int i = 0; i < cells.size(); i++) {
+            cellIndexes.put(cells.get(i), i);
+        }
+        this.topics = topics.toArray(new Topic[topics.size()]);
+        this.topicColumns = new HashMap<>();
+        for (int i = 0; i < this.topics.length; i++) {
+            if (topicColumns.put(this.topics[i].getId(), i) != null) {
+                throw new IllegalArgumentException("duplicate topic id " + this.topics[i].getId());
+            }
+        }
+        this.probabilities = new double[cells.size()][topics.size()];
+        this.instanceCounts = new int[cells.size()];
+    }
+
+    /**
+     * Adds the topic probabilities of an instance of the cell at
+     * {@code cellIndex}.
+     *
+     * @param cellIndex
+     * @param topicProbabilities indexed by column, e.g., for the topics of a
+     * Mallet model in the order of their ids the id of each topic
+     */
+    public void add(int cellIndex, double[] topicProbabilities) {
+        final double[] row = probabilities[cellIndex];
+        for (int topic = 0; topic < row.length; topic++) {
+            row[topic] += topicProbabilities[topic];
+        }
+        instanceCounts[cellIndex]++;
+    }
+
+    /**
+     * Returns the average probability of the topic in column
+     * {@code topicColumn} in the cell at {@code cellIndex}.
+     *
+     * @param cellIndex
+     * @param topicColumn
+     * @return
+     */
+    public double get(int cellIndex, int topicColumn) {
+        return instanceCounts[cellIndex] == 0 ? 0.0 : probabilities[cellIndex][topicColumn] / instanceCounts[cellIndex];
+    }
+
+    /**
+     * Returns the index of {@code cell}, {@code -1} if it is not part of
+     * this.
+     *
+     * @param cell
+     * @return
+     */
+    public int getCellIndex(FilterCell cell) {
+        final Integer index = cellIndexes.get(cell);
+        return index == null ? -1 : index;
+    }
+
+    public FilterCell getCell(int cellIndex) {
+        return cells.get(cellIndex);
+    }
+
+    public Topic getTopic(int topicColumn) {
+        return topics[topicColumn];
+    }
+
+    /**
+     * Returns the column of the topic with id {@code topicId}, {@code -1} if
+     * there is no such topic.
+     *
+     * @param topicId
+     * @return
+     */
+    public int getTopicColumn(int topicId) {
+        final Integer column = topicColumns.get(topicId);
+        return column == null ? -1 : column;
+    }
+
+    public int getCellCount() {
+        return cells.size();
+    }
+
+    public int getTopicCount() {
+        return topics.length;
+    }
+
+    public int getInstanceCount(int cellIndex) {
+        return instanceCounts[cellIndex];
+    }
+}
@@ -0,0 +1,401 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.adv.topic;
+
+import cc.mallet.pipe.Pipe;
+import cc.mallet.topics.ParallelTopicModel;
+import cc.mallet.topics.TopicInferencer;
+import cc.mallet.types.IDSorter;
+import cc.mallet.types.Instance;
+import cc.mallet.types.InstanceList;
+import com.google.common.collect.ImmutableSet;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import kn.uni.hamborg.adv.AnalysisConfiguration;
+import kn.uni.hamborg.config.LuceneConfig;
+import kn.uni.hamborg.config.StatConfig;
+import kn.uni.hamborg.data.light.LightDoc;
+import kn.uni.hamborg.lucene.summarizer.StringScore;
+import kn.uni.hamborg.utils.DateTimeUtils;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.joda.time.DateTime;
+import org.joda.time.Interval;
+import org.joda.time.Seconds;
+
+/**
+ * A topic model trained offline over the documents of the whole index (or of
+ * a time window of it), see {@link #main(String[])}. Analyses only infer the
+ * topics of their cell documents with it, see
+ * {@link MalletInferencingTopicExtractor}, which is much faster than training
+ * a model for each analysis.
+ *
+ * The model keeps the pipe used for training, so that new texts are mapped to
+ * the same features, the topic counts of the terms and the most probable
+ * terms of each topic. The pipe and the {@link TopicInferencer} keep state
+ * while piping or sampling a text, thus each analysis uses its own pipe and
+ * inferencer, see {@link #createPipe()} and {@link #createInferencer()}.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class GlobalTopicModel implements Serializable {
+
+    private static final long serialVersionUID = 2L;
+    private static final Logger LOG = Logger.getLogger(GlobalTopicModel.class.getSimpleName());
+
+    /**
+     * Number of terms kept of each topic, {@link Topic} only uses the most
+     * probable ones anyway.
+     */
+    private static final int NUMBER_OF_TOPIC_TERMS = 100;
+
+    private static GlobalTopicModel loadedModel;
+    private static File loadedModelFile;
+    private static long loadedModelLastModified;
+    /**
+     * The last modification time of a model file that could not be loaded,
+     * so that it is not loaded again by each analysis.
+     */
+    private static long failedModelLastModified = -1;
+
+    private final String fieldname;
+    private final Pipe pipe;
+    /**
+     * Whether the training instances have been created from term vectors,
+     * see {@link TermVectorInstanceBuilder}, instead of with {@code pipe}.
+     */
+    private final boolean fromTermVectors;
+    /**
+     * The state of the trained model needed to infer topics, see
+     * {@link #createInferencer()}. The counts are only read while sampling.
+     */
+    private final int[][] typeTopicCounts;
+    private final int[] tokensPerTopic;
+    private final double[] alpha;
+    private final double beta;
+    private final double betaSum;
+    private final String[][] topicTerms;
+    private final double[][] topicTermWeights;
+    /**
+     * Sum of the weights of all terms of each topic.
+     */
+    private final double[] topicTotalWeights;
+    /**
+     * Publishing dates of the training documents, {@code null} for the whole
+     * index.
+     */
+    private final Interval interval;
+    private final int numberOfDocuments;
+    private final DateTime creationDate;
+
+    private GlobalTopicModel(String fieldname, Pipe pipe, boolean fromTermVectors, ParallelTopicModel model,
+            Interval interval, int numberOfDocuments) {
+        this.fieldname = fieldname;
+        this.pipe = pipe;
+        this.fromTermVectors = fromTermVectors;
+        this.typeTopicCounts = model.typeTopicCounts;
+        this.tokensPerTopic = model.tokensPerTopic;
+        this.alpha = model.alpha;
+        this.beta = model.beta;
+        this.betaSum = model.betaSum;
+        this.interval = interval;
+        this.numberOfDocuments = numberOfDocuments;
+        this.creationDate = DateTime.now();
+
+        final int numTopics = model.getNumTopics();
+        topicTerms = new String[numTopics][];
+        topicTermWeights = new double[numTopics][];
+        topicTotalWeights = new double[numTopics];
+        final List<TreeSet<IDSorter>> sortedWords = model.getSortedWords();
+        for (int topic = 0; topic < numTopics; topic++) {
+            final int numTerms = Math.min(NUMBER_OF_TOPIC_TERMS, sortedWords.get(topic).size());
+            topicTerms[topic] = new String[numTerms];
+            topicTermWeights[topic] = new double[numTerms];
+            int i = 0;
+            for (IDSorter word : sortedWords.get(topic)) {
+                if (i == numTerms) {
+                    break;
+                }
+                // same weights as in MalletParallelTopicExtractor
+                topicTerms[topic][i] = model.getAlphabet().lookupObject(word.getID()).toString();
+                topicTermWeights[topic][i] = model.beta + word.getWeight();
+                i++;
+            }
+            topicTotalWeights[topic] = model.numTypes * model.beta + model.tokensPerTopic[topic];
+        }
+    }
+
+    /**
+     * Trains a topic model with the texts of {@code fieldname} of the
+     * documents in {@code indexReader}, or with their term vectors, see
+     * {@link MalletTopicExtractor#useTermVectors(IndexReader, String)}.
+     *
+     * @param indexReader
+     * @param fieldname
+     * @param interval only documents published within, {@code null} for all
+     * documents
+     * @param numTopics
+     * @param numIterations
+     * @param maxDocuments if there are more documents (within
+     * {@code interval}), a random sample of this many of them is used
+     * @return
+     * @throws IOException
+     */
+    public static GlobalTopicModel train(IndexReader indexReader, String fieldname, Interval interval,
+            int numTopics, int numIterations, int maxDocuments) throws IOException {
+        final String storedField = LightDoc.getStoredField(fieldname);
+        final Pipe pipe = MalletTopicExtractor.createPipe();
+        final InstanceList instances = new InstanceList(pipe);
+        final boolean fromTermVectors = MalletTopicExtractor.useTermVectors(indexReader, fieldname);
+        final TermVectorInstanceBuilder instanceBuilder = fromTermVectors
+                ? new TermVectorInstanceBuilder(indexReader, fieldname, instances.getDataAlphabet()) : null;
+
+        // uniform sample of the documents within the interval (reservoir sampling)
+        final Set<String> pubDateField = ImmutableSet.of(LightDoc.PUB_DATE);
+        final Bits liveDocs = MultiFields.getLiveDocs(indexReader);
+        final int[] sample = new int[Math.min(maxDocuments, indexReader.numDocs())];
+        final Random random = new Random(0);
+        int numberOfMatchingDocuments = 0;
+        for (int i = 0; i < indexReader.maxDoc(); i++) {
+            if (liveDocs != null && !liveDocs.get(i)) {
+                continue;
+            }
+            if (interval != null && !interval.contains(
+                    Long.parseLong(indexReader.document(i, pubDateField).get(LightDoc.PUB_DATE)))) {
+                continue;
+            }
+            if (numberOfMatchingDocuments < sample.length) {
+                sample[numberOfMatchingDocuments] = i;
+            } else {
+                final int j = random.nextInt(numberOfMatchingDocuments + 1);
+                if (j < sample.length) {
+                    sample[j] = i;
+                }
+            }
+            numberOfMatchingDocuments++;
+        }
+        final int[] sampledDocIds = Arrays.copyOf(sample, Math.min(sample.length, numberOfMatchingDocuments));
+        Arrays.sort(sampledDocIds);
+        LOG.log(Level.INFO, "sampled {0} of {1} documents", new Object[]{sampledDocIds.length, numberOfMatchingDocuments});
+
+        // the builder only loads the text of documents without a term vector
+        final Set<String> textField = ImmutableSet.of(storedField);
+        for (int i : sampledDocIds) {
+            if (instanceBuilder != null) {
+                instances.add(instanceBuilder.createInstance(i, null, null, i));
+            } else {
+                final String text = indexReader.document(i, textField).get(storedField);
+                if (text != null) {
+                    instances.addThruPipe(new Instance(text, null, i, null));
+                }
+            }
+        }
+
+        // same hyperparameters as in MalletParallelTopicExtractor
+        final ParallelTopicModel model = new ParallelTopicModel(numTopics, numTopics * 0.00001, 0.0001);
+        model.setNumThreads(LuceneConfig.INDEX_NUMBER_OF_THREADS);
+        model.setNumIterations(numIterations);
+        model.addInstances(instances);
+
+        final DateTime starttime = DateTime.now();
+        LOG.log(Level.INFO, "starting calculation of {0} topics on {1} documents", new Object[]{numTopics, instances.size()});
+        model.estimate();
+        LOG.log(Level.INFO, "calculation of topics finished after {0} seconds",
+                Seconds.secondsBetween(starttime, DateTime.now()).getSeconds());
+
+        // new texts must not add features unknown to the model
+        pipe.getDataAlphabet().stopGrowth();
+        return new GlobalTopicModel(fieldname, pipe, fromTermVectors, model, interval, instances.size());
+    }
+
+    public void save(File file) throws IOException {
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeObject(this);
+        }
+    }
+
+    public static GlobalTopicModel load(File file) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            final GlobalTopicModel model = (GlobalTopicModel) in.readObject();
+            model.pipe.getDataAlphabet().stopGrowth();
+            return model;
+        } catch (ClassNotFoundException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Returns the model stored in {@code file}. The model is only loaded
+     * once, and again when the file has been replaced by a newly trained
+     * model.
+     *
+     * @param file
+     * @return {@code null} if there is no such file or it cannot be loaded.
+     */
+    public static synchronized GlobalTopicModel getModel(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        final long lastModified = file.lastModified();
+        if (loadedModel == null || !file.equals(loadedModelFile) || lastModified != loadedModelLastModified) {
+            if (lastModified == failedModelLastModified) {
+                return null;
+            }
+            final long start = System.currentTimeMillis();
+            try {
+                loadedModel = load(file);
+                loadedModelFile = file;
+                loadedModelLastModified = lastModified;
+            } catch (IOException | RuntimeException ex) {
+                LOG.log(Level.SEVERE, "could not load topic model " + file, ex);
+                failedModelLastModified = lastModified;
+                return null;
+            }
+            LOG.log(Level.INFO, "loaded {0} in {1} ms", new Object[]{loadedModel, System.currentTimeMillis() - start});
+        }
+        return loadedModel;
+    }
+
+    /**
+     * Creates new {@link Topic}s of this model, their ids are their indexes in
+     * {@link #inferTopicProbabilities(TopicInferencer, Instance)}.
+     *
+     * @return
+     */
+    public List<Topic> createTopics() {
+        final List<Topic> topics = new ArrayList<>(getNumTopics());
+        for (int topic = 0; topic < getNumTopics(); topic++) {
+            final List<StringScore> termWeights = new ArrayList<>(topicTerms[topic].length);
+            for (int i = 0; i < topicTerms[topic].length; i++) {
+                termWeights.add(new StringScore(topicTerms[topic][i], topicTermWeights[topic][i]));
+            }
+            topics.add(new Topic(termWeights, topicTotalWeights[topic], topic));
+        }
+        return topics;
+    }
+
+    /**
+     * Returns a new inferencer of this model. The inferencer keeps state
+     * while sampling a document, thus it must not be used by several threads
+     * at the same time. All inferencers share the (read-only) topic counts of
+     * the model, so creating one is cheap.
+     *
+     * @return
+     */
+    public TopicInferencer createInferencer() {
+        return new TopicInferencer(typeTopicCounts, tokensPerTopic, pipe.getDataAlphabet(), alpha, beta, betaSum);
+    }
+
+    /**
+     * Infers the topic probabilities of {@code instance}, which has been
+     * created by {@link #createPipe()} or, if {@link #isFromTermVectors()}, by a
+     * {@link TermVectorInstanceBuilder} with the alphabet of the pipe.
+     *
+     * @param inferencer created by {@link #createInferencer()}
+     * @param instance
+     * @return
+     */
+    public double[] inferTopicProbabilities(TopicInferencer inferencer, Instance instance) {
+        return inferencer.getSampledDistribution(instance, AnalysisConfiguration.topicInferenceIterations,
+                AnalysisConfiguration.topicInferenceThinning, AnalysisConfiguration.topicInferenceBurnIn);
+    }
+
+    public String getFieldname() {
+        return fieldname;
+    }
+
+    /**
+     * Returns a new pipe equal to the one used for training (see
+     * {@link MalletTopicExtractor#createPipe()}), which maps texts to the
+     * (frozen) data alphabet of this model. A pipe must not be used by several
+     * threads at the same time (the tokenizer keeps the current text), thus
+     * each analysis needs its own pipe. Note that deserializing the pipe again
+     * would not help, as Mallet resolves it to the already loaded instance.
+     *
+     * @return
+     */
+    public Pipe createPipe() {
+        return MalletTopicExtractor.createPipe(pipe.getDataAlphabet());
+    }
+
+    public boolean isFromTermVectors() {
+        return fromTermVectors;
+    }
+
+    public int getNumTopics() {
+        return topicTerms.length;
+    }
+
+    public Interval getInterval() {
+        return interval;
+    }
+
+    /**
+     * Returns whether the model has been trained with documents of the whole
+     * {@code interval}.
+     *
+     * @param interval
+     * @return
+     */
+    public boolean covers(Interval interval) {
+        return this.interval == null || this.interval.contains(interval);
+    }
+
+    @Override
+    public String toString() {
+        return "GlobalTopicModel [field=" + fieldname + ", topics=" + getNumTopics() + ", termVectors=" + fromTermVectors
+                + ", documents=" + numberOfDocuments
+                + ", interval=" + (interval == null ? "all" : interval) + ", created=" + creationDate + "]";
+    }
+
+    /**
+     * Trains a model and stores it, usage:
+     * {@code GlobalTopicModel [index dir] [model file] [field] [number of topics] [iterations] [max documents] [from to]},
+     * with the dates formatted YYYYMMdd.
+     *
+     * @param args
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        final File indexDir = args.length > 0 ? new File(args[0]) : LuceneConfig.INDEX_DIR_DEFAULT;
+        final File modelFile = args.length > 1 ? new File(args[1]) : StatConfig.pathGlobalTopicModel;
+        final String fieldname = args.length > 2 ? args[2] : LightDoc.CONTENT_STEMMED;
+        final int numTopics = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        final int numIterations = args.length > 4 ? Integer.parseInt(args[4]) : 1000;
+        final int maxDocuments = args.length > 5 ? Integer.parseInt(args[5]) : 500000;
+        final Interval interval = args.length > 7
+                ? new Interval(DateTimeUtils.getStartOfDay(DateTimeUtils.simpleDateTimeFormatter.parseDateTime(args[6])),
+                        DateTimeUtils.getEndOfDay(DateTimeUtils.simpleDateTimeFormatter.parseDateTime(args[7])))
+                : null;
+
+        try (Directory directory = FSDirectory.open(indexDir.toPath());
+                IndexReader reader = DirectoryReader.open(directory)) {
+            final GlobalTopicModel model = train(reader, fieldname, interval, numTopics, numIterations, maxDocuments);
+            model.save(modelFile);
+            LOG.log(Level.INFO, "saved {0} to {1}", new Object[]{model, modelFile});
+        }
+    }
+}
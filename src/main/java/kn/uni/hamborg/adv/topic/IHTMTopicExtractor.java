@@ -13,7 +13,6 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +20,7 @@ import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import kn.uni.hamborg.adv.table.FilterCell;
+import kn.uni.hamborg.adv.table.FilterValue;
 import kn.uni.hamborg.adv.table.TableManager;
 import kn.uni.hamborg.config.FileConfig;
 import kn.uni.hamborg.lucene.summarizer.StringScore;
@@ -48,37 +48,40 @@ public class IHTMTopicExtractor extends TopicExtractor {
     /**
      * Gets for each cell the topic probabilities.
      *
+     * @param topics
      * @param jsonDocuments
      */
-    private Map<FilterCell, Map<Topic, Double>> getCellTopicProbabilities(List<Topic> topics, JsonArray jsonDocuments) {
+    private CellTopicProbabilities getCellTopicProbabilities(List<Topic> topics, JsonArray jsonDocuments) {
         final JsonParser parser = new JsonParser();
-        final Map<FilterCell, Map<Topic, Double>> cellTopicProbabilities = new HashMap<>();
-        final Map<FilterCell, Integer> cellDocumentCounts = new HashMap<>();
+        final List<FilterCell> cells = new ArrayList<>();
+        for (FilterValue rowDimension : tableManager.getRowDimension()) {
+            for (FilterValue colDimension : tableManager.getColDimension()) {
+                cells.add(tableManager.getCell(rowDimension, colDimension));
+            }
+        }
+        final CellTopicProbabilities cellTopicProbabilities = new CellTopicProbabilities(cells, topics);
 
         for (JsonElement tmp : jsonDocuments) {
             JsonObject jsonDoc = tmp.getAsJsonObject();
             String id = jsonDoc.get("id").getAsString();
             FilterCell cell = tableManager.getCellByHumanReadableId(jsonDoc.get("speaker").getAsString());
-            cellDocumentCounts.put(cell, cellDocumentCounts.getOrDefault(cell, 0) + 1);
-
-            Map<Topic, Double> topicProbs = cellTopicProbabilities.get(cell);
-            if (topicProbs == null) {
-                topicProbs = new HashMap<>();
-                cellTopicProbabilities.put(cell, topicProbs);
+            final int cellIndex = cellTopicProbabilities.getCellIndex(cell);
+            if (cellIndex < 0) {
+                continue;
             }
 
+            final double[] topicProbs = new double[topics.size()];
             try {
                 JsonObject topicProbabilitiesOfCurCellDoc = parser.parse(jsonDoc.get("topicSimialrity").getAsString()).getAsJsonObject();
                 for (Map.Entry<String, JsonElement> entrySet : topicProbabilitiesOfCurCellDoc.entrySet()) {
                     int curTopicId = Integer.valueOf(entrySet.getKey());
                     double curTopicProb = entrySet.getValue().getAsDouble();
-                    double tmpTopicProb = topicProbs.getOrDefault(curTopicId, 0.0);
 
-                    Topic curTopic = getTopicById(topics, curTopicId);
-                    if (curTopic == null) {
+                    final int curTopicColumn = cellTopicProbabilities.getTopicColumn(curTopicId);
+                    if (curTopicColumn < 0) {
                         //LOG.severe("no topic for id " + curTopicId);
                     } else {
-                        topicProbs.put(curTopic, tmpTopicProb + curTopicProb);
+                        topicProbs[curTopicColumn] += curTopicProb;
                     }
                 }
             } catch (Exception e) {
@@ -86,19 +89,8 @@ public class IHTMTopicExtractor extends TopicExtractor {
                 //e.printStackTrace();
                 LOG.warning(e.getMessage());
             }
-        }
-
-        // normalize
-        for (Map.Entry<FilterCell, Map<Topic, Double>> entrySet : cellTopicProbabilities.entrySet()) {
-            FilterCell key = entrySet.getKey();
-            Integer docCount = cellDocumentCounts.get(key);
-            Map<Topic, Double> value = entrySet.getValue();
-
-            for (Map.Entry<Topic, Double> entrySet1 : value.entrySet()) {
-                Topic key1 = entrySet1.getKey();
-                Double value1 = entrySet1.getValue();
-                value.put(key1, value1 / docCount);
-            }
+            // the topic probabilities of a cell are averaged over its documents
+            cellTopicProbabilities.add(cellIndex, topicProbs);
         }
 
         // at this point we have for each FilterCell its topic probabilities
@@ -145,11 +137,14 @@ public class IHTMTopicExtractor extends TopicExtractor {
             // here we have all topics (including their top terms)
             // now we need to create the cell topic relations
             JsonArray arrayUtr = new JsonParser().parse(new FileReader(utrJson)).getAsJsonArray();
-            Map<FilterCell, Map<Topic, Double>> cellTopicProbs = getCellTopicProbabilities(processingTopics, arrayUtr);
+            CellTopicProbabilities cellTopicProbs = getCellTopicProbabilities(processingTopics, arrayUtr);
 
             Set<Topic> usedTopics = new HashSet<>();
-            for (Map.Entry<FilterCell, Map<Topic, Double>> entrySet : cellTopicProbs.entrySet()) {
-                usedTopics.addAll(createRelevantTopicCellMappings(processingTopics, entrySet.getValue(), entrySet.getKey()));
+            for (int cellIndex = 0; cellIndex < cellTopicProbs.getCellCount(); cellIndex++) {
+                // only cells with documents
+                if (cellTopicProbs.getInstanceCount(cellIndex) > 0) {
+                    usedTopics.addAll(createRelevantTopicCellMappings(cellTopicProbs, cellIndex));
+                }
             }
             LOG.log(Level.INFO, "used {0} topics", usedTopics.size());
             this.topics = ImmutableList.copyOf(usedTopics);
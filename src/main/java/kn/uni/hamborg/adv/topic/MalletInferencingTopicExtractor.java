@@ -0,0 +1,84 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.adv.topic;
+
+import cc.mallet.topics.TopicInferencer;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import kn.uni.hamborg.adv.AnalysisProgress;
+import kn.uni.hamborg.adv.table.TableManager;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.IndexSearcher;
+
+/**
+ * Assigns the cell documents to the topics of a {@link GlobalTopicModel}
+ * instead of training a topic model for the analysis as
+ * {@link MalletParallelTopicExtractor} does. Inferring the topics only needs a
+ * few sampling iterations per cell document, see
+ * {@link kn.uni.hamborg.adv.AnalysisConfiguration#topicInferenceIterations}.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class MalletInferencingTopicExtractor extends MalletTopicExtractor {
+
+    private static final Logger LOG = Logger.getLogger(MalletInferencingTopicExtractor.class.getSimpleName());
+
+    private final GlobalTopicModel model;
+    /**
+     * The own inferencer of this analysis, so that analyses infer their
+     * topics in parallel.
+     */
+    private final TopicInferencer inferencer;
+    private final AnalysisProgress progress;
+
+    /**
+     *
+     * @param tableManager
+     * @param model the topics are computed on the field the model has been
+     * trained with
+     * @param queryParser
+     * @param numTopicsPerCell only used for the minimum probability of a topic
+     * in a cell, the number of topics is given by {@code model}
+     * @param cellDocumentMergeType
+     * @param indexReader
+     * @param indexSearcher
+     * @param analyzer
+     * @param progress the inference stops if the analysis is cancelled.
+     */
+    public MalletInferencingTopicExtractor(TableManager tableManager, GlobalTopicModel model, QueryParser queryParser,
+            int numTopicsPerCell, CellDocumentMergeType cellDocumentMergeType, IndexReader indexReader,
+            IndexSearcher indexSearcher, Analyzer analyzer, AnalysisProgress progress) {
+        super(tableManager, model.getFieldname(), queryParser, numTopicsPerCell, model.getNumTopics(),
+                cellDocumentMergeType, indexReader, indexSearcher, analyzer, model.createPipe(),
+                model.isFromTermVectors());
+        this.model = model;
+        this.inferencer = model.createInferencer();
+        this.progress = progress;
+    }
+
+    @Override
+    public void computeTopics() {
+        addAllCellDocumentsAsInstances();
+
+        final long start = System.currentTimeMillis();
+        final double[][] topicProbabilities = new double[instances.size()][];
+        for (int i = 0; i < instances.size(); i++) {
+            progress.checkCancelled();
+            topicProbabilities[i] = model.inferTopicProbabilities(inferencer, instances.get(i));
+        }
+        LOG.log(Level.INFO, "inferred topics of {0} instances in {1} ms",
+                new Object[]{instances.size(), System.currentTimeMillis() - start});
+
+        final List<Topic> allTopics = toSurfaceForms(model.createTopics());
+        final Set<Topic> usedTopics = assignTopicsToCells(allTopics, i -> topicProbabilities[i]);
+        LOG.log(Level.INFO, "{0} of {1} topics of the model are used", new Object[]{usedTopics.size(), allTopics.size()});
+
+        topics = ImmutableList.copyOf(usedTopics);
+    }
+}
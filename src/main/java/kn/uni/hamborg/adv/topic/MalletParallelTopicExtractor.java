@@ -4,38 +4,26 @@
 package kn.uni.hamborg.adv.topic;
 
 import cc.mallet.topics.ParallelTopicModel;
-import cc.mallet.types.Instance;
 import com.google.common.collect.ImmutableList;
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import kn.uni.hamborg.adv.AnalysisConfiguration;
+import kn.uni.hamborg.adv.AnalysisProgress;
 import kn.uni.hamborg.adv.table.FilterCell;
-import kn.uni.hamborg.adv.table.FilterValue;
 import kn.uni.hamborg.adv.table.TableManager;
 import kn.uni.hamborg.config.LuceneConfig;
 import kn.uni.hamborg.lucene.summarizer.StringScore;
 import kn.uni.hamborg.utils.CSVUtils;
-import kn.uni.hamborg.utils.DocumentUtils;
-import org.apache.commons.math3.linear.MatrixUtils;
-import org.apache.commons.math3.linear.RealVector;
 import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.IndexSearcher;
-import org.dom4j.DocumentHelper;
-import org.dom4j.Element;
-import org.dom4j.io.OutputFormat;
-import org.dom4j.io.XMLWriter;
 import org.joda.time.DateTime;
 import org.joda.time.Seconds;
 
@@ -46,11 +34,10 @@ import org.joda.time.Seconds;
 public class MalletParallelTopicExtractor extends MalletTopicExtractor {
 
     private static final Logger LOG = Logger.getLogger(MalletParallelTopicExtractor.class.getSimpleName());
-    private static final int NUM_TRAINING_CYCLES = 1500;
 
     private final ParallelTopicModel model;
+    private final AnalysisProgress progress;
 
-    
     /**
      * Default: as many topics as we have cells.
      *
@@ -83,7 +70,30 @@ public class MalletParallelTopicExtractor extends MalletTopicExtractor {
     public MalletParallelTopicExtractor(TableManager tableManager,
             String fieldname, QueryParser queryParser, int numTopicsPerCell,
             CellDocumentMergeType cellDocumentMergeType, IndexReader indexReader, IndexSearcher indexSearcher, Analyzer analyzer) {
+        this(tableManager, fieldname, queryParser, numTopicsPerCell, cellDocumentMergeType, indexReader, indexSearcher, analyzer,
+                new AnalysisProgress());
+    }
+
+    /**
+     *
+     * @param tableManager
+     * @param fieldname
+     * @param queryParser
+     * @param numTopicsPerCell see
+     * {@link #MalletParallelTopicExtractor(TableManager, String, QueryParser, int, CellDocumentMergeType, IndexReader, IndexSearcher, Analyzer)}
+     * @param cellDocumentMergeType
+     * @param indexReader
+     * @param indexSearcher
+     * @param analyzer
+     * @param progress receives the number of finished iterations, the
+     * estimation stops if the analysis is cancelled.
+     */
+    public MalletParallelTopicExtractor(TableManager tableManager,
+            String fieldname, QueryParser queryParser, int numTopicsPerCell,
+            CellDocumentMergeType cellDocumentMergeType, IndexReader indexReader, IndexSearcher indexSearcher, Analyzer analyzer,
+            AnalysisProgress progress) {
         super(tableManager, fieldname, queryParser, numTopicsPerCell, cellDocumentMergeType, indexReader, indexSearcher, analyzer);
+        this.progress = progress;
 
         // http://stats.stackexchange.com/questions/37405/natural-interpretation-for-lda-hyperparameters
         model = new ParallelTopicModel(numTopics, numTopics * 0.00001, 0.0001);
@@ -92,126 +102,20 @@ public class MalletParallelTopicExtractor extends MalletTopicExtractor {
         //  statistics after every iteration.
         model.setNumThreads(LuceneConfig.INDEX_NUMBER_OF_THREADS);
 
-        // Run the model for 50 iterations and stop (this is for testing only, 
-        //  for real applications, use 1000 to 2000 iterations)
-        model.setNumIterations(NUM_TRAINING_CYCLES);
-    }
-
-    /**
-     * Adds all cell documents to the mallet pipeline. Thereby all documents
-     * from one cell are concatenated and added as a single instance (belonging
-     * to that cell virtually) to mallet.
-     */
-    private void addAllCellDocumentsAsConcatenatedInstances() {
-        int instancePosition = 0;
-        for (FilterValue rowDimension : tableManager.getRowDimension()) {
-            for (FilterValue colDimension : tableManager.getColDimension()) {
-                // get all docs of this cell, get their text, concat it and put it as one instance into mallet
-                final FilterCell cell = tableManager.getCell(rowDimension, colDimension);
-                final Document[] cellDocs = cell.getDocuments().toArray(new Document[0]);
-                final String cellDocsText = DocumentUtils.getConcatenatedContent(cellDocs, fieldname);
-
-                LOG.log(Level.INFO, "creating topic instance for cell {0}", cell.getHumanReadableId());
-
-                instances.addThruPipe(new Instance(cellDocsText,
-                        cell.getId(), cell.getId(), cell.getId()));
-
-                List<Integer> cellPositions = cellInstancePositions.get(cell);
-                if (cellPositions == null) {
-                    cellPositions = new ArrayList<>();
-                    cellInstancePositions.put(cell, cellPositions);
-                }
-                cellPositions.add(instancePosition);
-                instancePosition++;
-            }
-        }
-    }
-
-    /**
-     * Adds all cell documents to mallets pipeline. Thereby each document is
-     * added as a single instance. Thus, there is no 1:1 relation between cell
-     * and instance, but rather a 1:N relation between cell and instances.
-     */
-    private void addAllCellDocumentsAsSingleInstances() {
-        final boolean exportit = false;
-        org.dom4j.Document doc = null;
-        Element topic = null;
-        if (exportit) {
-            doc = DocumentHelper.createDocument();
-            Element section = doc.addElement("section");
-            section.addAttribute("name", "noname");
-            topic = section.addElement("topic");
-            topic.addAttribute("name", "noname");
-        }
-        int instancePosition = 0;
-        for (FilterValue rowDimension : tableManager.getRowDimension()) {
-            for (FilterValue colDimension : tableManager.getColDimension()) {
-                // get all docs of this cell, get their text, concat it and put it as one instance into mallet
-                final FilterCell cell = tableManager.getCell(rowDimension, colDimension);
-                final Document[] cellDocs = cell.getDocuments().toArray(new Document[0]);
-
-                LOG.log(Level.INFO, "creating topic instance for cell {0}", cell.getHumanReadableId());
-
-                for (Document cellDoc : cellDocs) {
-                    final String cellDocText = cellDoc.get(fieldname);
-                    instances.addThruPipe(new Instance(cellDocText,
-                            cell.getId(), cell.getId() + instancePosition, cell.getId()));
-                    if (exportit) {
-                        Element utterance = topic.addElement("utterance");
-                        utterance.addAttribute("name", cell.getHumanReadableId());
-                        utterance.addAttribute("sprecherId", "tbd");
-                        utterance.addAttribute("timestamp", "tbd");
-                        utterance.addAttribute("id", "0");
-                        utterance.addText(cellDocText.replaceAll("\\P{InBasic_Latin}", ""));
-                    }
-                    List<Integer> cellPositions = cellInstancePositions.get(cell);
-                    if (cellPositions == null) {
-                        cellPositions = new ArrayList<>();
-                        cellInstancePositions.put(cell, cellPositions);
-                    }
-                    cellPositions.add(instancePosition);
-                    instancePosition++;
-                }
-            }
-        }
-
-        if (exportit) {
-            try {
-                // Pretty print the document to System.out
-                OutputFormat format = OutputFormat.createPrettyPrint();
-                XMLWriter writer;
-                writer = new XMLWriter(new FileWriter("C:\\testtest.xml"), format);
-                writer.write(doc);
-                writer.close();
-            } catch (IOException ioe) {
-                ioe.printStackTrace();
-            }
-        }
+        // at most, the estimation usually stops before, see TopicModelEstimation
+        model.setNumIterations(AnalysisConfiguration.topicMaxIterations);
     }
 
     @Override
     public void computeTopics() {
-        switch (cellDocumentMergeType) {
-            case ALL_DOCS_ONE_INSTANCE:
-                addAllCellDocumentsAsConcatenatedInstances();
-                break;
-            case ONE_DOC_ONE_INSTANCE:
-                addAllCellDocumentsAsSingleInstances();
-                break;
-            default:
-                throw new IllegalArgumentException();
-        }
+        addAllCellDocumentsAsInstances();
 
         // add all instance to the model
         model.addInstances(instances);
 
         final DateTime starttime = DateTime.now();
         LOG.log(Level.INFO, "starting calculation of {0} topics on {1} data instances", new Object[]{numTopics, instances.size()});
-        try {
-            model.estimate();
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
-        }
+        estimation = TopicModelEstimation.estimate(model, progress);
 
         final int secs = Seconds.secondsBetween(starttime, DateTime.now()).getSeconds();
         LOG.log(Level.INFO, "calculation of topics finished after {0} seconds ({1} s/topic)", new Object[]{secs, (float) secs / numTopics});
@@ -260,40 +164,7 @@ public class MalletParallelTopicExtractor extends MalletTopicExtractor {
         }
 
         // now also add cells to topics
-        Set<Topic> usedTopics = new HashSet<>();
-        
-        // iterate all cells
-        for (Map.Entry<FilterCell, List<Integer>> entrySet : cellInstancePositions.entrySet()) {
-            FilterCell cell = entrySet.getKey();
-            // this contains all instance / documents indexes for the current cell
-            List<Integer> instancePos = entrySet.getValue();
-
-            RealVector cellTopicProbabilities = null;
-
-            // because we have multiple cell documents, we need to aggregate their particular topic probabilities
-            // current approach: just sum all probs up and divide by number of cell docs to get the average
-            // maybe another idea is to use the max values or use the quartile or something
-            for (Integer singleInstancePos : instancePos) {
-                double[] topicProbsOfCell = model.getTopicProbabilities(singleInstancePos);
-                RealVector cellDocTopicProbabilities = MatrixUtils.createRealVector(topicProbsOfCell);
-                
-                // sum up
-                if (cellTopicProbabilities == null) {
-                    cellTopicProbabilities = cellDocTopicProbabilities;
-                } else {
-                    cellTopicProbabilities = cellTopicProbabilities.add(cellDocTopicProbabilities);
-                }
-            }
-            // compute the average by performing division
-            cellTopicProbabilities = cellTopicProbabilities.mapDivide(instancePos.size());
-            
-            
-            Map<Topic, Double> tmpCellTopicProbabilities = new HashMap<>();
-            for (int i = 0; i < allTopics.size(); i++) {
-                tmpCellTopicProbabilities.put(getTopicById(allTopics, i), cellTopicProbabilities.toArray()[i]);
-            }
-            usedTopics.addAll(createRelevantTopicCellMappings(allTopics, tmpCellTopicProbabilities, cell));
-        }
+        final Set<Topic> usedTopics = assignTopicsToCells(toSurfaceForms(allTopics), model::getTopicProbabilities);
 
         for (Map.Entry<FilterCell, List<Integer>> entrySet : cellInstancePositions.entrySet()) {
             FilterCell cell = entrySet.getKey();
@@ -9,21 +9,38 @@ import cc.mallet.pipe.Pipe;
 import cc.mallet.pipe.SerialPipes;
 import cc.mallet.pipe.TokenSequence2FeatureSequence;
 import cc.mallet.pipe.TokenSequenceRemoveStopwords;
+import cc.mallet.types.Alphabet;
+import cc.mallet.types.Instance;
 import cc.mallet.types.InstanceList;
+import java.io.FileWriter;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
+import kn.uni.hamborg.adv.AnalysisConfiguration;
 import kn.uni.hamborg.adv.table.FilterCell;
+import kn.uni.hamborg.adv.table.FilterValue;
 import kn.uni.hamborg.adv.table.TableManager;
+import kn.uni.hamborg.data.light.LightDoc;
+import kn.uni.hamborg.utils.DocumentUtils;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.IndexSearcher;
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+import org.dom4j.io.OutputFormat;
+import org.dom4j.io.XMLWriter;
 
 /**
  * A {@link TopicExtractor} based on Mallet. Prepares some Mallet stuff.
@@ -70,17 +87,84 @@ public abstract class MalletTopicExtractor extends TopicExtractor {
      * How to map between cell documents and mallet instances.
      */
     protected final CellDocumentMergeType cellDocumentMergeType;
+    /**
+     * Creates the instances from the term vectors of the cell documents,
+     * {@code null} if the texts are put through the pipe of
+     * {@code instances}.
+     */
+    protected final TermVectorInstanceBuilder instanceBuilder;
 
     public MalletTopicExtractor(TableManager tableManager, String fieldname, QueryParser queryParser, int numTopicsPerCell, CellDocumentMergeType cellDocumentMergeType, IndexReader indexReader, IndexSearcher indexSearcher,
             Analyzer analyzer) {
+        this(tableManager, fieldname, queryParser, numTopicsPerCell, numTopicsPerCell * tableManager.getCellCount(),
+                cellDocumentMergeType, indexReader, indexSearcher, analyzer, createPipe(),
+                useTermVectors(indexReader, fieldname));
+    }
+
+    /**
+     *
+     * @param tableManager
+     * @param fieldname
+     * @param queryParser
+     * @param numTopicsPerCell
+     * @param numTopics total number of topics
+     * @param cellDocumentMergeType
+     * @param indexReader
+     * @param indexSearcher
+     * @param analyzer
+     * @param pipe converts the texts of the cell documents into instances,
+     * e.g., the pipe of an existing model
+     * @param fromTermVectors whether the instances are created from the term
+     * vectors of the cell documents (with the alphabet of {@code pipe})
+     * instead of their texts
+     */
+    protected MalletTopicExtractor(TableManager tableManager, String fieldname, QueryParser queryParser, int numTopicsPerCell, int numTopics,
+            CellDocumentMergeType cellDocumentMergeType, IndexReader indexReader, IndexSearcher indexSearcher,
+            Analyzer analyzer, Pipe pipe, boolean fromTermVectors) {
         super(tableManager, fieldname, queryParser, indexReader, indexSearcher, analyzer);
 
-        numTopics = numTopicsPerCell * tableManager.getCellCount();
+        this.numTopics = numTopics;
         this.cellDocumentMergeType = cellDocumentMergeType;
         topicProbabilityThreshold = TOPIC_PROBABILITY_THRESHOLD_ / (double) numTopicsPerCell;
 
         cellInstancePositions = new HashMap<>();
 
+        instances = new InstanceList(pipe);
+        instanceBuilder = fromTermVectors
+                ? new TermVectorInstanceBuilder(indexReader, fieldname, instances.getDataAlphabet()) : null;
+    }
+
+    /**
+     * Returns whether the instances of {@code fieldname} are created from
+     * term vectors, see
+     * {@link AnalysisConfiguration#topicInstancesFromTermVectors}.
+     *
+     * @param indexReader
+     * @param fieldname
+     * @return
+     */
+    public static boolean useTermVectors(IndexReader indexReader, String fieldname) {
+        return AnalysisConfiguration.topicInstancesFromTermVectors
+                && TermVectorInstanceBuilder.hasTermVectors(indexReader, fieldname);
+    }
+
+    /**
+     * Creates the pipe that converts texts into Mallet instances.
+     *
+     * @return
+     */
+    public static Pipe createPipe() {
+        return createPipe(new Alphabet());
+    }
+
+    /**
+     * Creates the pipe that converts texts into Mallet instances with the
+     * features of {@code dataAlphabet}.
+     *
+     * @param dataAlphabet
+     * @return
+     */
+    public static Pipe createPipe(Alphabet dataAlphabet) {
         // Begin by importing documents from text to feature sequences
         List<Pipe> pipeList = new ArrayList<>();
 
@@ -97,9 +181,190 @@ public abstract class MalletTopicExtractor extends TopicExtractor {
         }
         stopwords.addStopWords(tmpstopword);
         pipeList.add(stopwords);
-        pipeList.add(new TokenSequence2FeatureSequence());
+        pipeList.add(new TokenSequence2FeatureSequence(dataAlphabet));
 
-        instances = new InstanceList(new SerialPipes(pipeList));
+        return new SerialPipes(pipeList);
+    }
+
+    /**
+     * Adds all cell documents to the mallet pipeline, depending on
+     * {@code cellDocumentMergeType}.
+     */
+    protected void addAllCellDocumentsAsInstances() {
+        switch (cellDocumentMergeType) {
+            case ALL_DOCS_ONE_INSTANCE:
+                addAllCellDocumentsAsConcatenatedInstances();
+                break;
+            case ONE_DOC_ONE_INSTANCE:
+                addAllCellDocumentsAsSingleInstances();
+                break;
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Adds all cell documents to the mallet pipeline. Thereby all documents
+     * from one cell are concatenated and added as a single instance (belonging
+     * to that cell virtually) to mallet.
+     */
+    protected void addAllCellDocumentsAsConcatenatedInstances() {
+        int instancePosition = 0;
+        for (FilterValue rowDimension : tableManager.getRowDimension()) {
+            for (FilterValue colDimension : tableManager.getColDimension()) {
+                // get all docs of this cell, get their text, concat it and put it as one instance into mallet
+                final FilterCell cell = tableManager.getCell(rowDimension, colDimension);
+
+                LOG.log(Level.INFO, "creating topic instance for cell {0}", cell.getHumanReadableId());
+
+                if (instanceBuilder != null) {
+                    try {
+                        instances.add(instanceBuilder.createInstance(cell.getDocIds(), cell.getDocuments(),
+                                cell.getId(), cell.getId()));
+                    } catch (IOException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                } else {
+                    final Document[] cellDocs = cell.getDocuments().toArray(new Document[0]);
+                    final String cellDocsText = DocumentUtils.getConcatenatedContent(cellDocs, fieldname);
+                    instances.addThruPipe(new Instance(cellDocsText,
+                            cell.getId(), cell.getId(), cell.getId()));
+                }
+
+                List<Integer> cellPositions = cellInstancePositions.get(cell);
+                if (cellPositions == null) {
+                    cellPositions = new ArrayList<>();
+                    cellInstancePositions.put(cell, cellPositions);
+                }
+                cellPositions.add(instancePosition);
+                instancePosition++;
+            }
+        }
+    }
+
+    /**
+     * Adds all cell documents to mallets pipeline. Thereby each document is
+     * added as a single instance. Thus, there is no 1:1 relation between cell
+     * and instance, but rather a 1:N relation between cell and instances.
+     */
+    protected void addAllCellDocumentsAsSingleInstances() {
+        final boolean exportit = false;
+        org.dom4j.Document doc = null;
+        Element topic = null;
+        if (exportit) {
+            doc = DocumentHelper.createDocument();
+            Element section = doc.addElement("section");
+            section.addAttribute("name", "noname");
+            topic = section.addElement("topic");
+            topic.addAttribute("name", "noname");
+        }
+        int instancePosition = 0;
+        for (FilterValue rowDimension : tableManager.getRowDimension()) {
+            for (FilterValue colDimension : tableManager.getColDimension()) {
+                // get all docs of this cell, get their text, concat it and put it as one instance into mallet
+                final FilterCell cell = tableManager.getCell(rowDimension, colDimension);
+                final Document[] cellDocs = cell.getDocuments().toArray(new Document[0]);
+                final int[] cellDocIds = cell.getDocIds();
+
+                LOG.log(Level.INFO, "creating topic instance for cell {0}", cell.getHumanReadableId());
+
+                for (int i = 0; i < cellDocs.length; i++) {
+                    final Document cellDoc = cellDocs[i];
+                    final String cellDocText = cellDoc.get(LightDoc.getStoredField(fieldname));
+                    if (instanceBuilder != null) {
+                        try {
+                            instances.add(instanceBuilder.createInstance(cellDocIds[i], cellDoc,
+                                    cell.getId(), cell.getId() + instancePosition));
+                        } catch (IOException ex) {
+                            throw new RuntimeException(ex);
+                        }
+                    } else {
+                        instances.addThruPipe(new Instance(cellDocText,
+                                cell.getId(), cell.getId() + instancePosition, cell.getId()));
+                    }
+                    if (exportit) {
+                        Element utterance = topic.addElement("utterance");
+                        utterance.addAttribute("name", cell.getHumanReadableId());
+                        utterance.addAttribute("sprecherId", "tbd");
+                        utterance.addAttribute("timestamp", "tbd");
+                        utterance.addAttribute("id", "0");
+                        utterance.addText(cellDocText.replaceAll("\\P{InBasic_Latin}", ""));
+                    }
+                    List<Integer> cellPositions = cellInstancePositions.get(cell);
+                    if (cellPositions == null) {
+                        cellPositions = new ArrayList<>();
+                        cellInstancePositions.put(cell, cellPositions);
+                    }
+                    cellPositions.add(instancePosition);
+                    instancePosition++;
+                }
+            }
+        }
+
+        if (exportit) {
+            try {
+                // Pretty print the document to System.out
+                OutputFormat format = OutputFormat.createPrettyPrint();
+                XMLWriter writer;
+                writer = new XMLWriter(new FileWriter("C:\\testtest.xml"), format);
+                writer.write(doc);
+                writer.close();
+            } catch (IOException ioe) {
+                ioe.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Assigns the topics to each cell, see
+     * {@link #createRelevantTopicCellMappings(CellTopicProbabilities, int)}.
+     * The topic probabilities of a cell are the average of the topic
+     * probabilities of its instances.
+     *
+     * @param allTopics the topics in the order of the topic probabilities of
+     * the instances
+     * @param topicProbabilitiesOfInstance returns the topic probabilities of
+     * the instance at the given position
+     * @return the topics that have been assigned to at least one cell
+     */
+    protected Set<Topic> assignTopicsToCells(List<Topic> allTopics, IntFunction<double[]> topicProbabilitiesOfInstance) {
+        final long start = System.currentTimeMillis();
+        final CellTopicProbabilities cellTopicProbabilities = new CellTopicProbabilities(
+                new ArrayList<>(cellInstancePositions.keySet()), allTopics);
+
+        // because we have multiple cell documents, we need to aggregate their particular topic probabilities
+        // current approach: just sum all probs up and divide by number of cell docs to get the average
+        // maybe another idea is to use the max values or use the quartile or something
+        for (int cellIndex = 0; cellIndex < cellTopicProbabilities.getCellCount(); cellIndex++) {
+            for (int instancePos : cellInstancePositions.get(cellTopicProbabilities.getCell(cellIndex))) {
+                cellTopicProbabilities.add(cellIndex, topicProbabilitiesOfInstance.apply(instancePos));
+            }
+        }
+
+        Set<Topic> usedTopics = new HashSet<>();
+        for (int cellIndex = 0; cellIndex < cellTopicProbabilities.getCellCount(); cellIndex++) {
+            usedTopics.addAll(createRelevantTopicCellMappings(cellTopicProbabilities, cellIndex));
+        }
+        LOG.log(Level.INFO, "assigned {0} topics to {1} cells in {2} ms", new Object[]{allTopics.size(),
+            cellTopicProbabilities.getCellCount(), System.currentTimeMillis() - start});
+
+        return usedTopics;
+    }
+
+    /**
+     * Returns {@code topics} with the surface forms of their terms if the
+     * instances are created from the term vectors of a stemmed field, see
+     * {@link StemSurfaceForms}. Thus, the terms of the topics can be analyzed
+     * again, e.g., in queries, and shown to the user.
+     *
+     * @param topics
+     * @return
+     */
+    protected List<Topic> toSurfaceForms(List<Topic> topics) {
+        if (instanceBuilder == null || fieldname.equals(LightDoc.getStoredField(fieldname))) {
+            return topics;
+        }
+        return new StemSurfaceForms(indexReader, fieldname).toSurfaceForms(topics);
     }
 
     /**
@@ -0,0 +1,193 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.adv.topic;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import kn.uni.hamborg.data.light.LightDoc;
+import kn.uni.hamborg.lucene.analyzer.AnalyzerFactory;
+import kn.uni.hamborg.lucene.summarizer.StringScore;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.StringHelper;
+
+/**
+ * Maps the terms of a stemmed field, e.g., the terms of topics created by a
+ * {@link TermVectorInstanceBuilder}, back to surface forms, i.e., to the most
+ * frequent term of the unstemmed field (see
+ * {@link LightDoc#getStoredField(String)}) that is stemmed to the same term.
+ * Stemming only changes the end of a word, thus only the terms of the
+ * unstemmed field that start with the stem (without its last characters) are
+ * analyzed. Analyzing the surface form again, e.g., in
+ * {@link TopicExtractor#getQueryForTopic(Topic, Analyzer, String, boolean)},
+ * results in the original stem. Stems without a surface form are kept.
+ *
+ * Not thread-safe.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class StemSurfaceForms {
+
+    private static final Logger LOG = Logger.getLogger(StemSurfaceForms.class.getSimpleName());
+
+    /**
+     * Number of characters at the end of a stem that may differ from its
+     * surface forms, e.g., "happi" of "happy", or "abl" of "ability".
+     */
+    private static final int[] STEM_SUFFIX_LENGTHS = {2, 4};
+    /**
+     * Minimum length of the prefix that the surface forms share with the
+     * stem.
+     */
+    private static final int MIN_PREFIX_LENGTH = 2;
+    /**
+     * Maximum number of terms with the same prefix that are analyzed per
+     * stem.
+     */
+    private static final int MAX_CANDIDATES = 2000;
+
+    private final IndexReader indexReader;
+    private final String stemmedField;
+    private final String surfaceField;
+    private final Analyzer analyzer = AnalyzerFactory.createAnalyzerForStemmedText();
+    /**
+     * The surface form of each stem looked up so far.
+     */
+    private final Map<String, String> surfaceForms = new HashMap<>();
+
+    /**
+     *
+     * @param indexReader
+     * @param stemmedField the field the stems are terms of, e.g.,
+     * {@link LightDoc#CONTENT_STEMMED}
+     */
+    public StemSurfaceForms(IndexReader indexReader, String stemmedField) {
+        this.indexReader = indexReader;
+        this.stemmedField = stemmedField;
+        this.surfaceField = LightDoc.getStoredField(stemmedField);
+    }
+
+    /**
+     * Returns new topics with the surface forms of the terms of
+     * {@code topics} and the same ids. If several terms of a topic have the
+     * same surface form, their probabilities are added up.
+     *
+     * @param topics
+     * @return
+     */
+    public List<Topic> toSurfaceForms(List<Topic> topics) {
+        final long start = System.currentTimeMillis();
+        final List<Topic> result = new ArrayList<>(topics.size());
+        for (Topic topic : topics) {
+            final Map<String, Double> termProbs = new LinkedHashMap<>();
+            for (StringScore ss : topic.getTermProbabilities()) {
+                termProbs.merge(getSurfaceForm(ss.getValue()), ss.getScore(), Double::sum);
+            }
+            final List<StringScore> termWeights = new ArrayList<>(termProbs.size());
+            for (Map.Entry<String, Double> entry : termProbs.entrySet()) {
+                termWeights.add(new StringScore(entry.getKey(), entry.getValue()));
+            }
+            result.add(new Topic(termWeights, 1.0, topic.getId()));
+        }
+        LOG.log(Level.INFO, "mapped {0} stems of {1} topics to surface forms in {2} ms",
+                new Object[]{surfaceForms.size(), topics.size(), System.currentTimeMillis() - start});
+        return result;
+    }
+
+    /**
+     * Returns the most frequent surface form of {@code stem}, or {@code stem}
+     * if there is none.
+     *
+     * @param stem
+     * @return
+     */
+    public String getSurfaceForm(String stem) {
+        String surfaceForm = surfaceForms.get(stem);
+        if (surfaceForm == null) {
+            try {
+                surfaceForm = findSurfaceForm(stem);
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+            surfaceForms.put(stem, surfaceForm);
+        }
+        return surfaceForm;
+    }
+
+    private String findSurfaceForm(String stem) throws IOException {
+        final Terms terms = MultiFields.getTerms(indexReader, surfaceField);
+        if (terms == null) {
+            return stem;
+        }
+        int lastPrefixLength = -1;
+        for (int suffixLength : STEM_SUFFIX_LENGTHS) {
+            final int prefixLength = Math.max(MIN_PREFIX_LENGTH, stem.length() - suffixLength);
+            if (prefixLength > stem.length() || prefixLength == lastPrefixLength) {
+                break;
+            }
+            lastPrefixLength = prefixLength;
+            final String surfaceForm = findSurfaceForm(terms.iterator(null), stem,
+                    new BytesRef(stem.substring(0, prefixLength)));
+            if (surfaceForm != null) {
+                return surfaceForm;
+            }
+        }
+        return stem;
+    }
+
+    private String findSurfaceForm(TermsEnum termsEnum, String stem, BytesRef prefix) throws IOException {
+        if (termsEnum.seekCeil(prefix) == TermsEnum.SeekStatus.END) {
+            return null;
+        }
+        String surfaceForm = null;
+        int surfaceFormDocFreq = 0;
+        int candidates = 0;
+        BytesRef term = termsEnum.term();
+        while (term != null && StringHelper.startsWith(term, prefix) && candidates++ < MAX_CANDIDATES) {
+            final int docFreq = termsEnum.docFreq();
+            if (docFreq > surfaceFormDocFreq) {
+                final String candidate = term.utf8ToString();
+                if (stem.equals(analyze(candidate))) {
+                    surfaceForm = candidate;
+                    surfaceFormDocFreq = docFreq;
+                }
+            }
+            term = termsEnum.next();
+        }
+        return surfaceForm;
+    }
+
+    /**
+     * Returns the only term of {@code text} analyzed like {@code stemmedField},
+     * {@code null} if there is none or more than one.
+     */
+    private String analyze(String text) throws IOException {
+        String result = null;
+        try (TokenStream ts = analyzer.tokenStream(stemmedField, text)) {
+            final CharTermAttribute termAtt = ts.addAttribute(CharTermAttribute.class);
+            ts.reset();
+            while (ts.incrementToken()) {
+                if (result != null) {
+                    result = null;
+                    break;
+                }
+                result = termAtt.toString();
+            }
+            ts.end();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.adv.topic;
+
+import cc.mallet.types.Alphabet;
+import cc.mallet.types.FeatureSequence;
+import cc.mallet.types.Instance;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import kn.uni.hamborg.data.light.LightDoc;
+import kn.uni.hamborg.lucene.analyzer.AnalyzerFactory;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * Creates Mallet instances directly from the term vectors stored in the index
+ * instead of tokenizing the texts of the documents again with the pipe of
+ * {@link MalletTopicExtractor#createPipe()}. Thus, the features are the terms
+ * of the index, e.g., stemmed and without stop words. Documents without a
+ * term vector, e.g., from an index created with another
+ * {@link kn.uni.hamborg.lucene.index.IndexSchema}, are analyzed with the
+ * analyzer of the index, see {@link AnalyzerFactory#createCustomAnalyzer()},
+ * which results in the same terms.
+ *
+ * All instances of a builder share the {@link Alphabet}, i.e., the terms are
+ * looked up once per builder. Not thread-safe.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class TermVectorInstanceBuilder {
+
+    /**
+     * Same tokens as {@link MalletTopicExtractor#createPipe()} accepts, i.e.,
+     * no numbers and at least three characters.
+     */
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("\\p{L}[\\p{L}\\p{P}]+\\p{L}");
+
+    private final IndexReader indexReader;
+    private final String fieldname;
+    private final Alphabet alphabet;
+    /**
+     * Only created for documents without a term vector.
+     */
+    private Analyzer analyzer;
+    /**
+     * The feature of each term seen so far, {@code -1} if the term is not
+     * used.
+     */
+    private final Map<String, Integer> features = new HashMap<>();
+
+    /**
+     * Buffer for the features of the current instance.
+     */
+    private int[] buffer = new int[1024];
+    private int length;
+
+    /**
+     *
+     * @param indexReader
+     * @param fieldname
+     * @param alphabet the alphabet of the instances, e.g., that of the
+     * {@link cc.mallet.types.InstanceList} they are added to. If its growth
+     * is stopped, unknown terms are ignored.
+     */
+    public TermVectorInstanceBuilder(IndexReader indexReader, String fieldname, Alphabet alphabet) {
+        this.indexReader = indexReader;
+        this.fieldname = fieldname;
+        this.alphabet = alphabet;
+    }
+
+    /**
+     * Returns whether documents of the index have a term vector for
+     * {@code fieldname}.
+     *
+     * @param indexReader
+     * @param fieldname
+     * @return
+     */
+    public static boolean hasTermVectors(IndexReader indexReader, String fieldname) {
+        final FieldInfo fieldInfo = MultiFields.getMergedFieldInfos(indexReader).fieldInfo(fieldname);
+        return fieldInfo != null && fieldInfo.hasVectors();
+    }
+
+    /**
+     * Creates one instance of all terms of the given documents.
+     *
+     * @param docIds
+     * @param documents the stored documents of {@code docIds}, only used for
+     * documents without a term vector. Can be {@code null}.
+     * @param target
+     * @param name
+     * @return
+     * @throws IOException
+     */
+    public Instance createInstance(int[] docIds, List<Document> documents, Object target, Object name) throws IOException {
+        length = 0;
+        for (int i = 0; i < docIds.length; i++) {
+            addTerms(docIds[i], documents == null ? null : documents.get(i));
+        }
+        return new Instance(new FeatureSequence(alphabet, Arrays.copyOf(buffer, length)), target, name, null);
+    }
+
+    /**
+     * Creates an instance of the terms of a single document.
+     *
+     * @param docId
+     * @param document the stored document, only used if there is no term
+     * vector. Can be {@code null}.
+     * @param target
+     * @param name
+     * @return
+     * @throws IOException
+     */
+    public Instance createInstance(int docId, Document document, Object target, Object name) throws IOException {
+        return createInstance(new int[]{docId}, document == null ? null : Collections.singletonList(document), target, name);
+    }
+
+    private void addTerms(int docId, Document document) throws IOException {
+        final Terms termVector = indexReader.getTermVector(docId, fieldname);
+        if (termVector != null) {
+            final TermsEnum termsEnum = termVector.iterator(null);
+            BytesRef term;
+            while ((term = termsEnum.next()) != null) {
+                addFeature(term.utf8ToString(), (int) termsEnum.totalTermFreq());
+            }
+            return;
+        }
+
+        final String storedField = LightDoc.getStoredField(fieldname);
+        final Document doc = document != null ? document
+                : indexReader.document(docId, Collections.singleton(storedField));
+        final String text = doc.get(storedField);
+        if (text == null) {
+            return;
+        }
+        if (analyzer == null) {
+            analyzer = AnalyzerFactory.createCustomAnalyzer();
+        }
+        try (TokenStream ts = analyzer.tokenStream(fieldname, text)) {
+            final CharTermAttribute termAtt = ts.addAttribute(CharTermAttribute.class);
+            ts.reset();
+            while (ts.incrementToken()) {
+                addFeature(termAtt.toString(), 1);
+            }
+            ts.end();
+        }
+    }
+
+    private void addFeature(String term, int frequency) {
+        Integer feature = features.get(term);
+        if (feature == null) {
+            feature = TOKEN_PATTERN.matcher(term).matches() ? alphabet.lookupIndex(term, true) : -1;
+            features.put(term, feature);
+        }
+        if (feature < 0) {
+            return;
+        }
+        if (length + frequency > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + frequency));
+        }
+        Arrays.fill(buffer, length, length + frequency, feature);
+        length += frequency;
+    }
+}
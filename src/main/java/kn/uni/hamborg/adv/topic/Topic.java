@@ -79,14 +79,22 @@ public class Topic extends AttributeHolder {
      * @param id
      */
     public Topic(List<StringScore> termWeights, int id) {
+        this(termWeights, getTotalWeight(termWeights), id);
+    }
+
+    /**
+     * Constructs a {@code Topic} from the weights of some of its terms, e.g.,
+     * only the most frequent ones of a large topic model.
+     *
+     * @param termWeights
+     * @param totalWeights the sum of the weights of all terms of the topic,
+     * used to normalize {@code termWeights}
+     * @param id
+     */
+    public Topic(List<StringScore> termWeights, double totalWeights, int id) {
         this.id = id;
 
         List<StringScore> tmp = new ArrayList<>();
-        double totalWeights = 0.0;
-        for (StringScore termWeight : termWeights) {
-            totalWeights += termWeight.getScore();
-        }
-
         for (StringScore entrySet : termWeights) {
             String key = entrySet.getValue();
             double value = entrySet.getScore();
@@ -110,6 +118,14 @@ public class Topic extends AttributeHolder {
         LOG.info(Arrays.asList(allTerms).toString());
     }
 
+    private static double getTotalWeight(List<StringScore> termWeights) {
+        double totalWeights = 0.0;
+        for (StringScore termWeight : termWeights) {
+            totalWeights += termWeight.getScore();
+        }
+        return totalWeights;
+    }
+
     /**
      * Returns relevant terms that make up this topic
      *
@@ -197,7 +213,11 @@ public class Topic extends AttributeHolder {
 
     /**
      * Merges the given topics to one new topic. The new topics has the mean
-     * term probabilities of all topics and the id of the first topic.
+     * term probabilities of all topics and the id of the first topic. Since
+     * topics are compared by their ids, the merged topic is equal to the first
+     * topic, thus it must replace all given topics, e.g., in the topics of the
+     * cells, and the ids of the other topics are no longer used. The merged
+     * topic has no cells yet.
      *
      * @param topics
      * @return
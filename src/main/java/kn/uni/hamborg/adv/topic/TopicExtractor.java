@@ -10,6 +10,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import kn.uni.hamborg.adv.AnalysisConfiguration;
@@ -31,6 +32,7 @@ import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.QueryBuilder;
 
 /**
  * This provides functionality for topic extraction. Currently an easy, simple
@@ -64,6 +66,11 @@ public abstract class TopicExtractor {
     protected final IndexSearcher indexSearcher;
     protected final Analyzer analyzer;
     protected ImmutableList<Topic> topics;
+    /**
+     * How the topic model has been estimated, {@code null} if the extractor
+     * does not estimate a model.
+     */
+    protected TopicModelEstimation estimation;
 
     public TopicExtractor(TableManager tableManager, String fieldname, QueryParser queryParser, IndexReader indexReader, IndexSearcher indexSearcher, Analyzer analyzer) {
         this.tableManager = tableManager;
@@ -157,17 +164,50 @@ public abstract class TopicExtractor {
     }
 
     public static Query getQueryForTopic(Topic topic, QueryParser queryParser, boolean forceTopTermsContained) throws ParseException {
+        return getQueryForTopic(topic, queryParser.getAnalyzer(), queryParser.getField(), forceTopTermsContained);
+    }
+
+    /**
+     * Builds the query of a topic from its terms without parsing a query
+     * string, i.e., each term is only analyzed. Other than a
+     * {@link QueryParser}, this is thread-safe.
+     *
+     * @param topic
+     * @param analyzer
+     * @param fieldname
+     * @param forceTopTermsContained
+     * @return
+     */
+    public static Query getQueryForTopic(Topic topic, Analyzer analyzer, String fieldname, boolean forceTopTermsContained) {
+        final QueryBuilder queryBuilder = new QueryBuilder(analyzer);
         // new variant: top terms are boosted very much
         BooleanQuery bq = new BooleanQuery();
         if (AnalysisConfiguration.topicQueryHasTopTermsSuperBoosted) {
-            Query q = queryParser.parse(TopicUtils.getSortedWeightedTopTermsAsQueryString(topic.getTopTermProbabilities(), forceTopTermsContained, 100.0f));
-            bq.add(q, BooleanClause.Occur.MUST);
+            bq.add(createWeightedTermsQuery(queryBuilder, fieldname, topic.getTopTermProbabilities(),
+                    forceTopTermsContained ? BooleanClause.Occur.MUST : BooleanClause.Occur.SHOULD, 100.0f),
+                    BooleanClause.Occur.MUST);
+        }
+        bq.add(createWeightedTermsQuery(queryBuilder, fieldname, topic.getTermProbabilities(),
+                BooleanClause.Occur.SHOULD, 1.0f), BooleanClause.Occur.SHOULD);
+        return bq;
+    }
+
+    /**
+     * Same as parsing
+     * {@link TopicUtils#getSortedWeightedTopTermsAsQueryString(List, boolean, float)}.
+     */
+    private static Query createWeightedTermsQuery(QueryBuilder queryBuilder, String fieldname,
+            List<StringScore> termProbabilities, BooleanClause.Occur occur, float allBoostingFactor) {
+        final BooleanQuery bq = new BooleanQuery();
+        for (Map.Entry<String, Double> termProb : TopicUtils.getSortedWeightedTopTerms(termProbabilities)) {
+            final Query termQuery = queryBuilder.createBooleanQuery(fieldname, termProb.getKey());
+            // e.g., a stop word
+            if (termQuery == null) {
+                continue;
+            }
+            termQuery.setBoost((float) (double) termProb.getValue() * allBoostingFactor);
+            bq.add(termQuery, occur);
         }
-        String allTermsWithWeights = TopicUtils.getSortedWeightedTopTermsAsQueryString(topic.getTermProbabilities(), false, 1.0f);
-        Query allTerms = queryParser.parse(allTermsWithWeights);
-        allTerms.setBoost(1);
-        bq.add(allTerms, BooleanClause.Occur.SHOULD);
-        System.out.println(bq.toString());
         return bq;
     }
 
@@ -184,6 +224,10 @@ public abstract class TopicExtractor {
         return getQueryForTopic(topic, queryParser, AnalysisConfiguration.topicQueryForceAllTopTermsIncluded);
     }
 
+    public TopicModelEstimation getEstimation() {
+        return estimation;
+    }
+
     /**
      * Returns the topics in a Map with their id as key. Recreation every time
      * this is invoked.
@@ -202,53 +246,51 @@ public abstract class TopicExtractor {
 
     /**
      * Merges topics based on the underlying {@link TopicMerger}.
+     *
+     * @param executorService compares the topics in parallel, can be
+     * {@code null}
      */
-    public void mergeTopics() {
-        /*LOG.info("merging topics...");
-         ITopicMerger topicMerger = new TopicMerger(tableManager, indexReader, indexSearcher, this, analyzer);
-         topicMerger.mergeTopics();
-         */
-        //topics = ImmutableList.copyOf(mergedTopics);
+    public void mergeTopics(ExecutorService executorService) {
+        LOG.info("merging topics...");
+        ITopicMerger topicMerger = new TopicMerger(tableManager, this, executorService);
+        topicMerger.mergeTopics();
     }
 
     /**
      * Creates mappings between topics and a cell if they are relevant, i.e.,
      * their probability is {@code >= TOPIC_PROBABILITY_THRESHOLD}
      *
-     * @param topics
-     * @param topicProbabilities
-     * @param cell
+     * @param cellTopicProbabilities
+     * @param cellIndex the cell within {@code cellTopicProbabilities}
      * @return Returns those topics that have been used.
      */
-    protected Set<Topic> createRelevantTopicCellMappings(
-            List<Topic> topics, Map<Topic, Double> topicProbabilities, FilterCell cell) {
+    protected Set<Topic> createRelevantTopicCellMappings(CellTopicProbabilities cellTopicProbabilities, int cellIndex) {
+        final FilterCell cell = cellTopicProbabilities.getCell(cellIndex);
         List<TopicScore> topicProbs = new ArrayList<>();
         Set<Topic> usedTopics = new HashSet<>();
         double maxProb = -1;
-        Topic maxTopic = null;
+        int maxTopicColumn = -1;
 
-        for (Map.Entry<Topic, Double> entrySet : topicProbabilities.entrySet()) {
-            Topic topic = entrySet.getKey();
-            Double topicProb = entrySet.getValue();
+        for (int topicColumn = 0; topicColumn < cellTopicProbabilities.getTopicCount(); topicColumn++) {
+            final double topicProb = cellTopicProbabilities.get(cellIndex, topicColumn);
             if (topicProb >= topicProbabilityThreshold) {
+                final Topic topic = cellTopicProbabilities.getTopic(topicColumn);
                 topicProbs.add(new TopicScore(topic, topicProb));
                 topic.addCell(cell);
                 usedTopics.add(topic);
             }
 
-            // System.out.println(topicProbabilities[i]);
             // we also look at the topic with highest probability, in case no other 
             // topic has a prob >= threshold, we will use that.
-            // the topic is then actually added later (line 156)
             if (maxProb < topicProb) {
                 maxProb = topicProb;
-                maxTopic = topic;
+                maxTopicColumn = topicColumn;
             }
         }
-        System.out.println(maxProb);
-        if (topicProbs.isEmpty()) {
+        if (topicProbs.isEmpty() && maxTopicColumn >= 0) {
             LOG.log(Level.WARNING, "no topics in this cell {0}, adding topic with highest probability", cell.getHumanReadableId());
             // if this is the case, we just take any topic with the highest prob, no matter about threshold or anything
+            final Topic maxTopic = cellTopicProbabilities.getTopic(maxTopicColumn);
             topicProbs.add(new TopicScore(maxTopic, maxProb));
             maxTopic.addCell(cell);
             usedTopics.add(maxTopic);
@@ -260,13 +302,4 @@ public abstract class TopicExtractor {
 
         return usedTopics;
     }
-
-    protected static Topic getTopicById(List<Topic> topics, int id) {
-        for (Topic topic : topics) {
-            if (topic.getId() == id) {
-                return topic;
-            }
-        }
-        return null;
-    }
 }
@@ -4,43 +4,34 @@
 package kn.uni.hamborg.adv.topic;
 
 import com.google.common.collect.ImmutableList;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import kn.uni.hamborg.adv.AnalysisConfiguration;
-import kn.uni.hamborg.adv.summary.Summaries;
-import kn.uni.hamborg.adv.summary.Summary;
 import kn.uni.hamborg.adv.table.FilterCell;
 import kn.uni.hamborg.adv.table.TableManager;
 import kn.uni.hamborg.lucene.summarizer.StringScore;
-import kn.uni.hamborg.utils.DocumentUtils;
 import kn.uni.hamborg.utils.MapUtils;
-import kn.uni.hamborg.web.cell.SummaryField;
-//import mdsj.MDSJ;
-import opennlp.tools.tokenize.SimpleTokenizer;
-import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.math3.ml.clustering.Cluster;
-import org.apache.commons.math3.ml.clustering.DBSCANClusterer;
-import org.apache.commons.math3.ml.clustering.DoublePoint;
-import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.document.Document;
-import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.Term;
-import org.apache.lucene.index.Terms;
-import org.apache.lucene.index.TermsEnum;
-import org.apache.lucene.search.IndexSearcher;
-import org.apache.lucene.search.ScoreDoc;
-import org.apache.lucene.util.BytesRef;
+import kn.uni.hamborg.utils.ThreadUtils;
 
 /**
- * Merges topics which more similar to each other than a given similarity
- * threshold.
+ * Merges topics which are more similar to each other than
+ * {@link AnalysisConfiguration#topicMergeSimilarityThreshold}.
+ *
+ * Each topic is a sparse vector of the probabilities of its terms. Only pairs
+ * of topics sharing at least one top term are compared (the cosine similarity
+ * of all other pairs is small, as the top terms carry most of the
+ * probability), in parallel. The topics are clustered by single linkage, i.e.,
+ * the connected components of all pairs above the threshold (union-find), and
+ * the topics of each cluster are merged with {@link Topic#mergeTopics(List)}.
  *
  * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
  */
@@ -48,329 +39,222 @@ public class TopicMerger implements ITopicMerger {
 
     private static final Logger LOG = Logger.getLogger(TopicMerger.class.getSimpleName());
 
-    private static final float mergeSimilarityThreshold = 0.3f;
-    /**
-     * Number of documents which are used for tfidf space computation
-     */
-    private static final int NUMBER_OF_DOCS_FOR_TFIDF = 10;
     /**
-     * Size of merge radius for tfidf based DBScan
+     * Number of topics compared to their candidates by one task.
      */
-    private static final double DBSCAN_MERGE_RADIUS = 0.01;
+    private static final int TOPICS_PER_TASK = 32;
 
     private final TableManager tableManager;
-    private final IndexReader indexReader;
-    private final IndexSearcher indexSearcher;
     private final TopicExtractor topicExtractor;
-    private final String fieldname;
-    private final Analyzer analyzer;
+    private final ExecutorService executorService;
 
-    public TopicMerger(TableManager tableManager, IndexReader indexReader,
-            IndexSearcher indexSearcher, TopicExtractor topicExtractor,
-            Analyzer analyzer) {
+    /**
+     *
+     * @param tableManager
+     * @param topicExtractor its topics are replaced by the merged topics
+     * @param executorService compares the topics in parallel, can be
+     * {@code null}
+     */
+    public TopicMerger(TableManager tableManager, TopicExtractor topicExtractor, ExecutorService executorService) {
         this.tableManager = tableManager;
-        this.indexReader = indexReader;
-        this.indexSearcher = indexSearcher;
         this.topicExtractor = topicExtractor;
-        this.fieldname = AnalysisConfiguration.topicMergingSummarizationField;
-        this.analyzer = analyzer;
+        this.executorService = executorService;
     }
 
-    private List<String> getTopDocIdsOfTopic(Topic topic) {
-        final Document[] docs = TopicUtils.getDocumentsForTopic(topicExtractor, topic, tableManager, TopicSummarizer.NUMBER_OF_SUMMARIZATION_DOCS, indexSearcher, indexReader);
-        return Arrays.asList(DocumentUtils.getIdsFromDocs(docs));
+    /**
+     * A topic as sparse vector: its term ids (ascending) and the normalized
+     * term probabilities.
+     */
+    private static class TopicVector {
 
-    }
+        private final int[] termIds;
+        private final double[] weights;
 
-    private String getTopSentences(Summary s, int k) {
-        if (s.getTopSentences()[0].getValue().equals(Summaries.NOT_DEFINED)) {
-            return null;
+        TopicVector(int[] termIds, double[] weights) {
+            this.termIds = termIds;
+            this.weights = weights;
         }
 
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < Math.min(k, s.getTopSentences().length); i++) {
-            sb.append(s.getTopSentences()[i].getValue());
-            sb.append(" ");
-        }
-        if (sb.length() == 0) {
-            return null;
+        /**
+         * Both vectors are normalized, thus the dot product is the cosine
+         * similarity.
+         */
+        double cosine(TopicVector other) {
+            double dot = 0.0;
+            int i = 0;
+            int j = 0;
+            while (i < termIds.length && j < other.termIds.length) {
+                if (termIds[i] == other.termIds[j]) {
+                    dot += weights[i++] * other.weights[j++];
+                } else if (termIds[i] < other.termIds[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return dot;
         }
-        return sb.toString();
     }
 
-    private float calculateSummaryDistance(Summary a, Summary b) {
-        String sentenceA = getTopSentences(a, 1);
-        String sentenceB = getTopSentences(b, 1);
-        if (sentenceA == null || sentenceB == null) {
-            return 1.0f;
+    private static TopicVector createTopicVector(Topic topic, Map<String, Integer> termIds) {
+        final List<StringScore> termProbabilities = new ArrayList<>(topic.getTermProbabilities());
+        final int[] ids = new int[termProbabilities.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = getTermId(termIds, termProbabilities.get(i).getValue());
         }
 
-        String[] tokensA = SimpleTokenizer.INSTANCE.tokenize(sentenceA);
-        String[] tokensB = SimpleTokenizer.INSTANCE.tokenize(sentenceB);
-
-        System.out.println(sentenceA);
-        System.out.println(sentenceB);
-        System.out.println("" + (1.0f - calculateTokenOverlap(Arrays.asList(tokensA), Arrays.asList(tokensB))));
-
-        return 1.0f - calculateTokenOverlap(Arrays.asList(tokensA), Arrays.asList(tokensB));
-    }
-
-    private float calculateTermProbDifference(List<StringScore> a, List<StringScore> b) {
-        return 0;
-    }
-
-    private float calculateTopTermDistance(Topic a, Topic b) {
-        return 1.0f - calculateTokenOverlap(Arrays.asList(a.getTerms()), Arrays.asList(b.getTerms()));
-
-    }
-
-    private float calculateTokenOverlap(List<String> topDocsA, List<String> topDocsB) {
-        float countIntersectedDocs = CollectionUtils.intersection(topDocsA, topDocsB).size();
-        float maximumCountIntersectedDocs = Math.min(topDocsA.size(), topDocsB.size());
-        System.out.println(topDocsA);
-        System.out.println(topDocsB);
-        return countIntersectedDocs / maximumCountIntersectedDocs;
-    }
-
-    static class TopicDoublePoint extends DoublePoint {
-
-        private final Topic topic;
-
-        public TopicDoublePoint(double[] point, Topic topic) {
-            super(point);
-            this.topic = topic;
+        // sort by term id
+        final Integer[] order = new Integer[ids.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
         }
-
-        public Topic getTopic() {
-            return topic;
+        Arrays.sort(order, Comparator.comparingInt(i -> ids[i]));
+
+        final int[] sortedIds = new int[ids.length];
+        final double[] weights = new double[ids.length];
+        double norm = 0.0;
+        for (int i = 0; i < order.length; i++) {
+            sortedIds[i] = ids[order[i]];
+            weights[i] = termProbabilities.get(order[i]).getScore();
+            norm += weights[i] * weights[i];
         }
+        norm = Math.sqrt(norm);
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = norm == 0.0 ? 0.0 : weights[i] / norm;
+        }
+        return new TopicVector(sortedIds, weights);
     }
 
-    private static double getTermProbability(List<StringScore> termProbs, String term) {
-        for (StringScore ss : termProbs) {
-            if (ss.getValue().equals(term)) {
-                return ss.getScore();
-            }
+    private static int getTermId(Map<String, Integer> termIds, String term) {
+        Integer id = termIds.get(term);
+        if (id == null) {
+            id = termIds.size();
+            termIds.put(term, id);
         }
-        return 0.0;
+        return id;
     }
 
     /**
-     * Uses the topic summarization sentence to compare topics!!! this should
-     * really work because the sentences sometimes are almost the same
+     * Returns the pairs of topics (indexes) whose similarity is at least the
+     * threshold.
      *
-     * @param topics
+     * @param vectors
+     * @param topicsOfTopTerm the topics (indexes) having the term as top term
+     * @param topTermIds the top term ids of each topic
      * @return
      */
-    private List<TopicDoublePoint> getTopicsInSummarySentenceTermSpace(List<Topic> topics) {
-        // calculate the topic sentences
-        final TopicSummarizer ts = new TopicSummarizer(tableManager, new SummaryField[]{SummaryField.fromLightDocField(fieldname)}, indexReader, indexSearcher, analyzer, topicExtractor);
-        ts.computeSummaries();
-
-        double[][] distanceMatrix = new double[topics.size()][topics.size()];
-
-        for (int i = 0; i < distanceMatrix.length; i++) {
-            final Topic topic = topics.get(i);
-            final Summary topicSummary = TopicSummarizer.getSummary(topic, fieldname);
-
-            for (int j = 0; j < distanceMatrix.length; j++) {
-                if (i == j) {
-                    distanceMatrix[i][j] = 0.0;
-                    continue;
+    private List<int[]> findSimilarPairs(List<TopicVector> vectors, List<List<Integer>> topicsOfTopTerm, int[][] topTermIds) {
+        final List<Callable<List<int[]>>> tasks = new ArrayList<>();
+        for (int from = 0; from < vectors.size(); from += TOPICS_PER_TASK) {
+            final int start = from;
+            final int end = Math.min(vectors.size(), from + TOPICS_PER_TASK);
+            tasks.add(() -> {
+                final List<int[]> pairs = new ArrayList<>();
+                // the last topic each candidate has been compared to, to compare it only once
+                final int[] comparedTo = new int[vectors.size()];
+                Arrays.fill(comparedTo, -1);
+                for (int i = start; i < end; i++) {
+                    for (int termId : topTermIds[i]) {
+                        for (int j : topicsOfTopTerm.get(termId)) {
+                            // each pair only once
+                            if (j <= i || comparedTo[j] == i) {
+                                continue;
+                            }
+                            comparedTo[j] = i;
+                            if (vectors.get(i).cosine(vectors.get(j)) >= AnalysisConfiguration.topicMergeSimilarityThreshold) {
+                                pairs.add(new int[]{i, j});
+                            }
+                        }
+                    }
                 }
-
-                final Topic mergeTopic = topics.get(j);
-                final Summary mergeTopicSummary = TopicSummarizer.getSummary(mergeTopic, fieldname);
-
-                //  distanceMatrix[i][j] = calculateSummaryDistance(topicSummary, mergeTopicSummary);
-                distanceMatrix[i][j]
-                        = calculateTopTermDistance(topic, mergeTopic);
-                System.out.println("" + topic.getId() + " " + mergeTopic.getId() + ": " + distanceMatrix[i][j]);
-            }
+                return pairs;
+            });
         }
 
-        double[][] coords = null;//MDSJ.classicalScaling(distanceMatrix, 1);
-
-        List<TopicDoublePoint> topicCoords = new ArrayList<>();
-
-        for (int i = 0; i < topics.size(); i++) {
-            double coorda = coords[0][i];
-         //   double coordb = coords[1][i];
-            //   double coordc = coords[2][i];
-            //   double coordd = coords[3][i];
-            //   double coorde = coords[4][i];
-            System.out.println("" + topics.get(i).getId() + ": " + coorda);
-
-            topicCoords.add(new TopicDoublePoint(new double[]{coorda}, topics.get(i)));
+        final List<int[]> pairs = new ArrayList<>();
+        for (List<int[]> taskPairs : ThreadUtils.invokeAll(executorService, tasks)) {
+            pairs.addAll(taskPairs);
         }
-
-        return topicCoords;
+        return pairs;
     }
 
-    private List<TopicDoublePoint> getTopicsInWeightedTermSpace(List<Topic> topics) {
-        List<TopicDoublePoint> topicsCoordinates = new ArrayList<>();
-
-        TreeSet<String> tmp = new TreeSet<>();
-        for (Topic topic : topics) {
-            tmp.addAll(Arrays.asList(topic.getTerms()));
-        }
-        List<String> allTerms = new ArrayList<>(tmp);
-
-        for (Topic topic : topics) {
-            double[] topicCoords = new double[allTerms.size()];
-            for (int i = 0; i < topicCoords.length; i++) {
-                topicCoords[i] = getTermProbability(topic.getTermProbabilities(), allTerms.get(i));
-            }
-            topicsCoordinates.add(new TopicDoublePoint(topicCoords, topic));
+    private static int find(int[] parents, int i) {
+        while (parents[i] != i) {
+            // path halving
+            parents[i] = parents[parents[i]];
+            i = parents[i];
         }
-
-        return topicsCoordinates;
+        return i;
     }
 
-    private List<TopicDoublePoint> getTopicsInDocumentTfidfSpace(List<Topic> topics) {
-        try {
-            List<TopicDoublePoint> topicsCoordinates = new ArrayList<>();
-            TreeSet<String> tmpAllTerms = new TreeSet<>();
-            Map<Topic, Map<String, Double>> topicAndTermScores = new HashMap<>();
-
-            for (Topic topic : topics) {
-                Map<String, Double> termScores = new HashMap<>();
-                topicAndTermScores.put(topic, termScores);
-                // currently only top doc is allowed
-                ScoreDoc[] scoreDocs = TopicUtils.getScoreDocsForTopic(topicExtractor, topic, tableManager, NUMBER_OF_DOCS_FOR_TFIDF, indexSearcher, indexReader);
-                for (ScoreDoc doc : scoreDocs) {
-                    int id = doc.doc;
-
-                    Terms docTerms = indexReader.getTermVector(id, fieldname);
-                    if (docTerms == null) {
-                        // ignore empty fields
-                        continue;
-                    }
-                    TermsEnum docTermsIter = docTerms.iterator(TermsEnum.EMPTY);
-                    BytesRef docTermRef = null;
-                    while ((docTermRef = docTermsIter.next()) != null) {
-                        String docTerm = docTermRef.utf8ToString();
-
-                        // see if this is the same
-                        //System.out.println(docTermsIter.docFreq());
-                        //System.out.println(indexReader.docFreq(new Term(fieldname, docTermRef)));
-                        double idf = indexReader.numDocs() / indexReader.docFreq(new Term(fieldname, docTermRef));
-                        // even though the function is named totalTermFreq, it returns only the term freq in the current document
-                        double tf = docTermsIter.totalTermFreq();
-                        double tfidf = tf * Math.log(idf);
-
-                        // save this term score for this topic
-                        double termScore = termScores.getOrDefault(docTerm, 0.0);
-                        termScores.put(docTerm, termScore + tfidf / NUMBER_OF_DOCS_FOR_TFIDF);
-
-                        // add to all terms
-                        tmpAllTerms.add(docTerm);
-                    }
-                }
-            }
-
-            // only use topic top terms for space
-            // TEST
-            tmpAllTerms = new TreeSet<>();
-            for (Topic topic : topics) {
-                tmpAllTerms.addAll(Arrays.asList(topic.getTopTerms()));
-            }
-
-            // fix all term order with list
-            List<String> allTerms = new ArrayList<>(tmpAllTerms);
-            System.out.println("space has " + allTerms.size() + " dimensions");
-
-            // iterate all topics again and build coordinates (now that we have all terms)
-            for (Topic topic : topics) {
-                Map<String, Double> termScores = topicAndTermScores.get(topic);
-                double[] coords = new double[allTerms.size()];
-                for (int i = 0; i < coords.length; i++) {
-                    String term = allTerms.get(i);
-                    coords[i] = termScores.getOrDefault(term, 0.0);
+    @Override
+    public void mergeTopics() {
+        final long start = System.currentTimeMillis();
+        final List<Topic> topics = topicExtractor.topics;
+
+        // sparse term vectors and the inverted index of the top terms
+        final Map<String, Integer> termIds = new HashMap<>();
+        final List<TopicVector> vectors = new ArrayList<>(topics.size());
+        final int[][] topTermIds = new int[topics.size()][];
+        final List<List<Integer>> topicsOfTopTerm = new ArrayList<>();
+        for (int i = 0; i < topics.size(); i++) {
+            final Topic topic = topics.get(i);
+            vectors.add(createTopicVector(topic, termIds));
+            topTermIds[i] = new int[topic.getTopTerms().length];
+            for (int k = 0; k < topTermIds[i].length; k++) {
+                final int termId = getTermId(termIds, topic.getTopTerms()[k]);
+                topTermIds[i][k] = termId;
+                while (topicsOfTopTerm.size() <= termId) {
+                    topicsOfTopTerm.add(new ArrayList<>());
                 }
-                topicsCoordinates.add(new TopicDoublePoint(coords, topic));
+                topicsOfTopTerm.get(termId).add(i);
             }
-
-            return topicsCoordinates;
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
         }
-    }
 
-    private List<TopicDoublePoint> getTopicsInDocumentSpace(List<Topic> topics) {
-        List<TopicDoublePoint> topicsCoordinates = new ArrayList<>();
+        final List<int[]> similarPairs = findSimilarPairs(vectors, topicsOfTopTerm, topTermIds);
 
-        TreeSet<String> tmp = new TreeSet<>();
-        Map<Topic, List<String>> topicAndTopDocs = new HashMap<>();
-        for (Topic topic : topics) {
-            List<String> docs = getTopDocIdsOfTopic(topic);
-            topicAndTopDocs.put(topic, docs);
-            tmp.addAll(docs);
+        // connected components of the similar pairs
+        final int[] parents = new int[topics.size()];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
         }
-
-        // here we have all documents which occur in any topic
-        final List<String> allDocs = new ArrayList<>(tmp);
-
-        for (Topic topic : topics) {
-            List<String> docs = topicAndTopDocs.get(topic);
-            // this will hold the coordinates of this topic in document space
-            double[] topicCoords = new double[allDocs.size()];
-            for (int i = 0; i < topicCoords.length; i++) {
-                // if the current doc id is in this document, we set the coordinate to 1, otherwise to 0
-                topicCoords[i] = docs.contains(allDocs.get(i)) ? 1 : 0;
+        for (int[] pair : similarPairs) {
+            parents[find(parents, pair[0])] = find(parents, pair[1]);
+        }
+        final Map<Integer, List<Topic>> clusters = new LinkedHashMap<>();
+        for (int i = 0; i < topics.size(); i++) {
+            final int root = find(parents, i);
+            List<Topic> cluster = clusters.get(root);
+            if (cluster == null) {
+                cluster = new ArrayList<>();
+                clusters.put(root, cluster);
             }
-            topicsCoordinates.add(new TopicDoublePoint(topicCoords, topic));
+            cluster.add(topics.get(i));
         }
 
-        return topicsCoordinates;
-    }
-
-    @Override
-    public void mergeTopics() {
-        List<Topic> topics = topicExtractor.topics;
-        DBSCANClusterer dbScan = new DBSCANClusterer(DBSCAN_MERGE_RADIUS, 0);//new DBSCANClusterer(0.03, 0);
-        List<TopicDoublePoint> topicsInDocumentSpace = getTopicsInSummarySentenceTermSpace(topics);//getTopicsInDocumentTfidfSpace(topics);//getTopicsInWeightedTermSpace(topics);//getTopicsInDocumentSpace(topics);
-        List<Cluster<TopicDoublePoint>> cluster = dbScan.cluster(topicsInDocumentSpace);
-
-        // DBScanClusterer skips all points which are considered as noise
-        // so we store all Topics which are clustered and just add the remaining, so that no
-        // topic is missing
-        List<Topic> usedTopics = new ArrayList<>();
-        List<Topic> resultingTopics = new ArrayList<>();
-        Map<Topic, Topic> oldTopicClusteredTopicAssignment = new HashMap<>();
-
-        for (Cluster<TopicDoublePoint> c : cluster) {
-            List<Topic> tmpTopics = new ArrayList<>();
-            for (TopicDoublePoint topicPoint : c.getPoints()) {
-                tmpTopics.add(topicPoint.getTopic());
-                usedTopics.add(topicPoint.getTopic());
-                System.out.println(topicPoint.getTopic().getId() + " " + Arrays.asList(topicPoint.getTopic().getTopTerms()));
+        final List<Topic> resultingTopics = new ArrayList<>();
+        final Map<Topic, Topic> oldTopicClusteredTopicAssignment = new HashMap<>();
+        for (List<Topic> cluster : clusters.values()) {
+            if (cluster.size() == 1) {
+                resultingTopics.add(cluster.get(0));
+                continue;
             }
-            Topic mergedTopic = Topic.mergeTopics(tmpTopics);
+            // the merged topic keeps the id of the first topic of its cluster and replaces all of them below
+            final Topic mergedTopic = Topic.mergeTopics(cluster);
             resultingTopics.add(mergedTopic);
-
-            for (TopicDoublePoint topicPoint : c.getPoints()) {
-                oldTopicClusteredTopicAssignment.put(topicPoint.getTopic(), mergedTopic);
+            for (Topic topic : cluster) {
+                oldTopicClusteredTopicAssignment.put(topic, mergedTopic);
             }
-
-            System.out.println("===============================");
-        }
-
-        List<Topic> remainingTopics = new ArrayList<>(topics);
-        remainingTopics.removeAll(usedTopics);
-        resultingTopics.addAll(remainingTopics);
-
-        if (true) {
-            return;
+            LOG.log(Level.FINE, "merged {0} topics to {1}", new Object[]{cluster.size(), Arrays.asList(mergedTopic.getTopTerms())});
         }
 
         // update topic probabilities in all cells
         for (FilterCell cell : tableManager.getCells()) {
-            Map<Topic, Double> newTopicProbs = new HashMap<>();
             if (cell.getTopicProbabilities() == null) {
                 // some cells might have no docs and thus also no topics
                 continue;
             }
+            final Map<Topic, Double> newTopicProbs = new HashMap<>();
             for (TopicScore ts : cell.getTopicProbabilities()) {
                 Topic t = ts.getTopic();
                 double p = ts.getScore();
@@ -378,14 +262,13 @@ public class TopicMerger implements ITopicMerger {
                 if (clusteredTopic != null) {
                     // this topic t has been clustered in a new clusteredTopic, thus we need to replace this in the cell
                     // we might already have this clustered topic in the new topic probs, in that case we add the probabilities
-                    Double clusteredTopicProb = newTopicProbs.getOrDefault(clusteredTopic, 0.0);
-                    // use the probability of the original topic
-                    clusteredTopicProb += p;
-                    newTopicProbs.put(clusteredTopic, clusteredTopicProb);
-
-                    // also add this cell to the topic
-                    if (!clusteredTopic.getCells().contains(cell)) {
+                    final Double clusteredTopicProb = newTopicProbs.get(clusteredTopic);
+                    if (clusteredTopicProb == null) {
+                        // also add this cell to the topic, once
                         clusteredTopic.addCell(cell);
+                        newTopicProbs.put(clusteredTopic, p);
+                    } else {
+                        newTopicProbs.put(clusteredTopic, clusteredTopicProb + p);
                     }
                 } else {
                     // this topic has not been clustered, so just add it to the new topic probs
@@ -393,13 +276,15 @@ public class TopicMerger implements ITopicMerger {
                 }
             }
 
-            cell.setTopics(MapUtils.mapToTopicScoreList(newTopicProbs));
+            final List<TopicScore> topicScores = MapUtils.mapToTopicScoreList(newTopicProbs);
+            MapUtils.sortByTopicScores(topicScores, true);
+            cell.setTopics(topicScores);
         }
 
-        LOG.log(Level.INFO, "merged topics: #{0} to #{1}", new Object[]{topics.size(), resultingTopics.size()});
+        LOG.log(Level.INFO, "merged topics: #{0} to #{1} ({2} similar pairs) in {3} ms", new Object[]{topics.size(),
+            resultingTopics.size(), similarPairs.size(), System.currentTimeMillis() - start});
 
         topicExtractor.topics = ImmutableList.copyOf(resultingTopics);
-
     }
 
 }
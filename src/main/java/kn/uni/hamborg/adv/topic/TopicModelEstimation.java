@@ -0,0 +1,178 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.adv.topic;
+
+import cc.mallet.topics.ParallelTopicModel;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import kn.uni.hamborg.adv.AnalysisConfiguration;
+import kn.uni.hamborg.adv.AnalysisProgress;
+
+/**
+ * Estimates a {@link ParallelTopicModel} until it converges, i.e., until its
+ * log-likelihood per token does not improve anymore, or until a time budget is
+ * used up, but for at most a maximum number of iterations. Afterwards, this
+ * describes the estimation (iterations, convergence curve, reason of the
+ * stop), e.g., for the client.
+ *
+ * The model is estimated in chunks of iterations, because
+ * {@link ParallelTopicModel#estimate()} itself can neither be stopped nor does
+ * it return the log-likelihood. Mallet restarts its iteration count with each
+ * call of {@link ParallelTopicModel#estimate()}, hence each chunk is as long as
+ * the optimization interval (if the model optimizes its hyperparameters) and
+ * the burn-in period is shortened by the iterations done so far. This way the
+ * hyperparameters are optimized after the same iterations as in a single run.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class TopicModelEstimation {
+
+    private static final Logger LOG = Logger.getLogger(TopicModelEstimation.class.getSimpleName());
+
+    public enum StopReason {
+
+        CONVERGED, TIME_BUDGET, MAX_ITERATIONS
+    };
+
+    private int iterations = 0;
+    private final int maxIterations;
+    private long durationMillis = 0;
+    private StopReason stopReason = StopReason.MAX_ITERATIONS;
+    /**
+     * The convergence curve: the log-likelihood per token after the
+     * iterations of the same index.
+     */
+    private final List<Integer> curveIterations = new ArrayList<>();
+    private final List<Double> curveLogLikelihoodPerToken = new ArrayList<>();
+
+    private TopicModelEstimation(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Estimates {@code model} using the settings of
+     * {@link AnalysisConfiguration}.
+     *
+     * @param model
+     * @param progress receives the number of finished iterations, the
+     * estimation stops if the analysis is cancelled. Can be {@code null}.
+     * @return
+     */
+    public static TopicModelEstimation estimate(ParallelTopicModel model, AnalysisProgress progress) {
+        return estimate(model, AnalysisConfiguration.topicMaxIterations,
+                AnalysisConfiguration.topicEstimationTimeBudgetSeconds * 1000L, progress);
+    }
+
+    /**
+     * Estimates {@code model}.
+     *
+     * @param model
+     * @param maxIterations
+     * @param timeBudgetMillis the estimation stops before a chunk of
+     * iterations that would probably exceed this budget, {@code <= 0} for no
+     * budget. At least one chunk is done in any case.
+     * @param progress receives the number of finished iterations, the
+     * estimation stops if the analysis is cancelled. Can be {@code null}.
+     * @return
+     */
+    public static TopicModelEstimation estimate(ParallelTopicModel model, int maxIterations, long timeBudgetMillis,
+            AnalysisProgress progress) {
+        final TopicModelEstimation estimation = new TopicModelEstimation(maxIterations);
+        final int burninPeriod = model.burninPeriod;
+        final int chunkIterations = model.optimizeInterval > 0
+                ? model.optimizeInterval : AnalysisConfiguration.topicConvergenceCheckIterations;
+        final long start = System.currentTimeMillis();
+
+        double lastLogLikelihood = Double.NaN;
+        int chunksWithoutImprovement = 0;
+        if (progress != null) {
+            progress.setTopicIterations(0, maxIterations);
+        }
+        while (estimation.iterations < maxIterations) {
+            if (progress != null) {
+                progress.checkCancelled();
+            }
+
+            final int iterations = Math.min(chunkIterations, maxIterations - estimation.iterations);
+            model.setNumIterations(iterations);
+            model.setBurninPeriod(Math.max(0, burninPeriod - estimation.iterations));
+            try {
+                model.estimate();
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+            estimation.iterations += iterations;
+            estimation.durationMillis = System.currentTimeMillis() - start;
+            if (progress != null) {
+                progress.setTopicIterations(estimation.iterations, maxIterations);
+            }
+
+            final double logLikelihood = model.modelLogLikelihood() / Math.max(1, model.totalTokens);
+            estimation.curveIterations.add(estimation.iterations);
+            estimation.curveLogLikelihoodPerToken.add(logLikelihood);
+            LOG.log(Level.FINE, "log-likelihood per token after {0} iterations: {1}",
+                    new Object[]{estimation.iterations, logLikelihood});
+
+            // a plateau: the log-likelihood (negative) improves by less than the threshold
+            if (!Double.isNaN(lastLogLikelihood)
+                    && logLikelihood - lastLogLikelihood < AnalysisConfiguration.topicConvergenceThreshold * Math.abs(lastLogLikelihood)) {
+                chunksWithoutImprovement++;
+            } else {
+                chunksWithoutImprovement = 0;
+            }
+            lastLogLikelihood = logLikelihood;
+
+            if (estimation.iterations >= AnalysisConfiguration.topicMinIterations
+                    && chunksWithoutImprovement >= AnalysisConfiguration.topicConvergencePatience) {
+                estimation.stopReason = StopReason.CONVERGED;
+                break;
+            }
+            // would the next chunk exceed the budget?
+            final long millisPerIteration = estimation.durationMillis / estimation.iterations;
+            if (timeBudgetMillis > 0 && estimation.iterations < maxIterations
+                    && estimation.durationMillis + millisPerIteration * chunkIterations > timeBudgetMillis) {
+                estimation.stopReason = StopReason.TIME_BUDGET;
+                break;
+            }
+        }
+        model.setBurninPeriod(burninPeriod);
+
+        LOG.log(Level.INFO, "estimated topic model: {0}", estimation);
+        return estimation;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public StopReason getStopReason() {
+        return stopReason;
+    }
+
+    public List<Integer> getCurveIterations() {
+        return curveIterations;
+    }
+
+    public List<Double> getCurveLogLikelihoodPerToken() {
+        return curveLogLikelihoodPerToken;
+    }
+
+    @Override
+    public String toString() {
+        return "TopicModelEstimation [iterations=" + iterations + "/" + maxIterations + ", stopReason=" + stopReason
+                + ", durationMillis=" + durationMillis + ", logLikelihoodPerToken="
+                + (curveLogLikelihoodPerToken.isEmpty() ? "-" : curveLogLikelihoodPerToken.get(curveLogLikelihoodPerToken.size() - 1)) + "]";
+    }
+}
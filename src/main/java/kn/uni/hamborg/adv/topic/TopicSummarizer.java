@@ -5,19 +5,29 @@ package kn.uni.hamborg.adv.topic;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import kn.uni.hamborg.adv.AnalysisConfiguration;
+import kn.uni.hamborg.adv.AnalysisProgress;
+import kn.uni.hamborg.adv.AnalysisSession;
 import kn.uni.hamborg.adv.summary.Summaries;
 import kn.uni.hamborg.adv.summary.Summary;
 import kn.uni.hamborg.adv.table.TableManager;
+import kn.uni.hamborg.lucene.search.DuplicateClusters;
 import kn.uni.hamborg.lucene.summarizer.StringScore;
 import kn.uni.hamborg.lucene.summarizer.Summarizer;
 import kn.uni.hamborg.lucene.summarizer.TopicTtfIdfSummarizer;
 import kn.uni.hamborg.utils.LightDocUtils;
+import kn.uni.hamborg.utils.QueryUtils;
+import kn.uni.hamborg.utils.ThreadUtils;
 import kn.uni.hamborg.web.cell.SummaryField;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
 
 /**
  * Computes human-friendly summarization sentences, that ideally best represent
@@ -38,15 +48,42 @@ public class TopicSummarizer {
     private final IndexSearcher indexSearcher;
     private final Analyzer analyzer;
     private final TopicExtractor topicExtractor;
+    private final AnalysisSession session;
+    private final ExecutorService executorService;
+    private final AnalysisProgress progress;
 
     public TopicSummarizer(TableManager tableManager, SummaryField[] fieldnames, IndexReader indexReader,
             IndexSearcher indexSearcher, Analyzer analyzer, TopicExtractor topicExtractor) {
+        this(tableManager, fieldnames, indexReader, indexSearcher, analyzer, topicExtractor, AnalysisSession.DEFAULT, null, new AnalysisProgress());
+    }
+
+    /**
+     * Constructs a {@code TopicSummarizer} which summarizes the topics using
+     * the workers of {@code executorService}.
+     *
+     * @param tableManager
+     * @param fieldnames
+     * @param indexReader
+     * @param indexSearcher
+     * @param analyzer
+     * @param topicExtractor
+     * @param session the user set parameters of the analysis.
+     * @param executorService can be null. If null, the topics are summarized
+     * sequentially.
+     * @param progress receives the number of summarized topics.
+     */
+    public TopicSummarizer(TableManager tableManager, SummaryField[] fieldnames, IndexReader indexReader,
+            IndexSearcher indexSearcher, Analyzer analyzer, TopicExtractor topicExtractor,
+            AnalysisSession session, ExecutorService executorService, AnalysisProgress progress) {
         this.tableManager = tableManager;
         this.fieldnames = new SummaryField[]{SummaryField.CONTENT, SummaryField.TITLE};//fieldnames;
         this.indexReader = indexReader;
         this.indexSearcher = indexSearcher;
         this.analyzer = analyzer;
         this.topicExtractor = topicExtractor;
+        this.session = session;
+        this.executorService = executorService;
+        this.progress = progress;
 
     }
 
@@ -54,38 +91,63 @@ public class TopicSummarizer {
      * Computes summarization sentences for each of the topics.
      */
     public void computeSummaries() {
+        //final Query matrixQuery = tableManager.getFilterQuery();
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        for (Topic topic : topicExtractor.getTopicsAsMap().values()) {
+            tasks.add(() -> {
+                computeSummary(topic);
+                return null;
+            });
+        }
+
+        ThreadUtils.invokeAll(executorService, progress.track(tasks));
+    }
+
+    /**
+     * Computes summarization sentences for the given {@code topic}.
+     *
+     * @param topic
+     */
+    private void computeSummary(Topic topic) {
         try {
-            //final Query matrixQuery = tableManager.getFilterQuery();
-
-            for (Topic topic : topicExtractor.getTopicsAsMap().values()) {
-                final Document[] docs = TopicUtils.getDocumentsForTopic(topicExtractor, topic, tableManager, NUMBER_OF_SUMMARIZATION_DOCS, indexSearcher, indexReader);
-
-                // if there is no sentence for this topic, create an empty summary and continue with next topic
-                if (docs.length == 0) {
-                    LOG.warning("CREATING EMPTY SUMMARY");
-                    topic.addAttribute(Summaries.createEmptySummaries());
-                    continue;
-                }
-
-                // compute the summarization
-                List<TopicScore> tmpTopicScore = new ArrayList<>();
-                tmpTopicScore.add(new TopicScore(topic, 1.0));
-                final Summarizer topicSummarizer = new TopicTtfIdfSummarizer(docs, analyzer, tmpTopicScore); //new TtfidfSummarizer(docs, analyzer);
-
-                // save it
-                Summaries summaries = new Summaries();
-                for (Document doc : docs) {
-                    summaries.addTopSummarizationDocumentId(LightDocUtils.getId(doc));
-                }
-
-                for (SummaryField fieldname : fieldnames) {
-                    StringScore[] topSentences = topicSummarizer.getTopKSentences(fieldname.getFieldname(), NUMBER_OF_SUMMARIZATION_SENTENCES_PER_TOPIC);
-                    final Summary summary = new Summary(topSentences, null, null);
-                    summaries.addSummary(fieldname, summary);
-                }
-                topic.addAttribute(summaries);
+            // retrieve more docs if near duplicates are collapsed afterwards
+            ScoreDoc[] scoreDocs;
+            if (session.isCollapseDuplicates()) {
+                scoreDocs = TopicUtils.getScoreDocsForTopic(topicExtractor, topic, tableManager,
+                        NUMBER_OF_SUMMARIZATION_DOCS * AnalysisConfiguration.duplicateCollapseOversampling, indexSearcher, indexReader);
+                scoreDocs = DuplicateClusters.collapse(indexReader, scoreDocs, NUMBER_OF_SUMMARIZATION_DOCS);
+            } else {
+                scoreDocs = TopicUtils.getScoreDocsForTopic(topicExtractor, topic, tableManager, NUMBER_OF_SUMMARIZATION_DOCS, indexSearcher, indexReader);
+            }
+            final Document[] docs = QueryUtils.scoreDocsToDocuments(scoreDocs, indexReader);
+            LOG.log(Level.INFO, "query returned {0} docs for topic id {1}",
+                    new Object[]{docs.length, topic.getId()});
+
+            // if there is no sentence for this topic, create an empty summary and continue with next topic
+            if (docs.length == 0) {
+                LOG.warning("CREATING EMPTY SUMMARY");
+                topic.addAttribute(Summaries.createEmptySummaries());
+                return;
+            }
+
+            // compute the summarization
+            List<TopicScore> tmpTopicScore = new ArrayList<>();
+            tmpTopicScore.add(new TopicScore(topic, 1.0));
+            final Summarizer topicSummarizer = new TopicTtfIdfSummarizer(indexReader, indexSearcher,
+                    QueryUtils.scoreDocsToDocIds(scoreDocs), docs, analyzer, session, tmpTopicScore); //new TtfidfSummarizer(docs, analyzer);
+
+            // save it
+            Summaries summaries = new Summaries();
+            for (Document doc : docs) {
+                summaries.addTopSummarizationDocumentId(LightDocUtils.getId(doc));
+            }
 
+            for (SummaryField fieldname : fieldnames) {
+                StringScore[] topSentences = topicSummarizer.getTopKSentences(fieldname.getFieldname(), NUMBER_OF_SUMMARIZATION_SENTENCES_PER_TOPIC);
+                final Summary summary = new Summary(topSentences, null, null);
+                summaries.addSummary(fieldname, summary);
             }
+            topic.addAttribute(summaries);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
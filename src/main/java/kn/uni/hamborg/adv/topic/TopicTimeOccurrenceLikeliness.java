@@ -3,19 +3,22 @@
  */
 package kn.uni.hamborg.adv.topic;
 
-import java.io.IOException;
 import java.util.logging.Logger;
 import kn.uni.hamborg.adv.AnalysisConfiguration;
-import kn.uni.hamborg.utils.QueryUtils;
+import kn.uni.hamborg.lucene.search.DayHistogramCollector;
+import kn.uni.hamborg.utils.DateTimeUtils;
 import kn.uni.hamborg.web.query.QueryCommand;
-import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
-import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
+import org.joda.time.format.DateTimeFormatter;
 
 /**
+ * Computes for each {@link Topic} its daily number of articles before and
+ * within the dates of the matrix, and how (un)usual its frequency within the
+ * matrix is, with a single count per topic, see {@link DayHistogramCollector}.
  *
  * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
  */
@@ -23,7 +26,7 @@ public class TopicTimeOccurrenceLikeliness {
 
     private static final Logger LOG = Logger.getLogger(TopicTimeOccurrenceLikeliness.class.getSimpleName());
 
-    private static final int NUMBER_OF_WEEKS_BEFORE = 8;
+    private static final DateTimeFormatter dayFormatter = DateTimeUtils.simpleDateTimeFormatter.withZone(DateTimeZone.UTC);
 
     private final QueryCommand queryCommand;
     private final IndexSearcher indexSearcher;
@@ -38,12 +41,33 @@ public class TopicTimeOccurrenceLikeliness {
     }
 
     /**
-     * Compute likeliness of the {@link Topic}s from the current matrix.
+     * Compute likeliness of the {@link Topic}s from the current matrix. Also
+     * adds the daily number of articles of each topic from
+     * {@link AnalysisConfiguration#topicTimeSeriesHistoryDays} days before the
+     * matrix until its end date ({@code int[]}), and the first day of that
+     * series (YYYYMMdd, UTC).
      */
     public void computeTopicsLikeliness() {
+        final Interval matrixInterval = queryCommand.getFromTo();
+        final long matrixFirstDay = DateTimeUtils.toDayOrdinal(matrixInterval.getStartMillis());
+        final long matrixLastDay = DateTimeUtils.toDayOrdinal(matrixInterval.getEndMillis());
+        // the same days a few weeks before
+        final long groundFirstDay = matrixFirstDay - 7L * AnalysisConfiguration.topicLikelinessWeeksBefore;
+        final long groundLastDay = groundFirstDay + matrixLastDay - matrixFirstDay;
+        final long seriesFirstDay = Math.min(groundFirstDay, matrixFirstDay - AnalysisConfiguration.topicTimeSeriesHistoryDays);
+        final String seriesStart = dayFormatter.print(DateTimeUtils.fromDayOrdinal(seriesFirstDay));
+
         for (Topic topic : topicExtractor.getTopicsAsMap().values()) {
-            double likeliness = getTopicLikeliness(topic);
-            topic.addAttribute("timeOccurrenceLikeliness", likeliness);
+            // userFilter from queryCommand could be used here as well, but maybe it is better
+            // to really get the overall data without any restrictions but the date
+            final Query topicQuery = TopicExtractor.getQueryForTopic(topic, queryParser.getAnalyzer(),
+                    queryParser.getField(), AnalysisConfiguration.topicQueryForceAllTopTermsIncluded);
+            final DayHistogramCollector series = DayHistogramCollector.count(indexSearcher, topicQuery, seriesFirstDay, matrixLastDay);
+
+            topic.addAttribute("timeOccurrenceLikeliness", getTopicLikeliness(
+                    series.getCount(groundFirstDay, groundLastDay), series.getCount(matrixFirstDay, matrixLastDay)));
+            topic.addAttribute("timeOccurrenceSeries", series.getCounts());
+            topic.addAttribute("timeOccurrenceSeriesStart", seriesStart);
         }
     }
 
@@ -61,49 +85,24 @@ public class TopicTimeOccurrenceLikeliness {
      * frequency on many dates so this idea might not work always.
      *
      *
-     * @param topic
+     * @param groundTopicHits number of articles of the topic in the ground
+     * date interval
+     * @param matrixTopicHits number of articles of the topic in the matrix date
+     * interval
      * @return {@code 0} if the the frequency in the ground date interval is the
      * same as in the matrix date interval<br> {@code >0} the topic is in the
      * matrix more common than in the ground date interval<br> {@code <0} the
      * topic is in the matrix less common than in the ground date interval
      */
-    private double getTopicLikeliness(Topic topic) {
-        try {
-            final Interval matrixInterval = queryCommand.getFromTo();
-            final DateTime matrixStartDate = matrixInterval.getStart();
-
-            // get ground interval
-            final DateTime groundIntervalStartDate = matrixStartDate.minusWeeks(NUMBER_OF_WEEKS_BEFORE);
-            final Interval groundInterval = new Interval(groundIntervalStartDate, matrixInterval.toPeriod());
-
-            // userFilter from queryCommand could be used here as well, but maybe it is better
-            // to really get the overall data without any restrictions but the date
-            LOG.info("creating ground query, without userFilter!");
-            final Query groundBaseQuery = QueryCommand.buildDateQuery(groundInterval);
-            final Query matrixBaseQuery = QueryCommand.buildDateQuery(queryCommand.getFromTo());
-
-            final Query topicQuery = TopicExtractor.getQueryForTopic(topic, queryParser, AnalysisConfiguration.topicQueryForceAllTopTermsIncluded);
-
-            // this is the same as in the current matrix but a few weeks before that to find out whether the topic was already common / incommon then.
-            final Query groundTopicQuery = QueryUtils.addQueryToQuery(groundBaseQuery, topicQuery);
-            // same as in a the current matrix (same date filters, but without userFilter restriction)
-            final Query matrixTopicQuery = QueryUtils.addQueryToQuery(matrixBaseQuery, topicQuery);
-
-            System.out.println(groundTopicQuery);
-            System.out.println(matrixTopicQuery);
-            double groundtopicHits = indexSearcher.search(groundTopicQuery, Integer.MAX_VALUE).totalHits;
-            double matrixTopicHits = indexSearcher.search(matrixTopicQuery, Integer.MAX_VALUE).totalHits;
-            double max = 100000;
+    private static double getTopicLikeliness(double groundTopicHits, double matrixTopicHits) {
+        double max = 100000;
 
-            if (matrixTopicHits == groundtopicHits) {
-                return 0.0;
-            } else if (matrixTopicHits < groundtopicHits) {
-                return -Math.min(groundtopicHits / matrixTopicHits, max);
-            } else {
-                return Math.min(matrixTopicHits / groundtopicHits, max);
-            }
-        } catch (IOException | ParseException ex) {
-            throw new RuntimeException(ex);
+        if (matrixTopicHits == groundTopicHits) {
+            return 0.0;
+        } else if (matrixTopicHits < groundTopicHits) {
+            return -Math.min(groundTopicHits / matrixTopicHits, max);
+        } else {
+            return Math.min(matrixTopicHits / groundTopicHits, max);
         }
     }
 }
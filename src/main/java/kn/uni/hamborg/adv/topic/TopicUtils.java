@@ -65,15 +65,13 @@ public class TopicUtils {
     }
 
     /**
-     * Gets a string that can be used for Lucene querying with terms and weights
+     * Returns the terms with their summed up probabilities, most probable
+     * first.
      *
      * @param termProbabilities
-     * @param allRequired
-     * @param allBoostingFactor all terms are boosted by this factor (1.0 means
-     * no boosting)
      * @return
      */
-    public static String getSortedWeightedTopTermsAsQueryString(List<StringScore> termProbabilities, boolean allRequired, float allBoostingFactor) {
+    public static List<Map.Entry<String, Double>> getSortedWeightedTopTerms(List<StringScore> termProbabilities) {
         Map<String, Double> termProbs = new HashMap<>();
         for (StringScore entrySet : termProbabilities) {
             String term = entrySet.getValue();
@@ -86,7 +84,20 @@ public class TopicUtils {
             termProbs.put(term, tmpProb);
         }
 
-        List<Map.Entry<String, Double>> sortedTotalTermProbs = MapUtils.entriesSortedByValuesAsList(termProbs, true);
+        return MapUtils.entriesSortedByValuesAsList(termProbs, true);
+    }
+
+    /**
+     * Gets a string that can be used for Lucene querying with terms and weights
+     *
+     * @param termProbabilities
+     * @param allRequired
+     * @param allBoostingFactor all terms are boosted by this factor (1.0 means
+     * no boosting)
+     * @return
+     */
+    public static String getSortedWeightedTopTermsAsQueryString(List<StringScore> termProbabilities, boolean allRequired, float allBoostingFactor) {
+        List<Map.Entry<String, Double>> sortedTotalTermProbs = getSortedWeightedTopTerms(termProbabilities);
 
         final StringBuilder sb = new StringBuilder();
 
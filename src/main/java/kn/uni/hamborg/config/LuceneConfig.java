@@ -3,8 +3,12 @@
  */
 package kn.uni.hamborg.config;
 
+import com.google.common.collect.ImmutableSet;
 import java.io.File;
+import java.util.Set;
+import kn.uni.hamborg.data.light.LightDoc;
 import kn.uni.hamborg.language.Language;
+import org.apache.lucene.codecs.lucene50.Lucene50StoredFieldsFormat;
 
 /**
  * Holds Apache Lucene declarations.
@@ -32,6 +36,9 @@ public final class LuceneConfig {
     // Facebook, 2011 - April 2015
     public static final File INDEX_DIR_FACEBOOK_MESSAGE_HISTORY = new File(FileConfig.basePathMpLocal, "facebookmsg");
 
+    // new EMM files arriving, see EMMDataSetIndexer#watchDirectory
+    public static final File DATA_DIR_INCOMING = new File(FileConfig.basePathMpLocal, "incoming");
+
     // Default
     public static final File DATA_DIR_DEFAULT = DATA_DIR_2014;
     public static final File INDEX_DIR_DEFAULT = INDEX_DIR_14_11_04_TO_11; //INDEX_DIR_15_06_TO_07;////INDEX_DIR_14_11_04_TO_11_ALL_LANG_TO_EN;//INDEX_DIR_2014_ONLY_EN;//INDEX_DIR_2014_WITH_NON_EN;
@@ -41,4 +48,47 @@ public final class LuceneConfig {
     public static final boolean LOAD_INDEX_COMPLETELY_IN_RAM = true;
     public static final Language MAIN_LANGUAGE = Language.EN;
 
+    // Indexing pipeline configuration (threads per stage), see EMMDataSetIndexer
+    public static final int INDEX_PARSE_THREADS = 4;
+    public static final int INDEX_CONVERT_THREADS = 1;
+    // translation waits for remote API requests most of the time
+    public static final int INDEX_TRANSLATE_THREADS = 8;
+    // documents whose texts are sent to the translation service together
+    public static final int INDEX_TRANSLATE_BATCH_SIZE = 10;
+    public static final int INDEX_BUILD_THREADS = 2;
+    public static final int INDEX_WRITE_THREADS = 2;
+    // capacity of the queue of each stage
+    public static final int INDEX_QUEUE_CAPACITY = 1000;
+    public static final int INDEX_WRITE_BATCH_SIZE = 500;
+
+    // Index schema configuration, see IndexSchema
+    // stemmed fields do not store their text again, it is read from the plain fields
+    public static final boolean INDEX_STORE_TEXT_ONCE = true;
+    // the fields read by the summarizers and TopicMerger, others are analyzed on demand
+    public static final Set<String> INDEX_TERM_VECTOR_FIELDS = ImmutableSet.of(
+            LightDoc.CONTENT_STEMMED, LightDoc.TITLE_STEMMED, LightDoc.DESCRIPTION_STEMMED);
+    // BEST_COMPRESSION makes stored fields smaller, but slower to read
+    public static final Lucene50StoredFieldsFormat.Mode INDEX_STORED_FIELDS_MODE = Lucene50StoredFieldsFormat.Mode.BEST_SPEED;
+    // DocValues for publishing date, country and publisher, used by FacetCounts
+    public static final boolean INDEX_FACET_DOC_VALUES = true;
+    // MinHash bands and near-duplicate cluster ids, see NearDuplicateDetector
+    public static final boolean INDEX_DUPLICATE_SIGNATURES = true;
+    // sentence boundaries of content, title and description, so that summaries need no sentence detection
+    public static final boolean INDEX_SENTENCE_BOUNDARIES = true;
+
+    // Near-duplicate detection configuration, see NearDuplicateDetector
+    // 16 bands of 4 rows: texts with a shingle Jaccard similarity of 0.5 share a band with a probability of 0.64, of 0.8 with 0.9997
+    public static final int INDEX_MINHASH_BANDS = 16;
+    public static final int INDEX_MINHASH_ROWS_PER_BAND = 4;
+    public static final int INDEX_MINHASH_SHINGLE_SIZE = 3;
+    // bands kept in memory while indexing (about 100 bytes each)
+    public static final int INDEX_DUPLICATE_DETECTOR_CAPACITY = 1000000;
+
+    // Incremental indexing configuration
+    public static final String INCOMING_FILE_GLOB = "incoming-*.xml";
+    // a new file is indexed once it has not changed for this time
+    public static final int INCOMING_FILE_SETTLE_MILLIS = 2000;
+    // how often the server looks for new documents in the index
+    public static final int INDEX_REFRESH_INTERVAL_SECONDS = 5;
+
 }
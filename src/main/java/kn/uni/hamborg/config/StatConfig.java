@@ -29,4 +29,10 @@ public class StatConfig {
     public static final File pathSubjectivityModelPublisher = new File(pathSubjectivityModel, "publisher.bin");
     public static final File pathSubjectivityModelDayDate = new File(pathSubjectivityModel, "daydate.bin");
 
+    /**
+     * The topic model trained offline over the index, see
+     * {@link kn.uni.hamborg.adv.topic.GlobalTopicModel}.
+     */
+    public static final File pathGlobalTopicModel = new File(basePathModels, "topics/global.topicmodel");
+
 }
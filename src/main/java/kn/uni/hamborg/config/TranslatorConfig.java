@@ -18,4 +18,31 @@ public class TranslatorConfig {
 
     public static final File translationDirectory = new File(base, "translationdirectory");
     public static final File translationDB = new File(base, "translationdb");
+
+    /**
+     * Translations are written to the storage in batches once this many are
+     * pending, or after {@link #storageWriteDelaySeconds}.
+     */
+    public static final int storageWriteBatchSize = 1000;
+    public static final int storageWriteDelaySeconds = 5;
+
+    /**
+     * The translation service, if null the Microsoft Translator API is used.
+     * For tests and benchmarks, this can point to a
+     * {@link kn.uni.hamborg.language.translator.StubTranslationServer}, e.g.,
+     * "http://localhost:8090/translate".
+     */
+    public static final String translationServiceUrl = null;
+
+    // Translation client configuration, see TranslationClient
+    public static final int maxConcurrentRequests = 8;
+    // longer texts are split into multiple parts
+    public static final int maxTextLength = 5000;
+    public static final int maxTextsPerRequest = 50;
+    public static final int maxCharactersPerRequest = 10000;
+    public static final int maxRetries = 3;
+    public static final long retryBackoffMillis = 500;
+    // consecutive failed requests after which requests are paused
+    public static final int circuitBreakerThreshold = 10;
+    public static final long circuitBreakerOpenMillis = 60000;
 }
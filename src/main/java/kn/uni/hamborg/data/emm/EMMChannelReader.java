@@ -0,0 +1,269 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.data.emm;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.logging.Logger;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads the {@link EMMItem}s of an EMM RSS file one at a time. In contrast to
+ * unmarshalling the whole {@link EMMRss}, only the current item is held in
+ * memory, and the {@link JAXBContext} is created once and shared by all
+ * readers. How much this reduces the parse time per file has not been
+ * measured yet, see {@link EMMRssParser#benchmark(File, int)}.
+ *
+ * The elements of the channel itself (title, language, ...) are read while
+ * streaming, i.e., {@link #getChannel()} contains those preceding the first
+ * item right after construction (which is where RSS puts them) and all of
+ * them once all items are read. The channel does not hold the items.
+ *
+ * Not thread-safe, but readers of different files can be used concurrently.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class EMMChannelReader implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger(EMMChannelReader.class.getSimpleName());
+
+    private static final JAXBContext jaxbContext = createJAXBContext();
+    /**
+     * Neither {@link Unmarshaller} nor {@link XMLInputFactory} are guaranteed
+     * to be thread-safe, thus each thread has its own.
+     */
+    private static final ThreadLocal<Unmarshaller> unmarshaller = ThreadLocal.withInitial(() -> {
+        try {
+            return jaxbContext.createUnmarshaller();
+        } catch (JAXBException ex) {
+            throw new RuntimeException(ex);
+        }
+    });
+    private static final ThreadLocal<XMLInputFactory> xmlInputFactory = ThreadLocal.withInitial(() -> {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    });
+
+    private final File file;
+    private final InputStream inputStream;
+    private final XMLStreamReader reader;
+    /**
+     * Null if the file does not have a channel.
+     */
+    private final EMMChannel channel;
+    /**
+     * Whether {@code reader} is at the start of the next item.
+     */
+    private boolean hasNextItem;
+    private int positionInChannel = 0;
+
+    /**
+     * Opens {@code file} and reads the elements of its channel up to the
+     * first item.
+     *
+     * @param file
+     * @throws IOException if the file cannot be read or is corrupted.
+     */
+    public EMMChannelReader(final File file) throws IOException {
+        this.file = file;
+        this.inputStream = new BufferedInputStream(new FileInputStream(file));
+        try {
+            this.reader = xmlInputFactory.get().createXMLStreamReader(inputStream, "UTF-8");
+            if (moveToChannel()) {
+                channel = new EMMChannel();
+                channel.setFilename(file.getName());
+                channel.setPathname(file.getPath());
+                reader.next();
+                hasNextItem = moveToNextItem();
+            } else {
+                channel = null;
+                hasNextItem = false;
+            }
+        } catch (XMLStreamException | RuntimeException e) {
+            inputStream.close();
+            throw new IOException("corrupted file: " + file, e);
+        }
+    }
+
+    private static JAXBContext createJAXBContext() {
+        try {
+            return JAXBContext.newInstance(EMMRss.class);
+        } catch (JAXBException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Returns the channel of the file, or {@code null} if it does not have
+     * one.
+     *
+     * @return
+     */
+    public EMMChannel getChannel() {
+        return channel;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the next item, or {@code null} if all items are read.
+     *
+     * @return
+     * @throws IOException if the file is corrupted.
+     */
+    public EMMItem nextItem() throws IOException {
+        if (!hasNextItem) {
+            return null;
+        }
+        try {
+            final EMMItem item = unmarshaller.get().unmarshal(reader, EMMItem.class).getValue();
+            item.setPositionInChannel(positionInChannel++);
+            hasNextItem = moveToNextItem();
+            return item;
+        } catch (XMLStreamException | JAXBException e) {
+            throw new IOException("corrupted file: " + file, e);
+        }
+    }
+
+    /**
+     * Skips the next item without unmarshalling it.
+     *
+     * @return {@code false} if there was no item left to skip.
+     * @throws IOException if the file is corrupted.
+     */
+    public boolean skipItem() throws IOException {
+        if (!hasNextItem) {
+            return false;
+        }
+        try {
+            skipElement();
+            positionInChannel++;
+            reader.next();
+            hasNextItem = moveToNextItem();
+            return true;
+        } catch (XMLStreamException e) {
+            throw new IOException("corrupted file: " + file, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Moves to the start of the channel element.
+     *
+     * @return {@code false} if there is no channel.
+     */
+    private boolean moveToChannel() throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && isElement("channel")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves from the current event to the start of the next item of the
+     * channel, reading the elements of the channel on the way.
+     *
+     * @return {@code false} if the end of the channel is reached.
+     */
+    private boolean moveToNextItem() throws XMLStreamException {
+        int event = reader.getEventType();
+        while (true) {
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (isElement("item")) {
+                        return true;
+                    }
+                    readChannelElement();
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                // nested elements are read completely, thus this is the end of the channel
+                case XMLStreamConstants.END_DOCUMENT:
+                    return false;
+            }
+            event = reader.next();
+        }
+    }
+
+    /**
+     * Reads the current element (a child of the channel) into
+     * {@code channel}, or skips it if it is not needed.
+     */
+    private void readChannelElement() throws XMLStreamException {
+        if (!hasDefaultNamespace()) {
+            skipElement();
+            return;
+        }
+        switch (reader.getLocalName()) {
+            case "title":
+                channel.setTitle(reader.getElementText());
+                break;
+            case "language":
+                channel.setLanguage(reader.getElementText());
+                break;
+            case "guid":
+                channel.setGuid(reader.getElementText());
+                break;
+            case "pubDate":
+                try {
+                    channel.setPubDate(new EMMRssParser.DateAdapterChannel().unmarshal(reader.getElementText()));
+                } catch (Exception e) {
+                    throw new XMLStreamException("invalid pubDate", reader.getLocation(), e);
+                }
+                break;
+            default:
+                skipElement();
+        }
+    }
+
+    /**
+     * Moves from the start of the current element to its end.
+     */
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+            }
+        }
+    }
+
+    private boolean isElement(String localName) {
+        return hasDefaultNamespace() && reader.getLocalName().equals(localName);
+    }
+
+    private boolean hasDefaultNamespace() {
+        final String namespaceURI = reader.getNamespaceURI();
+        return namespaceURI == null || namespaceURI.isEmpty();
+    }
+}
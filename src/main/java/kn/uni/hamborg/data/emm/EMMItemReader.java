@@ -1,6 +1,7 @@
 package kn.uni.hamborg.data.emm;
 
 import java.io.File;
+import java.io.IOException;
 import kn.uni.hamborg.data.light.LightDoc;
 import org.apache.lucene.document.Document;
 
@@ -13,14 +14,28 @@ public class EMMItemReader {
     /**
      * Reads a file on disk and returns the {@link EMMItem} at the
      * {@code positionInChannel}-th position with the {@link EMMChannel} within
-     * the file.
+     * the file. Only this item is unmarshalled, the preceding ones are
+     * skipped.
      *
      * @param channelFile
      * @param positionInChannel
      * @return
      */
     public static EMMItem readEMMItem(final File channelFile, final int positionInChannel) {
-        return EMMRssParser.getChannelForFile(channelFile).getItems().get(positionInChannel);
+        try (EMMChannelReader reader = new EMMChannelReader(channelFile)) {
+            for (int i = 0; i < positionInChannel; i++) {
+                if (!reader.skipItem()) {
+                    throw new IndexOutOfBoundsException("position " + positionInChannel + " not in " + channelFile);
+                }
+            }
+            final EMMItem item = reader.nextItem();
+            if (item == null) {
+                throw new IndexOutOfBoundsException("position " + positionInChannel + " not in " + channelFile);
+            }
+            return item;
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
     }
 
     /**
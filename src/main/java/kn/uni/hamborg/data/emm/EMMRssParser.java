@@ -5,11 +5,12 @@ package kn.uni.hamborg.data.emm;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FilenameFilter;
+import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -30,41 +31,108 @@ import org.joda.time.DateTime;
  */
 public class EMMRssParser {
 
+    private static final Logger LOG = Logger.getLogger(EMMRssParser.class.getSimpleName());
+
     public static final File DEBUG_SAMPLE_FILE = new File("rawdata/incoming-1403028915124-usnews.xml");
 
     public static void main(String[] args) {
+        if (args.length >= 1 && args[0].equals("benchmark")) {
+            benchmark(args.length > 1 ? new File(args[1]) : new File("rawdata/"),
+                    args.length > 2 ? Integer.parseInt(args[2]) : 5);
+            return;
+        }
         EMMRssParser.getChannelsForDirectory(new File("rawdata/"));
     }
 
+    /**
+     * Prints the average time per file of reading all channels of the xml
+     * files in {@code dir} with {@link #getChannelForFile(File)} and with the
+     * former parser, that creates a {@link JAXBContext} per file and
+     * unmarshals the whole file at once. Both are run once before to warm up,
+     * then alternately {@code rounds} times. Needs a JAXB runtime, e.g., that
+     * of Java 8.
+     *
+     * @param dir
+     * @param rounds
+     */
+    public static void benchmark(File dir, int rounds) {
+        final File[] files = getFilesForDirectory(dir);
+        long items = 0;
+        for (File file : files) {
+            final EMMChannel channel = getChannelForFile(file);
+            items += channel == null ? 0 : channel.getItems().size();
+            unmarshalChannel(file);
+        }
+
+        long streamingNanos = 0;
+        long unmarshallingNanos = 0;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            for (File file : files) {
+                getChannelForFile(file);
+            }
+            streamingNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (File file : files) {
+                unmarshalChannel(file);
+            }
+            unmarshallingNanos += System.nanoTime() - start;
+        }
+
+        final long n = Math.max(1, (long) files.length * rounds);
+        final StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d files, %d items, average over %d rounds:%n", files.length, items, rounds));
+        sb.append(String.format("  %-22s %10d us per file%n", "streaming (StAX)", streamingNanos / n / 1000));
+        sb.append(String.format("  %-22s %10d us per file%n", "unmarshalling (JAXB)", unmarshallingNanos / n / 1000));
+        System.out.println(sb);
+    }
+
+    /**
+     * Reads the channel of {@code file} as the former parser did, only used by
+     * {@link #benchmark(File, int)}.
+     */
+    private static EMMChannel unmarshalChannel(File file) {
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            final Unmarshaller unmarshaller = JAXBContext.newInstance(EMMRss.class).createUnmarshaller();
+            return ((EMMRss) unmarshaller.unmarshal(reader)).getChannel();
+        } catch (JAXBException | IOException ex) {
+            LOG.log(Level.SEVERE, "could not read " + file, ex);
+            return null;
+        }
+    }
+
     public static class DateAdapterItem extends XmlAdapter<String, DateTime> {
 
-        private static final SimpleDateFormat dateFormat = new SimpleDateFormat(
-                "yyyy-MM-dd'T'HH:mmZ", Locale.US);
+        // SimpleDateFormat is not thread-safe
+        private static final ThreadLocal<SimpleDateFormat> dateFormat = ThreadLocal.withInitial(()
+                -> new SimpleDateFormat("yyyy-MM-dd'T'HH:mmZ", Locale.US));
 
         @Override
         public String marshal(DateTime v) throws Exception {
-            return dateFormat.format(v);
+            return dateFormat.get().format(v.toDate());
         }
 
         @Override
         public DateTime unmarshal(String v) throws Exception {
-            return new DateTime(dateFormat.parse(v));
+            return new DateTime(dateFormat.get().parse(v));
         }
     }
 
     public static class DateAdapterChannel extends XmlAdapter<String, DateTime> {
 
-        private static final SimpleDateFormat dateFormat = new SimpleDateFormat(
-                "EEE, dd MMM yyyy HH:mm:ss z", Locale.US);
+        // SimpleDateFormat is not thread-safe
+        private static final ThreadLocal<SimpleDateFormat> dateFormat = ThreadLocal.withInitial(()
+                -> new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss z", Locale.US));
 
         @Override
         public String marshal(DateTime v) throws Exception {
-            return dateFormat.format(v);
+            return dateFormat.get().format(v.toDate());
         }
 
         @Override
         public DateTime unmarshal(String v) throws Exception {
-            return new DateTime(dateFormat.parse(v));
+            return new DateTime(dateFormat.get().parse(v));
         }
     }
 
@@ -107,29 +175,30 @@ public class EMMRssParser {
         return channels.toArray(new EMMChannel[channels.size()]);
     }
 
+    /**
+     * Reads the complete channel of {@code file} including all its items. Use
+     * {@link EMMChannelReader} to process the items one at a time instead.
+     *
+     * @param file
+     * @return {@code null} if the file is corrupted or does not have a
+     * channel.
+     */
     public static EMMChannel getChannelForFile(final File file) {
-        try {
-            final JAXBContext jaxbContext = JAXBContext.newInstance(EMMRss.class);
-            final Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-
-            EMMRss rss = (EMMRss) jaxbUnmarshaller.unmarshal(new InputStreamReader(new FileInputStream(file), "UTF-8"));
-            EMMChannel channel = rss.getChannel();
+        try (EMMChannelReader reader = new EMMChannelReader(file)) {
+            final EMMChannel channel = reader.getChannel();
             if (channel == null) {
-                System.err.println(file.toString() + "does not have a channel");
-            } else {
-                channel.setFilename(file.getName());
-                channel.setPathname(file.getPath());
-                for (int i = 0; i < channel.getItems().size(); i++) {
-                    channel.getItems().get(i).setPositionInChannel(i);
-                }
+                LOG.log(Level.WARNING, "{0} does not have a channel", file);
+                return null;
             }
-
+            final List<EMMItem> items = new ArrayList<>();
+            EMMItem item;
+            while ((item = reader.nextItem()) != null) {
+                items.add(item);
+            }
+            channel.setItems(items);
             return channel;
-        } catch (JAXBException e) {
-            System.err.println("corrupted file: " + file);
-            e.printStackTrace();
-        } catch (FileNotFoundException | UnsupportedEncodingException ex) {
-            Logger.getLogger(EMMRssParser.class.getName()).log(Level.SEVERE, null, ex);
+        } catch (IOException ex) {
+            LOG.log(Level.SEVERE, "could not read " + file, ex);
         }
 
         return null;
@@ -4,13 +4,21 @@
 package kn.uni.hamborg.data.light;
 
 import java.io.Serializable;
+import kn.uni.hamborg.language.analyzers.SentenceBoundaries;
 import kn.uni.hamborg.lucene.field.VecTextField;
+import kn.uni.hamborg.lucene.index.IndexSchema;
+import kn.uni.hamborg.lucene.index.NearDuplicateDetector;
+import kn.uni.hamborg.utils.DateTimeUtils;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.IntField;
 import org.apache.lucene.document.LongField;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
+import org.apache.lucene.util.BytesRef;
 import org.joda.time.DateTime;
 
 /**
@@ -21,6 +29,13 @@ import org.joda.time.DateTime;
  */
 public class LightDoc implements Serializable {
 
+    /**
+     * The id computed for this class before it was declared, so that
+     * serialized documents (see {@link kn.uni.hamborg.lucene.index.EMMDataSetIndexer})
+     * can still be read.
+     */
+    private static final long serialVersionUID = -8182923560409264315L;
+
     /**
      * Definitions for field names.
      */
@@ -36,6 +51,21 @@ public class LightDoc implements Serializable {
     public static final String CHANNEL_FILE = "channelFile";
     public static final String CHANNEL_POSITION = "channelPosition";
     public static final String RECIPIENTS = "recipients";
+    /**
+     * Publishing day as days since the epoch (UTC), only as DocValues, see
+     * {@link DateTimeUtils#toDayOrdinal(long)}.
+     */
+    public static final String PUB_DAY = "pubDay";
+    /**
+     * The MinHash bands of title and content (hexadecimal), only indexed, see
+     * {@link NearDuplicateDetector}.
+     */
+    public static final String DUPLICATE_BANDS = "duplicateBands";
+    /**
+     * The near-duplicate cluster of the document, only as DocValues, see
+     * {@link NearDuplicateDetector}.
+     */
+    public static final String DUPLICATE_CLUSTER = "duplicateCluster";
 
     /**
      * Stemmed field names.
@@ -45,6 +75,12 @@ public class LightDoc implements Serializable {
     public static final String CONTENT_STEMMED = CONTENT + SUFFIX_STEMMED;
     public static final String DESCRIPTION_STEMMED = DESCRIPTION + SUFFIX_STEMMED;
 
+    /**
+     * Suffix of the stored fields holding the sentence boundaries of a text
+     * field, see {@link #getSentencesField(String)}.
+     */
+    public static final String SUFFIX_SENTENCES = "Sentences";
+
     /**
      * Members.
      */
@@ -60,6 +96,11 @@ public class LightDoc implements Serializable {
     private DateTime pubDate;
     private String pubLand;
     private String[] recipients;
+    /**
+     * {@code null} if the document has not been assigned to a cluster.
+     */
+    private Long duplicateCluster;
+    private transient long[] duplicateBands;
 
     public String getId() {
         return id;
@@ -164,22 +205,95 @@ public class LightDoc implements Serializable {
         this.channelFile = channelFile;
     }
 
+    /**
+     * Returns the MinHash bands of the title and the content, see
+     * {@link NearDuplicateDetector#computeBands(String)}.
+     *
+     * @return
+     */
+    public long[] getDuplicateBands() {
+        if (duplicateBands == null) {
+            // a missing title or content must not become the word "null"
+            duplicateBands = NearDuplicateDetector.computeBands(
+                    (title == null ? "" : title) + " " + (content == null ? "" : content));
+        }
+        return duplicateBands;
+    }
+
+    /**
+     * Returns the term of {@code band} in {@link #DUPLICATE_BANDS}.
+     *
+     * @param band
+     * @return
+     */
+    public static String getDuplicateBandTerm(long band) {
+        return Long.toHexString(band);
+    }
+
+    public Long getDuplicateCluster() {
+        return duplicateCluster;
+    }
+
+    public void setDuplicateCluster(long duplicateCluster) {
+        this.duplicateCluster = duplicateCluster;
+    }
+
+    /**
+     * Returns the field that stores the text of {@code field}. The stemmed
+     * fields index the same text as their plain fields, thus their text is
+     * read from the plain fields, which works regardless of the
+     * {@link IndexSchema} of the index.
+     *
+     * @param field
+     * @return
+     */
+    public static String getStoredField(String field) {
+        if (field.endsWith(SUFFIX_STEMMED)) {
+            return field.substring(0, field.length() - SUFFIX_STEMMED.length());
+        }
+        return field;
+    }
+
+    /**
+     * Returns the name of the stored field that holds the sentence boundaries
+     * of the text of {@code field} (see {@link #getStoredField(String)}), see
+     * {@link SentenceBoundaries}.
+     *
+     * @param field
+     * @return
+     */
+    public static String getSentencesField(String field) {
+        return getStoredField(field) + SUFFIX_SENTENCES;
+    }
+
+    /**
+     * Creates a new lucene document from this LightDoc instance using
+     * {@link IndexSchema#DEFAULT}. Each time this function is invoked, a new
+     * lucene document is created.
+     *
+     * @return
+     */
+    public Document asLuceneDocument() {
+        return asLuceneDocument(IndexSchema.DEFAULT);
+    }
+
     /**
      * Creates a new lucene document from this LightDoc instance. Each time this
      * function is invoked, a new lucene document is created.
      *
+     * @param schema
      * @return
      */
-    public Document asLuceneDocument() {
+    public Document asLuceneDocument(IndexSchema schema) {
         final Document doc = new Document();
 
         // store the id
         doc.add(new StringField(ID, id, Field.Store.YES));
 
         // we store actually all values completely, might be a problem for very large document collections
-        doc.add(new VecTextField(CONTENT, content, Field.Store.YES));
-        doc.add(new VecTextField(TITLE, title, Field.Store.YES));
-        doc.add(new VecTextField(DESCRIPTION, description, Field.Store.YES));
+        addTextField(doc, schema, CONTENT, content, Field.Store.YES);
+        addTextField(doc, schema, TITLE, title, Field.Store.YES);
+        addTextField(doc, schema, DESCRIPTION, description, Field.Store.YES);
 
         doc.add(new StringField(CHANNEL_GUID, channelGuid, Field.Store.YES));
         doc.add(new StringField(CHANNEL_LANGUAGE, channelLanguage, Field.Store.YES));
@@ -188,16 +302,41 @@ public class LightDoc implements Serializable {
         doc.add(new LongField(PUB_DATE, pubDate.getMillis(), Field.Store.YES));
         doc.add(new StringField(PUB_URL, link, Field.Store.YES));
 
+        // for facets and histograms
+        if (schema.hasFacetDocValues()) {
+            doc.add(new NumericDocValuesField(PUB_DATE, pubDate.getMillis()));
+            doc.add(new NumericDocValuesField(PUB_DAY, DateTimeUtils.toDayOrdinal(pubDate.getMillis())));
+            doc.add(new SortedDocValuesField(PUB_COUNTRY, new BytesRef(pubLand)));
+            doc.add(new SortedDocValuesField(CHANNEL_GUID, new BytesRef(channelGuid)));
+        }
+
+        // near duplicates
+        if (schema.hasDuplicateSignatures()) {
+            for (long band : getDuplicateBands()) {
+                doc.add(new StringField(DUPLICATE_BANDS, getDuplicateBandTerm(band), Field.Store.NO));
+            }
+            if (duplicateCluster != null) {
+                doc.add(new NumericDocValuesField(DUPLICATE_CLUSTER, duplicateCluster));
+            }
+        }
+
+        // sentences, so that they need not be detected again for summaries
+        if (schema.hasSentenceBoundaries()) {
+            addSentencesField(doc, CONTENT, content);
+            addSentencesField(doc, TITLE, title);
+            addSentencesField(doc, DESCRIPTION, description);
+        }
+
         // additional stuff
         for (String recipient : recipients) {
             doc.add(new StringField(RECIPIENTS, recipient, Field.Store.YES));
         }
 
-        // stemmed fields (we don't need to store the original content twice, as it is already stored in the CONTENT and TITLE field)
-        // however, we also store this in order to allow reprocessing / analysis of these fields, e.g., for summarization
-        doc.add(new VecTextField(CONTENT_STEMMED, content, Field.Store.YES));
-        doc.add(new VecTextField(TITLE_STEMMED, title, Field.Store.YES));
-        doc.add(new VecTextField(DESCRIPTION_STEMMED, description, Field.Store.YES));
+        // stemmed fields, their text is already stored in the CONTENT, TITLE and DESCRIPTION field
+        final Field.Store storeStemmed = schema.isStoreTextOnce() ? Field.Store.NO : Field.Store.YES;
+        addTextField(doc, schema, CONTENT_STEMMED, content, storeStemmed);
+        addTextField(doc, schema, TITLE_STEMMED, title, storeStemmed);
+        addTextField(doc, schema, DESCRIPTION_STEMMED, description, storeStemmed);
 
         // additional information to get from this Lucene document back to the original file
         doc.add(new StringField(CHANNEL_FILE, channelFile, Field.Store.YES));
@@ -206,6 +345,40 @@ public class LightDoc implements Serializable {
         return doc;
     }
 
+    private static void addTextField(Document doc, IndexSchema schema, String name, String value, Field.Store store) {
+        doc.add(new VecTextField(name, value, store, schema.hasTermVectors(name)));
+    }
+
+    private static void addSentencesField(Document doc, String name, String value) {
+        if (value != null) {
+            doc.add(new StoredField(getSentencesField(name), SentenceBoundaries.encode(SentenceBoundaries.detect(value))));
+        }
+    }
+
+    /**
+     * Creates a LightDoc from the stored fields of a lucene document, e.g., to
+     * index it again.
+     *
+     * @param doc
+     * @return
+     */
+    public static LightDoc fromLuceneDocument(Document doc) {
+        final String position = doc.get(CHANNEL_POSITION);
+        return new LightDoc(
+                doc.get(ID),
+                doc.get(CONTENT),
+                doc.get(TITLE),
+                doc.get(DESCRIPTION),
+                doc.get(CHANNEL_GUID),
+                doc.get(CHANNEL_LANGUAGE),
+                doc.get(PUB_URL),
+                new DateTime(Long.parseLong(doc.get(PUB_DATE))),
+                doc.get(PUB_COUNTRY),
+                doc.getValues(RECIPIENTS),
+                doc.get(CHANNEL_FILE),
+                position == null ? 0 : Integer.parseInt(position));
+    }
+
     @Override
     public String toString() {
         return ToStringBuilder.reflectionToString(this);
@@ -5,6 +5,7 @@ package kn.uni.hamborg.gui.era;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -13,6 +14,7 @@ import javax.swing.table.DefaultTableModel;
 import kn.uni.hamborg.data.light.LightDoc;
 import kn.uni.hamborg.language.analyzers.AggregatedSubjectivity;
 import kn.uni.hamborg.language.analyzers.MPQASubjectivityAnalyzer;
+import kn.uni.hamborg.language.analyzers.SentenceBoundaries;
 import kn.uni.hamborg.utils.DateTimeUtils;
 import kn.uni.hamborg.utils.RegionUtils;
 import kn.uni.hamborg.language.analyzers.TopicAnalyzerMallet;
@@ -212,8 +214,12 @@ public class CountrySummaryFrame extends javax.swing.JFrame {
                 /**
                  * Calculate the subjectivity
                  */
-                final String totalContent = DocumentUtils.getConcatenatedContent(docs, LightDoc.CONTENT_STEMMED);
-                final AggregatedSubjectivity totalSubjectivityForThisCountryOrDate = subjectivityAnalyzer.calcSubjectivityForSentences(totalContent);
+                final List<String> totalSentences = new ArrayList<>();
+                for (Document doc : docs) {
+                    totalSentences.addAll(Arrays.asList(SentenceBoundaries.getSentences(doc, LightDoc.CONTENT_STEMMED)));
+                }
+                final AggregatedSubjectivity totalSubjectivityForThisCountryOrDate = subjectivityAnalyzer.calcSubjectivityForSentences(
+                        totalSentences.toArray(new String[totalSentences.size()]));
                 final double relativeSubjForCountryOrDate = totalSubjectivityForThisCountryOrDate.getRelativeTotalSubjectivity();
 
                 AggregatedSubjectivity aggrSubjOfCountry = null;
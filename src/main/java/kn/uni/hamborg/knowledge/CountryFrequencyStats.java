@@ -5,15 +5,15 @@ package kn.uni.hamborg.knowledge;
 
 import au.com.bytecode.opencsv.CSVWriter;
 import java.io.FileWriter;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import kn.uni.hamborg.config.LuceneConfig;
-import kn.uni.hamborg.data.light.LightDoc;
+import kn.uni.hamborg.lucene.search.FacetCounts;
 import kn.uni.hamborg.utils.IndexUtils;
 import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
-import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
 
 /**
  * This measures the frequency of articles for each country over the complete
@@ -31,9 +31,11 @@ public class CountryFrequencyStats {
         CSVWriter csv = new CSVWriter(new FileWriter("countryarticlesfrequencies.csv"));
         csv.writeNext(new String[]{"CountryCode", "ArticleCount"});
 
+        // counts all countries in one pass
+        final Map<String, Integer> countsByCountry = FacetCounts.count(is, new MatchAllDocsQuery()).getCountsByCountry();
         for (String countryCode : CountryNames.countryCodes) {
             System.out.print(countryCode + "=");
-            int articlesTotal = is.search(new TermQuery(new Term(LightDoc.PUB_COUNTRY, countryCode)), Integer.MAX_VALUE).totalHits;
+            int articlesTotal = countsByCountry.getOrDefault(countryCode, 0);
             System.out.println(articlesTotal);
             csv.writeNext(new String[]{countryCode, "" + (articlesTotal / 365.0f)});
         }
@@ -5,22 +5,22 @@ package kn.uni.hamborg.knowledge;
 
 import au.com.bytecode.opencsv.CSVWriter;
 import java.io.FileWriter;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import kn.uni.hamborg.config.LuceneConfig;
 import kn.uni.hamborg.data.light.LightDoc;
 import kn.uni.hamborg.lucene.analyzer.QueryParserFactory;
+import kn.uni.hamborg.lucene.search.FacetCounts;
 import kn.uni.hamborg.utils.DateTimeUtils;
 import kn.uni.hamborg.utils.IndexUtils;
 import kn.uni.hamborg.utils.QueryUtils;
 import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.IndexSearcher;
-import org.apache.lucene.search.NumericRangeQuery;
 import org.apache.lucene.search.Query;
-import org.apache.lucene.search.TermQuery;
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 
 /**
  * This measures the frequency of articles for each country over the complete
@@ -39,21 +39,19 @@ public class TopicFrequencyStats {
         final QueryParser qp = QueryParserFactory.createQueryParser(LightDoc.DESCRIPTION_STEMMED);
         final Query topicQuery = qp.parse("people time 2015 world year");//qp.parse("iphone apple retina ios");
 
-        DateTime start = new DateTime(2014, 1, 1, 0, 0);
-        
-        for (int i = 0; i < 365; i++) {
-            NumericRangeQuery<Long> numQuery = QueryUtils.createNumericRangeQueryForDate(LightDoc.PUB_DATE,
-                    start, start.plusDays(1), true, true);
-            Query q = QueryUtils.addQueryToQuery(topicQuery, numQuery);
-            
-            int articlesTotal = is.search(q, Integer.MAX_VALUE).totalHits;
-            //System.out.println(DateTimeUtils.simpleDateTimeFormatter.print(start));
-            //System.out.println("" + articlesTotal);
+        DateTime start = new DateTime(2014, 1, 1, 0, 0, DateTimeZone.UTC);
+        final DateTime end = start.plusDays(365);
+
+        // counts all days in one pass
+        final Query q = QueryUtils.addQueryToQuery(topicQuery, QueryUtils.createNumericRangeQueryForDate(
+                LightDoc.PUB_DATE, start, end, true, false));
+        final Map<Long, Integer> countsByDay = FacetCounts.count(is, q).getCountsByDay();
+
+        for (; start.isBefore(end); start = start.plusDays(1)) {
+            int articlesTotal = countsByDay.getOrDefault(start.getMillis(), 0);
             csv.writeNext(new String[]{DateTimeUtils.simpleDateTimeFormatter.print(start), "" + articlesTotal});
-            
-            start = start.plusDays(1);
         }
-        
+
         ir.close();
         csv.close();
     }
@@ -116,7 +116,19 @@ public class MPQASubjectivityAnalyzer {
      */
     public AggregatedSubjectivity calcSubjectivityForSentences(
             String sentences) {
-        String[] splitSentences = sentenceSplitter.splitSentences(sentences);
+        return calcSubjectivityForSentences(sentenceSplitter.splitSentences(sentences));
+    }
+
+    /**
+     * Aggregates the subjectivity of the already split {@code sentences},
+     * e.g., read with
+     * {@link SentenceBoundaries#getSentences(org.apache.lucene.document.Document, java.lang.String)}.
+     *
+     * @param splitSentences
+     * @return
+     */
+    public AggregatedSubjectivity calcSubjectivityForSentences(
+            String[] splitSentences) {
         AggregatedSubjectivity as = new AggregatedSubjectivity();
         for (String splitSentence : splitSentences) {
             as.aggregateWith(calcSubjectivity(splitSentence, true));
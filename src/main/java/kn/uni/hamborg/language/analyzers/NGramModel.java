@@ -52,13 +52,22 @@ public class NGramModel {
      * @param text
      */
     public void indexText(String text) {
-        String[] sentences = sentenceSplitter.splitSentences(text);
+        indexSentences(sentenceSplitter.splitSentences(text));
+    }
+
+    /**
+     * Indexes the given sentences of a text, e.g., read with
+     * {@link SentenceBoundaries#getSentences(org.apache.lucene.document.Document, java.lang.String)}.
+     * Each sentence is tokenized.
+     *
+     * @param sentences
+     */
+    public void indexSentences(String[] sentences) {
         for (String sentence : sentences) {
             //System.out.println("indexing sentence: " + sentence);
             String[] tokens = SimpleTokenizer.INSTANCE.tokenize(sentence);
             indexSentence(tokens);
         }
-
     }
     static int count = 0;
 
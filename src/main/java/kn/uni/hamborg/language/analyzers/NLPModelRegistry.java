@@ -0,0 +1,285 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.language.analyzers;
+
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import edu.stanford.nlp.tagger.maxent.MaxentTagger;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import kn.uni.hamborg.config.LuceneConfig;
+import kn.uni.hamborg.config.OpenNLPConfig;
+import kn.uni.hamborg.config.PosConfig;
+import kn.uni.hamborg.language.Language;
+import opennlp.tools.chunker.ChunkerME;
+import opennlp.tools.chunker.ChunkerModel;
+import opennlp.tools.namefind.TokenNameFinderModel;
+import opennlp.tools.parser.ParserModel;
+import opennlp.tools.postag.POSModel;
+import opennlp.tools.postag.POSTaggerME;
+import opennlp.tools.sentdetect.SentenceDetectorME;
+import opennlp.tools.sentdetect.SentenceModel;
+import opennlp.tools.tokenize.TokenizerME;
+import opennlp.tools.tokenize.TokenizerModel;
+
+/**
+ * Loads each OpenNLP and CoreNLP model exactly once and shares it among all
+ * components. The models themselves are thread-safe, whereas the OpenNLP
+ * {@code *ME} classes using them are not. Thus, this class also hands out
+ * one {@code *ME} instance per thread, e.g., {@link #getTokenizer()}.
+ *
+ * Models are loaded on first use, {@link #preload()} loads the commonly used
+ * ones at startup. Each model is loaded by the first thread requesting it,
+ * other threads requesting the same model wait for it, whereas other models
+ * can be loaded at the same time. The load time and the size of the model
+ * file of each model is logged and available via
+ * {@link #getModelStatistics()}.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class NLPModelRegistry {
+
+    private static final Logger LOG = Logger.getLogger(NLPModelRegistry.class.getSimpleName());
+
+    private static final ConcurrentMap<String, FutureTask<Object>> models = new ConcurrentHashMap<>();
+    private static final Map<String, ModelStatistics> statistics = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<TokenizerME> tokenizer
+            = ThreadLocal.withInitial(() -> new TokenizerME(getTokenizerModel()));
+    private static final ThreadLocal<POSTaggerME> posTagger
+            = ThreadLocal.withInitial(() -> new POSTaggerME(getPOSModel()));
+    private static final ThreadLocal<ChunkerME> chunker
+            = ThreadLocal.withInitial(() -> new ChunkerME(getChunkerModel()));
+    private static final ThreadLocal<Map<Language, SentenceDetectorME>> sentenceDetectors
+            = ThreadLocal.withInitial(() -> new EnumMap<>(Language.class));
+
+    @FunctionalInterface
+    private interface ModelLoader<T> {
+
+        T load() throws IOException;
+    }
+
+    /**
+     * Loads the models used by the web interface, so that the first requests
+     * do not have to wait for them.
+     */
+    public static void preload() {
+        getSentenceModel(LuceneConfig.MAIN_LANGUAGE);
+        getTokenizerModel();
+        getPOSModel();
+        getChunkerModel();
+        LOG.log(Level.INFO, "preloaded NLP models: {0}", getModelStatistics());
+    }
+
+    public static SentenceModel getSentenceModel(Language language) {
+        final File file = new File(OpenNLPConfig.basePath, language.toString().toLowerCase() + "-sent.bin");
+        return getModel(file.getName(), file, () -> new SentenceModel(file));
+    }
+
+    public static TokenizerModel getTokenizerModel() {
+        final File file = new File(OpenNLPConfig.basePath, "en-token.bin");
+        return getModel(file.getName(), file, () -> new TokenizerModel(file));
+    }
+
+    public static POSModel getPOSModel() {
+        final File file = new File(OpenNLPConfig.basePath, "en-pos-maxent.bin");
+        return getModel(file.getName(), file, () -> new POSModel(file));
+    }
+
+    public static ChunkerModel getChunkerModel() {
+        final File file = new File(OpenNLPConfig.basePath, "en-chunker.bin");
+        return getModel(file.getName(), file, () -> new ChunkerModel(file));
+    }
+
+    public static ParserModel getParserModel() {
+        final File file = new File(OpenNLPConfig.basePath, "en-parser-chunking.bin");
+        return getModel(file.getName(), file, () -> new ParserModel(file));
+    }
+
+    public static TokenNameFinderModel getPersonNameFinderModel(Language language) {
+        if (language != Language.EN) {
+            throw new IllegalArgumentException("only en supported yet");
+        }
+        final File file = new File(OpenNLPConfig.basePath, "en-ner-person.bin");
+        return getModel(file.getName(), file, () -> new TokenNameFinderModel(file));
+    }
+
+    /**
+     * Returns the CoreNLP POS tagger, which (in contrast to the OpenNLP one)
+     * is thread-safe.
+     *
+     * @return
+     */
+    public static MaxentTagger getMaxentTagger() {
+        return getModel(PosConfig.modelEnglishPOSTagger.getName(), PosConfig.modelEnglishPOSTagger,
+                () -> new MaxentTagger(PosConfig.modelEnglishPOSTagger.getAbsolutePath()));
+    }
+
+    /**
+     * Returns the (thread-safe) CoreNLP pipeline with the given annotators.
+     *
+     * @param annotators e.g., "tokenize, ssplit, parse, sentiment"
+     * @return
+     */
+    public static StanfordCoreNLP getStanfordCoreNLP(String annotators) {
+        return getModel("corenlp:" + annotators, null, () -> {
+            final Properties props = new Properties();
+            props.setProperty("annotators", annotators);
+            return new StanfordCoreNLP(props);
+        });
+    }
+
+    /**
+     * Returns the tokenizer of the current thread.
+     *
+     * @return
+     */
+    public static TokenizerME getTokenizer() {
+        return tokenizer.get();
+    }
+
+    /**
+     * Returns the POS tagger of the current thread.
+     *
+     * @return
+     */
+    public static POSTaggerME getPOSTagger() {
+        return posTagger.get();
+    }
+
+    /**
+     * Returns the chunker of the current thread.
+     *
+     * @return
+     */
+    public static ChunkerME getChunker() {
+        return chunker.get();
+    }
+
+    /**
+     * Returns the sentence detector for {@code language} of the current
+     * thread.
+     *
+     * @param language
+     * @return
+     */
+    public static SentenceDetectorME getSentenceDetector(Language language) {
+        return sentenceDetectors.get().computeIfAbsent(language,
+                l -> new SentenceDetectorME(getSentenceModel(l)));
+    }
+
+    /**
+     * Returns the statistics of all models loaded so far.
+     *
+     * @return
+     */
+    public static List<ModelStatistics> getModelStatistics() {
+        final List<ModelStatistics> result = new ArrayList<>(statistics.values());
+        Collections.sort(result, (s1, s2) -> s1.getName().compareTo(s2.getName()));
+        return result;
+    }
+
+    /**
+     * Returns the model {@code name}, which is loaded by the calling thread if
+     * it has not been loaded yet. If loading fails, the next call tries again.
+     *
+     * @param name
+     * @param file the model file, only used for the statistics, {@code null}
+     * if there is none
+     * @param loader
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T getModel(String name, File file, ModelLoader<T> loader) {
+        FutureTask<Object> task = models.get(name);
+        if (task == null) {
+            final FutureTask<Object> newTask = new FutureTask<>(() -> load(name, file, loader));
+            task = models.putIfAbsent(name, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
+            }
+        }
+        try {
+            return (T) task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch (ExecutionException ex) {
+            models.remove(name, task);
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    /**
+     * Loads a model and records its statistics.
+     */
+    private static <T> T load(String name, File file, ModelLoader<T> loader) {
+        final long start = System.currentTimeMillis();
+        final T model;
+        try {
+            model = loader.load();
+        } catch (IOException ex) {
+            LOG.log(Level.SEVERE, "could not load model " + name, ex);
+            throw new RuntimeException(ex);
+        }
+        final long loadTimeMillis = System.currentTimeMillis() - start;
+
+        final ModelStatistics stats = new ModelStatistics(name, loadTimeMillis, file == null ? -1 : file.length());
+        statistics.put(name, stats);
+        LOG.log(Level.INFO, "loaded model {0}", stats);
+        return model;
+    }
+
+    /**
+     * Load time and file size of a single model.
+     */
+    public static class ModelStatistics {
+
+        private final String name;
+        private final long loadTimeMillis;
+        /**
+         * Size of the model file, {@code -1} if unknown.
+         */
+        private final long fileBytes;
+
+        public ModelStatistics(String name, long loadTimeMillis, long fileBytes) {
+            this.name = name;
+            this.loadTimeMillis = loadTimeMillis;
+            this.fileBytes = fileBytes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getLoadTimeMillis() {
+            return loadTimeMillis;
+        }
+
+        public long getFileBytes() {
+            return fileBytes;
+        }
+
+        @Override
+        public String toString() {
+            return name + " [" + loadTimeMillis + " ms, "
+                    + (fileBytes < 0 ? "unknown size" : (fileBytes / 1024) + " KB file") + "]";
+        }
+    }
+}
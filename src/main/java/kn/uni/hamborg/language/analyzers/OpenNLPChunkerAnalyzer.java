@@ -3,16 +3,12 @@
  */
 package kn.uni.hamborg.language.analyzers;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.logging.Logger;
-import kn.uni.hamborg.config.OpenNLPConfig;
-import opennlp.tools.chunker.Chunker;
-import opennlp.tools.chunker.ChunkerME;
-import opennlp.tools.chunker.ChunkerModel;
 
 /**
- * Provides an easy way to work the OpenNLP's chunker.
+ * Provides an easy way to work the OpenNLP's chunker. Thread-safe, since each
+ * thread uses its own chunker from the {@link NLPModelRegistry}.
  *
  * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
  */
@@ -20,15 +16,14 @@ public class OpenNLPChunkerAnalyzer {
 
     private static final Logger LOG = Logger.getLogger(OpenNLPChunkerAnalyzer.class.getSimpleName());
 
-    private final Chunker chunker;
     private final OpenNLPPosAnalyzer posTagger;
     private final OpenNLPTokenizer tokenizer;
 
     public OpenNLPChunkerAnalyzer() throws IOException {
         tokenizer = new OpenNLPTokenizer();
-        posTagger = new OpenNLPPosAnalyzer();
-
-        chunker = new ChunkerME(new ChunkerModel(new File(OpenNLPConfig.basePath, "en" + "-chunker.bin")));
+        posTagger = new OpenNLPPosAnalyzer(tokenizer);
+        // fail early if the model is not available
+        NLPModelRegistry.getChunkerModel();
     }
 
     public OpenNLPTokenizer getTokenizer() {
@@ -53,7 +48,7 @@ public class OpenNLPChunkerAnalyzer {
     }
 
     public String[] chunkSentence(String[] tokens, String[] pos) {
-        return chunker.chunk(tokens, pos);
+        return NLPModelRegistry.getChunker().chunk(tokens, pos);
     }
 
     private static String getChunkType(String chunk) {
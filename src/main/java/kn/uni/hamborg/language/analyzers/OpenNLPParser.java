@@ -3,18 +3,15 @@
  */
 package kn.uni.hamborg.language.analyzers;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import kn.uni.hamborg.config.OpenNLPConfig;
 import opennlp.tools.parser.AbstractBottomUpParser;
 import opennlp.tools.parser.Parse;
 import opennlp.tools.parser.Parser;
 import opennlp.tools.parser.ParserFactory;
-import opennlp.tools.parser.ParserModel;
 import opennlp.tools.util.Span;
 import org.joda.time.DateTime;
 import org.joda.time.Seconds;
@@ -41,8 +38,7 @@ public class OpenNLPParser {
         DateTime start = DateTime.now();
         sentenceSplitter = new SentenceSplitter();
         posTagger = new OpenNLPPosAnalyzer();
-        parser = ParserFactory.create(new ParserModel(new File(OpenNLPConfig.basePath,
-                "en" + "-parser-chunking.bin")));
+        parser = ParserFactory.create(NLPModelRegistry.getParserModel());
         LOG.log(Level.INFO, "initalization finished in {0} seconds", Seconds.secondsBetween(start, DateTime.now()).getSeconds());
     }
 
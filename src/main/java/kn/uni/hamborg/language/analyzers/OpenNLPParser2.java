@@ -3,16 +3,13 @@
  */
 package kn.uni.hamborg.language.analyzers;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import kn.uni.hamborg.config.OpenNLPConfig;
 import opennlp.tools.cmdline.parser.ParserTool;
 import opennlp.tools.parser.Parse;
 import opennlp.tools.parser.Parser;
 import opennlp.tools.parser.ParserFactory;
-import opennlp.tools.parser.ParserModel;
 import org.joda.time.DateTime;
 import org.joda.time.Seconds;
 
@@ -32,8 +29,7 @@ public class OpenNLPParser2 {
         DateTime start = DateTime.now();
         sentenceSplitter = new SentenceSplitter();
         posTagger = new OpenNLPPosAnalyzer();
-        parser = ParserFactory.create(new ParserModel(new File(OpenNLPConfig.basePath,
-                "en" + "-parser-chunking.bin")));
+        parser = ParserFactory.create(NLPModelRegistry.getParserModel());
         LOG.log(Level.INFO, "initalization finished in {0} seconds", Seconds.secondsBetween(start, DateTime.now()).getSeconds());
     }
 // siehe Olyas mail: erst NP das NN dann VP das Verb und dann auch in der VP das erste NN nach dem Verb
@@ -3,17 +3,13 @@
  */
 package kn.uni.hamborg.language.analyzers;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.logging.Level;
 import java.util.logging.Logger;
-import kn.uni.hamborg.config.OpenNLPConfig;
-import opennlp.tools.postag.POSModel;
-import opennlp.tools.postag.POSTaggerME;
 
 /**
- * OpenNLP based POS Tagger.
+ * OpenNLP based POS Tagger. Thread-safe, since each thread uses its own tagger
+ * from the {@link NLPModelRegistry}.
  *
  * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
  */
@@ -22,18 +18,11 @@ public class OpenNLPPosAnalyzer {
     private static final Logger LOG = Logger.getLogger(OpenNLPPosAnalyzer.class.getSimpleName());
 
     private final OpenNLPTokenizer tokenizer;
-    private final POSTaggerME posTagger;
 
     public OpenNLPPosAnalyzer(OpenNLPTokenizer tokenizer) {
         this.tokenizer = tokenizer;
-        try {
-            posTagger = new POSTaggerME(new POSModel(new File(OpenNLPConfig.basePath,
-                    "en" + "-pos-maxent.bin")));
-
-        } catch (IOException ex) {
-            Logger.getLogger(OpenNLPPosAnalyzer.class.getName()).log(Level.SEVERE, null, ex);
-            throw new RuntimeException(ex);
-        }
+        // fail early if the model is not available
+        NLPModelRegistry.getPOSModel();
     }
 
     public OpenNLPPosAnalyzer() {
@@ -67,7 +56,7 @@ public class OpenNLPPosAnalyzer {
      * @return
      */
     public String[] tagSentence(String[] tokens) {
-        return posTagger.tag(tokens);
+        return NLPModelRegistry.getPOSTagger().tag(tokens);
     }
 
     public static void main(String[] args) throws IOException {
@@ -3,17 +3,12 @@
  */
 package kn.uni.hamborg.language.analyzers;
 
-import java.io.File;
-import java.io.IOException;
-import java.util.logging.Level;
 import java.util.logging.Logger;
-import kn.uni.hamborg.config.OpenNLPConfig;
-import opennlp.tools.tokenize.TokenizerME;
-import opennlp.tools.tokenize.TokenizerModel;
 import opennlp.tools.util.Span;
 
 /**
- * OpenNLP based tokenizer for English.
+ * OpenNLP based tokenizer for English. Thread-safe, since each thread uses its
+ * own tokenizer from the {@link NLPModelRegistry}.
  *
  * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
  */
@@ -21,24 +16,17 @@ public class OpenNLPTokenizer {
 
     private static final Logger LOG = Logger.getLogger(OpenNLPTokenizer.class.getSimpleName());
 
-    private final opennlp.tools.tokenize.Tokenizer tokenizer;
-
     public OpenNLPTokenizer() {
-        try {
-            tokenizer = new TokenizerME(new TokenizerModel(new File(OpenNLPConfig.basePath,
-                    "en" + "-token.bin")));
-        } catch (IOException ex) {
-            Logger.getLogger(OpenNLPTokenizer.class.getName()).log(Level.SEVERE, null, ex);
-            throw new RuntimeException(ex);
-        }
+        // fail early if the model is not available
+        NLPModelRegistry.getTokenizerModel();
     }
 
     public String[] tokenizeSentence(String sentence) {
-        return tokenizer.tokenize(sentence);
+        return NLPModelRegistry.getTokenizer().tokenize(sentence);
     }
 
     public Span[] tokenizeSentenceToSpans(String sentence) {
-        return tokenizer.tokenizePos(sentence);
+        return NLPModelRegistry.getTokenizer().tokenizePos(sentence);
     }
 
 }
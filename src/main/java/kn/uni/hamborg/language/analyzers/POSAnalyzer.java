@@ -9,7 +9,6 @@ import java.io.FileNotFoundException;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import kn.uni.hamborg.config.PosConfig;
 
 /**
  * Stanford CoreNLP based.
@@ -24,7 +23,7 @@ public class POSAnalyzer {
     private final MaxentTagger tagger;
 
     public POSAnalyzer() {
-        tagger = new MaxentTagger(PosConfig.modelEnglishPOSTagger.getAbsolutePath());
+        tagger = NLPModelRegistry.getMaxentTagger();
         tokenizer = new Tokenizer();
     }
 
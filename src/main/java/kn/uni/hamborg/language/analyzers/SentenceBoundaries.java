@@ -0,0 +1,127 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.language.analyzers;
+
+import java.io.IOException;
+import kn.uni.hamborg.config.LuceneConfig;
+import kn.uni.hamborg.data.light.LightDoc;
+import opennlp.tools.util.Span;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * Encodes the sentence boundaries of a text, as detected by
+ * {@link SentenceSplitter} at index time, and splits the text by them again
+ * later on, so that the sentence detector does not need to run again (see
+ * {@link LightDoc#getSentencesField(String)}).
+ *
+ * The boundaries are encoded as variable length integers: the number of
+ * sentences, and for each sentence the gap to the end of the previous
+ * sentence and its length.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class SentenceBoundaries {
+
+    /**
+     * Detects the sentences of {@code text} in
+     * {@link LuceneConfig#MAIN_LANGUAGE} with the sentence detector of the
+     * current thread (see
+     * {@link NLPModelRegistry#getSentenceDetector(kn.uni.hamborg.language.Language)}).
+     *
+     * @param text
+     * @return
+     */
+    public static Span[] detect(String text) {
+        return NLPModelRegistry.getSentenceDetector(LuceneConfig.MAIN_LANGUAGE).sentPosDetect(text);
+    }
+
+    /**
+     * Encodes the boundaries of {@code sentences}.
+     *
+     * @param sentences ordered and not overlapping
+     * @return
+     */
+    public static byte[] encode(Span[] sentences) {
+        // at most 5 bytes per vint
+        final byte[] buffer = new byte[5 * (1 + 2 * sentences.length)];
+        final ByteArrayDataOutput out = new ByteArrayDataOutput(buffer);
+        try {
+            out.writeVInt(sentences.length);
+            int previousEnd = 0;
+            for (Span sentence : sentences) {
+                out.writeVInt(sentence.getStart() - previousEnd);
+                out.writeVInt(sentence.getEnd() - sentence.getStart());
+                previousEnd = sentence.getEnd();
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        final byte[] encoded = new byte[out.getPosition()];
+        System.arraycopy(buffer, 0, encoded, 0, encoded.length);
+        return encoded;
+    }
+
+    /**
+     * Splits {@code text} into its sentences by the boundaries encoded with
+     * {@link #encode(opennlp.tools.util.Span[])}.
+     *
+     * @param text
+     * @param boundaries
+     * @return
+     */
+    public static String[] split(String text, BytesRef boundaries) {
+        final ByteArrayDataInput in = new ByteArrayDataInput(boundaries.bytes, boundaries.offset, boundaries.length);
+        final String[] sentences = new String[in.readVInt()];
+        int end = 0;
+        for (int i = 0; i < sentences.length; i++) {
+            final int start = end + in.readVInt();
+            end = start + in.readVInt();
+            sentences[i] = text.substring(start, end);
+        }
+        return sentences;
+    }
+
+    /**
+     * Returns the sentences of the text of {@code field} of {@code doc}. If
+     * the sentence boundaries have not been stored (see
+     * {@link kn.uni.hamborg.lucene.index.IndexSchema#hasSentenceBoundaries()}),
+     * the sentences are detected as in {@link #detect(String)}.
+     *
+     * @param doc
+     * @param field
+     * @return an empty array if {@code doc} has no text for {@code field}
+     */
+    public static String[] getSentences(Document doc, String field) {
+        return getSentences(doc, field, null);
+    }
+
+    /**
+     * Same as {@link #getSentences(Document, String)}, but the text is split
+     * by {@code sentenceSplitter} if the sentence boundaries have not been
+     * stored.
+     *
+     * @param doc
+     * @param field
+     * @param sentenceSplitter if {@code null}, the sentences are detected as
+     * in {@link #detect(String)}
+     * @return
+     */
+    public static String[] getSentences(Document doc, String field, SentenceSplitter sentenceSplitter) {
+        final String text = doc.get(LightDoc.getStoredField(field));
+        if (text == null) {
+            return new String[0];
+        }
+        final BytesRef boundaries = doc.getBinaryValue(LightDoc.getSentencesField(field));
+        if (boundaries != null) {
+            return split(text, boundaries);
+        }
+        if (sentenceSplitter != null) {
+            return sentenceSplitter.splitSentences(text);
+        }
+        return NLPModelRegistry.getSentenceDetector(LuceneConfig.MAIN_LANGUAGE).sentDetect(text);
+    }
+}
@@ -3,11 +3,9 @@
  */
 package kn.uni.hamborg.language.analyzers;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.logging.Logger;
 import kn.uni.hamborg.config.LuceneConfig;
-import kn.uni.hamborg.config.OpenNLPConfig;
 import kn.uni.hamborg.language.Language;
 import opennlp.tools.sentdetect.SentenceDetector;
 import opennlp.tools.sentdetect.SentenceDetectorME;
@@ -25,10 +23,18 @@ public class SentenceSplitter {
     private final SentenceDetector sentenceDetector;
 
     public SentenceSplitter(final Language language) throws IOException {
-        String lang = language.toString().toLowerCase();
-        sentenceDetector = new SentenceDetectorME(new SentenceModel(new File(OpenNLPConfig.basePath,
-                lang + "-sent.bin"
-        )));
+        this(loadModel(language));
+    }
+
+    /**
+     * Creates a SentenceSplitter from an already loaded model. Note that a
+     * {@link SentenceModel} can be shared by many threads, whereas a
+     * SentenceSplitter cannot.
+     *
+     * @param sentenceModel
+     */
+    public SentenceSplitter(final SentenceModel sentenceModel) {
+        sentenceDetector = new SentenceDetectorME(sentenceModel);
     }
 
     /**
@@ -41,6 +47,18 @@ public class SentenceSplitter {
         this(LuceneConfig.MAIN_LANGUAGE);
     }
 
+    /**
+     * Returns the (shared) sentence model for {@code language}, see
+     * {@link NLPModelRegistry#getSentenceModel(kn.uni.hamborg.language.Language)}.
+     *
+     * @param language
+     * @return
+     * @throws IOException
+     */
+    public static SentenceModel loadModel(final Language language) throws IOException {
+        return NLPModelRegistry.getSentenceModel(language);
+    }
+
     public String[] splitSentences(final String text) {
         return sentenceDetector.sentDetect(text);
     }
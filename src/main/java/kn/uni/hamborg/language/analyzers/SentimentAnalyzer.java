@@ -12,7 +12,6 @@ import edu.stanford.nlp.trees.Tree;
 import edu.stanford.nlp.util.CoreMap;
 import java.io.IOException;
 
-import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import kn.uni.hamborg.language.Language;
@@ -41,14 +40,10 @@ public class SentimentAnalyzer {
         this.language = language;
         this.sentenceSplitter = new SentenceSplitter(language);
 
-        final Properties props = new Properties();
-
         // taken from: https://blog.openshift.com/day-20-stanford-corenlp-performing-sentiment-analysis-of-twitter-using-java/
         // also, by looking at this https://github.com/stanfordnlp/CoreNLP/blob/master/src/edu/stanford/nlp/sentiment/SentimentPipeline.java 
         // it seems reasonable to have "only" these annotators being activated
-        props.setProperty("annotators", "tokenize, ssplit, parse, sentiment");
-
-        pipeline = new StanfordCoreNLP(props);
+        pipeline = NLPModelRegistry.getStanfordCoreNLP("tokenize, ssplit, parse, sentiment");
 
         LOG.log(Level.INFO, "created {0} instance", SentimentAnalyzer.class.getSimpleName());
     }
@@ -76,8 +71,7 @@ public class SentimentAnalyzer {
      * @return
      */
     public DocumentSentiment calcSentiment(Document doc, String fieldname) {
-        final String text = doc.get(fieldname);
-        final String[] sentences = sentenceSplitter.splitSentences(text);
+        final String[] sentences = SentenceBoundaries.getSentences(doc, fieldname, sentenceSplitter);
 
         float sentimentSum = 0;
         for (String sentence : sentences) {
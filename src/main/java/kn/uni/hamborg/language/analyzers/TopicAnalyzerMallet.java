@@ -29,9 +29,9 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
+import kn.uni.hamborg.adv.topic.TopicModelEstimation;
 import kn.uni.hamborg.config.LuceneConfig;
 import kn.uni.hamborg.utils.LightDocUtils;
 import kn.uni.hamborg.utils.MapUtils;
@@ -50,7 +50,7 @@ public class TopicAnalyzerMallet {
 
     private final InstanceList instances;
     private ParallelTopicModel model;
-    private final int numTrainingCycles = 1500;
+    private TopicModelEstimation estimation;
     private String[][] topWordsByTopic;
 
     /**
@@ -121,28 +121,25 @@ public class TopicAnalyzerMallet {
         //  statistics after every iteration.
         model.setNumThreads(LuceneConfig.INDEX_NUMBER_OF_THREADS);
 
-        // Run the model for 50 iterations and stop (this is for testing only, 
-        //  for real applications, use 1000 to 2000 iterations)
-        model.setNumIterations(numTrainingCycles);
-        try {
-            model.estimate();
-
-            Object[][] tmpTopWords = model.getTopWords(10);
-            topWordsByTopic = new String[tmpTopWords.length][];
-            for (int i = 0; i < tmpTopWords.length; i++) {
-                Object[] tmpTopWord = tmpTopWords[i];
-                topWordsByTopic[i] = new String[tmpTopWord.length];
-                for (int j = 0; j < tmpTopWord.length; j++) {
-                    topWordsByTopic[i][j] = tmpTopWord[j].toString();
-                }
-            }
+        // stops when the model converges or the time budget is used
+        estimation = TopicModelEstimation.estimate(model, null);
 
-            LOG.info("finished model computation");
-            return this;
-        } catch (IOException ex) {
-            Logger.getLogger(TopicAnalyzerMallet.class.getName()).log(Level.SEVERE, null, ex);
-            return null;
+        Object[][] tmpTopWords = model.getTopWords(10);
+        topWordsByTopic = new String[tmpTopWords.length][];
+        for (int i = 0; i < tmpTopWords.length; i++) {
+            Object[] tmpTopWord = tmpTopWords[i];
+            topWordsByTopic[i] = new String[tmpTopWord.length];
+            for (int j = 0; j < tmpTopWord.length; j++) {
+                topWordsByTopic[i][j] = tmpTopWord[j].toString();
+            }
         }
+
+        LOG.info("finished model computation");
+        return this;
+    }
+
+    public TopicModelEstimation getEstimation() {
+        return estimation;
     }
 
     public String getTopTermsForTopicIndex(int topicIndex, boolean luceneQueryMode) {
@@ -10,6 +10,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -19,8 +20,12 @@ import java.util.logging.Logger;
 import kn.uni.hamborg.config.LanguageConfig;
 import kn.uni.hamborg.config.LuceneConfig;
 import kn.uni.hamborg.data.light.LightDoc;
+import kn.uni.hamborg.lucene.analyzer.AnalyzerFactory;
 import kn.uni.hamborg.utils.IndexUtils;
 import org.apache.commons.lang3.SerializationUtils;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.index.DocsEnum;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.MultiFields;
@@ -53,6 +58,7 @@ public class CountryStopWordsExtractor {
     private final Directory directory;
     private final IndexReader indexReader;
     private final IndexSearcher indexSearcher;
+    private final Analyzer analyzer = AnalyzerFactory.createCustomAnalyzer();
 
     public CountryStopWordsExtractor() {
         try {
@@ -92,7 +98,13 @@ public class CountryStopWordsExtractor {
             for (int docid : docids) {
                 try {
                     Terms terms = indexReader.getTermVector(docid, LightDoc.CONTENT);
-                    if (terms == null || terms.size() == 0) {
+                    if (terms == null) {
+                        // the index schema might not have term vectors for this field
+                        countInText(termCounts, indexReader.document(docid,
+                                Collections.singleton(LightDoc.CONTENT)).get(LightDoc.CONTENT));
+                        continue;
+                    }
+                    if (terms.size() == 0) {
                         continue;
                     }
                     TermsEnum termsEnum = terms.iterator(null); // access the terms for this field
@@ -119,6 +131,20 @@ public class CountryStopWordsExtractor {
         }
     }
 
+    private void countInText(Multiset<String> termCounts, String text) throws IOException {
+        if (text == null) {
+            return;
+        }
+        try (TokenStream ts = analyzer.tokenStream(LightDoc.CONTENT, text)) {
+            final CharTermAttribute termAtt = ts.addAttribute(CharTermAttribute.class);
+            ts.reset();
+            while (ts.incrementToken()) {
+                termCounts.add(termAtt.toString());
+            }
+            ts.end();
+        }
+    }
+
     public String[] getAllPubCountries() {
         try {
             Set<String> countryCodes = new HashSet<>();
@@ -19,7 +19,6 @@ import kn.uni.hamborg.data.emm.EMMItem;
 import kn.uni.hamborg.data.emm.EMMRssParser;
 import kn.uni.hamborg.data.light.LightDoc;
 import kn.uni.hamborg.data.light.LightDocConverter;
-import static kn.uni.hamborg.language.translator.LightDocTranslator.getIdForDocAndField;
 import kn.uni.hamborg.utils.DateTimeUtils;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -70,23 +69,7 @@ public class EMMDataSetTranslator {
             return null;
         }
 
-        final String content = EasyTranslator.translateToEnglish(getIdForDocAndField(doc, LightDoc.CONTENT), doc.getContent());
-        final String title = EasyTranslator.translateToEnglish(getIdForDocAndField(doc, LightDoc.TITLE), doc.getTitle());
-        final String description = EasyTranslator.translateToEnglish(getIdForDocAndField(doc, LightDoc.DESCRIPTION), doc.getDescription());
-
-        return new LightDoc(
-                doc.getId(),
-                content,
-                title,
-                description,
-                doc.getChannelGuid(),
-                doc.getChannelLanguage(),
-                doc.getLink(),
-                doc.getPubDate(),
-                doc.getPubLand(),
-                doc.getChannelFile(),
-                doc.getPositionInChannel()
-        );
+        return LightDocTranslator.translateToEnglish(doc);
     }
 
     private File getFileForChannel(EMMChannel channel) {
@@ -3,16 +3,24 @@
  */
 package kn.uni.hamborg.language.translator;
 
-import com.google.common.base.Splitter;
-import com.memetix.mst.translate.Translate;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import kn.uni.hamborg.config.TranslatorConfig;
 import kn.uni.hamborg.utils.DateTimeUtils;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 
 /**
+ * Translates texts into English by a {@link TranslationClient} and keeps the
+ * translations in the local translation storage. Thread-safe.
  *
  * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
  */
@@ -20,16 +28,36 @@ public class EasyTranslator {
 
     private static final Logger LOG = Logger.getLogger(EasyTranslator.class.getSimpleName());
 
-    private static final ITranslationStorage TRANSLATION_STORAGE = TranslationStorageDB.getInstance();
+    private static final ITranslationStorage TRANSLATION_STORAGE = new WriteBehindTranslationStorage(
+            TranslationStorageDB.getInstance(), TranslatorConfig.storageWriteBatchSize,
+            TranslatorConfig.storageWriteDelaySeconds);
 
-    static public long textTooLargeCount = 0;
+    private static volatile TranslationClient translationClient = new TranslationClient(createTranslationService());
 
-    static {
-        Translate.setClientId("emmtranslator");
-        Translate.setClientSecret("12jr0vVNdbTiKcTPgxizJTwkaC2olOfSshks2njAxds=");
+    private static TranslationService createTranslationService() {
+        if (TranslatorConfig.translationServiceUrl == null) {
+            return new MicrosoftTranslationService();
+        }
+        try {
+            return new HttpTranslationService(new URL(TranslatorConfig.translationServiceUrl));
+        } catch (MalformedURLException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Replaces the client used for all translations, e.g., by one using a
+     * {@link StubTranslationServer}.
+     *
+     * @param client
+     */
+    public static void setTranslationClient(TranslationClient client) {
+        translationClient = client;
+    }
+
+    public static TranslationClient getTranslationClient() {
+        return translationClient;
     }
-    private static final int DISABLE_CHECK_AFTER_COUNT = Integer.MAX_VALUE;
-    private static int lastKnown = 0;
 
     /**
      * Translates the given text into English. The text is also stored in the
@@ -40,61 +68,51 @@ public class EasyTranslator {
      *
      * @param id
      * @param text
-     * @return
+     * @return the translation, or {@code null} if the text could not be
+     * translated.
      */
     public static String translateToEnglish(final String id, final String text) {
-        if (lastKnown < DISABLE_CHECK_AFTER_COUNT) {
-            String oldTranslation = TRANSLATION_STORAGE.getTranslation(id);
+        return translateToEnglish(Collections.singletonMap(id, text)).get(id);
+    }
 
-            if (oldTranslation != null) {
-                lastKnown = 0;
-                //System.out.println("using old translation " + id + ": " + oldTranslation);
-                return oldTranslation;
-            } else {
-                lastKnown++;
+    /**
+     * Translates the given texts into English, see
+     * {@link #translateToEnglish(String, String)}. The texts that are not
+     * stored yet are sent to the translation server together.
+     *
+     * @param textsById
+     * @return the translations by id, without the texts that could not be
+     * translated.
+     */
+    public static Map<String, String> translateToEnglish(final Map<String, String> textsById) {
+        final Map<String, String> translations = new HashMap<>(TRANSLATION_STORAGE.getTranslations(textsById.keySet()));
+
+        final List<String> ids = new ArrayList<>();
+        final List<String> texts = new ArrayList<>();
+        for (Map.Entry<String, String> text : textsById.entrySet()) {
+            if (!translations.containsKey(text.getKey())) {
+                ids.add(text.getKey());
+                texts.add(text.getValue());
             }
-        } else {
-            //System.out.println("no check (" + lastKnown + ")");
+        }
+        if (ids.isEmpty()) {
+            return translations;
         }
 
-        // split into multiple parts if too long
-        StringBuilder sb = new StringBuilder();
-        //byte[] bytes = text.getBytes(Charset.forName("UTF-8"));
-        //for (int i = 0; i < bytes.length % 5000; i++) {
-        //    byte[] subbytes = Arrays.copyOfRange(bytes, i * 5000, Math.min(bytes.length, (i + 1) * 5000));
-        //    String text1 = new String(subbytes, Charset.forName("UTF-8"));
-
-        Iterable<String> texts = Splitter.fixedLength(5000).split(text);
-        for (String text1 : texts) {
-            try {
-                String translated = Translate.execute(text1, com.memetix.mst.language.Language.ENGLISH);
-                sb.append(translated);
-
-                if (translated.startsWith("TranslateApiException")) {
-                    throw new RuntimeException("out of balance");
-                }
-            } catch (Exception ex) {
-                System.out.println(ex.getMessage());
-                if (ex.getMessage().equals("out of balance")) {
-                    throw new RuntimeException(ex);
-                } else if (ex.getMessage().startsWith("TEXT_TOO_LARGE")) {
-                    System.out.println("TEXT_TOO_LARGE = " + textTooLargeCount);
-                    textTooLargeCount++;
+        final String[] newTranslations = translationClient.translateToEnglish(texts);
+        for (int i = 0; i < newTranslations.length; i++) {
+            if (newTranslations[i] == null) {
+                if (texts.get(i) != null) {
+                    LOG.log(Level.WARNING, "could not translate {0} (length = {1})",
+                            new Object[]{ids.get(i), texts.get(i).length()});
                 }
-                Logger.getLogger(EasyTranslator.class.getName()).log(Level.SEVERE, null, ex);
-                LOG.log(Level.INFO, "length = {0}", text1.length());
-                LOG.log(Level.INFO, "input text = {0}", text1);
-                return null;
+                continue;
             }
+            TRANSLATION_STORAGE.putTranslation(ids.get(i), newTranslations[i]);
+            translations.put(ids.get(i), newTranslations[i]);
+            LOG.log(Level.FINE, "--> ''{0}''", newTranslations[i]);
         }
-
-        String translation = sb.toString();
-        TRANSLATION_STORAGE.putTranslation(id, translation);
-
-        //System.out.println("'" + text + "'");
-        System.out.println("--> '" + translation + "'");
-
-        return translation;
+        return translations;
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,61 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.language.translator;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Translates by POSTing the texts as JSON array to a URL, which answers with
+ * the JSON array of translations, e.g., {@link StubTranslationServer}.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class HttpTranslationService implements TranslationService {
+
+    private static final Gson GSON = new Gson();
+    private static final int TIMEOUT_MILLIS = 30000;
+
+    private final URL url;
+
+    public HttpTranslationService(URL url) {
+        this.url = url;
+    }
+
+    @Override
+    public String[] translateToEnglish(String[] texts) throws IOException {
+        final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        try {
+            conn.setRequestMethod("POST");
+            conn.setDoOutput(true);
+            conn.setConnectTimeout(TIMEOUT_MILLIS);
+            conn.setReadTimeout(TIMEOUT_MILLIS);
+            conn.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+            conn.setRequestProperty("Accept", "application/json");
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(GSON.toJson(texts).getBytes(StandardCharsets.UTF_8));
+            }
+
+            if (conn.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                throw new IOException("translation request failed: " + conn.getResponseCode() + " "
+                        + conn.getResponseMessage());
+            }
+            try (Reader in = new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8)) {
+                final String[] translations = GSON.fromJson(in, String[].class);
+                if (translations == null || translations.length != texts.length) {
+                    throw new IOException("expected " + texts.length + " translations");
+                }
+                return translations;
+            }
+        } finally {
+            conn.disconnect();
+        }
+    }
+}
@@ -3,6 +3,10 @@
  */
 package kn.uni.hamborg.language.translator;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  *
  * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
@@ -26,4 +30,35 @@ public interface ITranslationStorage {
      * under id.
      */
     public void putTranslation(String id, String translation);
+
+    /**
+     * Gets the translation texts of multiple ids at once.
+     *
+     * @param ids
+     * @return The translations by id, ids without translation are missing.
+     */
+    public default Map<String, String> getTranslations(Collection<String> ids) {
+        final Map<String, String> translations = new HashMap<>();
+        for (String id : ids) {
+            final String translation = getTranslation(id);
+            if (translation != null) {
+                translations.put(id, translation);
+            }
+        }
+        return translations;
+    }
+
+    /**
+     * Stores multiple translations at once. Implementations persist them with
+     * a single commit instead of one per translation.
+     *
+     * @param translations translations by id
+     * @throws RuntimeException If there is already something different stored
+     * under one of the ids.
+     */
+    public default void putTranslations(Map<String, String> translations) {
+        for (Map.Entry<String, String> translation : translations.entrySet()) {
+            putTranslation(translation.getKey(), translation.getValue());
+        }
+    }
 }
@@ -3,6 +3,12 @@
  */
 package kn.uni.hamborg.language.translator;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import kn.uni.hamborg.data.light.LightDoc;
 
@@ -18,29 +24,59 @@ public class LightDocTranslator {
 
     /**
      * Translates the given LightDoc non-English to English language. Thereby
-     * CONTENT, TITLE, DESCRIPTION are translated.
+     * CONTENT, TITLE, DESCRIPTION are translated. Texts that could not be
+     * translated, e.g., while the translation server is unavailable, keep
+     * their original language, so that the document can still be indexed
+     * (like with {@code INDEX_NON_EN}); these documents are logged.
      *
      * @param doc
      * @return
      */
     public static LightDoc translateToEnglish(LightDoc doc) {
-        final String content = EasyTranslator.translateToEnglish(getIdForDocAndField(doc, LightDoc.CONTENT), doc.getContent());
-        final String title = EasyTranslator.translateToEnglish(getIdForDocAndField(doc, LightDoc.TITLE), doc.getTitle());
-        final String description = EasyTranslator.translateToEnglish(getIdForDocAndField(doc, LightDoc.DESCRIPTION), doc.getDescription());
+        return translateToEnglish(Collections.singletonList(doc)).get(0);
+    }
+
+    /**
+     * Translates the given LightDocs, see {@link #translateToEnglish(LightDoc)},
+     * with as few requests to the translation server as possible.
+     *
+     * @param docs
+     * @return the translated docs in the order of {@code docs}.
+     */
+    public static List<LightDoc> translateToEnglish(List<LightDoc> docs) {
+        final Map<String, String> textsById = new HashMap<>();
+        for (LightDoc doc : docs) {
+            textsById.put(getIdForDocAndField(doc, LightDoc.CONTENT), doc.getContent());
+            textsById.put(getIdForDocAndField(doc, LightDoc.TITLE), doc.getTitle());
+            textsById.put(getIdForDocAndField(doc, LightDoc.DESCRIPTION), doc.getDescription());
+        }
+        final Map<String, String> translations = EasyTranslator.translateToEnglish(textsById);
 
-        return new LightDoc(
-                doc.getId(),
-                content,
-                title,
-                description,
-                doc.getChannelGuid(),
-                doc.getChannelLanguage(),
-                doc.getLink(),
-                doc.getPubDate(),
-                doc.getPubLand(),
-                doc.getChannelFile(),
-                doc.getPositionInChannel()
-        );
+        final List<LightDoc> translatedDocs = new ArrayList<>(docs.size());
+        for (LightDoc doc : docs) {
+            final String content = translations.get(getIdForDocAndField(doc, LightDoc.CONTENT));
+            final String title = translations.get(getIdForDocAndField(doc, LightDoc.TITLE));
+            final String description = translations.get(getIdForDocAndField(doc, LightDoc.DESCRIPTION));
+            if ((content == null && doc.getContent() != null) || (title == null && doc.getTitle() != null)
+                    || (description == null && doc.getDescription() != null)) {
+                LOG.log(Level.WARNING, "could not translate doc {0} ({1}), keeping its original text",
+                        new Object[]{doc.getId(), doc.getChannelLanguage()});
+            }
+            translatedDocs.add(new LightDoc(
+                    doc.getId(),
+                    content != null ? content : doc.getContent(),
+                    title != null ? title : doc.getTitle(),
+                    description != null ? description : doc.getDescription(),
+                    doc.getChannelGuid(),
+                    doc.getChannelLanguage(),
+                    doc.getLink(),
+                    doc.getPubDate(),
+                    doc.getPubLand(),
+                    doc.getChannelFile(),
+                    doc.getPositionInChannel()
+            ));
+        }
+        return translatedDocs;
     }
 
     public static String getIdForDocAndField(LightDoc doc, String field) {
@@ -0,0 +1,32 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.language.translator;
+
+import com.memetix.mst.language.Language;
+import com.memetix.mst.translate.Translate;
+
+/**
+ * Translates with the Microsoft Translator API.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class MicrosoftTranslationService implements TranslationService {
+
+    static {
+        Translate.setClientId("emmtranslator");
+        Translate.setClientSecret("12jr0vVNdbTiKcTPgxizJTwkaC2olOfSshks2njAxds=");
+    }
+
+    @Override
+    public String[] translateToEnglish(String[] texts) throws Exception {
+        final String[] translations = Translate.execute(texts, Language.ENGLISH);
+        for (String translation : translations) {
+            // the API reports some errors as translation
+            if (translation != null && translation.startsWith("TranslateApiException")) {
+                throw new RuntimeException("out of balance");
+            }
+        }
+        return translations;
+    }
+}
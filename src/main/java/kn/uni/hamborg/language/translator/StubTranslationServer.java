@@ -0,0 +1,142 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.language.translator;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import kn.uni.hamborg.utils.ThreadUtils;
+
+/**
+ * A local HTTP translation service for tests and benchmarks, to be used with
+ * {@link HttpTranslationService}. It "translates" each text by prefixing it
+ * with {@link #TRANSLATION_PREFIX}, after a fixed latency per request, and
+ * fails the given share of requests.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class StubTranslationServer {
+
+    private static final Logger LOG = Logger.getLogger(StubTranslationServer.class.getSimpleName());
+
+    public static final String TRANSLATION_PREFIX = "[en] ";
+    private static final String PATH = "/translate";
+    private static final Gson GSON = new Gson();
+
+    private final HttpServer server;
+    private final ExecutorService executorService;
+    private final long latencyMillis;
+    private final double failureRate;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong textCount = new AtomicLong();
+
+    /**
+     *
+     * @param port 0 for any free port
+     * @param latencyMillis
+     * @param failureRate share of the requests answered with an error, from 0
+     * to 1.
+     * @param numberOfThreads
+     * @throws IOException
+     */
+    public StubTranslationServer(int port, long latencyMillis, double failureRate, int numberOfThreads) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.failureRate = failureRate;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        this.executorService = ThreadUtils.createFixedThreadPool("stub-translation-server", numberOfThreads);
+        this.server.createContext(PATH, this::handle);
+        this.server.setExecutor(executorService);
+    }
+
+    public void start() {
+        server.start();
+        LOG.log(Level.INFO, "stub translation server listening on {0}", getUrl());
+    }
+
+    public void stop() {
+        server.stop(0);
+        executorService.shutdownNow();
+    }
+
+    public URL getUrl() {
+        try {
+            return new URL("http", "localhost", server.getAddress().getPort(), PATH);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getTextCount() {
+        return textCount.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requestCount.incrementAndGet();
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            final String[] texts;
+            try (Reader in = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+                texts = GSON.fromJson(in, String[].class);
+            } catch (JsonParseException e) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            Thread.sleep(latencyMillis);
+            if (texts == null || ThreadLocalRandom.current().nextDouble() < failureRate) {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            textCount.addAndGet(texts.length);
+
+            final String[] translations = new String[texts.length];
+            for (int i = 0; i < texts.length; i++) {
+                translations[i] = TRANSLATION_PREFIX + texts[i];
+            }
+            final byte[] response = GSON.toJson(translations).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } catch (InterruptedException e) {
+            exchange.sendResponseHeaders(503, -1);
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Starts a stub server.
+     *
+     * @param args port, latency in ms, failure rate
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : 8090;
+        final long latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 200;
+        final double failureRate = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+        new StubTranslationServer(port, latencyMillis, failureRate, 16).start();
+    }
+}
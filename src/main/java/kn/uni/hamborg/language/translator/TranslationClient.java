@@ -0,0 +1,294 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.language.translator;
+
+import com.google.common.base.Splitter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import kn.uni.hamborg.config.TranslatorConfig;
+import kn.uni.hamborg.utils.ThreadUtils;
+
+/**
+ * Sends texts to a {@link TranslationService}. Thread-safe.
+ * <ul>
+ * <li>Texts longer than {@code maxTextLength} are split into parts, many
+ * short texts are sent with a single request.</li>
+ * <li>At most {@code maxConcurrentRequests} requests are in flight at the
+ * same time, all other callers wait.</li>
+ * <li>Failed requests are retried {@code maxRetries} times, with an
+ * exponentially increasing (and slightly randomized) delay.</li>
+ * <li>After {@code circuitBreakerThreshold} consecutive failed requests, no
+ * further requests are sent for {@code circuitBreakerOpenMillis}, i.e., the
+ * texts fail at once instead of waiting for a service that is down. After
+ * that time, requests are sent again, and the next failure pauses them
+ * again.</li>
+ * </ul>
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class TranslationClient {
+
+    private static final Logger LOG = Logger.getLogger(TranslationClient.class.getSimpleName());
+
+    private final TranslationService service;
+    private final int maxTextLength;
+    private final int maxTextsPerRequest;
+    private final int maxCharactersPerRequest;
+    private final int maxRetries;
+    private final long retryBackoffMillis;
+    private final int circuitBreakerThreshold;
+    private final long circuitBreakerOpenMillis;
+    private final Semaphore inFlightRequests;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long circuitOpenUntil = 0;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong failedRequestCount = new AtomicLong();
+    private final AtomicLong rejectedRequestCount = new AtomicLong();
+    private final AtomicLong textTooLargeCount = new AtomicLong();
+
+    /**
+     * Creates a client using the settings of {@link TranslatorConfig}.
+     *
+     * @param service
+     */
+    public TranslationClient(TranslationService service) {
+        this(service, TranslatorConfig.maxConcurrentRequests, TranslatorConfig.maxTextLength,
+                TranslatorConfig.maxTextsPerRequest, TranslatorConfig.maxCharactersPerRequest,
+                TranslatorConfig.maxRetries, TranslatorConfig.retryBackoffMillis,
+                TranslatorConfig.circuitBreakerThreshold, TranslatorConfig.circuitBreakerOpenMillis);
+    }
+
+    public TranslationClient(TranslationService service, int maxConcurrentRequests, int maxTextLength,
+            int maxTextsPerRequest, int maxCharactersPerRequest, int maxRetries, long retryBackoffMillis,
+            int circuitBreakerThreshold, long circuitBreakerOpenMillis) {
+        this.service = service;
+        this.maxTextLength = maxTextLength;
+        this.maxTextsPerRequest = maxTextsPerRequest;
+        this.maxCharactersPerRequest = maxCharactersPerRequest;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.circuitBreakerThreshold = circuitBreakerThreshold;
+        this.circuitBreakerOpenMillis = circuitBreakerOpenMillis;
+        this.inFlightRequests = new Semaphore(maxConcurrentRequests, true);
+    }
+
+    /**
+     * Translates {@code texts} into English, with as few requests as
+     * possible.
+     *
+     * @param texts
+     * @return the translations in the order of {@code texts}, {@code null}
+     * for texts that are {@code null} or could not be translated.
+     * @throws RuntimeException if the service does not accept any further
+     * requests ("out of balance").
+     */
+    public String[] translateToEnglish(List<String> texts) {
+        // split the texts into parts, remembering the text of each part
+        final List<String> parts = new ArrayList<>();
+        final List<Integer> textOfPart = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            if (texts.get(i) == null) {
+                continue;
+            }
+            for (String part : Splitter.fixedLength(maxTextLength).split(texts.get(i))) {
+                parts.add(part);
+                textOfPart.add(i);
+            }
+        }
+
+        final String[] translatedParts = new String[parts.size()];
+        int start = 0;
+        while (start < parts.size()) {
+            // fill the request up to its limits, at least one part
+            int end = start + 1;
+            int characters = parts.get(start).length();
+            while (end < parts.size() && end - start < maxTextsPerRequest
+                    && characters + parts.get(end).length() <= maxCharactersPerRequest) {
+                characters += parts.get(end).length();
+                end++;
+            }
+            final String[] requestParts = parts.subList(start, end).toArray(new String[end - start]);
+            final String[] translations = send(requestParts);
+            if (translations != null) {
+                System.arraycopy(translations, 0, translatedParts, start, translations.length);
+            }
+            start = end;
+        }
+
+        // join the parts again, a text is only translated if all its parts are
+        final StringBuilder[] translations = new StringBuilder[texts.size()];
+        final boolean[] failed = new boolean[texts.size()];
+        for (int p = 0; p < parts.size(); p++) {
+            final int i = textOfPart.get(p);
+            if (translatedParts[p] == null) {
+                failed[i] = true;
+            } else if (translations[i] == null) {
+                translations[i] = new StringBuilder(translatedParts[p]);
+            } else {
+                translations[i].append(translatedParts[p]);
+            }
+        }
+        final String[] result = new String[texts.size()];
+        for (int i = 0; i < result.length; i++) {
+            if (translations[i] != null && !failed[i]) {
+                result[i] = translations[i].toString();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sends a single request, with retries.
+     *
+     * @return the translations, or {@code null} if the request failed.
+     */
+    private String[] send(String[] texts) {
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            if (isCircuitOpen()) {
+                rejectedRequestCount.incrementAndGet();
+                LOG.log(Level.FINE, "translation service unavailable, skipping {0} texts", texts.length);
+                return null;
+            }
+            if (attempt > 0 && !backOff(attempt)) {
+                return null;
+            }
+            try {
+                final String[] translations = execute(texts);
+                consecutiveFailures.set(0);
+                return translations;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (Exception ex) {
+                failedRequestCount.incrementAndGet();
+                if ("out of balance".equals(ex.getMessage())) {
+                    throw new RuntimeException(ex);
+                }
+                if (ex.getMessage() != null && ex.getMessage().startsWith("TEXT_TOO_LARGE")) {
+                    // would fail again
+                    textTooLargeCount.incrementAndGet();
+                    LOG.log(Level.WARNING, "text too large: {0} texts, {1} characters",
+                            new Object[]{texts.length, Arrays.stream(texts).mapToInt(String::length).sum()});
+                    return null;
+                }
+                if (consecutiveFailures.incrementAndGet() >= circuitBreakerThreshold) {
+                    circuitOpenUntil = System.currentTimeMillis() + circuitBreakerOpenMillis;
+                    LOG.log(Level.WARNING, "translation service failed " + consecutiveFailures.get()
+                            + " times in a row, pausing requests for " + circuitBreakerOpenMillis + " ms", ex);
+                } else {
+                    LOG.log(Level.WARNING, "translation request failed (attempt " + (attempt + 1) + ")", ex);
+                }
+            }
+        }
+        return null;
+    }
+
+    private String[] execute(String[] texts) throws Exception {
+        inFlightRequests.acquire();
+        try {
+            requestCount.incrementAndGet();
+            return service.translateToEnglish(texts);
+        } finally {
+            inFlightRequests.release();
+        }
+    }
+
+    /**
+     * Waits before the given retry.
+     *
+     * @return {@code false} if interrupted.
+     */
+    private boolean backOff(int attempt) {
+        final long delay = retryBackoffMillis << (attempt - 1);
+        try {
+            Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public boolean isCircuitOpen() {
+        return System.currentTimeMillis() < circuitOpenUntil;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getFailedRequestCount() {
+        return failedRequestCount.get();
+    }
+
+    public long getTextTooLargeCount() {
+        return textTooLargeCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "TranslationClient [requests=" + requestCount.get() + ", failed=" + failedRequestCount.get()
+                + ", rejected=" + rejectedRequestCount.get() + ", textTooLarge=" + textTooLargeCount.get() + "]";
+    }
+
+    /**
+     * Benchmarks a client against a local {@link StubTranslationServer}.
+     *
+     * @param args number of texts, number of calling threads, texts per call,
+     * latency of the stub in ms
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        final int numberOfTexts = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        final int numberOfThreads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        final int textsPerCall = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        final long latencyMillis = args.length > 3 ? Long.parseLong(args[3]) : 50;
+
+        final StubTranslationServer server = new StubTranslationServer(0, latencyMillis, 0.01, 16);
+        server.start();
+        final TranslationClient client = new TranslationClient(new HttpTranslationService(server.getUrl()));
+        final AtomicInteger nextText = new AtomicInteger();
+        final AtomicInteger untranslated = new AtomicInteger();
+
+        final ExecutorService executorService = ThreadUtils.createFixedThreadPool("translation-benchmark", numberOfThreads);
+        final long start = System.currentTimeMillis();
+        for (int t = 0; t < numberOfThreads; t++) {
+            executorService.execute(() -> {
+                int first;
+                while ((first = nextText.getAndAdd(textsPerCall)) < numberOfTexts) {
+                    final List<String> texts = new ArrayList<>();
+                    for (int i = first; i < Math.min(first + textsPerCall, numberOfTexts); i++) {
+                        texts.add("text number " + i);
+                    }
+                    for (String translation : client.translateToEnglish(texts)) {
+                        if (translation == null) {
+                            untranslated.incrementAndGet();
+                        }
+                    }
+                }
+            });
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.DAYS);
+        final long duration = System.currentTimeMillis() - start;
+
+        System.out.println(numberOfTexts + " texts in " + duration + " ms ("
+                + (numberOfTexts * 1000L / Math.max(1, duration)) + " texts/s), " + untranslated.get() + " untranslated");
+        System.out.println(client + ", server requests: " + server.getRequestCount());
+        server.stop();
+    }
+}
@@ -0,0 +1,21 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.language.translator;
+
+/**
+ * A (remote) service translating texts into English.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public interface TranslationService {
+
+    /**
+     * Translates all {@code texts} with a single request.
+     *
+     * @param texts
+     * @return the translations, in the order of {@code texts}.
+     * @throws Exception if the request failed.
+     */
+    String[] translateToEnglish(String[] texts) throws Exception;
+}
@@ -37,7 +37,7 @@ public class TranslationStorage implements ITranslationStorage {
         LOG.log(Level.INFO, "opened {0} with {1} entries", new Object[]{translationMapName, translationMap.size()});
     }
 
-    public static TranslationStorage getInstance() {
+    public static synchronized TranslationStorage getInstance() {
         if (instance == null) {
             instance = new TranslationStorage();
         }
@@ -72,21 +72,50 @@ public class TranslationStorage implements ITranslationStorage {
      * under id.
      */
     public void putTranslation(String id, String translation) {
-        final String old = getTranslation(id);
+        if (storeTranslation(id, translation)) {
+            db.commit();
+        }
+    }
+
+    /**
+     * Stores the translations and commits once.
+     *
+     * @param translations
+     * @throws RuntimeException If there is already something different stored
+     * under one of the ids.
+     */
+    @Override
+    public void putTranslations(Map<String, String> translations) {
+        boolean changed = false;
+        try {
+            for (Map.Entry<String, String> translation : translations.entrySet()) {
+                changed |= storeTranslation(translation.getKey(), translation.getValue());
+            }
+        } finally {
+            if (changed) {
+                db.commit();
+            }
+        }
+    }
+
+    /**
+     * Stores the translation without committing.
+     *
+     * @return true if the translation was not stored yet.
+     */
+    private boolean storeTranslation(String id, String translation) {
+        final String old = translationMap.putIfAbsent(id, translation);
         // check if the storage already knows this id.
         if (old != null) {
             // check if the old, stored value is the same as the one which is about to be stored.
             if (old.equals(translation)) {
-                return;
+                return false;
             } else { // if not, throw exception
                 throw new RuntimeException("Entry already exists with id '" + id + "'. "
                         + "Old: '" + old + "'. New: '" + translation + "'.");
             }
         }
-
-        // store it
-        translationMap.put(id, translation);
-        db.commit();
+        return true;
     }
 
     public Set<String> getAllIds() {
@@ -16,7 +16,9 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.charset.Charset;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -62,7 +64,7 @@ public class TranslationStorageDB implements ITranslationStorage {
         }
     }
 
-    public static TranslationStorageDB getInstance() {
+    public static synchronized TranslationStorageDB getInstance() {
         if (INSTANCE == null) {
             INSTANCE = new TranslationStorageDB();
         }
@@ -96,26 +98,53 @@ public class TranslationStorageDB implements ITranslationStorage {
      * under id.
      */
     public void putTranslation(String id, String translation) {
-        final String old = getTranslation(id);
-        // check if the storage already knows this id.
-        if (old != null) {
-            // check if the old, stored value is the same as the one which is about to be stored.
-            if (old.equals(translation)) {
-                return;
-            } else { // if not, throw exception
-                throw new RuntimeException("Entry already exists with id '" + id + "'. "
-                        + "Old: '" + old + "'. New: '" + translation + "'.");
+        putTranslations(Collections.singletonMap(id, translation));
+    }
+
+    /**
+     * Stores the translations and syncs the database once.
+     *
+     * @param translations
+     * @throws RuntimeException If there is already something different stored
+     * under one of the ids.
+     */
+    @Override
+    public void putTranslations(Map<String, String> translations) {
+        try {
+            for (Map.Entry<String, String> translation : translations.entrySet()) {
+                storeTranslation(translation.getKey(), translation.getValue());
+            }
+        } finally {
+            try {
+                translationDB.sync();
+            } catch (DatabaseException e) {
+                LOG.log(Level.SEVERE, "could not sync translations", e);
             }
         }
+    }
 
-        // store it
+    /**
+     * Stores the translation without syncing. Only if the id is already known,
+     * the stored translation is read to compare it.
+     */
+    private void storeTranslation(String id, String translation) {
+        final OperationStatus status;
         try {
             DatabaseEntry theKey = new DatabaseEntry(id.getBytes(charset));
             DatabaseEntry theData = new DatabaseEntry(translation.getBytes(charset));
-            translationDB.put(null, theKey, theData);
-            translationDB.sync();
-        } catch (Exception e) {
-            e.printStackTrace();
+            status = translationDB.putNoOverwrite(null, theKey, theData);
+        } catch (DatabaseException e) {
+            LOG.log(Level.SEVERE, "could not store translation " + id, e);
+            return;
+        }
+        // check if the storage already knows this id.
+        if (status == OperationStatus.KEYEXIST) {
+            final String old = getTranslation(id);
+            // check if the old, stored value is the same as the one which is about to be stored.
+            if (old != null && !old.equals(translation)) {
+                throw new RuntimeException("Entry already exists with id '" + id + "'. "
+                        + "Old: '" + old + "'. New: '" + translation + "'.");
+            }
         }
     }
 
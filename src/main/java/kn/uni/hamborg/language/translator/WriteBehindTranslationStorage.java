@@ -0,0 +1,164 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.language.translator;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Buffers the translations put into it and writes them to another
+ * {@link ITranslationStorage} in batches, i.e., with one commit per batch
+ * instead of one per translation. A batch is written once
+ * {@code maxPendingTranslations} translations are pending or every
+ * {@code maxDelaySeconds}, and when the JVM shuts down. Buffered translations
+ * are already visible to {@link #getTranslation(String)}. Thread-safe.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class WriteBehindTranslationStorage implements ITranslationStorage {
+
+    private static final Logger LOG = Logger.getLogger(WriteBehindTranslationStorage.class.getSimpleName());
+
+    /**
+     * The storages that are not closed yet, closed by a single shutdown hook.
+     */
+    private static final Set<WriteBehindTranslationStorage> openStorages = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (WriteBehindTranslationStorage storage : openStorages) {
+                storage.close();
+            }
+        }, "translation-flush-shutdown"));
+    }
+
+    private final ITranslationStorage storage;
+    private final int maxPendingTranslations;
+    /**
+     * The translations that are not written to {@code storage} yet.
+     */
+    private final Map<String, String> pendingTranslations = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    /**
+     *
+     * @param storage the storage the translations are written to.
+     * @param maxPendingTranslations
+     * @param maxDelaySeconds
+     */
+    public WriteBehindTranslationStorage(ITranslationStorage storage, int maxPendingTranslations, int maxDelaySeconds) {
+        this.storage = storage;
+        this.maxPendingTranslations = maxPendingTranslations;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("translation-flush-%d").setDaemon(true).build());
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, maxDelaySeconds, maxDelaySeconds, TimeUnit.SECONDS);
+        openStorages.add(this);
+    }
+
+    @Override
+    public String getTranslation(String id) {
+        final String translation = pendingTranslations.get(id);
+        return translation != null ? translation : storage.getTranslation(id);
+    }
+
+    @Override
+    public Map<String, String> getTranslations(Collection<String> ids) {
+        final Map<String, String> translations = new HashMap<>();
+        final List<String> storedIds = new ArrayList<>();
+        for (String id : ids) {
+            final String translation = pendingTranslations.get(id);
+            if (translation != null) {
+                translations.put(id, translation);
+            } else {
+                storedIds.add(id);
+            }
+        }
+        if (!storedIds.isEmpty()) {
+            translations.putAll(storage.getTranslations(storedIds));
+        }
+        return translations;
+    }
+
+    /**
+     * Buffers the translation. Whether the storage already has a different
+     * translation under id is only checked once the batch is written (see
+     * {@link #flush()}), so that the storage is not read per translation.
+     *
+     * @param id
+     * @param translation
+     * @throws RuntimeException If there is already something different
+     * buffered under id.
+     */
+    @Override
+    public void putTranslation(String id, String translation) {
+        final String old = pendingTranslations.putIfAbsent(id, translation);
+        if (old != null && !old.equals(translation)) {
+            throw new RuntimeException("Entry already exists with id '" + id + "'. "
+                    + "Old: '" + old + "'. New: '" + translation + "'.");
+        }
+
+        if (pendingTranslations.size() >= maxPendingTranslations) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Writes all buffered translations to the storage. The translations
+     * already stored under their ids are looked up for the whole batch at once
+     * (see {@link ITranslationStorage#getTranslations(Collection)}): equal ones are not written again, different ones are
+     * dropped and logged, as the storage keeps the first translation of an
+     * id.
+     */
+    public synchronized void flush() {
+        if (pendingTranslations.isEmpty()) {
+            return;
+        }
+        final Map<String, String> batch = new HashMap<>(pendingTranslations);
+        final Map<String, String> stored = storage.getTranslations(batch.keySet());
+        final Map<String, String> newTranslations = new HashMap<>(batch);
+        for (Map.Entry<String, String> old : stored.entrySet()) {
+            final String translation = newTranslations.remove(old.getKey());
+            if (!old.getValue().equals(translation)) {
+                LOG.log(Level.SEVERE, "Entry already exists with id ''{0}''. Old: ''{1}''. New: ''{2}''.",
+                        new Object[]{old.getKey(), old.getValue(), translation});
+            }
+        }
+        if (!newTranslations.isEmpty()) {
+            storage.putTranslations(newTranslations);
+        }
+        // only now they are readable from the storage
+        for (Map.Entry<String, String> translation : batch.entrySet()) {
+            pendingTranslations.remove(translation.getKey(), translation.getValue());
+        }
+        LOG.log(Level.FINE, "wrote {0} of {1} translations", new Object[]{newTranslations.size(), batch.size()});
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOG.log(Level.SEVERE, "could not write translations", e);
+        }
+    }
+
+    /**
+     * Writes the buffered translations and stops writing in the background.
+     */
+    public void close() {
+        openStorages.remove(this);
+        flusher.shutdown();
+        flushQuietly();
+    }
+}
@@ -24,6 +24,12 @@ public class VecTextField extends Field {
     /* Indexed, tokenized, stored. */
     public static final FieldType TYPE_STORED = new FieldType();
 
+    /* Indexed, tokenized, not stored, without term vectors. */
+    public static final FieldType TYPE_NOT_STORED_NO_VECTORS = new FieldType();
+
+    /* Indexed, tokenized, stored, without term vectors. */
+    public static final FieldType TYPE_STORED_NO_VECTORS = new FieldType();
+
     static {
         TYPE_NOT_STORED.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
         TYPE_NOT_STORED.setTokenized(true);
@@ -37,6 +43,16 @@ public class VecTextField extends Field {
         TYPE_STORED.setStoreTermVectors(true);
         TYPE_STORED.setStoreTermVectorPositions(true);
         TYPE_STORED.freeze();
+
+        // same index options, so that fields with and without term vectors can be mixed
+        TYPE_NOT_STORED_NO_VECTORS.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        TYPE_NOT_STORED_NO_VECTORS.setTokenized(true);
+        TYPE_NOT_STORED_NO_VECTORS.freeze();
+
+        TYPE_STORED_NO_VECTORS.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        TYPE_STORED_NO_VECTORS.setTokenized(true);
+        TYPE_STORED_NO_VECTORS.setStored(true);
+        TYPE_STORED_NO_VECTORS.freeze();
     }
 
 // TODO: add sugar for term vectors...?
@@ -54,6 +70,16 @@ public class VecTextField extends Field {
         super(name, value, store == Store.YES ? TYPE_STORED : TYPE_NOT_STORED);
     }
 
+    /**
+     * Creates a new TextField with String value, which only has term vectors
+     * if {@code storeTermVectors} is set.
+     */
+    public VecTextField(String name, String value, Store store, boolean storeTermVectors) {
+        super(name, value, storeTermVectors
+                ? (store == Store.YES ? TYPE_STORED : TYPE_NOT_STORED)
+                : (store == Store.YES ? TYPE_STORED_NO_VECTORS : TYPE_NOT_STORED_NO_VECTORS));
+    }
+
     /**
      * Creates a new un-stored TextField with TokenStream value.
      */
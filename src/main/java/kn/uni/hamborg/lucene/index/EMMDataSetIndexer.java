@@ -7,16 +7,29 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.text.DecimalFormat;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
+import java.util.Map;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import kn.uni.hamborg.config.LuceneConfig;
 import kn.uni.hamborg.data.emm.EMMChannel;
+import kn.uni.hamborg.data.emm.EMMChannelReader;
 import kn.uni.hamborg.data.emm.EMMItem;
 import kn.uni.hamborg.data.emm.EMMRssParser;
 import kn.uni.hamborg.data.light.LightDoc;
@@ -24,12 +37,12 @@ import kn.uni.hamborg.data.light.LightDocConverter;
 import kn.uni.hamborg.language.Language;
 import kn.uni.hamborg.language.translator.EasyTranslator;
 import kn.uni.hamborg.language.translator.LightDocTranslator;
-import kn.uni.hamborg.lucene.analyzer.AnalyzerFactory;
-import kn.uni.hamborg.utils.ThreadUtils;
-import org.apache.lucene.analysis.Analyzer;
+import kn.uni.hamborg.utils.IndexUtils;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 
@@ -53,10 +66,18 @@ public class EMMDataSetIndexer {
      */
     private static final LanguageMode languageMode = LanguageMode.TRANSLATE_NON_EN_TO_EN;
 
-    private int countTranslatedLightDocs = 0;
+    /**
+     * Key of the commit user data holding the last modification time of the
+     * newest file indexed by {@link #watchDirectory(File, File)}.
+     */
+    private static final String COMMIT_DATA_LAST_FILE_MODIFIED = "lastIndexedFileModified";
 
     public static void main(String[] args) {
         try {
+            if (args.length == 1 && args[0].equals("watch")) {
+                new EMMDataSetIndexer().watchDirectory(LuceneConfig.DATA_DIR_INCOMING, LuceneConfig.INDEX_DIR_DEFAULT);
+                return;
+            }
             new EMMDataSetIndexer().createIndexMultiThreaded(
                     LuceneConfig.DATA_DIR_15_06_TO_07,
                     LuceneConfig.INDEX_DIR_15_06_TO_07,
@@ -70,103 +91,220 @@ public class EMMDataSetIndexer {
         }
     }
 
-    private long itemCount = 0;
-    private long fileFinishedCount = 0;
-    private long fileIgnoredCount = 0;
-    private long fileNonEnglishCount = 0;
+    private final AtomicLong itemCount = new AtomicLong();
+    private final AtomicLong fileIgnoredCount = new AtomicLong();
+    private final AtomicLong fileNonEnglishCount = new AtomicLong();
+    private final AtomicLong translatedCount = new AtomicLong();
     private IndexWriter indexWriter;
+    /**
+     * If true, documents replace existing documents with the same
+     * {@link LightDoc#ID} instead of being added.
+     */
+    private boolean replaceExistingDocuments = false;
+    /**
+     * Assigns the near-duplicate cluster of each document, kept for all files
+     * indexed by this instance.
+     */
+    private final NearDuplicateDetector duplicateDetector = new NearDuplicateDetector();
+    /**
+     * The documents already in the index when watching a directory, in which
+     * {@link #duplicateDetector} looks up the bands it does not hold in
+     * memory. Reopened after each commit.
+     */
+    private DirectoryReader indexedDocsReader;
 
     /**
-     * Runnable class that converts a {@link File} into its {@link EMMItem}s
-     * which are then added as {@link Document}s to the Lucene Index.
+     * An item read from an XML file, together with its channel.
      */
-    private class IndexerRunnable implements Runnable {
+    private static class ParsedItem {
 
-        private final File file;
-        private final boolean isBinary;
+        private final EMMChannel channel;
+        private final EMMItem item;
+        private final boolean needToTranslate;
 
-        public IndexerRunnable(final File file, boolean isBinary) {
-            this.file = file;
-            this.isBinary = isBinary;
+        public ParsedItem(EMMChannel channel, EMMItem item, boolean needToTranslate) {
+            this.channel = channel;
+            this.item = item;
+            this.needToTranslate = needToTranslate;
         }
+    }
 
-        private void indexLightDocs(LightDoc[] docs) {
-            for (LightDoc doc : docs) {
-                try {
-                    // System.out.println(doc.toString());
-                    indexWriter.addDocument(doc.asLuceneDocument());
-                    itemCount++;
-                } catch (IOException ioe) {
-                    log.logp(Level.SEVERE, EMMDataSetIndexer.class.getSimpleName(), "addToIndex", ioe.getMessage(), ioe);
-                }
+    /**
+     * Adds the documents of {@code files} to {@code indexWriter}. The files
+     * run through a pipeline of {@link PipelineStage}s, each with its own
+     * threads and bounded queue (see {@link LuceneConfig}): parsing (file to
+     * items), conversion (item to {@link LightDoc}), translation (only of non
+     * english documents, the others skip this stage), building the Lucene
+     * {@link Document}s and writing them in batches. Thus, a slow stage, e.g.,
+     * translation, neither starves the others nor fills the memory.
+     *
+     * @param files
+     * @param isBinary whether the files contain serialized {@link LightDoc}s
+     * instead of XML.
+     * @throws InterruptedException
+     */
+    private void indexFiles(File[] files, boolean isBinary) throws InterruptedException {
+        final PipelineStage<Document> writeStage = new PipelineStage<>("index-write",
+                LuceneConfig.INDEX_QUEUE_CAPACITY, LuceneConfig.INDEX_WRITE_THREADS,
+                LuceneConfig.INDEX_WRITE_BATCH_SIZE, this::writeDocuments);
+        final PipelineStage<LightDoc> buildStage = new PipelineStage<>("index-build",
+                LuceneConfig.INDEX_QUEUE_CAPACITY, LuceneConfig.INDEX_BUILD_THREADS, 1, batch -> {
+                    for (LightDoc doc : batch) {
+                        if (IndexSchema.DEFAULT.hasDuplicateSignatures()) {
+                            duplicateDetector.assignCluster(doc);
+                        }
+                        writeStage.put(doc.asLuceneDocument());
+                    }
+                });
+        final PipelineStage<LightDoc> translateStage = new PipelineStage<>("index-translate",
+                LuceneConfig.INDEX_QUEUE_CAPACITY, LuceneConfig.INDEX_TRANSLATE_THREADS,
+                LuceneConfig.INDEX_TRANSLATE_BATCH_SIZE, batch -> {
+                    // the texts of all documents of the batch are translated together
+                    for (LightDoc doc : LightDocTranslator.translateToEnglish(batch)) {
+                        translatedCount.incrementAndGet();
+                        buildStage.put(doc);
+                    }
+                });
+        final PipelineStage<ParsedItem> convertStage = new PipelineStage<>("index-convert",
+                LuceneConfig.INDEX_QUEUE_CAPACITY, LuceneConfig.INDEX_CONVERT_THREADS, 1, batch -> {
+                    for (ParsedItem parsedItem : batch) {
+                        final LightDoc doc = LightDocConverter.convert(parsedItem.channel, parsedItem.item);
+                        // documents that need to be translated at first go through the translate stage
+                        if (parsedItem.needToTranslate) {
+                            translateStage.put(doc);
+                        } else {
+                            buildStage.put(doc);
+                        }
+                    }
+                });
+        final PipelineStage<File> parseStage = new PipelineStage<>("index-parse",
+                LuceneConfig.INDEX_QUEUE_CAPACITY, LuceneConfig.INDEX_PARSE_THREADS, 1, batch -> {
+                    for (File file : batch) {
+                        if (isBinary) {
+                            parseBinary(file, buildStage);
+                        } else {
+                            parseXml(file, convertStage);
+                        }
+                    }
+                });
+        // in the order of the data flow
+        final List<PipelineStage<?>> stages = Arrays.asList(
+                parseStage, convertStage, translateStage, buildStage, writeStage);
+
+        final long startTime = System.currentTimeMillis();
+        final ScheduledExecutorService progressLogger = Executors.newSingleThreadScheduledExecutor();
+        progressLogger.scheduleAtFixedRate(() -> logProgress(stages, files.length, startTime),
+                10, 10, TimeUnit.SECONDS);
+        try {
+            stages.forEach(PipelineStage::start);
+            for (File file : files) {
+                parseStage.put(file);
             }
-            //log.info("" + itemCount);
-        }
-
-        private void processBinary() {
-            try {
-                final ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file));
-                final List<LightDoc> lightDocs = (List<LightDoc>) ois.readObject();
-                ois.close();
-
-                indexLightDocs(lightDocs.toArray(new LightDoc[0]));
-            } catch (IOException | ClassNotFoundException ex) {
-                Logger.getLogger(EMMDataSetIndexer.class.getName()).log(Level.SEVERE, null, ex);
+            // a stage is finished once all stages before it are
+            for (PipelineStage<?> stage : stages) {
+                stage.closeInput();
+                stage.awaitFinished(20, TimeUnit.DAYS);
             }
+        } finally {
+            progressLogger.shutdownNow();
+            stages.forEach(PipelineStage::stop);
         }
+        logProgress(stages, files.length, startTime);
+    }
 
-        private void processXml() {
-            final EMMChannel emmChannel = EMMRssParser.getChannelForFile(file);
+    /**
+     * Reads the items of an XML file and puts them into {@code convertStage}
+     * one at a time.
+     */
+    private void parseXml(File file, PipelineStage<ParsedItem> convertStage) throws InterruptedException {
+        try (EMMChannelReader reader = new EMMChannelReader(file)) {
+            final EMMChannel emmChannel = reader.getChannel();
+            if (emmChannel == null) {
+                log.log(Level.WARNING, "{0} does not have a channel", file);
+                fileIgnoredCount.incrementAndGet();
+                return;
+            }
             boolean needToTranslate = false;
             if (!emmChannel.getLanguage().toLowerCase().equals(Language.EN.toString().toLowerCase())) {
                 // channel is non english
                 switch (languageMode) {
                     case DISCARD_NON_EN:
                         // and we dont want to translate it, so skip it
-                        fileIgnoredCount++;
+                        fileIgnoredCount.incrementAndGet();
                         return;
                     case INDEX_NON_EN:
                         // just index it as it is
-                        fileNonEnglishCount++;
+                        fileNonEnglishCount.incrementAndGet();
                         break;
                     case TRANSLATE_NON_EN_TO_EN:
                         // but we want to translate it
-                        fileNonEnglishCount++;
+                        fileNonEnglishCount.incrementAndGet();
                         needToTranslate = true;
                         break;
                 }
             }
 
-            LightDoc[] docs = LightDocConverter.convert(emmChannel);
-
-            // if the documents need to be translated at first, do this now
-            if (needToTranslate) {
-                for (int i = 0; i < docs.length; i++) {
-                    docs[i] = LightDocTranslator.translateToEnglish(docs[i]);
-                    countTranslatedLightDocs++;
-                }
+            EMMItem item;
+            while ((item = reader.nextItem()) != null) {
+                convertStage.put(new ParsedItem(emmChannel, item, needToTranslate));
             }
+        } catch (IOException ex) {
+            log.log(Level.SEVERE, "could not read " + file, ex);
+        }
+    }
 
-            // index the documents (here we assume, i.e., import is optimized for, 
-            // that they are in english, but also allow other languages)
-            indexLightDocs(docs);
+    /**
+     * Reads the serialized {@link LightDoc}s of a binary file and puts them
+     * into {@code buildStage}.
+     */
+    private void parseBinary(File file, PipelineStage<LightDoc> buildStage) throws InterruptedException {
+        final List<LightDoc> lightDocs;
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
+            lightDocs = (List<LightDoc>) ois.readObject();
+        } catch (IOException | ClassNotFoundException ex) {
+            log.log(Level.SEVERE, "could not read " + file, ex);
+            return;
+        }
+        for (LightDoc lightDoc : lightDocs) {
+            buildStage.put(lightDoc);
         }
+    }
 
-        @Override
-        public void run() {
-            if (isBinary) {
-                processBinary();
-            } else {
-                processXml();
-            }
-            fileFinishedCount++;
+    /**
+     * Adds a batch of documents to the index. If
+     * {@link #replaceExistingDocuments} is set, each document atomically
+     * replaces the documents with the same {@link LightDoc#ID}, thus also
+     * batches written concurrently by several threads never leave two
+     * documents with the same ID.
+     */
+    private void writeDocuments(List<Document> batch) throws IOException {
+        if (!replaceExistingDocuments) {
+            indexWriter.addDocuments(batch);
+            itemCount.addAndGet(batch.size());
+            return;
+        }
+        for (Document doc : batch) {
+            indexWriter.updateDocument(new Term(LightDoc.ID, doc.get(LightDoc.ID)), doc);
         }
+        itemCount.addAndGet(batch.size());
+    }
+
+    private void logProgress(List<PipelineStage<?>> stages, int countFiles, long startTime) {
+        final DecimalFormat df = new DecimalFormat();
+        df.setMaximumFractionDigits(0);
+        final float elapsedMinutes = Math.max(1, System.currentTimeMillis() - startTime) / 1000f / 60;
+        final long countFilesFinished = stages.get(0).getProcessedCount() + stages.get(0).getFailedCount();
+        log.log(Level.INFO, "{0} of {1} files ({2} ignored); finished {3}%; {4} documents/minute; "
+                + "elapsed: {5} minutes; stages: {6}",
+                new Object[]{countFilesFinished, countFiles, fileIgnoredCount.get(),
+                    df.format(100.0 * countFilesFinished / Math.max(1, countFiles)),
+                    df.format(itemCount.get() / elapsedMinutes), df.format(elapsedMinutes), stages});
     }
 
     /**
      * Creates a Lucene Index by reading in {@link File}s from the
-     * {@code dataDir} directory. Is multithreaded (currently 4 threads are used
-     * in a pool).
+     * {@code dataDir} directory. The files are processed in a multithreaded
+     * pipeline, see {@link #indexFiles(File[], boolean)}.
      *
      * @param dataDir Where the files will be read from.
      * @param indexDir Where the index will be created.
@@ -178,12 +316,8 @@ public class EMMDataSetIndexer {
             throw new RuntimeException("indexDir already exists, aborting! " + indexDir);
         }
 
-        final Analyzer customAnalyzer = AnalyzerFactory.createCustomAnalyzer();
-        final ExecutorService executorService = Executors.newFixedThreadPool(LuceneConfig.INDEX_NUMBER_OF_THREADS);
-        log.log(Level.INFO, "created executorService with {0} threads", LuceneConfig.INDEX_NUMBER_OF_THREADS);
-
         final Directory directory = FSDirectory.open(indexDir.toPath());
-        final IndexWriterConfig config = new IndexWriterConfig(customAnalyzer);
+        final IndexWriterConfig config = IndexUtils.createIndexWriterConfig();
         indexWriter = new IndexWriter(directory, config);
 
         log.log(Level.INFO, "{0} exists = {1}", new Object[]{dataDir.toString(), dataDir.exists()});
@@ -199,36 +333,147 @@ public class EMMDataSetIndexer {
         // filesInDir = new File[]{new File("C:\\priv\\mp-local\\04-nov-2014\\incoming-1415056141565-lapresse-CA.xml")};
         log.log(Level.INFO, "found {0} files", filesInDir.length);
         log.info("indexing...");
-        long startTime = new Date().getTime();
-        final DecimalFormat df = new DecimalFormat();
-        df.setMaximumFractionDigits(0);
+        indexFiles(filesInDir, isBinary);
+
+        indexWriter.close();
+
+        log.log(Level.INFO, "finished indexing, indexed {0} documents", itemCount.get());
+        log.log(Level.INFO, "ignored files: {0}, total files: {1}", new Object[]{fileIgnoredCount.get(), filesInDir.length});
+        log.log(Level.INFO, "non english files: {0}", fileNonEnglishCount.get());
+        log.log(Level.INFO, "translated {0} docs", translatedCount.get());
+        log.log(Level.INFO, "near duplicates: {0}", duplicateDetector);
+        log.log(Level.INFO, "translation: {0}", EasyTranslator.getTranslationClient());
+    }
 
-        for (File fileInDir : filesInDir) {
-            IndexerRunnable indexerRunnable = new IndexerRunnable(fileInDir, isBinary);
-            executorService.execute(indexerRunnable);
+    /**
+     * Watches {@code watchDir} for new EMM files (matching
+     * {@link LuceneConfig#INCOMING_FILE_GLOB}) and adds their documents to the
+     * existing index in {@code indexDir}. Documents are deduplicated on
+     * {@link LightDoc#ID}, i.e., a document already in the index is replaced.
+     * The changes are committed after each batch of files, so that the server
+     * sees them with its next refresh (see
+     * {@link LuceneConfig#INDEX_REFRESH_INTERVAL_SECONDS}).
+     *
+     * A file is indexed once it has not changed for
+     * {@link LuceneConfig#INCOMING_FILE_SETTLE_MILLIS}. At start, the files
+     * that arrived since the last commit are indexed first. Runs until the
+     * thread is interrupted.
+     *
+     * @param watchDir
+     * @param indexDir
+     * @throws IOException
+     */
+    public void watchDirectory(File watchDir, File indexDir) throws IOException {
+        final Directory directory = FSDirectory.open(indexDir.toPath());
+        final IndexWriterConfig config = IndexUtils.createIndexWriterConfig();
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        indexWriter = new IndexWriter(directory, config);
+        replaceExistingDocuments = true;
+        if (IndexSchema.DEFAULT.hasDuplicateSignatures()) {
+            indexedDocsReader = DirectoryReader.open(indexWriter, false);
+            duplicateDetector.setIndexReader(indexedDocsReader);
         }
 
-        executorService.shutdown();
-        log.info("started all threads, now waiting for all threads to finish");
+        final PathMatcher incomingFileMatcher = FileSystems.getDefault().getPathMatcher("glob:" + LuceneConfig.INCOMING_FILE_GLOB);
+        final String lastFileModifiedData = indexWriter.getCommitData().get(COMMIT_DATA_LAST_FILE_MODIFIED);
+        long lastFileModified = lastFileModifiedData == null ? 0 : Long.parseLong(lastFileModifiedData);
+        // the files to index, by the time they have last been changed
+        final Map<Path, Long> pendingFiles = new HashMap<>();
+
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            watchDir.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            addFilesModifiedSince(watchDir, incomingFileMatcher, lastFileModified, pendingFiles);
+            log.log(Level.INFO, "watching {0}, {1} files to catch up with", new Object[]{watchDir, pendingFiles.size()});
+
+            while (!Thread.currentThread().isInterrupted()) {
+                final WatchKey key = watchService.poll(LuceneConfig.INCOMING_FILE_SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            // events got lost, thus look at the directory itself
+                            addFilesModifiedSince(watchDir, incomingFileMatcher, lastFileModified, pendingFiles);
+                            continue;
+                        }
+                        final Path fileName = (Path) event.context();
+                        if (incomingFileMatcher.matches(fileName)) {
+                            pendingFiles.put(watchDir.toPath().resolve(fileName), System.currentTimeMillis());
+                        }
+                    }
+                    key.reset();
+                }
+                lastFileModified = indexSettledFiles(pendingFiles, lastFileModified);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            duplicateDetector.setIndexReader(null);
+            if (indexedDocsReader != null) {
+                indexedDocsReader.close();
+            }
+            indexWriter.close();
+            log.log(Level.INFO, "stopped watching {0}, indexed {1} documents", new Object[]{watchDir, itemCount.get()});
+        }
+    }
 
-        while (!executorService.isTerminated()) {
-            float elapsedMinutes = (new Date().getTime() - startTime) / 1000f / 60;
-            float countFilesTodo = filesInDir.length - fileFinishedCount;
-            float filesPerMin = fileFinishedCount / elapsedMinutes;
-            log.log(Level.INFO, "{0} of {1} ({2}" + " ignored); " + "finished {3}"
-                    + "%; " + "{4}" + " files/minute; "
-                    + "elapsed: {5}" + " minutes; " + "finished in: {6} minutes", new Object[]{fileFinishedCount, filesInDir.length, fileIgnoredCount, df.format(100.0 * fileFinishedCount / filesInDir.length), df.format(filesPerMin), df.format(elapsedMinutes), df.format(countFilesTodo / filesPerMin)});
+    /**
+     * Adds the files in {@code dir} that have been modified at or after
+     * {@code since} to {@code pendingFiles}, so that they are indexed at once.
+     */
+    private static void addFilesModifiedSince(File dir, PathMatcher matcher, long since, Map<Path, Long> pendingFiles) {
+        final File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (matcher.matches(file.toPath().getFileName()) && file.lastModified() >= since) {
+                pendingFiles.put(file.toPath(), 0L);
+            }
+        }
+    }
 
-            ThreadUtils.sleep(10000);
+    /**
+     * Indexes and removes the files from {@code pendingFiles} that have not
+     * changed for {@link LuceneConfig#INCOMING_FILE_SETTLE_MILLIS} and
+     * commits.
+     *
+     * @return the last modification time of the newest file indexed so far.
+     */
+    private long indexSettledFiles(Map<Path, Long> pendingFiles, long lastFileModified) throws IOException, InterruptedException {
+        final long settledBefore = System.currentTimeMillis() - LuceneConfig.INCOMING_FILE_SETTLE_MILLIS;
+        final List<File> settledFiles = new ArrayList<>();
+        final Iterator<Map.Entry<Path, Long>> it = pendingFiles.entrySet().iterator();
+        while (it.hasNext()) {
+            final Map.Entry<Path, Long> pendingFile = it.next();
+            if (pendingFile.getValue() <= settledBefore) {
+                settledFiles.add(pendingFile.getKey().toFile());
+                it.remove();
+            }
+        }
+        if (settledFiles.isEmpty()) {
+            return lastFileModified;
         }
-        executorService.awaitTermination(20, TimeUnit.DAYS);
 
-        indexWriter.close();
+        final long itemCountBefore = itemCount.get();
+        settledFiles.removeIf(file -> !file.exists());
+        indexFiles(settledFiles.toArray(new File[0]), false);
+        for (File file : settledFiles) {
+            lastFileModified = Math.max(lastFileModified, file.lastModified());
+        }
 
-        log.log(Level.INFO, "finished indexing, indexed {0} documents", itemCount);
-        log.log(Level.INFO, "ignored files: {0}, total files: {1}", new Object[]{fileIgnoredCount, fileFinishedCount});
-        log.log(Level.INFO, "non english files: {0}", fileNonEnglishCount);
-        log.log(Level.INFO, "translated {0} docs", countTranslatedLightDocs);
-        log.log(Level.INFO, "text too large count (api requests) {0}", EasyTranslator.textTooLargeCount);
+        final Map<String, String> commitData = new HashMap<>(indexWriter.getCommitData());
+        commitData.put(COMMIT_DATA_LAST_FILE_MODIFIED, String.valueOf(lastFileModified));
+        indexWriter.setCommitData(commitData);
+        indexWriter.commit();
+        if (indexedDocsReader != null) {
+            final DirectoryReader newReader = DirectoryReader.openIfChanged(indexedDocsReader, indexWriter, false);
+            if (newReader != null) {
+                duplicateDetector.setIndexReader(newReader);
+                indexedDocsReader.close();
+                indexedDocsReader = newReader;
+            }
+        }
+        log.log(Level.INFO, "indexed {0} documents from {1} new files",
+                new Object[]{itemCount.get() - itemCountBefore, settledFiles.size()});
+        return lastFileModified;
     }
 }
@@ -30,7 +30,11 @@ public class GeneralLightDocIndexer {
      */
     public static void createIndexWithLightDocs(File indexDir, List<LightDoc> docs) throws IOException {
         try (IndexWriter writer = IndexUtils.createIndexWriter(IndexUtils.openDirectory(indexDir))) {
+            final NearDuplicateDetector duplicateDetector = new NearDuplicateDetector();
             for (LightDoc doc : docs) {
+                if (IndexSchema.DEFAULT.hasDuplicateSignatures()) {
+                    duplicateDetector.assignCluster(doc);
+                }
                 writer.addDocument(doc.asLuceneDocument());
             }
             LOG.info("successfully created new Index with " + docs.size() + " docs");
@@ -0,0 +1,139 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.lucene.index;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
+import kn.uni.hamborg.config.LuceneConfig;
+import kn.uni.hamborg.data.light.LightDoc;
+import org.apache.lucene.codecs.lucene50.Lucene50Codec;
+import org.apache.lucene.codecs.lucene50.Lucene50StoredFieldsFormat;
+import org.apache.lucene.index.IndexWriterConfig;
+
+/**
+ * Describes how the text fields of a {@link LightDoc} are indexed, see
+ * {@link LightDoc#asLuceneDocument(IndexSchema)}:
+ * <ul>
+ * <li>whether the text of the stemmed fields is stored again, or only once in
+ * the plain fields (see {@link LightDoc#getStoredField(String)}),</li>
+ * <li>which fields have term vectors,</li>
+ * <li>how stored fields are compressed,</li>
+ * <li>whether the fields used for facets, i.e.,
+ * {@link LightDoc#PUB_DATE}, {@link LightDoc#PUB_COUNTRY} and
+ * {@link LightDoc#CHANNEL_GUID}, have DocValues (see
+ * {@link kn.uni.hamborg.lucene.search.FacetCounts}),</li>
+ * <li>whether the MinHash bands and the near-duplicate cluster of each
+ * document are indexed (see {@link NearDuplicateDetector}),</li>
+ * <li>whether the sentence boundaries of the text fields are stored (see
+ * {@link LightDoc#getSentencesField(String)}).</li>
+ * </ul>
+ * The index options of the fields are the same in all schemas, thus documents
+ * of different schemas can be mixed in one index.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class IndexSchema {
+
+    /**
+     * The schema of indexes created before this class existed: every text is
+     * stored twice, every text field has term vectors, there are no
+     * DocValues, no near-duplicate information and no sentence boundaries.
+     */
+    public static final IndexSchema LEGACY = new IndexSchema(false,
+            ImmutableSet.of(LightDoc.CONTENT, LightDoc.TITLE, LightDoc.DESCRIPTION,
+                    LightDoc.CONTENT_STEMMED, LightDoc.TITLE_STEMMED, LightDoc.DESCRIPTION_STEMMED),
+            Lucene50StoredFieldsFormat.Mode.BEST_SPEED, false, false, false);
+
+    /**
+     * The schema configured in {@link LuceneConfig}.
+     */
+    public static final IndexSchema DEFAULT = new IndexSchema(LuceneConfig.INDEX_STORE_TEXT_ONCE,
+            LuceneConfig.INDEX_TERM_VECTOR_FIELDS, LuceneConfig.INDEX_STORED_FIELDS_MODE,
+            LuceneConfig.INDEX_FACET_DOC_VALUES, LuceneConfig.INDEX_DUPLICATE_SIGNATURES,
+            LuceneConfig.INDEX_SENTENCE_BOUNDARIES);
+
+    private final boolean storeTextOnce;
+    private final Set<String> termVectorFields;
+    private final Lucene50StoredFieldsFormat.Mode storedFieldsMode;
+    private final boolean facetDocValues;
+    private final boolean duplicateSignatures;
+    private final boolean sentenceBoundaries;
+
+    public IndexSchema(boolean storeTextOnce, Set<String> termVectorFields,
+            Lucene50StoredFieldsFormat.Mode storedFieldsMode, boolean facetDocValues, boolean duplicateSignatures,
+            boolean sentenceBoundaries) {
+        this.storeTextOnce = storeTextOnce;
+        this.termVectorFields = ImmutableSet.copyOf(termVectorFields);
+        this.storedFieldsMode = storedFieldsMode;
+        this.facetDocValues = facetDocValues;
+        this.duplicateSignatures = duplicateSignatures;
+        this.sentenceBoundaries = sentenceBoundaries;
+    }
+
+    /**
+     * Whether the text of a stemmed field is only stored in the corresponding
+     * plain field.
+     *
+     * @return
+     */
+    public boolean isStoreTextOnce() {
+        return storeTextOnce;
+    }
+
+    public boolean hasTermVectors(String field) {
+        return termVectorFields.contains(field);
+    }
+
+    public Lucene50StoredFieldsFormat.Mode getStoredFieldsMode() {
+        return storedFieldsMode;
+    }
+
+    /**
+     * Whether the facet fields have DocValues.
+     *
+     * @return
+     */
+    public boolean hasFacetDocValues() {
+        return facetDocValues;
+    }
+
+    /**
+     * Whether the MinHash bands ({@link LightDoc#DUPLICATE_BANDS}) and the
+     * near-duplicate cluster ({@link LightDoc#DUPLICATE_CLUSTER}) are
+     * indexed.
+     *
+     * @return
+     */
+    public boolean hasDuplicateSignatures() {
+        return duplicateSignatures;
+    }
+
+    /**
+     * Whether the sentence boundaries of {@link LightDoc#CONTENT},
+     * {@link LightDoc#TITLE} and {@link LightDoc#DESCRIPTION} are stored.
+     *
+     * @return
+     */
+    public boolean hasSentenceBoundaries() {
+        return sentenceBoundaries;
+    }
+
+    /**
+     * Sets the codec of {@code config} to compress stored fields as defined
+     * by this schema.
+     *
+     * @param config
+     * @return {@code config}
+     */
+    public IndexWriterConfig configure(IndexWriterConfig config) {
+        return config.setCodec(new Lucene50Codec(storedFieldsMode));
+    }
+
+    @Override
+    public String toString() {
+        return "IndexSchema [storeTextOnce=" + storeTextOnce + ", termVectorFields=" + termVectorFields
+                + ", storedFieldsMode=" + storedFieldsMode + ", facetDocValues=" + facetDocValues
+                + ", duplicateSignatures=" + duplicateSignatures + ", sentenceBoundaries=" + sentenceBoundaries + "]";
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.lucene.index;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+import kn.uni.hamborg.config.LuceneConfig;
+import kn.uni.hamborg.data.light.LightDoc;
+import kn.uni.hamborg.lucene.search.DuplicateClusters;
+import kn.uni.hamborg.utils.MinHash;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+
+/**
+ * Assigns near-duplicate documents, e.g., the same wire story published by
+ * several publishers, to the same cluster while indexing. Two documents are in
+ * the same cluster if they share a MinHash band (see {@link MinHash}) of
+ * {@link LightDoc#getDuplicateBands()}, the cluster id is derived from the id
+ * of the first document of the cluster.
+ *
+ * The bands of the most recently indexed documents are kept in memory (see
+ * {@link LuceneConfig#INDEX_DUPLICATE_DETECTOR_CAPACITY}). If none of the
+ * bands of a document is found there and an existing index is set (see
+ * {@link #setIndexReader(IndexReader)}), the bands are looked up in
+ * {@link LightDoc#DUPLICATE_BANDS} of that index, so that documents added to
+ * an index later on join the clusters of the documents already in it.
+ * Thread-safe.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class NearDuplicateDetector {
+
+    private static final Logger LOG = Logger.getLogger(NearDuplicateDetector.class.getSimpleName());
+
+    private static final MinHash MIN_HASH = new MinHash(
+            LuceneConfig.INDEX_MINHASH_BANDS * LuceneConfig.INDEX_MINHASH_ROWS_PER_BAND,
+            LuceneConfig.INDEX_MINHASH_SHINGLE_SIZE, 0);
+
+    /**
+     * The cluster of each band, least recently used first.
+     */
+    private final Map<Long, Long> clustersByBand;
+    private long countDocuments = 0;
+    private long countDuplicates = 0;
+    /**
+     * The existing index the bands are looked up in, null if none.
+     */
+    private IndexSearcher indexSearcher;
+    private DuplicateClusters indexClusters;
+
+    public NearDuplicateDetector() {
+        this(LuceneConfig.INDEX_DUPLICATE_DETECTOR_CAPACITY);
+    }
+
+    /**
+     *
+     * @param capacity number of bands kept in memory
+     */
+    public NearDuplicateDetector(int capacity) {
+        this.clustersByBand = new LinkedHashMap<Long, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the bands of the MinHash signature of {@code text}.
+     *
+     * @param text
+     * @return an empty array if {@code text} has no words.
+     */
+    public static long[] computeBands(String text) {
+        return MinHash.bands(MIN_HASH.signature(text), LuceneConfig.INDEX_MINHASH_ROWS_PER_BAND);
+    }
+
+    /**
+     * Sets the existing index the bands of documents are looked up in if they
+     * are not in memory. The reader is not closed by this detector.
+     *
+     * @param indexReader null to not look up bands in an index
+     */
+    public synchronized void setIndexReader(IndexReader indexReader) {
+        this.indexSearcher = indexReader == null ? null : new IndexSearcher(indexReader);
+        this.indexClusters = indexReader == null ? null : new DuplicateClusters(indexReader);
+    }
+
+    /**
+     * Assigns {@code doc} to the cluster of its near duplicates indexed
+     * before, or to a new cluster, see
+     * {@link LightDoc#setDuplicateCluster(long)}.
+     *
+     * @param doc
+     * @return the cluster id
+     */
+    public synchronized long assignCluster(LightDoc doc) {
+        final long[] bands = doc.getDuplicateBands();
+        Long cluster = null;
+        for (long band : bands) {
+            cluster = clustersByBand.get(band);
+            if (cluster != null) {
+                break;
+            }
+        }
+        if (cluster == null) {
+            cluster = findClusterInIndex(bands);
+        }
+        countDocuments++;
+        if (cluster == null) {
+            cluster = MinHash.hash64(doc.getId());
+        } else {
+            countDuplicates++;
+        }
+        // bands of other clusters are kept, but all bands are marked as recently used
+        for (long band : bands) {
+            if (clustersByBand.get(band) == null) {
+                clustersByBand.put(band, cluster);
+            }
+        }
+        doc.setDuplicateCluster(cluster);
+        return cluster;
+    }
+
+    /**
+     * Returns the cluster of the document of the index that shares the most
+     * of {@code bands}, or null if there is no such document.
+     */
+    private Long findClusterInIndex(long[] bands) {
+        if (indexSearcher == null || !indexClusters.isAvailable() || bands.length == 0) {
+            return null;
+        }
+        final BooleanQuery query = new BooleanQuery();
+        for (long band : bands) {
+            query.add(new TermQuery(new Term(LightDoc.DUPLICATE_BANDS, LightDoc.getDuplicateBandTerm(band))),
+                    BooleanClause.Occur.SHOULD);
+        }
+        try {
+            final TopDocs topDocs = indexSearcher.search(query, 1);
+            if (topDocs.scoreDocs.length == 0 || !indexClusters.hasCluster(topDocs.scoreDocs[0].doc)) {
+                return null;
+            }
+            return indexClusters.getCluster(topDocs.scoreDocs[0].doc);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    public synchronized long getCountDocuments() {
+        return countDocuments;
+    }
+
+    public synchronized long getCountDuplicates() {
+        return countDuplicates;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "NearDuplicateDetector [documents=" + countDocuments + ", duplicates=" + countDuplicates
+                + ", bands=" + clustersByBand.size() + "]";
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.lucene.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import kn.uni.hamborg.utils.ThreadUtils;
+
+/**
+ * A stage of a processing pipeline: a bounded input queue and a number of
+ * threads taking elements from it. Upstream stages block in
+ * {@link #put(Object)} while the queue is full, so that a slow stage slows
+ * down its producers instead of piling up elements in memory.
+ *
+ * The input of a stage is closed by {@link #closeInput()} once all its
+ * producers are finished, the stage then processes the remaining elements and
+ * finishes, see {@link #awaitFinished(long, TimeUnit)}.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ * @param <I> type of the elements processed by this stage
+ */
+public class PipelineStage<I> {
+
+    private static final Logger LOG = Logger.getLogger(PipelineStage.class.getSimpleName());
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    /**
+     * Processes a batch of elements, and usually puts the results into the
+     * next stages.
+     *
+     * @param <I>
+     */
+    @FunctionalInterface
+    public interface Processor<I> {
+
+        void process(List<I> batch) throws Exception;
+    }
+
+    private final String name;
+    private final BlockingQueue<I> queue;
+    private final int numberOfThreads;
+    private final int batchSize;
+    private final Processor<I> processor;
+    private final ExecutorService executorService;
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private volatile boolean inputClosed = false;
+
+    /**
+     *
+     * @param name
+     * @param queueCapacity
+     * @param numberOfThreads
+     * @param batchSize the maximum number of elements given to
+     * {@code processor} at once.
+     * @param processor
+     */
+    public PipelineStage(String name, int queueCapacity, int numberOfThreads, int batchSize, Processor<I> processor) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.numberOfThreads = numberOfThreads;
+        this.batchSize = batchSize;
+        this.processor = processor;
+        this.executorService = ThreadUtils.createFixedThreadPool(name, numberOfThreads);
+    }
+
+    public void start() {
+        for (int i = 0; i < numberOfThreads; i++) {
+            executorService.execute(this::work);
+        }
+        executorService.shutdown();
+    }
+
+    private void work() {
+        final List<I> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                final I first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (inputClosed && queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                try {
+                    processor.process(batch);
+                    processedCount.addAndGet(batch.size());
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    failedCount.addAndGet(batch.size());
+                    LOG.log(Level.SEVERE, name + ": could not process " + batch.size() + " elements", e);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            LOG.log(Level.WARNING, "{0} interrupted", name);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Adds {@code element} to this stage, waiting while the queue is full.
+     *
+     * @param element
+     * @throws InterruptedException
+     */
+    public void put(I element) throws InterruptedException {
+        queue.put(element);
+    }
+
+    /**
+     * Signals that no more elements will be put into this stage.
+     */
+    public void closeInput() {
+        inputClosed = true;
+    }
+
+    /**
+     * Waits until this stage has processed all elements after its input has
+     * been closed.
+     *
+     * @param timeout
+     * @param unit
+     * @return {@code true} if the stage is finished.
+     * @throws InterruptedException
+     */
+    public boolean awaitFinished(long timeout, TimeUnit unit) throws InterruptedException {
+        return executorService.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Stops this stage at once, dropping the remaining elements.
+     */
+    public void stop() {
+        executorService.shutdownNow();
+    }
+
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return name + " [processed=" + processedCount.get() + ", failed=" + failedCount.get()
+                + ", queued=" + queue.size() + "]";
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.lucene.index;
+
+import com.google.common.collect.ImmutableSet;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import kn.uni.hamborg.config.LuceneConfig;
+import kn.uni.hamborg.data.light.LightDoc;
+import kn.uni.hamborg.utils.IndexUtils;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.util.Bits;
+
+/**
+ * Migrates an existing index to another {@link IndexSchema} by indexing the
+ * stored fields of its documents again, e.g., an index created with
+ * {@link IndexSchema#LEGACY} to {@link IndexSchema#DEFAULT}. Afterwards, it
+ * reports the size of both indexes by file type and the time to read stored
+ * texts and term vectors of sample documents.
+ *
+ * Usage: {@code Reindexer <source index> <target index>} or
+ * {@code Reindexer report <index>...}
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class Reindexer {
+
+    private static final Logger LOG = Logger.getLogger(Reindexer.class.getSimpleName());
+
+    private static final int NUMBER_OF_SAMPLE_DOCS = 1000;
+    private static final int NUMBER_OF_WARMUP_ROUNDS = 5;
+    private static final Set<String> TEXT_FIELDS = ImmutableSet.of(LightDoc.CONTENT, LightDoc.TITLE, LightDoc.DESCRIPTION);
+    /**
+     * Descriptions of the Lucene 5 index file extensions.
+     */
+    private static final Map<String, String> FILE_TYPES = new TreeMap<>();
+
+    static {
+        FILE_TYPES.put("fdt", "stored fields");
+        FILE_TYPES.put("fdx", "stored fields index");
+        FILE_TYPES.put("tvd", "term vectors");
+        FILE_TYPES.put("tvx", "term vectors index");
+        FILE_TYPES.put("tim", "term dictionary");
+        FILE_TYPES.put("tip", "term index");
+        FILE_TYPES.put("doc", "postings");
+        FILE_TYPES.put("pos", "positions");
+        FILE_TYPES.put("pay", "payloads and offsets");
+        FILE_TYPES.put("nvd", "norms");
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 2 && args[0].equals("report")) {
+            for (int i = 1; i < args.length; i++) {
+                report(new File(args[i]));
+            }
+            return;
+        }
+        final File sourceDir = args.length > 0 ? new File(args[0]) : LuceneConfig.INDEX_DIR_DEFAULT;
+        final File targetDir = args.length > 1 ? new File(args[1]) : new File(sourceDir.getPath() + "-reindexed");
+        reindex(sourceDir, targetDir, IndexSchema.DEFAULT);
+        report(sourceDir);
+        report(targetDir);
+    }
+
+    /**
+     * Indexes all documents of {@code sourceDir} into a new index in
+     * {@code targetDir} using {@code schema}.
+     *
+     * @param sourceDir
+     * @param targetDir must not exist yet.
+     * @param schema
+     * @throws IOException
+     */
+    public static void reindex(File sourceDir, File targetDir, IndexSchema schema) throws IOException {
+        if (targetDir.exists()) {
+            throw new RuntimeException("targetDir already exists, aborting! " + targetDir);
+        }
+        LOG.log(Level.INFO, "reindexing {0} to {1} with {2}", new Object[]{sourceDir, targetDir, schema});
+
+        final long start = System.currentTimeMillis();
+        int count = 0;
+        try (Directory source = FSDirectory.open(sourceDir.toPath());
+                IndexReader reader = DirectoryReader.open(source);
+                Directory target = FSDirectory.open(targetDir.toPath());
+                IndexWriter writer = new IndexWriter(target, schema.configure(IndexUtils.createIndexWriterConfig()))) {
+            final Bits liveDocs = MultiFields.getLiveDocs(reader);
+            final NearDuplicateDetector duplicateDetector = new NearDuplicateDetector();
+            for (int i = 0; i < reader.maxDoc(); i++) {
+                if (liveDocs != null && !liveDocs.get(i)) {
+                    continue;
+                }
+                final LightDoc doc = LightDoc.fromLuceneDocument(reader.document(i));
+                if (schema.hasDuplicateSignatures()) {
+                    duplicateDetector.assignCluster(doc);
+                }
+                writer.addDocument(doc.asLuceneDocument(schema));
+                if (++count % 10000 == 0) {
+                    LOG.log(Level.INFO, "reindexed {0} of {1} documents", new Object[]{count, reader.numDocs()});
+                }
+            }
+            writer.commit();
+            LOG.log(Level.INFO, "near duplicates: {0}", duplicateDetector);
+        }
+        LOG.log(Level.INFO, "reindexed {0} documents in {1} s",
+                new Object[]{count, (System.currentTimeMillis() - start) / 1000});
+    }
+
+    private static void addFileSizes(Map<String, Long> bytesByType, Directory directory, String[] files) throws IOException {
+        for (String file : files) {
+            final String extension = file.contains(".") ? file.substring(file.lastIndexOf('.') + 1) : file;
+            bytesByType.merge(FILE_TYPES.getOrDefault(extension, "other"), directory.fileLength(file), Long::sum);
+        }
+    }
+
+    /**
+     * Prints the size of the index in {@code indexDir} by file type, and the
+     * average time to read the stored texts, the term vector of
+     * {@link LightDoc#CONTENT_STEMMED} and the complete stored document of
+     * random documents, after reading them a few times to warm up.
+     *
+     * @param indexDir
+     * @throws IOException
+     */
+    public static void report(File indexDir) throws IOException {
+        final Map<String, Long> bytesByType = new TreeMap<>();
+        long totalBytes = 0;
+        try (Directory directory = FSDirectory.open(indexDir.toPath())) {
+            for (SegmentCommitInfo segment : SegmentInfos.readLatestCommit(directory)) {
+                for (String file : segment.files()) {
+                    totalBytes += directory.fileLength(file);
+                }
+                // small segments are usually packed into a compound file
+                if (segment.info.getUseCompoundFile()) {
+                    try (Directory compound = segment.info.getCodec().compoundFormat()
+                            .getCompoundReader(directory, segment.info, IOContext.READ)) {
+                        addFileSizes(bytesByType, compound, compound.listAll());
+                    }
+                } else {
+                    addFileSizes(bytesByType, directory, segment.files().toArray(new String[0]));
+                }
+            }
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        sb.append("index ").append(indexDir).append(System.lineSeparator());
+        sb.append(String.format("  %-22s %10d KB%n", "total", totalBytes / 1024));
+        for (Map.Entry<String, Long> entry : bytesByType.entrySet()) {
+            sb.append(String.format("  %-22s %10d KB%n", entry.getKey(), entry.getValue() / 1024));
+        }
+
+        try (Directory directory = FSDirectory.open(indexDir.toPath());
+                IndexReader reader = DirectoryReader.open(directory)) {
+            final int[] docIds = new int[Math.min(NUMBER_OF_SAMPLE_DOCS, reader.maxDoc())];
+            final Random random = new Random(0);
+            for (int i = 0; i < docIds.length; i++) {
+                docIds[i] = random.nextInt(reader.maxDoc());
+            }
+            // warm up, so that the timings depend neither on the file system
+            // cache nor on the order the indexes are reported in
+            for (int round = 0; round < NUMBER_OF_WARMUP_ROUNDS; round++) {
+                for (int docId : docIds) {
+                    reader.document(docId, TEXT_FIELDS);
+                    reader.getTermVector(docId, LightDoc.CONTENT_STEMMED);
+                    reader.document(docId);
+                }
+            }
+
+            long start = System.nanoTime();
+            for (int docId : docIds) {
+                reader.document(docId, TEXT_FIELDS);
+            }
+            final long textNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int docId : docIds) {
+                reader.getTermVector(docId, LightDoc.CONTENT_STEMMED);
+            }
+            final long termVectorNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int docId : docIds) {
+                reader.document(docId);
+            }
+            final long documentNanos = System.nanoTime() - start;
+
+            final int n = Math.max(1, docIds.length);
+            sb.append(String.format("  %d documents, average over %d random documents:%n", reader.numDocs(), docIds.length));
+            sb.append(String.format("  %-22s %10d us%n", "stored texts", textNanos / n / 1000));
+            sb.append(String.format("  %-22s %10d us%n", "term vector", termVectorNanos / n / 1000));
+            sb.append(String.format("  %-22s %10d us%n", "complete document", documentNanos / n / 1000));
+        }
+        System.out.println(sb);
+    }
+}
@@ -3,9 +3,6 @@
  */
 package kn.uni.hamborg.lucene.others;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import kn.uni.hamborg.data.emm.EMMChannel;
@@ -13,8 +10,8 @@ import kn.uni.hamborg.data.emm.EMMRssParser;
 import kn.uni.hamborg.data.light.LightDoc;
 import kn.uni.hamborg.data.light.LightDocConverter;
 import kn.uni.hamborg.language.Language;
+import kn.uni.hamborg.language.analyzers.NLPModelRegistry;
 import opennlp.tools.namefind.NameFinderME;
-import opennlp.tools.namefind.TokenNameFinderModel;
 import opennlp.tools.util.Span;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.index.IndexWriter;
@@ -49,33 +46,13 @@ public class NamedEntityFinder {
         return nameFinder.find(tokensOfSentence);
     }
 
+    /**
+     * Creates a name finder using the shared model. Each
+     * {@code NamedEntityFinder} has its own {@link NameFinderME}, since it is
+     * not thread-safe and keeps adaptive data.
+     */
     private NameFinderME createNameFinderModel() {
-        File modelFile = null;
-        switch (language) {
-            case EN:
-                modelFile = new File("models/en-ner-person.bin");
-                break;
-            default:
-                throw new IllegalArgumentException("only en supported yet");
-        }
-
-        InputStream is = null;
-        try {
-            is = new FileInputStream(modelFile);
-            TokenNameFinderModel model = new TokenNameFinderModel(is);
-            return new NameFinderME(model);
-
-        } catch (Exception ex) {
-            Logger.getLogger(NamedEntityFinder.class.getName()).log(Level.SEVERE, null, ex);
-        } finally {
-            if (is != null) {
-                try {
-                    is.close();
-                } catch (Exception e) {
-                }
-            }
-        }
-        return null;
+        return new NameFinderME(NLPModelRegistry.getPersonNameFinderModel(language));
     }
 
     public static void main(String[] args) {
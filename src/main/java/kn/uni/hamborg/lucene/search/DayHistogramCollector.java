@@ -0,0 +1,147 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.lucene.search;
+
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import kn.uni.hamborg.data.light.LightDoc;
+import kn.uni.hamborg.utils.DateTimeUtils;
+import kn.uni.hamborg.utils.QueryUtils;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.NumericRangeQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.util.Bits;
+
+/**
+ * Counts the documents matching a query per publishing day (UTC) within a
+ * window of days, without materializing the hits. The day is read from the
+ * DocValues of {@link LightDoc#PUB_DAY}, or of {@link LightDoc#PUB_DATE} and
+ * at last from the stored {@link LightDoc#PUB_DATE} for documents indexed
+ * without them (see {@link kn.uni.hamborg.lucene.index.IndexSchema}).
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class DayHistogramCollector extends SimpleCollector {
+
+    private static final Set<String> PUB_DATE_FIELD = ImmutableSet.of(LightDoc.PUB_DATE);
+
+    private final long firstDay;
+    private final int[] counts;
+
+    private LeafReader reader;
+    private NumericDocValues pubDays;
+    private Bits docsWithPubDay;
+    private NumericDocValues pubDates;
+    private Bits docsWithPubDate;
+
+    /**
+     * @param firstDay first day to count, see
+     * {@link DateTimeUtils#toDayOrdinal(long)}
+     * @param lastDay last day to count (inclusive)
+     */
+    public DayHistogramCollector(long firstDay, long lastDay) {
+        if (lastDay < firstDay) {
+            throw new IllegalArgumentException("lastDay " + lastDay + " is before firstDay " + firstDay);
+        }
+        this.firstDay = firstDay;
+        this.counts = new int[Math.toIntExact(lastDay - firstDay + 1)];
+    }
+
+    /**
+     * Counts the documents matching {@code query} that are published between
+     * {@code firstDay} and {@code lastDay}.
+     *
+     * @param searcher
+     * @param query
+     * @param firstDay
+     * @param lastDay
+     * @return
+     */
+    public static DayHistogramCollector count(IndexSearcher searcher, Query query, long firstDay, long lastDay) {
+        final DayHistogramCollector collector = new DayHistogramCollector(firstDay, lastDay);
+        // only visit the documents of the window
+        final Query dateQuery = NumericRangeQuery.newLongRange(LightDoc.PUB_DATE,
+                DateTimeUtils.fromDayOrdinal(firstDay), DateTimeUtils.fromDayOrdinal(lastDay + 1), true, false);
+        try {
+            searcher.search(new ConstantScoreQuery(QueryUtils.addQueryToQuery(dateQuery, query)), collector);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        return collector;
+    }
+
+    @Override
+    protected void doSetNextReader(LeafReaderContext context) throws IOException {
+        reader = context.reader();
+        pubDays = reader.getNumericDocValues(LightDoc.PUB_DAY);
+        docsWithPubDay = reader.getDocsWithField(LightDoc.PUB_DAY);
+        pubDates = reader.getNumericDocValues(LightDoc.PUB_DATE);
+        docsWithPubDate = reader.getDocsWithField(LightDoc.PUB_DATE);
+    }
+
+    @Override
+    public void collect(int doc) throws IOException {
+        final long day;
+        if (pubDays != null && docsWithPubDay.get(doc)) {
+            day = pubDays.get(doc);
+        } else if (pubDates != null && docsWithPubDate.get(doc)) {
+            day = DateTimeUtils.toDayOrdinal(pubDates.get(doc));
+        } else {
+            day = DateTimeUtils.toDayOrdinal(Long.parseLong(reader.document(doc, PUB_DATE_FIELD).get(LightDoc.PUB_DATE)));
+        }
+        if (day >= firstDay && day - firstDay < counts.length) {
+            counts[(int) (day - firstDay)]++;
+        }
+    }
+
+    @Override
+    public boolean needsScores() {
+        return false;
+    }
+
+    public long getFirstDay() {
+        return firstDay;
+    }
+
+    public long getLastDay() {
+        return firstDay + counts.length - 1;
+    }
+
+    /**
+     * Returns the number of documents of each day, starting at
+     * {@link #getFirstDay()}.
+     *
+     * @return
+     */
+    public int[] getCounts() {
+        return Arrays.copyOf(counts, counts.length);
+    }
+
+    /**
+     * Returns the number of documents published between {@code fromDay} and
+     * {@code toDay} (both inclusive), which may exceed the window.
+     *
+     * @param fromDay
+     * @param toDay
+     * @return
+     */
+    public int getCount(long fromDay, long toDay) {
+        int sum = 0;
+        for (long day = Math.max(fromDay, firstDay); day <= Math.min(toDay, getLastDay()); day++) {
+            sum += counts[(int) (day - firstDay)];
+        }
+        return sum;
+    }
+
+    public int getTotalCount() {
+        return getCount(getFirstDay(), getLastDay());
+    }
+}
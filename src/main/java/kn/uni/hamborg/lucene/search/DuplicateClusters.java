@@ -0,0 +1,98 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.lucene.search;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import kn.uni.hamborg.data.light.LightDoc;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiDocValues;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.util.Bits;
+
+/**
+ * Reads the near-duplicate clusters ({@link LightDoc#DUPLICATE_CLUSTER}) of
+ * the documents of an index and collapses hits to one document per cluster.
+ * Documents without a cluster, e.g., indexed with
+ * {@link kn.uni.hamborg.lucene.index.IndexSchema#LEGACY}, are never
+ * collapsed. Not thread-safe, create one instance per thread.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class DuplicateClusters {
+
+    private final NumericDocValues clusters;
+    private final Bits docsWithCluster;
+
+    public DuplicateClusters(IndexReader indexReader) {
+        try {
+            this.clusters = MultiDocValues.getNumericValues(indexReader, LightDoc.DUPLICATE_CLUSTER);
+            this.docsWithCluster = MultiDocValues.getDocsWithField(indexReader, LightDoc.DUPLICATE_CLUSTER);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Collapses {@code scoreDocs} to the best ranked document of each cluster.
+     *
+     * @param indexReader
+     * @param scoreDocs
+     * @param n
+     * @return at most {@code n} documents
+     */
+    public static ScoreDoc[] collapse(IndexReader indexReader, ScoreDoc[] scoreDocs, int n) {
+        return new DuplicateClusters(indexReader).collapse(scoreDocs, n);
+    }
+
+    /**
+     * Whether any document of the index has a cluster.
+     *
+     * @return
+     */
+    public boolean isAvailable() {
+        return clusters != null;
+    }
+
+    public boolean hasCluster(int docId) {
+        return clusters != null && docsWithCluster.get(docId);
+    }
+
+    /**
+     * Returns the cluster of {@code docId}, only defined if
+     * {@link #hasCluster(int)}.
+     *
+     * @param docId
+     * @return
+     */
+    public long getCluster(int docId) {
+        return clusters.get(docId);
+    }
+
+    /**
+     * Returns the first {@code n} documents of {@code scoreDocs} (in their
+     * order) that are not in the same cluster as a document before.
+     *
+     * @param scoreDocs
+     * @param n
+     * @return
+     */
+    public ScoreDoc[] collapse(ScoreDoc[] scoreDocs, int n) {
+        final List<ScoreDoc> collapsed = new ArrayList<>(Math.min(n, scoreDocs.length));
+        final Set<Long> seenClusters = new HashSet<>();
+        for (ScoreDoc scoreDoc : scoreDocs) {
+            if (collapsed.size() >= n) {
+                break;
+            }
+            if (!hasCluster(scoreDoc.doc) || seenClusters.add(getCluster(scoreDoc.doc))) {
+                collapsed.add(scoreDoc);
+            }
+        }
+        return collapsed.toArray(new ScoreDoc[collapsed.size()]);
+    }
+}
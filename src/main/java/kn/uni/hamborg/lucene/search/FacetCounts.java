@@ -0,0 +1,248 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.lucene.search;
+
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import kn.uni.hamborg.data.light.LightDoc;
+import kn.uni.hamborg.utils.DateTimeUtils;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.util.Bits;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormatter;
+
+/**
+ * Counts the documents matching a query per publishing day, per
+ * {@link LightDoc#PUB_COUNTRY} and per publisher
+ * ({@link LightDoc#CHANNEL_GUID}), in a single pass over the matching
+ * documents. The values are read from the DocValues of the fields (see
+ * {@link kn.uni.hamborg.lucene.index.IndexSchema}), and from the stored
+ * fields for documents indexed without DocValues.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class FacetCounts {
+
+    private static final DateTimeFormatter dayFormatter = DateTimeUtils.simpleDateTimeFormatter.withZone(DateTimeZone.UTC);
+    private static final Set<String> FACET_FIELDS = ImmutableSet.of(LightDoc.PUB_DATE, LightDoc.PUB_COUNTRY, LightDoc.CHANNEL_GUID);
+
+    private int totalHits = 0;
+    /**
+     * Start of the day (UTC) in milliseconds to count.
+     */
+    private final SortedMap<Long, Integer> countsByDay = new TreeMap<>();
+    private final Map<String, Integer> countsByCountry = new HashMap<>();
+    private final Map<String, Integer> countsByPublisher = new HashMap<>();
+
+    private FacetCounts() {
+    }
+
+    /**
+     * Counts the documents matching {@code query}.
+     *
+     * @param searcher
+     * @param query
+     * @return
+     */
+    public static FacetCounts count(IndexSearcher searcher, Query query) {
+        final FacetCounts counts = new FacetCounts();
+        final FacetCollector collector = counts.new FacetCollector();
+        try {
+            searcher.search(new ConstantScoreQuery(query), collector);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        collector.finishSegment();
+        return counts;
+    }
+
+    /**
+     * Collects the values of the matching documents of a segment. Terms of
+     * {@link SortedDocValues} are counted by their ordinal and only looked up
+     * once per segment.
+     */
+    private class FacetCollector extends SimpleCollector {
+
+        private LeafReader reader;
+        private NumericDocValues pubDates;
+        private Bits docsWithPubDate;
+        private SortedDocValues countries;
+        private SortedDocValues publishers;
+        private int[] countryOrdCounts;
+        private int[] publisherOrdCounts;
+        private int currentDoc;
+        private Document storedDoc;
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            finishSegment();
+            reader = context.reader();
+            pubDates = reader.getNumericDocValues(LightDoc.PUB_DATE);
+            docsWithPubDate = reader.getDocsWithField(LightDoc.PUB_DATE);
+            countries = reader.getSortedDocValues(LightDoc.PUB_COUNTRY);
+            publishers = reader.getSortedDocValues(LightDoc.CHANNEL_GUID);
+            countryOrdCounts = countries == null ? null : new int[countries.getValueCount()];
+            publisherOrdCounts = publishers == null ? null : new int[publishers.getValueCount()];
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            totalHits++;
+            storedDoc = null;
+            currentDoc = doc;
+
+            final long pubDate = pubDates != null && docsWithPubDate.get(doc)
+                    ? pubDates.get(doc)
+                    : Long.parseLong(getStoredDocument().get(LightDoc.PUB_DATE));
+            countsByDay.merge(DateTimeUtils.fromDayOrdinal(DateTimeUtils.toDayOrdinal(pubDate)), 1, Integer::sum);
+
+            count(countries, countryOrdCounts, LightDoc.PUB_COUNTRY, countsByCountry);
+            count(publishers, publisherOrdCounts, LightDoc.CHANNEL_GUID, countsByPublisher);
+        }
+
+        /**
+         * Counts the value of the current document by its ordinal, or by its
+         * stored value if it has none.
+         */
+        private void count(SortedDocValues values, int[] ordCounts, String field, Map<String, Integer> counts)
+                throws IOException {
+            final int ord = values == null ? -1 : values.getOrd(currentDoc);
+            if (ord >= 0) {
+                ordCounts[ord]++;
+            } else {
+                final String value = getStoredDocument().get(field);
+                if (value != null) {
+                    counts.merge(value, 1, Integer::sum);
+                }
+            }
+        }
+
+        /**
+         * Returns the stored facet fields of the current document, which are
+         * only read if a value has no DocValues.
+         */
+        private Document getStoredDocument() throws IOException {
+            if (storedDoc == null) {
+                storedDoc = reader.document(currentDoc, FACET_FIELDS);
+            }
+            return storedDoc;
+        }
+
+        /**
+         * Adds the counts of the current segment.
+         */
+        private void finishSegment() {
+            if (countries != null) {
+                addOrdCounts(countries, countryOrdCounts, countsByCountry);
+            }
+            if (publishers != null) {
+                addOrdCounts(publishers, publisherOrdCounts, countsByPublisher);
+            }
+            countries = null;
+            publishers = null;
+        }
+
+        @Override
+        public boolean needsScores() {
+            return false;
+        }
+    }
+
+    private static void addOrdCounts(SortedDocValues values, int[] ordCounts, Map<String, Integer> counts) {
+        for (int ord = 0; ord < ordCounts.length; ord++) {
+            if (ordCounts[ord] > 0) {
+                counts.merge(values.lookupOrd(ord).utf8ToString(), ordCounts[ord], Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Sorts {@code counts} by descending count and keeps at most
+     * {@code limit} entries.
+     */
+    private static Map<String, Integer> getTopCounts(Map<String, Integer> counts, int limit) {
+        final List<Map.Entry<String, Integer>> entries = new ArrayList<>(counts.entrySet());
+        Collections.sort(entries, (e1, e2) -> Integer.compare(e2.getValue(), e1.getValue()));
+        final Map<String, Integer> topCounts = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : entries.subList(0, Math.min(limit, entries.size()))) {
+            topCounts.put(entry.getKey(), entry.getValue());
+        }
+        return topCounts;
+    }
+
+    public int getTotalHits() {
+        return totalHits;
+    }
+
+    /**
+     * Returns the counts by the start of the day (UTC) in milliseconds, in
+     * chronological order. Days without documents are not contained.
+     *
+     * @return
+     */
+    public SortedMap<Long, Integer> getCountsByDay() {
+        return Collections.unmodifiableSortedMap(countsByDay);
+    }
+
+    /**
+     * Returns the counts by day formatted like
+     * {@link DateTimeUtils#simpleDateTimeFormatter}, in chronological order.
+     *
+     * @return
+     */
+    public Map<String, Integer> getCountsByDayString() {
+        final Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> entry : countsByDay.entrySet()) {
+            counts.put(dayFormatter.print(entry.getKey()), entry.getValue());
+        }
+        return counts;
+    }
+
+    public Map<String, Integer> getCountsByCountry() {
+        return Collections.unmodifiableMap(countsByCountry);
+    }
+
+    /**
+     * Returns the counts of the {@code limit} most frequent countries, most
+     * frequent first.
+     *
+     * @param limit
+     * @return
+     */
+    public Map<String, Integer> getCountsByCountry(int limit) {
+        return getTopCounts(countsByCountry, limit);
+    }
+
+    public Map<String, Integer> getCountsByPublisher() {
+        return Collections.unmodifiableMap(countsByPublisher);
+    }
+
+    /**
+     * Returns the counts of the {@code limit} most frequent publishers, most
+     * frequent first.
+     *
+     * @param limit
+     * @return
+     */
+    public Map<String, Integer> getCountsByPublisher(int limit) {
+        return getTopCounts(countsByPublisher, limit);
+    }
+}
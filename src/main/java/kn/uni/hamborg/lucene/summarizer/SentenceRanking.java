@@ -0,0 +1,198 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.lucene.summarizer;
+
+import java.util.Arrays;
+
+/**
+ * Sums up the scores of sentences over several documents and returns the top
+ * k sentences. The sentences are kept in an open-addressing hash table
+ * (linear probing) over flat arrays, the top k are selected with a bounded
+ * min-heap, thus no objects are created per added sentence.
+ *
+ * Ties are broken deterministically: of two sentences with equal score, the
+ * one added first is ranked higher. Not thread-safe.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class SentenceRanking {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The sentences, their hashes and summed scores in the order they were
+     * added first.
+     */
+    private String[] sentences;
+    private int[] hashes;
+    private double[] scores;
+    private int size = 0;
+    /**
+     * The hash table, each slot holds the index of a sentence plus 1, or 0 if
+     * empty. Its length is a power of 2 and at least twice {@code size}.
+     */
+    private int[] table;
+
+    public SentenceRanking() {
+        this.sentences = new String[INITIAL_CAPACITY];
+        this.hashes = new int[INITIAL_CAPACITY];
+        this.scores = new double[INITIAL_CAPACITY];
+        this.table = new int[INITIAL_CAPACITY * 2];
+    }
+
+    /**
+     * Adds {@code score} to the score of {@code sentence}.
+     *
+     * @param sentence
+     * @param score
+     */
+    public void add(String sentence, double score) {
+        final int hash = mix(sentence.hashCode());
+        final int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            final int index = table[slot] - 1;
+            if (hashes[index] == hash && sentences[index].equals(sentence)) {
+                scores[index] += score;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == sentences.length) {
+            sentences = Arrays.copyOf(sentences, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        sentences[size] = sentence;
+        hashes[size] = hash;
+        scores[size] = score;
+        table[slot] = ++size;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        final int mask = table.length - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = hashes[index] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+        }
+    }
+
+    /**
+     * Spreads the bits of {@code String.hashCode()}, which are poorly
+     * distributed in the lower bits.
+     */
+    private static int mix(int h) {
+        h *= 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the number of distinct sentences.
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the {@code k} sentences with the highest summed score, best
+     * first.
+     *
+     * @param k
+     * @return
+     */
+    public StringScore[] getTopK(int k) {
+        final int[] top = topK(scores, size, k);
+        final StringScore[] topSentences = new StringScore[top.length];
+        for (int i = 0; i < top.length; i++) {
+            topSentences[i] = new StringScore(sentences[top[i]], scores[top[i]]);
+        }
+        return topSentences;
+    }
+
+    /**
+     * Returns the indexes of the {@code k} highest of the first {@code n}
+     * {@code scores}, best first. Of equal scores, the lower index is ranked
+     * higher.
+     *
+     * @param scores
+     * @param n
+     * @param k
+     * @return
+     */
+    public static int[] topK(double[] scores, int n, int k) {
+        final int capacity = Math.max(0, Math.min(k, n));
+        // min-heap, the root is the worst of the best indexes found so far
+        final int[] heap = new int[capacity];
+        int heapSize = 0;
+        for (int i = 0; i < n && capacity > 0; i++) {
+            if (heapSize < capacity) {
+                heap[heapSize] = i;
+                siftUp(heap, heapSize++, scores);
+            } else if (isWorse(heap[0], i, scores)) {
+                heap[0] = i;
+                siftDown(heap, heapSize, scores);
+            }
+        }
+
+        // remove the worst index until the heap is empty, thus the result is filled from the end
+        final int[] top = new int[heapSize];
+        while (heapSize > 0) {
+            top[heapSize - 1] = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, scores);
+        }
+        return top;
+    }
+
+    private static boolean isWorse(int a, int b, double[] scores) {
+        final int c = Double.compare(scores[a], scores[b]);
+        return c != 0 ? c < 0 : a > b;
+    }
+
+    private static void siftUp(int[] heap, int pos, double[] scores) {
+        final int index = heap[pos];
+        while (pos > 0) {
+            final int parent = (pos - 1) >>> 1;
+            if (!isWorse(index, heap[parent], scores)) {
+                break;
+            }
+            heap[pos] = heap[parent];
+            pos = parent;
+        }
+        heap[pos] = index;
+    }
+
+    private static void siftDown(int[] heap, int heapSize, double[] scores) {
+        if (heapSize == 0) {
+            return;
+        }
+        final int index = heap[0];
+        int pos = 0;
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && isWorse(heap[child + 1], heap[child], scores)) {
+                child++;
+            }
+            if (!isWorse(heap[child], index, scores)) {
+                break;
+            }
+            heap[pos] = heap[child];
+            pos = child;
+        }
+        heap[pos] = index;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.lucene.summarizer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedSet;
+import kn.uni.hamborg.utils.MapUtils;
+
+/**
+ * Compares the time of ranking the sentences of a cell with
+ * {@link SentenceRanking} and with the former merging of a hash map per
+ * document ({@link MapUtils#mergeMapsAndSumValuesForEqualKeys(Map, Map)}), for
+ * cells of 30 to 500 synthetic documents.
+ *
+ * JMH is not a dependency of this project, thus this harness follows its
+ * scheme by hand: each combination of implementation and cell size runs in
+ * several forked JVMs, so that the JIT profile of one does not affect the
+ * others. Each fork runs warmup iterations, whose times are dropped, and then
+ * measurement iterations of a fixed duration. The report shows the mean and
+ * standard deviation of the time per cell over the measurement iterations of
+ * all forks.
+ *
+ * Usage:
+ * {@code SentenceRankingBenchmark [forks] [warmup iterations] [measurement iterations] [iteration ms]}
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class SentenceRankingBenchmark {
+
+    private static final int[] NUMBERS_OF_DOCS = {30, 100, 250, 500};
+    private static final int SENTENCES_PER_DOC = 25;
+    // as many sentences as a cell summary has
+    private static final int K = 30;
+    private static final String RANKING = "ranking";
+    private static final String MAPS = "maps";
+    private static final String FORK = "fork";
+
+    /**
+     * The sentences and their scores of each synthetic document. About a
+     * third of the sentences is shared among documents, as in wire stories.
+     */
+    private final String[][] sentences;
+    private final double[][] scores;
+
+    private SentenceRankingBenchmark(int numDocs) {
+        final Random random = new Random(numDocs);
+        sentences = new String[numDocs][];
+        scores = new double[numDocs][];
+        for (int d = 0; d < numDocs; d++) {
+            final Set<String> docSentences = new LinkedHashSet<>();
+            while (docSentences.size() < SENTENCES_PER_DOC) {
+                docSentences.add(random.nextInt(3) == 0
+                        ? "shared sentence " + random.nextInt(numDocs * 2) + " of a wire story that several publishers printed."
+                        : "sentence " + docSentences.size() + " of document " + d + " which only this publisher printed.");
+            }
+            sentences[d] = docSentences.toArray(new String[SENTENCES_PER_DOC]);
+            scores[d] = new double[SENTENCES_PER_DOC];
+            for (int i = 0; i < SENTENCES_PER_DOC; i++) {
+                scores[d][i] = random.nextDouble();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals(FORK)) {
+            runFork(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]),
+                    Integer.parseInt(args[5]));
+            return;
+        }
+        final int forks = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        final int warmupIterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        final int measurementIterations = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        final int iterationMillis = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+
+        final StringBuilder sb = new StringBuilder();
+        sb.append(String.format("top %d sentences of documents with %d sentences each, %d forks x %d iterations of %d ms"
+                + " (after %d warmup iterations), time per cell:%n",
+                K, SENTENCES_PER_DOC, forks, measurementIterations, iterationMillis, warmupIterations));
+        sb.append(String.format("  %10s %24s %24s %8s%n", "documents", "ranking [us]", "maps [us]", "speedup"));
+        for (int numDocs : NUMBERS_OF_DOCS) {
+            new SentenceRankingBenchmark(numDocs).checkSameRanking();
+            final double[] ranking = runForks(RANKING, numDocs, forks, warmupIterations, measurementIterations,
+                    iterationMillis);
+            final double[] maps = runForks(MAPS, numDocs, forks, warmupIterations, measurementIterations,
+                    iterationMillis);
+            sb.append(String.format("  %10d %12.1f +- %8.1f %12.1f +- %8.1f %7.1fx%n", numDocs,
+                    mean(ranking), standardDeviation(ranking), mean(maps), standardDeviation(maps),
+                    mean(maps) / mean(ranking)));
+        }
+        System.out.println(sb);
+    }
+
+    /**
+     * Runs {@code forks} JVMs that measure {@code implementation} and returns
+     * the microseconds per cell of all their measurement iterations.
+     */
+    private static double[] runForks(String implementation, int numDocs, int forks, int warmupIterations,
+            int measurementIterations, int iterationMillis) throws IOException, InterruptedException {
+        final List<Double> micros = new ArrayList<>();
+        for (int fork = 0; fork < forks; fork++) {
+            final Process process = new ProcessBuilder(
+                    new File(System.getProperty("java.home"), "bin/java").getPath(),
+                    "-cp", System.getProperty("java.class.path"),
+                    SentenceRankingBenchmark.class.getName(), FORK, implementation, String.valueOf(numDocs),
+                    String.valueOf(warmupIterations), String.valueOf(measurementIterations),
+                    String.valueOf(iterationMillis))
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    micros.add(Double.parseDouble(line));
+                }
+            }
+            if (process.waitFor() != 0) {
+                throw new IllegalStateException("fork of " + implementation + " for " + numDocs + " documents failed");
+            }
+        }
+        return micros.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     * Runs the iterations of one fork and prints the microseconds per cell of
+     * each measurement iteration.
+     */
+    private static void runFork(String implementation, int numDocs, int warmupIterations, int measurementIterations,
+            int iterationMillis) {
+        final SentenceRankingBenchmark benchmark = new SentenceRankingBenchmark(numDocs);
+        final boolean ranking = implementation.equals(RANKING);
+        for (int i = 0; i < warmupIterations + measurementIterations; i++) {
+            final long end = System.nanoTime() + iterationMillis * 1000000L;
+            long cells = 0;
+            int sink = 0;
+            final long start = System.nanoTime();
+            long now;
+            do {
+                sink += ranking ? benchmark.rank().length : benchmark.mergeMaps().length;
+                cells++;
+                now = System.nanoTime();
+            } while (now < end);
+            if (sink < 0) {
+                // keeps the results alive
+                System.err.println(sink);
+            }
+            if (i >= warmupIterations) {
+                System.out.println((now - start) / 1000.0 / cells);
+            }
+        }
+    }
+
+    /**
+     * Ranks the top {@code K} sentences of each document with
+     * {@link SentenceRanking}.
+     */
+    private StringScore[] rank() {
+        final SentenceRanking ranking = new SentenceRanking();
+        for (int d = 0; d < sentences.length; d++) {
+            for (int i : SentenceRanking.topK(scores[d], SENTENCES_PER_DOC, K)) {
+                ranking.add(sentences[d][i], scores[d][i]);
+            }
+        }
+        return ranking.getTopK(K);
+    }
+
+    /**
+     * Merges a hash map of the top {@code K} sentences per document as
+     * {@link Summarizer#getTopKSentences(String, int)} did before.
+     */
+    private StringScore[] mergeMaps() {
+        Map<String, Double> sentenceScores = new HashMap<>();
+        for (int d = 0; d < sentences.length; d++) {
+            final Map<String, Double> docScores = new HashMap<>();
+            for (int i = 0; i < SENTENCES_PER_DOC; i++) {
+                docScores.put(sentences[d][i], scores[d][i]);
+            }
+            sentenceScores = MapUtils.mergeMapsAndSumValuesForEqualKeys(sentenceScores, firstK(docScores, K));
+        }
+        return firstK(sentenceScores, K).entrySet().stream()
+                .map(e -> new StringScore(e.getKey(), e.getValue()))
+                .toArray(StringScore[]::new);
+    }
+
+    /**
+     * @throws IllegalStateException if both implementations select different
+     * sentences
+     */
+    private void checkSameRanking() {
+        // the order of equal scores differs, thus compare the sorted scores
+        final double[] rankedScores = Arrays.stream(rank()).mapToDouble(StringScore::getScore).sorted().toArray();
+        final double[] mergedScores = Arrays.stream(mergeMaps()).mapToDouble(StringScore::getScore).sorted().toArray();
+        if (rankedScores.length != mergedScores.length) {
+            throw new IllegalStateException("different number of sentences for " + sentences.length + " documents");
+        }
+        for (int i = 0; i < rankedScores.length; i++) {
+            if (Math.abs(rankedScores[i] - mergedScores[i]) > 1e-9) {
+                throw new IllegalStateException("different top sentences for " + sentences.length + " documents");
+            }
+        }
+    }
+
+    /**
+     * The {@code k} best entries of {@code scores}, selected as before.
+     */
+    private static Map<String, Double> firstK(Map<String, Double> scores, int k) {
+        final SortedSet<Map.Entry<String, Double>> sorted = MapUtils.entriesSortedByValues(scores, true);
+        final Map<String, Double> topK = new HashMap<>();
+        for (Map.Entry<String, Double> entry : sorted) {
+            if (topK.size() >= k) {
+                break;
+            }
+            topK.put(entry.getKey(), entry.getValue());
+        }
+        return topK;
+    }
+
+    private static double mean(double[] values) {
+        return Arrays.stream(values).average().orElse(Double.NaN);
+    }
+
+    private static double standardDeviation(double[] values) {
+        final double mean = mean(values);
+        return Math.sqrt(Arrays.stream(values).map(v -> (v - mean) * (v - mean)).sum() / Math.max(1, values.length - 1));
+    }
+}
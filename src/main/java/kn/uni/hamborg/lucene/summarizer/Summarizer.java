@@ -3,19 +3,22 @@
  */
 package kn.uni.hamborg.lucene.summarizer;
 
+import com.google.common.collect.ImmutableSet;
 import kn.uni.hamborg.utils.MapUtils;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import kn.uni.hamborg.adv.AnalysisConfiguration;
-import kn.uni.hamborg.language.analyzers.SentenceSplitter;
+import kn.uni.hamborg.adv.AnalysisSession;
+import kn.uni.hamborg.data.light.LightDoc;
+import kn.uni.hamborg.language.analyzers.SentenceBoundaries;
 import kn.uni.hamborg.utils.IndexUtils;
 import kn.uni.hamborg.utils.DocumentUtils;
 import kn.uni.hamborg.utils.LightDocUtils;
@@ -25,9 +28,12 @@ import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
 
 /**
  * Provides basic functionality to summarize documents.
@@ -40,14 +46,28 @@ public abstract class Summarizer {
 
     private static final int DEFAULT_NUMBER_OF_SENTENCES_THAT_ARE_SUMMARIZED = 10;
 
-    static {
-        initNLP();
-
-    }
-    private static SentenceSplitter sentenceSplitter;
     protected final IndexReader indexReader;
     protected final IndexSearcher indexSearcher;
     protected final Analyzer analyzer;
+    /**
+     * The IDs (within {@code indexReader}) of the documents that are
+     * summarized. If {@code null}, all (live) documents of
+     * {@code indexReader} are summarized.
+     */
+    private final int[] docIds;
+    /**
+     * The stored fields of the documents in {@code docIds} (same order), can
+     * be null.
+     */
+    private final Document[] documents;
+    /**
+     * The user set parameters of the analysis this summarizer is part of.
+     */
+    private final AnalysisSession session;
+    /**
+     * Term frequencies per field, computed at most once per field.
+     */
+    private final Map<String, Map<String, TermFrequency>> termFrequencies = new HashMap<>();
 
     private Map<String, Set<String>> sentenceLightDocIds;
 
@@ -64,6 +84,9 @@ public abstract class Summarizer {
         this.indexReader = IndexUtils.createIndexReader(tmpDir);
         this.indexSearcher = IndexUtils.createIndexSearcher(indexReader);
         this.analyzer = analyzer;
+        this.docIds = null;
+        this.documents = null;
+        this.session = AnalysisSession.DEFAULT;
 
     }
 
@@ -75,9 +98,32 @@ public abstract class Summarizer {
      * @param analyzer
      */
     public Summarizer(IndexReader indexReader, IndexSearcher indexSearcher, Analyzer analyzer) {
+        this(indexReader, indexSearcher, null, null, analyzer, AnalysisSession.DEFAULT);
+    }
+
+    /**
+     * Constructs a Summarizer for a subset of the documents of an existing
+     * index. Term statistics are aggregated from the term vectors stored in
+     * {@code indexReader} (or, for fields without term vectors, by analyzing
+     * the stored text), thus no temporary index needs to be created.
+     *
+     * @param indexReader
+     * @param indexSearcher
+     * @param docIds the documents to summarize, if {@code null} all documents
+     * of {@code indexReader} are summarized.
+     * @param documents the stored fields of {@code docIds} in the same order,
+     * can be null.
+     * @param analyzer
+     * @param session the user set parameters of the analysis.
+     */
+    public Summarizer(IndexReader indexReader, IndexSearcher indexSearcher, int[] docIds,
+            Document[] documents, Analyzer analyzer, AnalysisSession session) {
         this.indexReader = indexReader;
         this.indexSearcher = indexSearcher;
         this.analyzer = analyzer;
+        this.docIds = docIds;
+        this.documents = documents;
+        this.session = session;
 
     }
 
@@ -98,21 +144,9 @@ public abstract class Summarizer {
         this.indexReader = IndexUtils.createIndexReader(tmpDir);
         this.indexSearcher = IndexUtils.createIndexSearcher(indexReader);
         this.analyzer = analyzer;
-    }
-
-    /**
-     * Initializes OpenNLP & CoreNLP components.
-     */
-    private static void initNLP() {
-        try {
-            sentenceSplitter = new SentenceSplitter();
-            // Tokenizer tokenizer = new TokenizerME(new TokenizerModel(new File("opennlpmodels/" + lang + "-token.bin")));
-            // POSTagger posTagger = new POSTaggerME(new POSModel(new File("opennlpmodels/" + lang + "-pos-maxent.bin")));
-            LOG.info("initialized NLP components successfully");
-        } catch (IOException ioe) {
-            LOG.log(Level.SEVERE, "initialization of OpenNLP components failed", ioe);
-            throw new RuntimeException();
-        }
+        this.docIds = null;
+        this.documents = null;
+        this.session = AnalysisSession.DEFAULT;
     }
 
     /**
@@ -167,17 +201,16 @@ public abstract class Summarizer {
             final Map<String, Double> termScore) throws IOException {
         //  final Analyzer analyzer = AnalyzerFactory.createAnalyzerForField(fieldname);
 
-        Bits liveDocs = MultiFields.getLiveDocs(indexReader);
-        // save the sentence and the score
-        Map<String, Double> topSentenceScore = new HashMap<>();
+        final int[] summarizedDocIds = getDocIds();
+        // the summed score of each sentence over all documents
+        final SentenceRanking ranking = new SentenceRanking();
         // save the sentence and the light doc ids
         sentenceLightDocIds = new HashMap<>();
-        for (int i = 0; i < indexReader.maxDoc(); i++) {
-            if (liveDocs != null && !liveDocs.get(i)) {
-                continue;
-            }
-            Document doc = indexReader.document(i);
-            String docText = doc.get(fieldname);
+        for (int i = 0; i < summarizedDocIds.length; i++) {
+            Document doc = documents != null ? documents[i]
+                    : indexReader.document(summarizedDocIds[i], ImmutableSet.of(LightDoc.getStoredField(fieldname),
+                            LightDoc.getSentencesField(fieldname), LightDoc.ID));
+            String docText = doc.get(LightDoc.getStoredField(fieldname));
             Set<String> lightDocIds = sentenceLightDocIds.get(docText);
             if (lightDocIds == null) {
                 lightDocIds = new HashSet<>();
@@ -185,26 +218,10 @@ public abstract class Summarizer {
             }
             lightDocIds.add(LightDocUtils.getId(doc));
 
-            topSentenceScore = MapUtils.mergeMapsAndSumValuesForEqualKeys(
-                    topSentenceScore,
-                    getTopSentencesFromDocumentText(termScore, docText, k));
+            addTopSentences(ranking, termScore, SentenceBoundaries.getSentences(doc, fieldname), k);
         }
 
-        SortedSet<Map.Entry<String, Double>> ss
-                = MapUtils.entriesSortedByValues(topSentenceScore, true);
-        List<StringScore> topKSentences = new ArrayList<>();
-
-        int curCount = k;
-        for (Map.Entry<String, Double> entrySet : ss) {
-            if (curCount <= 0) {
-                break;
-            }
-            String key = entrySet.getKey();
-            Double score = entrySet.getValue();
-            topKSentences.add(new StringScore(key, score));
-            curCount--;
-        }
-        return topKSentences.toArray(new StringScore[0]);
+        return ranking.getTopK(k);
     }
 
     /**
@@ -241,11 +258,19 @@ public abstract class Summarizer {
         return score;
     }
 
-    protected Map<String, Double> getTopSentencesFromDocumentText(
-            Map<String, Double> termTfidf, String text, int k) {
-
-        final Map<String, Double> sentenceScore = new HashMap<>();
-        final String[] sentences = sentenceSplitter.splitSentences(text);
+    /**
+     * Adds the top {@code k} of the {@code sentences} of a document to
+     * {@code ranking}. Of equally scored sentences, the one occurring first in
+     * the document is preferred.
+     *
+     * @param ranking
+     * @param termTfidf
+     * @param sentences the sentences of the document, see
+     * {@link SentenceBoundaries#getSentences(Document, String)}
+     * @param k
+     */
+    protected void addTopSentences(SentenceRanking ranking,
+            Map<String, Double> termTfidf, String[] sentences, int k) {
 
         /**
          * If this is true, the sentences will get an additional, artifical
@@ -257,39 +282,166 @@ public abstract class Summarizer {
          * If two sentence have the same position within a document, their
          * actual summarization score will decide.
          */
-        final boolean orderSentencesByFirstOccurenceInDoc = AnalysisConfiguration.summarization_OrderSentencesByFirstOccurenceInDoc;
+        final boolean orderSentencesByFirstOccurenceInDoc = session.isSummarization_OrderSentencesByFirstOccurenceInDoc();
         final double positionScoreFactor = AnalysisConfiguration.summarization_OrderSentencesByFirstOccurenceInDoc_PositionScoreFactor;
         /**
          * According to Lin2002Single we keep only first k (=10) sentences or
          * all.
          */
-        final int firstKSentences_k = AnalysisConfiguration.summarization_Lin2002Single_FirstSentencesOnly ? DEFAULT_NUMBER_OF_SENTENCES_THAT_ARE_SUMMARIZED : Integer.MAX_VALUE;
-
-        for (int i = 0; i < Math.min(firstKSentences_k, sentences.length); i++) {
-            final String sentence = sentences[i];
-
-            double score = scoreSentence(sentence, termTfidf);
+        final int firstKSentences_k = session.isSummarization_Lin2002Single_FirstSentencesOnly() ? DEFAULT_NUMBER_OF_SENTENCES_THAT_ARE_SUMMARIZED : Integer.MAX_VALUE;
+
+        final int numSentences = Math.min(firstKSentences_k, sentences.length);
+        // a sentence occurring several times in the document is only scored at its last position
+        final Set<String> laterSentences = new HashSet<>();
+        final int[] positions = new int[numSentences];
+        int numDistinct = 0;
+        for (int i = numSentences - 1; i >= 0; i--) {
+            if (laterSentences.add(sentences[i])) {
+                positions[numDistinct++] = i;
+            }
+        }
+        // ascending positions, thus ties are broken by first occurrence
+        final double[] scores = new double[numDistinct];
+        for (int j = 0, l = numDistinct - 1; j < l; j++, l--) {
+            final int tmp = positions[j];
+            positions[j] = positions[l];
+            positions[l] = tmp;
+        }
+        for (int j = 0; j < numDistinct; j++) {
+            final int i = positions[j];
+            double score = scoreSentence(sentences[i], termTfidf);
             if (orderSentencesByFirstOccurenceInDoc) {
                 // the greater i (the position of the sentence within the document), the less the additional position score
                 score += positionScoreFactor / (i + 1.0);
             }
-            sentenceScore.put(sentence, score);
+            scores[j] = score;
+        }
+
+        for (int j : SentenceRanking.topK(scores, numDistinct, k)) {
+            ranking.add(sentences[positions[j]], scores[j]);
+        }
+    }
+
+    /**
+     * Returns the IDs of the documents that are summarized.
+     *
+     * @return
+     */
+    protected int[] getDocIds() {
+        if (docIds != null) {
+            return docIds;
+        }
+
+        final Bits liveDocs = MultiFields.getLiveDocs(indexReader);
+        final int[] allDocIds = new int[indexReader.numDocs()];
+        for (int i = 0, j = 0; i < indexReader.maxDoc(); i++) {
+            if (liveDocs == null || liveDocs.get(i)) {
+                allDocIds[j++] = i;
+            }
         }
+        return allDocIds;
+    }
 
-        SortedSet<Map.Entry<String, Double>> ss
-                = MapUtils.entriesSortedByValues(sentenceScore, true);
-        Map<String, Double> topKSentences = new HashMap<>();
+    /**
+     * Returns the number of documents that are summarized.
+     *
+     * @return
+     */
+    protected int getNumberOfDocuments() {
+        return docIds != null ? docIds.length : indexReader.numDocs();
+    }
 
-        for (Map.Entry<String, Double> entrySet : ss) {
-            if (k <= 0) {
-                break;
+    /**
+     * Returns for each term of {@code field} how often it occurs in the
+     * summarized documents and in how many of them.
+     *
+     * @param field
+     * @return
+     * @throws IOException
+     */
+    protected Map<String, TermFrequency> getTermFrequencies(final String field) throws IOException {
+        Map<String, TermFrequency> frequencies = termFrequencies.get(field);
+        if (frequencies == null) {
+            frequencies = docIds == null ? computeTermFrequenciesFromIndex(field) : computeTermFrequenciesFromDocuments(field);
+            termFrequencies.put(field, frequencies);
+        }
+        return frequencies;
+    }
+
+    /**
+     * Reads the term frequencies from the terms dictionary of the whole
+     * {@code indexReader}.
+     *
+     * @param field
+     * @return
+     * @throws IOException
+     */
+    private Map<String, TermFrequency> computeTermFrequenciesFromIndex(final String field) throws IOException {
+        final Map<String, TermFrequency> frequencies = new HashMap<>();
+        final Terms terms = MultiFields.getTerms(indexReader, field);
+        if (terms == null) {
+            return frequencies;
+        }
+
+        final TermsEnum termEnum = terms.iterator(null);
+        BytesRef term;
+        while ((term = termEnum.next()) != null) {
+            frequencies.put(term.utf8ToString(), new TermFrequency(termEnum.totalTermFreq(), termEnum.docFreq()));
+        }
+        return frequencies;
+    }
+
+    /**
+     * Aggregates the term frequencies of the summarized documents from their
+     * term vectors. If a document has no term vector for {@code field}, its
+     * stored text is analyzed instead.
+     *
+     * @param field
+     * @return
+     * @throws IOException
+     */
+    private Map<String, TermFrequency> computeTermFrequenciesFromDocuments(final String field) throws IOException {
+        final Map<String, TermFrequency> frequencies = new HashMap<>();
+        for (int i = 0; i < docIds.length; i++) {
+            final Terms termVector = indexReader.getTermVector(docIds[i], field);
+            if (termVector != null) {
+                final TermsEnum termEnum = termVector.iterator(null);
+                BytesRef term;
+                while ((term = termEnum.next()) != null) {
+                    addTermFrequency(frequencies, term.utf8ToString(), termEnum.totalTermFreq());
+                }
+            } else {
+                final String storedField = LightDoc.getStoredField(field);
+                final Document doc = documents != null ? documents[i]
+                        : indexReader.document(docIds[i], Collections.singleton(storedField));
+                final String text = doc.get(storedField);
+                if (text == null) {
+                    continue;
+                }
+                final Map<String, Long> docFreqs = new HashMap<>();
+                try (TokenStream ts = analyzer.tokenStream(field, text)) {
+                    final CharTermAttribute termAtt = ts.addAttribute(CharTermAttribute.class);
+                    ts.reset();
+                    while (ts.incrementToken()) {
+                        docFreqs.merge(termAtt.toString(), 1L, Long::sum);
+                    }
+                    ts.end();
+                }
+                for (Map.Entry<String, Long> entry : docFreqs.entrySet()) {
+                    addTermFrequency(frequencies, entry.getKey(), entry.getValue());
+                }
             }
-            String key = entrySet.getKey();
-            topKSentences.put(key, entrySet.getValue());
-            k--;
         }
+        return frequencies;
+    }
 
-        return topKSentences;
+    private static void addTermFrequency(Map<String, TermFrequency> frequencies, String term, long freq) {
+        TermFrequency termFrequency = frequencies.get(term);
+        if (termFrequency == null) {
+            termFrequency = new TermFrequency();
+            frequencies.put(term, termFrequency);
+        }
+        termFrequency.addDocument(freq);
     }
 
     public Map<String, Set<String>> getSentenceLightDocIds() {
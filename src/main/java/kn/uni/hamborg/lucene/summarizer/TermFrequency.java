@@ -0,0 +1,52 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.lucene.summarizer;
+
+import java.util.logging.Logger;
+
+/**
+ * Represents the frequencies of a term within a set of documents, i.e., how
+ * often it occurs in total (TTF) and in how many documents it occurs (DF).
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class TermFrequency {
+
+    private static final Logger LOG = Logger.getLogger(TermFrequency.class.getSimpleName());
+
+    private long totalTermFreq;
+    private long docFreq;
+
+    public TermFrequency() {
+        this(0, 0);
+    }
+
+    public TermFrequency(long totalTermFreq, long docFreq) {
+        this.totalTermFreq = totalTermFreq;
+        this.docFreq = docFreq;
+    }
+
+    /**
+     * Adds the occurrences of the term in one more document.
+     *
+     * @param freq
+     */
+    public void addDocument(long freq) {
+        totalTermFreq += freq;
+        docFreq++;
+    }
+
+    public long getTotalTermFreq() {
+        return totalTermFreq;
+    }
+
+    public long getDocFreq() {
+        return docFreq;
+    }
+
+    @Override
+    public String toString() {
+        return "[ttf=" + totalTermFreq + ", df=" + docFreq + "]";
+    }
+}
@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
+import kn.uni.hamborg.adv.AnalysisSession;
 import kn.uni.hamborg.adv.topic.TopicScore;
 import kn.uni.hamborg.adv.topic.TopicUtils;
 import org.apache.lucene.analysis.Analyzer;
@@ -31,6 +32,12 @@ public class TopicTtfIdfSummarizer extends TtfidfSummarizer {
         this.topics = topics;
     }
 
+    public TopicTtfIdfSummarizer(IndexReader indexReader, IndexSearcher indexSearcher, int[] docIds,
+            Document[] documents, Analyzer analyzer, AnalysisSession session, List<TopicScore> topics) {
+        super(indexReader, indexSearcher, docIds, documents, analyzer, session);
+        this.topics = topics;
+    }
+
     public TopicTtfIdfSummarizer(Document[] documents, Analyzer analyzer, List<TopicScore> topics) throws IOException {
         super(documents, analyzer);
         this.topics = topics;
@@ -7,18 +7,13 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Logger;
+import kn.uni.hamborg.adv.AnalysisSession;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.index.DocsEnum;
 import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.MultiFields;
-import org.apache.lucene.index.Term;
-import org.apache.lucene.index.Terms;
-import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.similarities.DefaultSimilarity;
 import org.apache.lucene.search.similarities.TFIDFSimilarity;
-import org.apache.lucene.util.BytesRef;
 
 /**
  * Provides functionality to summarize Documents based on a simple TTF-IDF
@@ -36,6 +31,11 @@ public class TtfidfSummarizer extends Summarizer {
         super(indexReader, indexSearcher, analyzer);
     }
 
+    public TtfidfSummarizer(IndexReader indexReader, IndexSearcher indexSearcher, int[] docIds,
+            Document[] documents, Analyzer analyzer, AnalysisSession session) {
+        super(indexReader, indexSearcher, docIds, documents, analyzer, session);
+    }
+
     public TtfidfSummarizer(Document[] documents, Analyzer analyzer) throws IOException {
         super(documents, analyzer);
     }
@@ -56,18 +56,14 @@ public class TtfidfSummarizer extends Summarizer {
      */
     @Override
     protected Map<String, Double> calculateTermScore(final String field) throws IOException {
-        Terms terms = MultiFields.getTerms(indexReader, field);
-        TermsEnum termEnum = terms.iterator(null);
-        BytesRef term = null;
         Map<String, Double> termTfidf = new HashMap<>();
-        int docCount = indexReader.numDocs();
+        int docCount = getNumberOfDocuments();
 
-        while ((term = termEnum.next()) != null) {
-            String termText = term.utf8ToString();
-            Term termInstance = new Term(field, term);
+        for (Map.Entry<String, TermFrequency> entry : getTermFrequencies(field).entrySet()) {
+            String termText = entry.getKey();
             // term and doc frequency in all documents
-            long indexTf = indexReader.totalTermFreq(termInstance);
-            long indexDf = indexReader.docFreq(termInstance);
+            long indexTf = entry.getValue().getTotalTermFreq();
+            long indexDf = entry.getValue().getDocFreq();
             // term frequency in this document
             // long curTf = itr.totalTermFreq();
             double tfidf = tfidfSimilarity.tf(indexTf) * tfidfSimilarity.idf(indexDf, docCount);
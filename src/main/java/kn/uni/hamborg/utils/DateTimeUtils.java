@@ -21,6 +21,34 @@ public class DateTimeUtils {
      */
     public static final DateTimeFormatter simpleDateTimeFormatter = DateTimeFormat.forPattern("YYYYMMdd");
 
+    /**
+     * Length of a day in milliseconds, ignoring leap seconds and daylight
+     * saving time as UTC does.
+     */
+    public static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    /**
+     * Returns the day (UTC) of {@code millis} as number of days since the
+     * epoch.
+     *
+     * @param millis
+     * @return
+     */
+    public static long toDayOrdinal(long millis) {
+        return Math.floorDiv(millis, DAY_MILLIS);
+    }
+
+    /**
+     * Returns the start (UTC) of the day {@code dayOrdinal} in milliseconds,
+     * see {@link #toDayOrdinal(long)}.
+     *
+     * @param dayOrdinal
+     * @return
+     */
+    public static long fromDayOrdinal(long dayOrdinal) {
+        return dayOrdinal * DAY_MILLIS;
+    }
+
     public static String toYMDString(DateTime d) {
         return simpleDateTimeFormatter.print(d);
     }
@@ -6,6 +6,7 @@ package kn.uni.hamborg.utils;
 import java.io.IOException;
 import java.util.List;
 import java.util.logging.Logger;
+import kn.uni.hamborg.data.light.LightDoc;
 import kn.uni.hamborg.lucene.field.VecTextField;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
@@ -47,7 +48,7 @@ public class DocumentUtils {
     public static String getConcatenatedContent(Document[] docs, String fieldname) {
         final StringBuilder sb = new StringBuilder();
         for (Document doc : docs) {
-            sb.append(doc.get(fieldname));
+            sb.append(doc.get(LightDoc.getStoredField(fieldname)));
             sb.append(System.lineSeparator());
         }
 
@@ -3,12 +3,17 @@
  */
 package kn.uni.hamborg.utils;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import kn.uni.hamborg.lucene.analyzer.AnalyzerFactory;
+import kn.uni.hamborg.lucene.index.IndexSchema;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.DirectoryReader;
@@ -16,6 +21,7 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.RAMDirectory;
@@ -42,12 +48,12 @@ public class IndexUtils {
 
     /**
      * Creates a default IndexWriterConfig with our custom {@link Analyzer} from
-     * {@link  AnalyzerFactory}.
+     * {@link  AnalyzerFactory} and the codec of {@link IndexSchema#DEFAULT}.
      *
      * @return
      */
     public static IndexWriterConfig createIndexWriterConfig() {
-        return new IndexWriterConfig(AnalyzerFactory.createCustomAnalyzer());
+        return IndexSchema.DEFAULT.configure(new IndexWriterConfig(AnalyzerFactory.createCustomAnalyzer()));
     }
 
     /**
@@ -107,6 +113,32 @@ public class IndexUtils {
         return new IndexSearcher(reader);
     }
 
+    /**
+     * Creates a {@link SearcherManager} for {@code dir} that is refreshed
+     * every {@code refreshIntervalSeconds} in a background thread, so that
+     * searchers acquired from it see the changes committed to {@code dir}
+     * meanwhile, e.g., by {@link kn.uni.hamborg.lucene.index.EMMDataSetIndexer#watchDirectory(java.io.File, java.io.File)}.
+     *
+     * @param dir
+     * @param refreshIntervalSeconds
+     * @return
+     * @throws IOException
+     */
+    public static SearcherManager createRefreshingSearcherManager(final Directory dir, final int refreshIntervalSeconds) throws IOException {
+        final SearcherManager searcherManager = new SearcherManager(dir, null);
+        final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("index-refresh-%d").setDaemon(true).build());
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                searcherManager.maybeRefresh();
+            } catch (IOException ex) {
+                LOG.log(Level.WARNING, "could not refresh index", ex);
+            }
+        }, refreshIntervalSeconds, refreshIntervalSeconds, TimeUnit.SECONDS);
+        LOG.log(Level.INFO, "refreshing index every {0} seconds", refreshIntervalSeconds);
+        return searcherManager;
+    }
+
     /**
      * Opens a Lucene {@link Directory}.
      *
@@ -0,0 +1,132 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.utils;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * MinHash signatures of texts and their locality sensitive hashing (LSH)
+ * bands. The signature of a text consists of the minimum hash values of its
+ * word shingles under several hash functions; the share of equal values of two
+ * signatures estimates the Jaccard similarity of the shingle sets. Two texts
+ * share at least one band (a group of {@code rowsPerBand} values) with high
+ * probability if they are similar and with low probability otherwise.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class MinHash {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final long[] seeds;
+    private final int shingleSize;
+
+    /**
+     *
+     * @param numHashes length of a signature
+     * @param shingleSize number of words of each shingle
+     * @param seed the same seed results in the same hash functions
+     */
+    public MinHash(int numHashes, int shingleSize, long seed) {
+        final Random random = new Random(seed);
+        this.seeds = new long[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            seeds[i] = random.nextLong();
+        }
+        this.shingleSize = shingleSize;
+    }
+
+    /**
+     * Returns the signature of {@code text}.
+     *
+     * @param text
+     * @return an empty array if {@code text} has no words.
+     */
+    public long[] signature(String text) {
+        if (text == null) {
+            return new long[0];
+        }
+        // split yields an empty first token if the text starts with a non-word character
+        final String[] tokens = NON_WORD.split(text.toLowerCase(Locale.ENGLISH));
+        final String[] words = new String[tokens.length];
+        int numWords = 0;
+        for (String token : tokens) {
+            if (!token.isEmpty()) {
+                words[numWords++] = token;
+            }
+        }
+        if (numWords == 0) {
+            return new long[0];
+        }
+
+        final long[] signature = new long[seeds.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        final int numShingles = Math.max(1, numWords - shingleSize + 1);
+        final StringBuilder sb = new StringBuilder();
+        for (int s = 0; s < numShingles; s++) {
+            sb.setLength(0);
+            for (int w = s; w < Math.min(numWords, s + shingleSize); w++) {
+                sb.append(words[w]).append(' ');
+            }
+            final long shingleHash = hash64(sb);
+            for (int i = 0; i < seeds.length; i++) {
+                final long h = mix64(shingleHash ^ seeds[i]);
+                if (h < signature[i]) {
+                    signature[i] = h;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Returns the key of each band of {@code signature}, the band index is
+     * part of the key.
+     *
+     * @param signature
+     * @param rowsPerBand
+     * @return
+     */
+    public static long[] bands(long[] signature, int rowsPerBand) {
+        final long[] bands = new long[signature.length / rowsPerBand];
+        for (int b = 0; b < bands.length; b++) {
+            long h = b;
+            for (int r = 0; r < rowsPerBand; r++) {
+                h = mix64(h * 31 + signature[b * rowsPerBand + r]);
+            }
+            bands[b] = h;
+        }
+        return bands;
+    }
+
+    /**
+     * 64 bit FNV-1a hash of {@code s}.
+     *
+     * @param s
+     * @return
+     */
+    public static long hash64(CharSequence s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * The finalization step of MurmurHash3, spreads the bits of {@code h}.
+     */
+    private static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -18,14 +18,18 @@ import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.NumericRangeQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.SimpleCollector;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.FixedBitSet;
 import org.joda.time.DateTime;
 
 /**
@@ -154,9 +158,25 @@ public class QueryUtils {
         return docs;
     }
 
+    /**
+     * Returns the document IDs of the scoredocs.
+     *
+     * @param scoredocs
+     * @return
+     */
+    public static int[] scoreDocsToDocIds(ScoreDoc[] scoredocs) {
+        int[] docIds = new int[scoredocs.length];
+        for (int i = 0; i < docIds.length; i++) {
+            docIds[i] = scoredocs[i].doc;
+        }
+        return docIds;
+    }
+
     /**
      * Returns the number of documents matching the query in the Index behind
-     * IndexSearcher
+     * IndexSearcher. The query is wrapped into a {@link ConstantScoreQuery}
+     * and collected by a {@link TotalHitCountCollector}, so no scores are
+     * computed and no hits are materialized.
      *
      * @param query
      * @param indexSearcher
@@ -164,10 +184,71 @@ public class QueryUtils {
      */
     public static int getCountDocsMatchingQuery(Query query, IndexSearcher indexSearcher) {
         try {
-            return indexSearcher.search(query, Integer.MAX_VALUE).scoreDocs.length;
+            final TotalHitCountCollector collector = new TotalHitCountCollector();
+            indexSearcher.search(new ConstantScoreQuery(query), collector);
+            return collector.getTotalHits();
+        } catch (IOException io) {
+            throw new RuntimeException(io);
+        }
+    }
+
+    /**
+     * Returns the set of (top-level) document IDs matching the query in the
+     * Index behind IndexSearcher. No scores are computed.
+     *
+     * @param query
+     * @param indexSearcher
+     * @return
+     */
+    public static FixedBitSet getDocIdSetMatchingQuery(Query query, IndexSearcher indexSearcher) {
+        return getDocIdSetMatchingQuery(new ConstantScoreQuery(query), indexSearcher, null);
+    }
+
+    /**
+     * Returns the set of (top-level) document IDs matching the query in the
+     * Index behind IndexSearcher. If {@code scores} is not null, the score of
+     * each matching document is stored in it at the document's ID, thus it
+     * needs to be at least of length {@link IndexReader#maxDoc()}.
+     *
+     * @param query
+     * @param indexSearcher
+     * @param scores can be null
+     * @return
+     */
+    public static FixedBitSet getDocIdSetMatchingQuery(Query query, IndexSearcher indexSearcher, final float[] scores) {
+        final FixedBitSet bits = new FixedBitSet(indexSearcher.getIndexReader().maxDoc());
+        try {
+            indexSearcher.search(query, new SimpleCollector() {
+                private int docBase;
+                private Scorer scorer;
+
+                @Override
+                protected void doSetNextReader(LeafReaderContext context) throws IOException {
+                    docBase = context.docBase;
+                }
+
+                @Override
+                public void setScorer(Scorer scorer) throws IOException {
+                    this.scorer = scorer;
+                }
+
+                @Override
+                public void collect(int doc) throws IOException {
+                    bits.set(docBase + doc);
+                    if (scores != null) {
+                        scores[docBase + doc] = scorer.score();
+                    }
+                }
+
+                @Override
+                public boolean needsScores() {
+                    return scores != null;
+                }
+            });
         } catch (IOException io) {
             throw new RuntimeException(io);
         }
+        return bits;
     }
 
     public static void main(String[] args) throws Exception {
@@ -3,6 +3,14 @@
  */
 package kn.uni.hamborg.utils;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -23,4 +31,56 @@ public class ThreadUtils {
             return false;
         }
     }
+
+    /**
+     * Creates an {@link ExecutorService} with a fixed number of daemon worker
+     * threads, which are named {@code [name]-[number]}.
+     *
+     * @param name
+     * @param numberOfThreads
+     * @return
+     */
+    public static ExecutorService createFixedThreadPool(String name, int numberOfThreads) {
+        return Executors.newFixedThreadPool(numberOfThreads,
+                new ThreadFactoryBuilder().setNameFormat(name + "-%d").setDaemon(true).build());
+    }
+
+    /**
+     * Executes all {@code tasks} and returns their results in the same order as
+     * the tasks. If {@code executorService} is {@code null}, the tasks are
+     * executed sequentially in the calling thread. Exceptions thrown by a task
+     * are rethrown as {@link RuntimeException}.
+     *
+     * @param <T>
+     * @param executorService can be null
+     * @param tasks
+     * @return
+     */
+    public static <T> List<T> invokeAll(ExecutorService executorService, List<Callable<T>> tasks) {
+        final List<T> results = new ArrayList<>(tasks.size());
+        try {
+            if (executorService == null) {
+                for (Callable<T> task : tasks) {
+                    results.add(task.call());
+                }
+            } else {
+                for (Future<T> future : executorService.invokeAll(tasks)) {
+                    results.add(future.get());
+                }
+            }
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new RuntimeException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+        return results;
+    }
 }
@@ -12,11 +12,13 @@ import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import kn.uni.hamborg.adv.AnalysisProcessor;
+import kn.uni.hamborg.adv.AnalysisWorkflow;
 import kn.uni.hamborg.data.light.LightDoc;
 import kn.uni.hamborg.utils.IndexUtils;
 import kn.uni.hamborg.utils.LightDocUtils;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
 import static spark.Spark.get;
@@ -42,9 +44,11 @@ public class ArticleController {
      */
     private static Article getArticleFromId(AnalysisProcessor analysisProcessor, String id) throws IOException {
         final Query q = new TermQuery(new Term(LightDoc.ID, id));
+        final AnalysisWorkflow workflow = analysisProcessor.getAnalysisWorkflow();
+        final IndexSearcher searcher = workflow.acquireSearcher();
         try {
-            final int docId = analysisProcessor.getAnalysisWorkflow().getIndexSearcher().search(q, 1).scoreDocs[0].doc;
-            final Document doc = IndexUtils.getDocsByDocId(analysisProcessor.getAnalysisWorkflow().getIndexReader(), new int[]{docId})[0];
+            final int docId = searcher.search(q, 1).scoreDocs[0].doc;
+            final Document doc = IndexUtils.getDocsByDocId(searcher.getIndexReader(), new int[]{docId})[0];
             return new Article(LightDocUtils.getTitle(doc),
                     LightDocUtils.getContent(doc),
                     LightDocUtils.getDescription(doc),
@@ -58,6 +62,8 @@ public class ArticleController {
             }
             //throw e;
             return null;
+        } finally {
+            workflow.releaseSearcher(searcher);
         }
     }
 
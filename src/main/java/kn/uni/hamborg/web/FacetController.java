@@ -0,0 +1,105 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.web;
+
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import kn.uni.hamborg.adv.AnalysisProcessor;
+import kn.uni.hamborg.adv.AnalysisWorkflow;
+import kn.uni.hamborg.data.light.LightDoc;
+import kn.uni.hamborg.lucene.analyzer.QueryParserFactory;
+import kn.uni.hamborg.lucene.search.FacetCounts;
+import kn.uni.hamborg.utils.DateTimeUtils;
+import kn.uni.hamborg.utils.QueryUtils;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormatter;
+import static spark.Spark.get;
+import static spark.Spark.halt;
+
+/**
+ * Provides the number of articles per day, per country and per publisher of a
+ * query, see {@link FacetCounts}.
+ *
+ * Parameters: {@code q} the query (all articles if missing), {@code from} and
+ * {@code to} an optional date range (YYYYMMdd in UTC, both inclusive),
+ * {@code limit} the maximum number of countries and publishers (the most
+ * frequent ones, not negative).
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class FacetController {
+
+    private static final Logger LOG = Logger.getLogger(FacetController.class.getSimpleName());
+
+    private static final String pathPrefix = "/facets";
+    private static final int DEFAULT_LIMIT = 100;
+    /**
+     * Days are counted in UTC (see {@link DateTimeUtils#toDayOrdinal(long)}),
+     * thus the date range is in UTC as well, not in the time zone of the
+     * server.
+     */
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeUtils.simpleDateTimeFormatter.withZoneUTC();
+
+    /**
+     * The facets of a query as sent to the client.
+     */
+    public static class Facets {
+
+        private final int total;
+        private final Map<String, Integer> days;
+        private final Map<String, Integer> countries;
+        private final Map<String, Integer> publishers;
+
+        public Facets(FacetCounts counts, int limit) {
+            this.total = counts.getTotalHits();
+            this.days = counts.getCountsByDayString();
+            this.countries = counts.getCountsByCountry(limit);
+            this.publishers = counts.getCountsByPublisher(limit);
+        }
+    }
+
+    public static void initRoutes(AnalysisProcessor analysisProcessor) {
+        get(pathPrefix, (req, res) -> {
+            final AnalysisWorkflow workflow = analysisProcessor.getAnalysisWorkflow();
+            Query query = new MatchAllDocsQuery();
+            int limit = DEFAULT_LIMIT;
+            try {
+                if (req.queryParams("q") != null && !req.queryParams("q").trim().isEmpty()) {
+                    // query parsers are not thread-safe
+                    query = QueryParserFactory.createQueryParser(workflow.getAnalyzer()).parse(req.queryParams("q"));
+                }
+                if (req.queryParams("from") != null && req.queryParams("to") != null) {
+                    final DateTime from = DATE_FORMATTER.parseDateTime(req.queryParams("from"));
+                    final DateTime to = DateTimeUtils.getEndOfDay(DATE_FORMATTER.parseDateTime(req.queryParams("to")));
+                    query = QueryUtils.addQueryToQuery(query, QueryUtils.createNumericRangeQueryForDate(
+                            LightDoc.PUB_DATE, from, to, true, true));
+                }
+                if (req.queryParams("limit") != null) {
+                    limit = Integer.parseInt(req.queryParams("limit"));
+                    if (limit < 0) {
+                        throw new IllegalArgumentException("limit must not be negative: " + limit);
+                    }
+                }
+            } catch (ParseException | IllegalArgumentException e) {
+                halt(400, "invalid query: " + e.getMessage());
+            }
+
+            final IndexSearcher searcher = workflow.acquireSearcher();
+            try {
+                final long start = System.currentTimeMillis();
+                final FacetCounts counts = FacetCounts.count(searcher, query);
+                LOG.log(Level.INFO, "counted facets of {0} articles in {1} ms",
+                        new Object[]{counts.getTotalHits(), System.currentTimeMillis() - start});
+                return new Facets(counts, limit);
+            } finally {
+                workflow.releaseSearcher(searcher);
+            }
+        }, MainController.JSON_TRANSFORMER);
+    }
+}
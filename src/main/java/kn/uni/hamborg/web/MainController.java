@@ -8,6 +8,7 @@ import java.util.logging.Logger;
 import kn.uni.hamborg.adv.AnalysisProcessor;
 import kn.uni.hamborg.adv.AnalysisWorkflow;
 import kn.uni.hamborg.config.PublicConfig;
+import kn.uni.hamborg.language.analyzers.NLPModelRegistry;
 import kn.uni.hamborg.web.cell.CellInformationController;
 import kn.uni.hamborg.web.images.ImageController;
 import kn.uni.hamborg.web.query.QueryController;
@@ -38,10 +39,12 @@ public class MainController {
         setPort(8080);
         enableCORS("*", "*", "*");
 
+        NLPModelRegistry.preload();
         QueryController.initRoutes(analysisProcessor);
         CellInformationController.initRoutes(analysisProcessor);
         ImageController.initRoutes();
         ArticleController.initRoutes(analysisProcessor);
+        FacetController.initRoutes(analysisProcessor);
     }
 
     /**
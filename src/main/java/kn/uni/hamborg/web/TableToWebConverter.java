@@ -14,6 +14,7 @@ import kn.uni.hamborg.adv.table.FilterDimension;
 import kn.uni.hamborg.adv.table.FilterValue;
 import kn.uni.hamborg.adv.table.TableManager;
 import kn.uni.hamborg.adv.topic.MalletParallelTopicExtractor;
+import kn.uni.hamborg.adv.topic.TopicModelEstimation;
 import kn.uni.hamborg.data.light.LightDoc;
 import kn.uni.hamborg.web.cell.SummaryField;
 
@@ -33,8 +34,21 @@ public class TableToWebConverter {
      */
     private final Gson gson;
 
+    private final TopicModelEstimation topicModelEstimation;
+
     public TableToWebConverter(TableManager tableManager) {
+        this(tableManager, null);
+    }
+
+    /**
+     *
+     * @param tableManager
+     * @param topicModelEstimation how the topics of the matrix have been
+     * computed, added to the matrix information. Can be {@code null}.
+     */
+    public TableToWebConverter(TableManager tableManager, TopicModelEstimation topicModelEstimation) {
         this.tableManager = tableManager;
+        this.topicModelEstimation = topicModelEstimation;
         this.gson = new Gson();
     }
 
@@ -71,7 +85,7 @@ public class TableToWebConverter {
     public String getFullMatrixInformation() {
         // xlabels, xlabels ( both are dimension values)
         // table col row as key and some object as value, which contains summarization sentences
-        FullMatrixInformation fullMatrixInformation = new FullMatrixInformation(getRows(), getColumns(), getMatrixEntries());
+        FullMatrixInformation fullMatrixInformation = new FullMatrixInformation(getRows(), getColumns(), getMatrixEntries(), topicModelEstimation);
 
         return new Gson().toJson(fullMatrixInformation);
     }
@@ -81,11 +95,14 @@ public class TableToWebConverter {
         private final String[] rows;
         private final String[] columns;
         private final MatrixEntry[] matrixEntries;
+        private final TopicModelEstimation topicModel;
 
-        public FullMatrixInformation(String[] dimensionAValues, String[] dimensionBValues, MatrixEntry[] matrixEntries) {
+        public FullMatrixInformation(String[] dimensionAValues, String[] dimensionBValues, MatrixEntry[] matrixEntries,
+                TopicModelEstimation topicModel) {
             this.rows = dimensionAValues;
             this.columns = dimensionBValues;
             this.matrixEntries = matrixEntries;
+            this.topicModel = topicModel;
         }
     }
 
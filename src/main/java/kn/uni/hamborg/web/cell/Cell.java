@@ -4,6 +4,7 @@
 package kn.uni.hamborg.web.cell;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -21,6 +22,10 @@ public class Cell {
 
     private static final Logger LOG = Logger.getLogger(Cell.class.getSimpleName());
 
+    // rough sizes (in bytes) used to estimate the memory usage
+    private static final int OBJECT_OVERHEAD = 16;
+    private static final int REFERENCE_SIZE = 8;
+
     private final String row;
     private final String column;
     private final Object value;
@@ -74,6 +79,53 @@ public class Cell {
         this.topSentencesToLightDocIds = topSentencesToLightDocIds;
     }
 
+    /**
+     * Estimates the number of bytes used by this view, i.e., by its elements,
+     * full sentences, document IDs, topic probabilities and the light doc IDs
+     * of its top sentences. The latter two are shared with the cell and its
+     * summary, but kept by the view after the analysis has been released.
+     * The topics themselves are shared by all cells and thus not counted.
+     *
+     * @return
+     */
+    public int estimateMemoryUsage() {
+        long bytes = OBJECT_OVERHEAD + 16 * REFERENCE_SIZE
+                + estimateMemoryUsage(row) + estimateMemoryUsage(column) + estimateMemoryUsage(query)
+                + estimateMemoryUsage(value) + estimateMemoryUsage(fullSentences)
+                + estimateMemoryUsage(cellDocumentIds) + OBJECT_OVERHEAD + topicIds.size() * (REFERENCE_SIZE + OBJECT_OVERHEAD)
+                + estimateMemoryUsage(topics) + estimateMemoryUsage(topSentencesToLightDocIds);
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static long estimateMemoryUsage(Object o) {
+        if (o instanceof String) {
+            return 2 * OBJECT_OVERHEAD + 8 + 2L * ((String) o).length();
+        } else if (o instanceof StringScore) {
+            return OBJECT_OVERHEAD + 8 + REFERENCE_SIZE + estimateMemoryUsage(((StringScore) o).getValue());
+        } else if (o instanceof TopicScore) {
+            // the topic is only referenced
+            return OBJECT_OVERHEAD + 8 + REFERENCE_SIZE;
+        } else if (o instanceof Map) {
+            final Map<?, ?> m = (Map<?, ?>) o;
+            // the table and an entry (hash, key, value, next) per mapping
+            long bytes = OBJECT_OVERHEAD + m.size() * (long) (REFERENCE_SIZE + OBJECT_OVERHEAD + 4 * REFERENCE_SIZE);
+            for (Map.Entry<?, ?> entry : m.entrySet()) {
+                bytes += estimateMemoryUsage(entry.getKey()) + estimateMemoryUsage(entry.getValue());
+            }
+            return bytes;
+        } else if (o instanceof Collection) {
+            final Collection<?> c = (Collection<?>) o;
+            long bytes = OBJECT_OVERHEAD + c.size() * (long) REFERENCE_SIZE;
+            for (Object element : c) {
+                bytes += estimateMemoryUsage(element);
+            }
+            return bytes;
+        } else if (o == null) {
+            return 0;
+        }
+        return OBJECT_OVERHEAD;
+    }
+
     @Override
     public String toString() {
         return ToStringBuilder.reflectionToString(this);
@@ -3,9 +3,13 @@
  */
 package kn.uni.hamborg.web.query;
 
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.logging.Logger;
+import kn.uni.hamborg.adv.AnalysisConfiguration;
 import kn.uni.hamborg.adv.table.FilterDimension;
+import kn.uni.hamborg.adv.table.FilterValue;
 import kn.uni.hamborg.adv.topic.MalletTopicExtractor;
 import kn.uni.hamborg.adv.topic.TopicExtractor;
 import kn.uni.hamborg.data.light.LightDoc;
@@ -56,13 +60,16 @@ public class QueryCommand {
 
     private final String topicCellDocumentMergeType;
 
+    // whether near-duplicate documents are collapsed to one document in cells and summaries
+    private final boolean collapseDuplicates;
+
     public QueryCommand(FilterDimension rows, FilterDimension columns,
             String dateFrom, String dateTo, int numberOfTopicsPerCell,
             // boolean onlyTopTopicForSummarizationQuery
             boolean summarization_OrderSentencesByFirstOccurenceInDoc,
             boolean summarization_Lin2002Single_FirstSentencesOnly,
             String userFilterFewRequiredTerms, String userFilterAdditionalTerms,
-            String topicField, String topicCellDocumentMergeType,
+            String topicField, String topicCellDocumentMergeType, boolean collapseDuplicates,
             IndexReader indexReader, Analyzer analyzer
     ) {
         try {
@@ -79,6 +86,7 @@ public class QueryCommand {
             this.summarization_Lin2002Single_FirstSentencesOnly = summarization_Lin2002Single_FirstSentencesOnly;
             this.topicField = topicField;
             this.topicCellDocumentMergeType = topicCellDocumentMergeType;
+            this.collapseDuplicates = collapseDuplicates;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -190,6 +198,47 @@ public class QueryCommand {
         return summarization_Lin2002Single_FirstSentencesOnly;
     }
 
+    public boolean isCollapseDuplicates() {
+        return collapseDuplicates;
+    }
+
+    /**
+     * Returns a key identifying the result of this query, i.e., two queries
+     * with equal keys lead to the same matrix. The key is a hash over the
+     * dimensions (the queries of their values in their order, which is also
+     * the order of the matrix information), the filter query (containing the
+     * interval and the user's filter terms) and all analysis parameters.
+     *
+     * @return
+     */
+    public String getCacheKey() {
+        final StringBuilder sb = new StringBuilder();
+        appendDimension(sb, rows);
+        appendDimension(sb, columns);
+        sb.append(filterQuery).append('\n');
+        sb.append(fromTo.getStartMillis()).append('-').append(fromTo.getEndMillis()).append('\n');
+        sb.append(numberOfTopicsPerCell).append('\n');
+        sb.append(topicField).append('\n');
+        sb.append(topicCellDocumentMergeType).append('\n');
+        sb.append(summarization_OrderSentencesByFirstOccurenceInDoc).append('\n');
+        sb.append(summarization_Lin2002Single_FirstSentencesOnly).append('\n');
+        sb.append(collapseDuplicates).append('\n');
+
+        return Hashing.sha256().hashString(sb, StandardCharsets.UTF_8).toString();
+    }
+
+    private static void appendDimension(StringBuilder sb, FilterDimension dimension) {
+        if (dimension == null) {
+            sb.append("null\n");
+            return;
+        }
+        sb.append(dimension.getClass().getSimpleName());
+        for (FilterValue value : dimension) {
+            sb.append('|').append(value.getFilterQuery());
+        }
+        sb.append('\n');
+    }
+
     @Override
     public String toString() {
         return ToStringBuilder.reflectionToString(this);
@@ -259,6 +308,8 @@ public class QueryCommand {
                 w.userFilterAdditionalTerms,
                 w.topicField,
                 w.topicCellDocumentMergeType,
+                w.collapseDuplicates == null
+                        ? AnalysisConfiguration.collapseDuplicatesByDefault : w.collapseDuplicates.equals("true"),
                 indexReader,
                 analyzer
         );
@@ -280,6 +331,15 @@ public class QueryCommand {
         private String userFilterAdditionalTerms;
         private String topicField;
         private String topicCellDocumentMergeType;
+        private String collapseDuplicates;
+
+        public String getCollapseDuplicates() {
+            return collapseDuplicates;
+        }
+
+        public void setCollapseDuplicates(String collapseDuplicates) {
+            this.collapseDuplicates = collapseDuplicates;
+        }
 
         public String getTopicCellDocumentMergeType() {
             return topicCellDocumentMergeType;
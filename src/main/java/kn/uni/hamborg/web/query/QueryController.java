@@ -3,14 +3,21 @@
  */
 package kn.uni.hamborg.web.query;
 
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Logger;
+import kn.uni.hamborg.adv.AnalysisConfiguration;
 import kn.uni.hamborg.adv.AnalysisProcessor;
+import kn.uni.hamborg.adv.AnalysisProgress;
+import kn.uni.hamborg.adv.AnalysisWorkflow;
 import kn.uni.hamborg.web.MainController;
-import kn.uni.hamborg.web.TableToWebConverter;
+import org.apache.lucene.search.IndexSearcher;
+import spark.Request;
 import static spark.Spark.*;
 
 /**
  * This provides functionality to let the client send queries to the server.
+ * Queries are executed asynchronously: a query request returns the status of
+ * the created job, which can then be polled until the result is available.
  *
  * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
  */
@@ -19,25 +26,79 @@ public class QueryController {
     private static final Logger LOG = Logger.getLogger(QueryController.class.getSimpleName());
 
     private static final String urlPrefix = "/query";
+    /**
+     * The response header containing the ID of the analysis of a job, which
+     * can be passed to the cell information requests once the job is
+     * finished.
+     */
+    public static final String ANALYSIS_ID_HEADER = "X-Analysis-Id";
+
+    private static QueryJob getJob(QueryJobManager jobManager, Request req) {
+        final QueryJob job = jobManager.getJob(req.params(":id"));
+        if (job == null) {
+            halt(404, "unknown job: " + req.params(":id"));
+        }
+        return job;
+    }
 
     public static void initRoutes(AnalysisProcessor analysisProcessor) {
+        final QueryJobManager jobManager = new QueryJobManager(analysisProcessor,
+                AnalysisConfiguration.maxConcurrentAnalyses, AnalysisConfiguration.maxQueuedAnalyses);
+
+        /**
+         * Queues the query and returns the status of its job.
+         */
         get(urlPrefix, (req, res) -> {
             QueryCommand.QueryCommandWrapper wrappedQuery = MainController.JSON_TRANSFORMER.getGson().fromJson(req.queryParams("query"), QueryCommand.QueryCommandWrapper.class);
-            QueryCommand queryCommand = QueryCommand.fromWrapper(wrappedQuery,
-                    analysisProcessor.getAnalysisWorkflow().getQueryParser(),
-                    analysisProcessor.getAnalysisWorkflow().getIndexReader(),
-                    analysisProcessor.getAnalysisWorkflow().getAnalyzer());
+            final AnalysisWorkflow workflow = analysisProcessor.getAnalysisWorkflow();
+            final IndexSearcher searcher = workflow.acquireSearcher();
+            final QueryCommand queryCommand;
+            try {
+                queryCommand = QueryCommand.fromWrapper(wrappedQuery,
+                        workflow.getQueryParser(), searcher.getIndexReader(), workflow.getAnalyzer());
+            } finally {
+                workflow.releaseSearcher(searcher);
+            }
             LOG.info(queryCommand.toString());
-            analysisProcessor
-                    .withQuery(queryCommand)
-                    .buildTable()
-                    .computeTopics()
-                    .computeSummaries();
-            //   .computeTokenScoresByParser();
-
-            return new TableToWebConverter(analysisProcessor.getAnalysisWorkflow().getTableManager()).getFullMatrixInformation();
+
+            try {
+                final QueryJob job = jobManager.submit(queryCommand);
+                res.header(ANALYSIS_ID_HEADER, job.getAnalysis().getAnalysisId());
+                return job.getStatus();
+            } catch (RejectedExecutionException e) {
+                halt(503, "too many queries, try again later");
+                return null;
+            }
+        }, MainController.JSON_TRANSFORMER);
+
+        get(urlPrefix + "/jobs/:id", (req, res) -> {
+            return getJob(jobManager, req).getStatus();
+        }, MainController.JSON_TRANSFORMER);
+
+        /**
+         * Returns the full matrix information if the job is finished, otherwise
+         * the status of the job (with status code 202 if it is still running).
+         */
+        get(urlPrefix + "/jobs/:id/result", (req, res) -> {
+            final QueryJob job = getJob(jobManager, req);
+            res.type("application/json");
+            res.header(ANALYSIS_ID_HEADER, job.getAnalysis().getAnalysisId());
+            if (job.getResult() != null) {
+                return job.getResult();
+            }
+
+            final QueryJob.Status status = job.getStatus();
+            res.status(status.getStage() == AnalysisProgress.Stage.FAILED
+                    || status.getStage() == AnalysisProgress.Stage.CANCELLED ? 409 : 202);
+            return MainController.JSON_TRANSFORMER.render(status);
         });
 
+        delete(urlPrefix + "/jobs/:id", (req, res) -> {
+            final QueryJob job = getJob(jobManager, req);
+            job.cancel();
+            return job.getStatus();
+        }, MainController.JSON_TRANSFORMER);
+
         get(urlPrefix + "/options", (req, res) -> {
             return new QueryOptions();
         }, MainController.JSON_TRANSFORMER);
@@ -0,0 +1,291 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.web.query;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import kn.uni.hamborg.adv.AnalysisProcessor;
+import kn.uni.hamborg.adv.AnalysisProgress;
+import kn.uni.hamborg.web.TableToWebConverter;
+import org.apache.commons.io.FileUtils;
+import org.joda.time.DateTime;
+
+/**
+ * A query of a client, i.e., the analysis of a matrix, that is executed
+ * asynchronously by the {@link QueryJobManager}. The ID of the job is the ID
+ * of its analysis.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class QueryJob implements Runnable {
+
+    private static final Logger LOG = Logger.getLogger(QueryJob.class.getSimpleName());
+
+    private final AnalysisProcessor analysisProcessor;
+    private final AnalysisProcessor analysis;
+    /**
+     * See {@link QueryCommand#getCacheKey()}.
+     */
+    private final String cacheKey;
+    /**
+     * The file the result is written to, can be null.
+     */
+    private final File resultFile;
+    private final DateTime created;
+    private volatile Future<?> future;
+    /**
+     * The full matrix information (JSON) once the job is finished.
+     */
+    private volatile String result;
+    private volatile String error;
+    /**
+     * Whether the result has been read from a file instead of being computed
+     * by this job, see {@link #fromResultFile}.
+     */
+    private volatile boolean restored;
+    /**
+     * The number of client requests answered by this job that have not
+     * cancelled it.
+     */
+    private final AtomicInteger clients = new AtomicInteger(1);
+
+    /**
+     *
+     * @param analysisProcessor the processor that created {@code analysis},
+     * the finished analysis is added to it.
+     * @param analysis
+     * @param cacheKey
+     * @param resultFile if not null, the result is written to this file.
+     */
+    public QueryJob(AnalysisProcessor analysisProcessor, AnalysisProcessor analysis,
+            String cacheKey, File resultFile) {
+        this.analysisProcessor = analysisProcessor;
+        this.analysis = analysis;
+        this.cacheKey = cacheKey;
+        this.resultFile = resultFile;
+        this.created = DateTime.now();
+    }
+
+    /**
+     * Creates a finished job from a result that has been written to
+     * {@code resultFile} by an earlier job. Note that only the matrix
+     * information is available, the analysis itself (needed for cell
+     * information) is not restored.
+     *
+     * @param analysisProcessor
+     * @param analysis
+     * @param cacheKey
+     * @param resultFile
+     * @return
+     * @throws IOException
+     */
+    public static QueryJob fromResultFile(AnalysisProcessor analysisProcessor, AnalysisProcessor analysis,
+            String cacheKey, File resultFile) throws IOException {
+        final QueryJob job = new QueryJob(analysisProcessor, analysis, cacheKey, null);
+        try {
+            job.result = FileUtils.readFileToString(resultFile, StandardCharsets.UTF_8);
+            job.restored = true;
+        } finally {
+            // the analysis is not computed, thus its index is not needed
+            analysis.getAnalysisWorkflow().release();
+        }
+        analysis.getProgress().finish(AnalysisProgress.Stage.FINISHED);
+        return job;
+    }
+
+    @Override
+    public void run() {
+        final AnalysisProgress progress = analysis.getProgress();
+        try {
+            analysis
+                    .buildTable()
+                    .computeTopics()
+                    .computeSummaries();
+            //   .computeTokenScoresByParser();
+
+            result = new TableToWebConverter(analysis.getAnalysisWorkflow().getTableManager(),
+                    analysis.getAnalysisWorkflow().getTopicExtractor().getEstimation()).getFullMatrixInformation();
+            analysisProcessor.addAnalysis(analysis);
+            writeResult();
+            progress.finish(AnalysisProgress.Stage.FINISHED);
+            LOG.log(Level.INFO, "finished job {0}", getId());
+        } catch (CancellationException e) {
+            analysis.getAnalysisWorkflow().release();
+            progress.finish(AnalysisProgress.Stage.CANCELLED);
+            LOG.log(Level.INFO, "cancelled job {0}", getId());
+        } catch (RuntimeException e) {
+            analysis.getAnalysisWorkflow().release();
+            error = e.toString();
+            progress.finish(AnalysisProgress.Stage.FAILED);
+            LOG.log(Level.SEVERE, "job " + getId() + " failed", e);
+        }
+    }
+
+    /**
+     * Removes the analysis of this job from the {@link AnalysisProcessor} and
+     * releases its index. Must only be called once the job is done.
+     */
+    public void release() {
+        analysisProcessor.removeAnalysis(analysis);
+    }
+
+    private void writeResult() {
+        if (resultFile == null) {
+            return;
+        }
+        try {
+            FileUtils.writeStringToFile(resultFile, result, StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "could not write result of job " + getId(), ex);
+        }
+    }
+
+    /**
+     * Registers another client request that is answered by this job, which
+     * must then also cancel it before the job is actually cancelled.
+     */
+    void addClient() {
+        clients.incrementAndGet();
+    }
+
+    /**
+     * Cancels this job for one of its clients (see {@link #addClient()}). The
+     * job is only actually cancelled if no other client still waits for it. A
+     * queued job is not started at all, a running job stops at the next check
+     * of its {@link AnalysisProgress}. The worker thread is not interrupted,
+     * since an interrupt would close the channels of the shared index.
+     *
+     * @return {@code false} if the job is already done or still needed by
+     * other clients.
+     */
+    public boolean cancel() {
+        if (isDone()) {
+            return false;
+        }
+        if (clients.decrementAndGet() > 0) {
+            LOG.log(Level.INFO, "not cancelling job {0}, it is still requested by {1} clients",
+                    new Object[]{getId(), clients.get()});
+            return false;
+        }
+        final AnalysisProgress progress = analysis.getProgress();
+        progress.cancel();
+        if (progress.getStage() == AnalysisProgress.Stage.QUEUED && future.cancel(false)) {
+            analysis.getAnalysisWorkflow().release();
+            progress.finish(AnalysisProgress.Stage.CANCELLED);
+        }
+        LOG.log(Level.INFO, "cancelling job {0}", getId());
+        return true;
+    }
+
+    public boolean isDone() {
+        switch (analysis.getProgress().getStage()) {
+            case FINISHED:
+            case FAILED:
+            case CANCELLED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns whether this job is finished successfully or may still do so,
+     * i.e., it is neither failed nor cancelled.
+     *
+     * @return
+     */
+    public boolean isUsable() {
+        final AnalysisProgress.Stage stage = analysis.getProgress().getStage();
+        return stage != AnalysisProgress.Stage.FAILED && stage != AnalysisProgress.Stage.CANCELLED;
+    }
+
+    /**
+     * Returns whether this job has computed its analysis successfully, i.e.,
+     * it is finished and its result has not been read from a file. Only then
+     * the analysis can provide cell information.
+     *
+     * @return
+     */
+    public boolean isComputed() {
+        return result != null && !restored;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    public String getId() {
+        return analysis.getAnalysisId();
+    }
+
+    public AnalysisProcessor getAnalysis() {
+        return analysis;
+    }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public DateTime getCreated() {
+        return created;
+    }
+
+    /**
+     * Returns the full matrix information (JSON), or {@code null} if this job
+     * is not finished (successfully).
+     *
+     * @return
+     */
+    public String getResult() {
+        return result;
+    }
+
+    public Status getStatus() {
+        return new Status(this);
+    }
+
+    /**
+     * The state of a {@link QueryJob} as sent to the client.
+     */
+    public static class Status {
+
+        private final String id;
+        private final AnalysisProgress.Stage stage;
+        /**
+         * Finished and total work units (cells or topics) of the stage.
+         */
+        private final int stepsDone;
+        private final int stepsTotal;
+        private final int topicIterationsDone;
+        private final int topicIterationsTotal;
+        private final DateTime created;
+        private final String error;
+
+        private Status(QueryJob job) {
+            final AnalysisProgress progress = job.analysis.getProgress();
+            this.id = job.getId();
+            this.stage = progress.getStage();
+            this.stepsDone = progress.getStepsDone();
+            this.stepsTotal = progress.getStepsTotal();
+            this.topicIterationsDone = progress.getTopicIterationsDone();
+            this.topicIterationsTotal = progress.getTopicIterationsTotal();
+            this.created = job.created;
+            this.error = job.error;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public AnalysisProgress.Stage getStage() {
+            return stage;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Author: Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+package kn.uni.hamborg.web.query;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import kn.uni.hamborg.adv.AnalysisConfiguration;
+import kn.uni.hamborg.adv.AnalysisProcessor;
+import kn.uni.hamborg.config.FileConfig;
+
+/**
+ * Executes {@link QueryJob}s asynchronously. At most
+ * {@code maxConcurrentJobs} jobs run at the same time, at most
+ * {@code maxQueuedJobs} further jobs wait for execution.
+ *
+ * Jobs also serve as a cache of analysis results: a query with the same
+ * {@link QueryCommand#getCacheKey()} as a known job (that is not failed or
+ * cancelled) on the same version of the index is answered by that job instead
+ * of computing the matrix again.
+ * A job answering several clients is only cancelled once all of them have
+ * cancelled it.
+ * The least recently requested finished jobs are removed if more than
+ * {@link AnalysisConfiguration#numberOfRetainedAnalyses} jobs are finished,
+ * whenever a job is submitted or looked up, and every
+ * {@link #REMOVAL_INTERVAL_SECONDS} seconds, as jobs finish in between.
+ * If {@link AnalysisConfiguration#persistAnalysisResults} is set, the matrix
+ * information of finished jobs is also stored on disk and served from there
+ * after a restart or after the job has been removed.
+ *
+ * @author Felix Hamborg <felix.hamborg@uni-konstanz.de>
+ */
+public class QueryJobManager {
+
+    private static final Logger LOG = Logger.getLogger(QueryJobManager.class.getSimpleName());
+
+    private static final int REMOVAL_INTERVAL_SECONDS = 60;
+
+    private final AnalysisProcessor analysisProcessor;
+    private final ThreadPoolExecutor executor;
+    /**
+     * All known jobs by their ID.
+     */
+    private final Map<String, QueryJob> jobs;
+    /**
+     * All known jobs by their cache key, least recently requested first.
+     */
+    private final Map<String, QueryJob> jobsByCacheKey;
+    /**
+     * The directory of the stored matrix information, null if results are
+     * not persisted.
+     */
+    private final File resultDir;
+
+    public QueryJobManager(AnalysisProcessor analysisProcessor, int maxConcurrentJobs, int maxQueuedJobs) {
+        this.analysisProcessor = analysisProcessor;
+        this.executor = new ThreadPoolExecutor(maxConcurrentJobs, maxConcurrentJobs, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueuedJobs),
+                new ThreadFactoryBuilder().setNameFormat("query-%d").setDaemon(true).build());
+        this.jobs = new LinkedHashMap<>();
+        this.jobsByCacheKey = new LinkedHashMap<>(16, 0.75f, true);
+        this.resultDir = AnalysisConfiguration.persistAnalysisResults
+                ? new File(FileConfig.basePathMpProjectData, "matrixcache")
+                : null;
+
+        final ScheduledExecutorService remover = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("query-removal-%d").setDaemon(true).build());
+        remover.scheduleWithFixedDelay(() -> {
+            try {
+                synchronized (this) {
+                    removeFinishedJobs();
+                }
+            } catch (RuntimeException ex) {
+                LOG.log(Level.WARNING, "could not remove finished jobs", ex);
+            }
+        }, REMOVAL_INTERVAL_SECONDS, REMOVAL_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the job answering {@code queryCommand}. This is a known job for
+     * an equal query, or a job created from the stored result, or else a new
+     * job queued for execution.
+     *
+     * @param queryCommand
+     * @return
+     * @throws RejectedExecutionException if the queue is full.
+     */
+    public synchronized QueryJob submit(QueryCommand queryCommand) {
+        // results are only valid as long as no documents are added to the index
+        final String cacheKey = queryCommand.getCacheKey() + "-"
+                + analysisProcessor.getAnalysisWorkflow().getIndexVersion();
+
+        final QueryJob knownJob = jobsByCacheKey.get(cacheKey);
+        if (knownJob != null && knownJob.isUsable()) {
+            knownJob.addClient();
+            if (knownJob.isComputed()) {
+                // make it the latest analysis again, so that cell information refers to it
+                analysisProcessor.addAnalysis(knownJob.getAnalysis());
+            }
+            LOG.log(Level.INFO, "answering query by known job {0}", knownJob.getId());
+            return knownJob;
+        }
+
+        final File resultFile = resultDir == null ? null : new File(resultDir, cacheKey + ".json");
+        QueryJob job = null;
+        if (resultFile != null && resultFile.exists()) {
+            try {
+                job = QueryJob.fromResultFile(analysisProcessor, analysisProcessor.withQuery(queryCommand),
+                        cacheKey, resultFile);
+                LOG.log(Level.INFO, "answering query by stored result {0}", resultFile);
+            } catch (IOException ex) {
+                LOG.log(Level.WARNING, "could not read stored result " + resultFile, ex);
+            }
+        }
+        if (job == null) {
+            job = new QueryJob(analysisProcessor, analysisProcessor.withQuery(queryCommand), cacheKey, resultFile);
+            job.setFuture(executor.submit(job));
+        }
+        jobs.put(job.getId(), job);
+        jobsByCacheKey.put(cacheKey, job);
+        removeFinishedJobs();
+
+        LOG.log(Level.INFO, "submitted job {0} ({1} running, {2} queued)",
+                new Object[]{job.getId(), executor.getActiveCount(), executor.getQueue().size()});
+        return job;
+    }
+
+    /**
+     * Returns the job with the given ID, or {@code null} if there is no such
+     * job (anymore). The job counts as requested, i.e., it is the last one to
+     * be removed.
+     *
+     * @param id
+     * @return
+     */
+    public synchronized QueryJob getJob(String id) {
+        final QueryJob job = jobs.get(id);
+        if (job != null) {
+            // moves the job to the end of the access order
+            jobsByCacheKey.get(job.getCacheKey());
+        }
+        removeFinishedJobs();
+        return job;
+    }
+
+    /**
+     * Removes the least recently requested finished jobs, so that at most
+     * {@link AnalysisConfiguration#numberOfRetainedAnalyses} finished jobs
+     * are kept. Failed and cancelled jobs are not requested by cache key
+     * anymore, they are removed from there at once.
+     */
+    private void removeFinishedJobs() {
+        jobsByCacheKey.values().removeIf(job -> !job.isUsable());
+
+        int numberOfFinishedJobs = 0;
+        for (QueryJob job : jobs.values()) {
+            if (job.isDone()) {
+                numberOfFinishedJobs++;
+            }
+        }
+
+        // failed and cancelled jobs are removed first
+        final Iterator<QueryJob> it = jobs.values().iterator();
+        while (numberOfFinishedJobs > AnalysisConfiguration.numberOfRetainedAnalyses && it.hasNext()) {
+            final QueryJob job = it.next();
+            if (job.isDone() && !job.isUsable()) {
+                it.remove();
+                job.release();
+                numberOfFinishedJobs--;
+            }
+        }
+        final Iterator<QueryJob> lruIt = jobsByCacheKey.values().iterator();
+        while (numberOfFinishedJobs > AnalysisConfiguration.numberOfRetainedAnalyses && lruIt.hasNext()) {
+            final QueryJob job = lruIt.next();
+            if (job.isDone()) {
+                lruIt.remove();
+                jobs.remove(job.getId());
+                job.release();
+                numberOfFinishedJobs--;
+            }
+        }
+        // removes cancelled jobs from the queue
+        executor.purge();
+    }
+}